@@ -0,0 +1,44 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler, so that each result comes
+ * with the bytes allocated by operation ({@code gc.alloc.rate.norm}).
+ * <p>
+ * The usual JMH command line options are accepted, for instance
+ * {@code java -jar target/benchmarks.jar GetDuration -p slotCount=4}.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Simple private constructor, this class is not meant to be instantiated.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args the JMH command line options.
+     * @throws CommandLineOptionException if the options can not be parsed.
+     * @throws RunnerException            if a benchmark fails.
+     */
+    public static void main(String[] args)
+            throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
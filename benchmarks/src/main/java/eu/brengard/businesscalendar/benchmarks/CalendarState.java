@@ -0,0 +1,152 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessDay;
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.HolidayRule;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * A business calendar shared by the benchmarks, parameterized by the number
+ * of time slots of each business day, the density of holidays, the holiday
+ * rules and the zone of the queries.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+public class CalendarState {
+
+    /**
+     * {@value FIRST_HOLIDAY_YEAR} First year of the generated holidays.
+     */
+    private static final int FIRST_HOLIDAY_YEAR = 1990;
+
+    /**
+     * {@value LAST_HOLIDAY_YEAR} Last year of the generated holidays,
+     * exclusive.
+     */
+    private static final int LAST_HOLIDAY_YEAR = 2060;
+
+    /**
+     * Number of time slots of each business day, spread from 8:00 to 18:00.
+     */
+    @Param({"1", "4", "16"})
+    public int slotCount;
+
+    /**
+     * Share of the days, from 1990 to 2060, that are holidays.
+     */
+    @Param({"0.0", "0.05", "0.2"})
+    public double holidayDensity;
+
+    /**
+     * Whether the calendar also has the holiday rules of a french calendar,
+     * easter included.
+     */
+    @Param({"false", "true"})
+    public boolean holidayRules;
+
+    /**
+     * Zone of the queries.
+     */
+    @Param({"UTC", "Europe/Paris", "Australia/Lord_Howe"})
+    public String zoneId;
+
+    /**
+     * The business calendar, monday to friday.
+     */
+    public BusinessCalendar businessCalendar;
+
+    /**
+     * The zone of the queries.
+     */
+    public ZoneId zone;
+
+    /**
+     * Build the business calendar from the parameters, and compile it.
+     */
+    @Setup
+    public void setUp() {
+        Set<BusinessDay> businessDays = new HashSet<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek != DayOfWeek.SATURDAY
+                    && dayOfWeek != DayOfWeek.SUNDAY) {
+                businessDays.add(BusinessDay.of(dayOfWeek,
+                        timeSlots(slotCount)));
+            }
+        }
+
+        Random random = new Random(42);
+        Set<LocalDate> holidays = new HashSet<>();
+        for (LocalDate date = LocalDate.of(FIRST_HOLIDAY_YEAR, 1, 1);
+             date.getYear() < LAST_HOLIDAY_YEAR; date = date.plusDays(1)) {
+            if (random.nextDouble() < holidayDensity) {
+                holidays.add(date);
+            }
+        }
+
+        businessCalendar = BusinessCalendar.of(businessDays, holidays);
+        if (holidayRules) {
+            Set<HolidayRule> rules = new HashSet<>();
+            for (String rule : new String[]{"1/1", "easter+1", "1/5", "8/5",
+                    "easter+39", "easter+50", "14/7", "15/8", "1/11", "11/11",
+                    "25/12"}) {
+                rules.add(HolidayRule.parse(rule));
+            }
+            businessCalendar.setHolidayRules(rules);
+        }
+        zone = ZoneId.of(zoneId);
+        businessCalendar.isWorkingTime(
+                LocalDate.of(2016, 1, 4).atTime(9, 0).atZone(zone));
+    }
+
+    /**
+     * Build time slots spread from 8:00 to 18:00, each one lasting half of
+     * its share of the window.
+     *
+     * @param count the number of time slots, positive.
+     * @return the time slots, not null.
+     */
+    static Set<BusinessTimeSlot> timeSlots(int count) {
+        Set<BusinessTimeSlot> timeSlots = new HashSet<>();
+        long step = 600 / count;
+        for (int i = 0; i < count; i++) {
+            LocalTime start = LocalTime.of(8, 0).plusMinutes(i * step);
+            timeSlots.add(BusinessTimeSlot.of(start,
+                    start.plusMinutes(step / 2)));
+        }
+        return timeSlots;
+    }
+
+    /**
+     * Build time slots spread from 8:00 to 18:00, as {@code H:mm-H:mm}
+     * separated by commas.
+     *
+     * @param count the number of time slots, positive.
+     * @return the time slots as string, not null.
+     * @see #timeSlots(int)
+     */
+    static String timeSlotsString(int count) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
+        StringJoiner joiner = new StringJoiner(",");
+        for (BusinessTimeSlot timeSlot : timeSlots(count)) {
+            joiner.add(formatter.format(timeSlot.getStartInclusive()) + "-"
+                    + formatter.format(timeSlot.getEndExclusive()));
+        }
+        return joiner.toString();
+    }
+}
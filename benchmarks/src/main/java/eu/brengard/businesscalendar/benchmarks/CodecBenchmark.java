@@ -0,0 +1,80 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import eu.brengard.businesscalendar.util.BusinessCalendarCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code BusinessCalendarCodec.read} against Java
+ * serialization. Both read an {@code ImmutableBusinessCalendar}, compiled
+ * once read.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    /**
+     * The calendar written by the codec.
+     */
+    private byte[] encoded;
+
+    /**
+     * The calendar written by Java serialization.
+     */
+    private byte[] serialized;
+
+    /**
+     * Write the business calendar with the codec and with Java
+     * serialization.
+     *
+     * @param calendarState the business calendar, not null.
+     * @throws IOException if the calendar can not be written.
+     */
+    @Setup
+    public void setUp(CalendarState calendarState) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BusinessCalendarCodec.write(calendarState.businessCalendar,
+                new DataOutputStream(bytes));
+        encoded = bytes.toByteArray();
+
+        bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(ImmutableBusinessCalendar.copyOf(
+                    calendarState.businessCalendar));
+        }
+        serialized = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public ImmutableBusinessCalendar read() throws IOException {
+        return BusinessCalendarCodec.read(
+                new DataInputStream(new ByteArrayInputStream(encoded)));
+    }
+
+    @Benchmark
+    public Object readObject() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(
+                new ByteArrayInputStream(serialized))) {
+            return input.readObject();
+        }
+    }
+}
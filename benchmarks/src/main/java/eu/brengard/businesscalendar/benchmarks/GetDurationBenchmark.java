@@ -0,0 +1,84 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code BusinessCalendar.getDuration} over spans from the same
+ * day to 300 years.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GetDurationBenchmark {
+
+    /**
+     * Span between the two dates.
+     */
+    public enum Span {
+        SAME_DAY, ONE_WEEK, ONE_YEAR, THIRTY_YEARS, THREE_HUNDRED_YEARS
+    }
+
+    /**
+     * Span between the two dates.
+     */
+    @Param
+    public Span span;
+
+    /**
+     * The start date.
+     */
+    private ZonedDateTime startInclusive;
+
+    /**
+     * The end date.
+     */
+    private ZonedDateTime endExclusive;
+
+    /**
+     * Build the two dates from the span, in the zone of the calendar.
+     *
+     * @param calendarState the business calendar, not null.
+     */
+    @Setup
+    public void setUp(CalendarState calendarState) {
+        LocalDateTime start = LocalDateTime.of(2000, 3, 6, 10, 17);
+        startInclusive = start.atZone(calendarState.zone);
+        switch (span) {
+            case SAME_DAY:
+                endExclusive = start.plusHours(6).atZone(calendarState.zone);
+                break;
+            case ONE_WEEK:
+                endExclusive = start.plusWeeks(1).atZone(calendarState.zone);
+                break;
+            case ONE_YEAR:
+                endExclusive = start.plusYears(1).atZone(calendarState.zone);
+                break;
+            case THIRTY_YEARS:
+                endExclusive = start.plusYears(30).atZone(calendarState.zone);
+                break;
+            default:
+                endExclusive = start.plusYears(300).atZone(calendarState.zone);
+        }
+    }
+
+    @Benchmark
+    public Duration getDuration(CalendarState calendarState) {
+        return calendarState.businessCalendar.getDuration(startInclusive,
+                endExclusive);
+    }
+}
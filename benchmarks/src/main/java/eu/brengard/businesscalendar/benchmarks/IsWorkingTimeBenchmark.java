@@ -0,0 +1,87 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code BusinessCalendar.isWorkingTime}, on random instants of
+ * the years 2000 to 2030, both from a {@code ZonedDateTime} and from an
+ * epoch milli.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IsWorkingTimeBenchmark {
+
+    /**
+     * {@value SIZE} Number of instants, a power of two.
+     */
+    private static final int SIZE = 1 << 12;
+
+    /**
+     * The instants as epoch millis.
+     */
+    private long[] epochMillis;
+
+    /**
+     * The instants in the zone of the calendar.
+     */
+    private ZonedDateTime[] zonedDateTimes;
+
+    /**
+     * Index of the next instant.
+     */
+    private int index;
+
+    /**
+     * Build random instants in the zone of the calendar.
+     *
+     * @param calendarState the business calendar, not null.
+     */
+    @Setup
+    public void setUp(CalendarState calendarState) {
+        Random random = new Random(42);
+        long start = LocalDate.of(2000, 1, 1).atStartOfDay()
+                .toInstant(ZoneOffset.UTC).toEpochMilli();
+        long end = LocalDate.of(2030, 1, 1).atStartOfDay()
+                .toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        epochMillis = new long[SIZE];
+        zonedDateTimes = new ZonedDateTime[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            epochMillis[i] = start
+                    + (long) (random.nextDouble() * (end - start));
+            zonedDateTimes[i] = Instant.ofEpochMilli(epochMillis[i])
+                    .atZone(calendarState.zone);
+        }
+    }
+
+    @Benchmark
+    public Boolean isWorkingTime(CalendarState calendarState) {
+        index = (index + 1) & (SIZE - 1);
+        return calendarState.businessCalendar
+                .isWorkingTime(zonedDateTimes[index]);
+    }
+
+    @Benchmark
+    public boolean isWorkingTimeEpochMilli(CalendarState calendarState) {
+        index = (index + 1) & (SIZE - 1);
+        return calendarState.businessCalendar
+                .isWorkingTime(epochMillis[index], calendarState.zone);
+    }
+}
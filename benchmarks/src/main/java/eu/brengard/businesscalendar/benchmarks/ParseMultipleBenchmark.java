@@ -0,0 +1,50 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code BusinessTimeSlot.parseMultiple}.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParseMultipleBenchmark {
+
+    /**
+     * Number of time slots to parse.
+     */
+    @Param({"1", "4", "16"})
+    public int slotCount;
+
+    /**
+     * The time slots to parse, as {@code H:mm-H:mm} separated by commas.
+     */
+    private String timeSlots;
+
+    /**
+     * Build the time slots to parse.
+     */
+    @Setup
+    public void setUp() {
+        timeSlots = CalendarState.timeSlotsString(slotCount);
+    }
+
+    @Benchmark
+    public Set<BusinessTimeSlot> parseMultiple() {
+        return BusinessTimeSlot.parseMultiple(timeSlots);
+    }
+}
@@ -0,0 +1,85 @@
+package eu.brengard.businesscalendar.benchmarks;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.util.PropertiesLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@code PropertiesLoader} loading, from the bytes of a
+ * properties file to a business calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertiesLoaderBenchmark {
+
+    /**
+     * Number of time slots of each business day.
+     */
+    @Param({"1", "4", "16"})
+    public int slotCount;
+
+    /**
+     * Share of the days, over 10 years, that are holidays.
+     */
+    @Param({"0.0", "0.05", "0.2"})
+    public double holidayDensity;
+
+    /**
+     * The properties file.
+     */
+    private byte[] properties;
+
+    /**
+     * Build the properties file from the parameters.
+     */
+    @Setup
+    public void setUp() {
+        String timeSlots = CalendarState.timeSlotsString(slotCount);
+
+        StringBuilder builder = new StringBuilder();
+        for (String weekDay : new String[]{"monday", "tuesday", "wednesday",
+                "thursday", "friday"}) {
+            builder.append("weekday.").append(weekDay).append('=')
+                    .append(timeSlots).append('\n');
+        }
+
+        Random random = new Random(42);
+        StringJoiner holidays = new StringJoiner(",");
+        for (LocalDate date = LocalDate.of(2010, 1, 1);
+             date.getYear() < 2020; date = date.plusDays(1)) {
+            if (random.nextDouble() < holidayDensity) {
+                holidays.add(date.getDayOfMonth() + "/"
+                        + date.getMonthValue() + "/" + date.getYear());
+            }
+        }
+        builder.append("holidays=").append(holidays).append('\n');
+
+        properties = builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public BusinessCalendar load() {
+        PropertiesLoader propertiesLoader = PropertiesLoader.load(
+                new ByteArrayInputStream(properties));
+        return BusinessCalendar.of(propertiesLoader.getBusinessDays(),
+                propertiesLoader.getHolidays());
+    }
+}
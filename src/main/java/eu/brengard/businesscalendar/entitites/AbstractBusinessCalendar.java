@@ -0,0 +1,638 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarNoWorkingTimeException;
+import eu.brengard.businesscalendar.metrics.CalendarMetrics;
+import eu.brengard.businesscalendar.metrics.Metrics;
+
+import java.io.Serializable;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The queries of a business calendar, shared by its mutable and immutable
+ * implementations.
+ * <p>
+ * Every query reads a compiled snapshot of the calendar business days and
+ * holidays, given by the implementation.
+ * <p>
+ * The time slots are read on the wall clock of the zone of the query, and
+ * the durations are the working time actually elapsed: on a daylight saving
+ * time transition, the working time of the skipped wall clock hour is not
+ * counted, and the one of the repeated hour is counted twice.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar
+ * @see ImmutableBusinessCalendar
+ * @since 1.8
+ */
+public abstract class AbstractBusinessCalendar implements Serializable {
+
+    /**
+     * Simple constructor, for the implementations of this package only.
+     */
+    AbstractBusinessCalendar() {
+    }
+
+    /**
+     * Get the duration getDuration two zonedDateTimes. This duration is
+     * calculated from "working hours" (eg: Duration = real Duration - off
+     * hours Duration - holidays Duration). The time slots are read in the
+     * zone of startInclusive.
+     * <p>
+     * The query is reported to the {@link CalendarMetrics} installed, if
+     * any.
+     *
+     * @param startInclusive the start instant, inclusive, not null.
+     * @param endExclusive   the end instant, exclusive, not null.
+     * @return the duration getDuration two zonedDateTimes, not null, eventually
+     * negative.
+     * @see Metrics#install(CalendarMetrics)
+     */
+    public Duration getDuration(ZonedDateTime startInclusive,
+                                ZonedDateTime endExclusive) {
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        CalendarMetrics metrics = Metrics.installed();
+        if (metrics == CalendarMetrics.NOOP) {
+            return Duration.ofNanos(
+                    nanosBetween(compiled(), startInclusive, endExclusive));
+        }
+        long start = System.nanoTime();
+        Duration duration = Duration.ofNanos(
+                nanosBetween(compiled(), startInclusive, endExclusive));
+        metrics.durationComputed(this, startInclusive, endExclusive,
+                System.nanoTime() - start);
+        return duration;
+    }
+
+    /**
+     * Get the "working hours" nanos between two zonedDateTimes.
+     *
+     * @param compiled       the compiled calendar, not null.
+     * @param startInclusive the start instant, inclusive, not null.
+     * @param endExclusive   the end instant, exclusive, not null.
+     * @return the "working hours" nanos, eventually negative.
+     */
+    private static long nanosBetween(CompiledCalendar compiled,
+                                     ZonedDateTime startInclusive,
+                                     ZonedDateTime endExclusive) {
+        return ZonedCalendar.of(compiled, startInclusive.getZone())
+                .nanosBetween(startInclusive, endExclusive);
+    }
+
+    /**
+     * Obtains a {@code Collector} summing the "working hours" durations of
+     * the elements of a stream, each element giving a start and an end
+     * zonedDateTime.
+     * <p>
+     * The nanos are summed in a primitive accumulator and turned into a
+     * {@code Duration} once, at the end. The collector reads an immutable
+     * snapshot of the calendar taken when this method is called, so it can
+     * be used on a parallel stream.
+     *
+     * @param startFunction function giving the start instant of an element,
+     *                      inclusive, not null.
+     * @param endFunction   function giving the end instant of an element,
+     *                      exclusive, not null.
+     * @param <T>           the type of the elements.
+     * @return the collector, not null.
+     * @throws ArithmeticException if the sum is too large to be held in
+     *                             nanos.
+     */
+    public <T> Collector<T, ?, Duration> summingDuration(
+            Function<? super T, ZonedDateTime> startFunction,
+            Function<? super T, ZonedDateTime> endFunction) {
+        Objects.requireNonNull(startFunction, "startFunction");
+        Objects.requireNonNull(endFunction, "endFunction");
+
+        CompiledCalendar snapshot = compiled();
+        return Collector.of(
+                () -> new long[1],
+                (nanos, element) -> nanos[0] = Math.addExact(nanos[0],
+                        nanosBetween(snapshot,
+                                startFunction.apply(element),
+                                endFunction.apply(element))),
+                (left, right) -> {
+                    left[0] = Math.addExact(left[0], right[0]);
+                    return left;
+                },
+                nanos -> Duration.ofNanos(nanos[0]),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Obtains a {@code Collector} summing the "working hours" durations of
+     * the elements of a stream by key (eg: the total "working hours" by
+     * assignee).
+     *
+     * @param keyFunction   function giving the key of an element, not null.
+     * @param startFunction function giving the start instant of an element,
+     *                      inclusive, not null.
+     * @param endFunction   function giving the end instant of an element,
+     *                      exclusive, not null.
+     * @param <T>           the type of the elements.
+     * @param <K>           the type of the keys.
+     * @return the collector, not null.
+     * @see #summingDuration(Function, Function)
+     */
+    public <T, K> Collector<T, ?, Map<K, Duration>> summingDurationBy(
+            Function<? super T, ? extends K> keyFunction,
+            Function<? super T, ZonedDateTime> startFunction,
+            Function<? super T, ZonedDateTime> endFunction) {
+        Objects.requireNonNull(keyFunction, "keyFunction");
+
+        return Collectors.groupingBy(keyFunction,
+                summingDuration(startFunction, endFunction));
+    }
+
+    /**
+     * Get the zonedDateTime at which a duration of "working hours" has
+     * elapsed since a zonedDateTime (eg: 4 working hours after a ticket
+     * creation). When the duration is reached at the end of a time slot, the
+     * end of that time slot is returned rather than the start of the next one.
+     *
+     * @param zonedDateTime the start zonedDateTime, not null.
+     * @param duration      the "working hours" duration to add, not null,
+     *                      eventually negative.
+     * @return the first zonedDateTime reaching the duration, in the zone of
+     * zonedDateTime, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     * @throws ArithmeticException                    if the duration is too
+     *                                                large to be held in
+     *                                                nanos.
+     */
+    public ZonedDateTime plus(ZonedDateTime zonedDateTime, Duration duration) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+        Objects.requireNonNull(duration, "duration");
+
+        if (duration.isNegative()) {
+            return minus(zonedDateTime, duration.negated());
+        }
+        if (duration.isZero()) {
+            return zonedDateTime;
+        }
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .plus(zonedDateTime, duration.toNanos());
+    }
+
+    /**
+     * Get the zonedDateTime from which a duration of "working hours" elapses
+     * until a zonedDateTime. When the duration is reached at the start of a
+     * time slot, the start of that time slot is returned rather than the end
+     * of the previous one.
+     *
+     * @param zonedDateTime the end zonedDateTime, not null.
+     * @param duration      the "working hours" duration to subtract, not
+     *                      null, eventually negative.
+     * @return the last zonedDateTime reaching the duration, in the zone of
+     * zonedDateTime, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     * @throws ArithmeticException                    if the duration is too
+     *                                                large to be held in
+     *                                                nanos.
+     */
+    public ZonedDateTime minus(ZonedDateTime zonedDateTime, Duration duration) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+        Objects.requireNonNull(duration, "duration");
+
+        if (duration.isNegative()) {
+            return plus(zonedDateTime, duration.negated());
+        }
+        if (duration.isZero()) {
+            return zonedDateTime;
+        }
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .minus(zonedDateTime, duration.toNanos());
+    }
+
+    /**
+     * Get the "working hours" millis between two epoch millis in a zone.
+     * This is the primitive counterpart of
+     * {@link #getDuration(ZonedDateTime, ZonedDateTime)}: it does not create
+     * any object once the calendar is compiled and the zone resolved.
+     *
+     * @param startEpochMilli the start epoch milli, inclusive.
+     * @param endEpochMilli   the end epoch milli, exclusive.
+     * @param zone            the zone of the calendar, not null.
+     * @return the "working hours" millis, rounded toward zero, negative if
+     * startEpochMilli is after endEpochMilli.
+     */
+    public long businessMillisBetween(long startEpochMilli, long endEpochMilli,
+                                      ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        return compiled().nanosBetweenEpochMillis(ZoneTable.of(zone),
+                startEpochMilli, endEpochMilli)
+                / CompiledCalendar.NANOS_PER_MILLI;
+    }
+
+    /**
+     * Check if an epoch milli is in "working hours" in a zone. This is the
+     * primitive counterpart of {@link #isWorkingTime(ZonedDateTime)}: it
+     * does not create any object once the calendar is compiled and the zone
+     * resolved.
+     *
+     * @param epochMilli the epoch milli to check.
+     * @param zone       the zone of the calendar, not null.
+     * @return true if the epoch milli is in "working hours", false if not.
+     */
+    public boolean isWorkingTime(long epochMilli, ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        return compiled().isWorkingTimeLocalMilli(
+                ZoneTable.of(zone).toLocalEpochMilli(epochMilli));
+    }
+
+    /**
+     * Get the "working hours" seconds between pairs of epoch seconds in a
+     * zone, for columnar data. The calendar is compiled and the zone
+     * resolved once for the whole batch, and nothing is created per row.
+     *
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null, of
+     *                       the same length as startsEpochSec.
+     * @param zone           the zone of the calendar, not null.
+     * @param out            the array receiving the "working hours" seconds
+     *                       of each row, rounded toward zero, negative if
+     *                       the start is after the end, not null, at least
+     *                       as long as startsEpochSec.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     */
+    public void durations(long[] startsEpochSec, long[] endsEpochSec,
+                          ZoneId zone, long[] out) {
+        checkDurations(startsEpochSec, endsEpochSec, zone, out);
+
+        compiled().secondsBetween(ZoneTable.of(zone), startsEpochSec,
+                endsEpochSec, out, 0, startsEpochSec.length);
+    }
+
+    /**
+     * Get the "working hours" seconds between pairs of epoch seconds in a
+     * zone, splitting the rows across the common {@link ForkJoinPool}.
+     *
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null, of
+     *                       the same length as startsEpochSec.
+     * @param zone           the zone of the calendar, not null.
+     * @param out            the array receiving the "working hours" seconds
+     *                       of each row, not null, at least as long as
+     *                       startsEpochSec.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     * @see #parallelDurations(long[], long[], ZoneId, long[], ForkJoinPool)
+     */
+    public void parallelDurations(long[] startsEpochSec, long[] endsEpochSec,
+                                  ZoneId zone, long[] out) {
+        parallelDurations(startsEpochSec, endsEpochSec, zone, out,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Get the "working hours" seconds between pairs of epoch seconds in a
+     * zone, splitting the rows across a {@link ForkJoinPool}.
+     * <p>
+     * Every task reads the same immutable snapshot of the calendar, taken
+     * when this method is called: the calendar must not be modified until it
+     * returns. Each row is written at its own index, so the output is the
+     * same as {@link #durations(long[], long[], ZoneId, long[])}.
+     *
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null, of
+     *                       the same length as startsEpochSec.
+     * @param zone           the zone of the calendar, not null.
+     * @param out            the array receiving the "working hours" seconds
+     *                       of each row, not null, at least as long as
+     *                       startsEpochSec.
+     * @param pool           the pool running the tasks, not null.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     */
+    public void parallelDurations(long[] startsEpochSec, long[] endsEpochSec,
+                                  ZoneId zone, long[] out, ForkJoinPool pool) {
+        checkDurations(startsEpochSec, endsEpochSec, zone, out);
+        Objects.requireNonNull(pool, "pool");
+
+        pool.invoke(new DurationsTask(compiled(), ZoneTable.of(zone),
+                startsEpochSec, endsEpochSec, out, 0, startsEpochSec.length));
+    }
+
+    /**
+     * Obtains a {@code Spliterator} over the "working hours" seconds
+     * between pairs of epoch seconds in a zone. The spliterator splits
+     * the rows in halves, so that a parallel stream scales with the number of
+     * threads. The arrays are not copied: they are read as the rows are
+     * traversed, and must not be modified meanwhile.
+     *
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null, of
+     *                       the same length as startsEpochSec.
+     * @param zone           the zone of the calendar, not null.
+     * @return the spliterator over the "working hours" seconds of each row,
+     * rounded toward zero, not null.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     */
+    public Spliterator.OfLong durationsSpliterator(long[] startsEpochSec,
+                                                   long[] endsEpochSec,
+                                                   ZoneId zone) {
+        checkRows(startsEpochSec, endsEpochSec, zone);
+
+        return new DurationsSpliterator(compiled(), ZoneTable.of(zone),
+                startsEpochSec, endsEpochSec, 0, startsEpochSec.length);
+    }
+
+    /**
+     * Obtains a {@code LongStream} of the "working hours" seconds between
+     * pairs of epoch seconds in a zone.
+     *
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null, of
+     *                       the same length as startsEpochSec.
+     * @param zone           the zone of the calendar, not null.
+     * @return the sequential stream of the "working hours" seconds of each
+     * row, rounded toward zero, not null.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     * @see #durationsSpliterator(long[], long[], ZoneId)
+     */
+    public LongStream durationsStream(long[] startsEpochSec,
+                                      long[] endsEpochSec, ZoneId zone) {
+        return StreamSupport.longStream(
+                durationsSpliterator(startsEpochSec, endsEpochSec, zone),
+                false);
+    }
+
+    /**
+     * Check the rows of a batch of durations.
+     *
+     * @param startsEpochSec the start epoch seconds, not null.
+     * @param endsEpochSec   the end epoch seconds, not null.
+     * @param zone           the zone, not null.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     */
+    private static void checkRows(long[] startsEpochSec, long[] endsEpochSec,
+                                  ZoneId zone) {
+        Objects.requireNonNull(startsEpochSec, "startsEpochSec");
+        Objects.requireNonNull(endsEpochSec, "endsEpochSec");
+        Objects.requireNonNull(zone, "zone");
+
+        if (endsEpochSec.length != startsEpochSec.length) {
+            throw new IllegalArgumentException(
+                    "Starts and ends must have the same length");
+        }
+    }
+
+    /**
+     * Check the parameters of a batch of durations written to an array.
+     *
+     * @param startsEpochSec the start epoch seconds, not null.
+     * @param endsEpochSec   the end epoch seconds, not null.
+     * @param zone           the zone, not null.
+     * @param out            the output array, not null.
+     * @throws IllegalArgumentException if the arrays lengths do not match.
+     */
+    private static void checkDurations(long[] startsEpochSec,
+                                       long[] endsEpochSec, ZoneId zone,
+                                       long[] out) {
+        checkRows(startsEpochSec, endsEpochSec, zone);
+        Objects.requireNonNull(out, "out");
+
+        if (out.length < startsEpochSec.length) {
+            throw new IllegalArgumentException(
+                    "Out must be at least as long as starts");
+        }
+    }
+
+    /**
+     * Get the "working hours" seconds elapsed between 1970-01-01T00:00 in a
+     * zone and an instant, negative before 1970-01-01T00:00. The working
+     * time is counted as it elapses across daylight saving time transitions,
+     * as by {@link #getDuration(ZonedDateTime, ZonedDateTime)}: this
+     * coordinate never decreases as the instant increases, and the duration
+     * between two instants is the difference of their coordinates, so it can
+     * be stored, sorted and compared instead of calling getDuration.
+     *
+     * @param instant the instant, not null.
+     * @param zone    the zone of the calendar, not null.
+     * @return the "working hours" seconds since the epoch, rounded down.
+     * @see #fromBusinessSeconds(long, ZoneId)
+     */
+    public long toBusinessSeconds(Instant instant, ZoneId zone) {
+        Objects.requireNonNull(instant, "instant");
+        Objects.requireNonNull(zone, "zone");
+
+        long nanos = ZonedCalendar.of(compiled(), zone)
+                .nanosSinceEpoch(instant.atZone(zone));
+        return Math.floorDiv(nanos, CompiledCalendar.NANOS_PER_SECOND);
+    }
+
+    /**
+     * Get the first instant whose "working hours" seconds since
+     * 1970-01-01T00:00 in a zone reach a coordinate. This is the inverse of
+     * {@link #toBusinessSeconds(Instant, ZoneId)}.
+     *
+     * @param businessSeconds the "working hours" seconds since the epoch,
+     *                        eventually negative.
+     * @param zone            the zone of the calendar, not null.
+     * @return the first instant reaching the coordinate, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    public Instant fromBusinessSeconds(long businessSeconds, ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        return ZonedCalendar.of(compiled(), zone).fromNanosSinceEpoch(
+                Math.multiplyExact(businessSeconds,
+                        CompiledCalendar.NANOS_PER_SECOND)).toInstant();
+    }
+
+    /**
+     * Get the first zonedDateTime, from a zonedDateTime, that is in "working
+     * hours" (eg: when the business next opens). Holidays and days without
+     * time slot are skipped.
+     *
+     * @param zonedDateTime the start zonedDateTime, inclusive, not null.
+     * @return zonedDateTime itself if it is in "working hours", the start of
+     * the next time slot if not, in the zone of zonedDateTime, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    public ZonedDateTime nextWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .next(zonedDateTime, true);
+    }
+
+    /**
+     * Get the first zonedDateTime, from a zonedDateTime, that is not in
+     * "working hours" (eg: when the business next closes).
+     *
+     * @param zonedDateTime the start zonedDateTime, inclusive, not null.
+     * @return zonedDateTime itself if it is not in "working hours", the end
+     * of the current time slot if it is, in the zone of zonedDateTime, not
+     * null.
+     */
+    public ZonedDateTime nextNonWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .next(zonedDateTime, false);
+    }
+
+    /**
+     * Get the last zonedDateTime, up to a zonedDateTime, that ends "working
+     * hours" (eg: when the business last closed). This mirrors
+     * {@link #nextWorkingTime(ZonedDateTime)} backward in time: as a time
+     * slot excludes its end, the end of the last time slot is returned.
+     * Holidays and days without time slot are skipped.
+     *
+     * @param zonedDateTime the end zonedDateTime, inclusive, not null.
+     * @return zonedDateTime itself if the time right before it is in
+     * "working hours", the end of the previous time slot if not, in the zone
+     * of zonedDateTime, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    public ZonedDateTime previousWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .previous(zonedDateTime, true);
+    }
+
+    /**
+     * Get the last zonedDateTime, up to a zonedDateTime, that ends "off
+     * hours" (eg: when the business last opened). This mirrors
+     * {@link #nextNonWorkingTime(ZonedDateTime)} backward in time.
+     *
+     * @param zonedDateTime the end zonedDateTime, inclusive, not null.
+     * @return zonedDateTime itself if the time right before it is not in
+     * "working hours", the start of the current time slot if it is, in the
+     * zone of zonedDateTime, not null.
+     */
+    public ZonedDateTime previousNonWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return ZonedCalendar.of(compiled(), zonedDateTime.getZone())
+                .previous(zonedDateTime, false);
+    }
+
+    /**
+     * Get the working intervals between two zonedDateTimes, in the zone
+     * of the start zonedDateTime. Each interval is a period of "working
+     * hours" of a day, clipped to the range: time slots overlapping or
+     * touching each other give a single interval, and holidays give none.
+     * <p>
+     * The intervals are found lazily, one at a time, from an immutable
+     * snapshot of the calendar taken when this method is called.
+     *
+     * @param startInclusive the start of the range, inclusive, not null.
+     * @param endExclusive   the end of the range, exclusive, not null.
+     * @return the ordered stream of working intervals, empty if
+     * endExclusive is not after startInclusive, not null.
+     */
+    public Stream<WorkingInterval> workingIntervals(
+            ZonedDateTime startInclusive, ZonedDateTime endExclusive) {
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        Iterator<WorkingInterval> iterator = new WorkingIntervalIterator(
+                ZonedCalendar.of(compiled(), startInclusive.getZone()),
+                startInclusive, endExclusive);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.DISTINCT
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    /**
+     * Check if a zonedDateTime is in "working hours".
+     *
+     * @param zonedDateTime the zonedDateTime to check, not null.
+     * @return true if the zonedDateTime is in "working hours", false if not.
+     */
+    public Boolean isWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return compiled().isWorkingTime(
+                zonedDateTime.toLocalDate().toEpochDay(),
+                zonedDateTime.toLocalTime().toNanoOfDay());
+    }
+
+    /**
+     * Check if a day is one of the calendar holidays.
+     *
+     * @param date the day to check, not null.
+     * @return true if it is an holiday, false if not.
+     */
+    public boolean isHoliday(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+
+        return compiled().isHoliday(date.toEpochDay());
+    }
+
+    /**
+     * Get the index of the calendar holidays, built from the holidays when
+     * the calendar is compiled. It can be used to count the holidays of a
+     * range of days. The holidays given by the holiday rules are not part of
+     * it.
+     *
+     * @return the holiday index, not null.
+     */
+    public HolidayIndex getHolidayIndex() {
+        return compiled().getHolidays();
+    }
+
+    /**
+     * Get the compiled snapshot of the calendar, up to date.
+     *
+     * @return the compiled calendar, not null.
+     */
+    abstract CompiledCalendar compiled();
+
+    /**
+     * Get a <b>copy</b> of the calendar business days.
+     *
+     * @return the business days, not null.
+     */
+    public abstract Set<BusinessDay> getBusinessDays();
+
+    /**
+     * Get an <b>unmodifiable</b> view of the holidays from the calendar.
+     *
+     * @return the holidays, not null.
+     */
+    public abstract Set<LocalDate> getHolidays();
+
+    /**
+     * Get an <b>unmodifiable</b> view of the holiday rules from the calendar.
+     *
+     * @return the holiday rules, not null.
+     */
+    public abstract Set<HolidayRule> getHolidayRules();
+
+    /**
+     * Get an <b>unmodifiable</b> view of the time slots of the overridden
+     * days of the calendar. An overridden day uses its own time slots
+     * instead of those of its day-of-week, even if it is an holiday, and is
+     * closed if they are empty.
+     *
+     * @return the time slots by overridden day, not null.
+     */
+    public abstract Map<LocalDate, Set<BusinessTimeSlot>> getDayOverrides();
+
+    /**
+     * Check if the calendar uses the minute resolution mode.
+     *
+     * @return true if the minute resolution mode is on, false if not.
+     */
+    public abstract boolean isMinuteResolution();
+}
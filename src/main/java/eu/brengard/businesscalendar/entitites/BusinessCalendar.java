@@ -4,7 +4,6 @@ import eu.brengard.businesscalendar.exceptions.BusinessCalendarSameBusinessDaysE
 
 import java.io.Serializable;
 import java.time.*;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 /**
@@ -26,13 +25,23 @@ import java.util.*;
  * <li>
  * A set of {@link LocalDate} containing all the company holidays.
  * </li>
+ * <li>
+ * A set of {@link HolidayRule}s giving the company holidays recurring each
+ * year, expanded only for the years queried.
+ * </li>
+ * <li>
+ * A map of {@link LocalDate} to {@link BusinessTimeSlot}s overriding the
+ * typical week on some days, such as a christmas eve closing at noon. An
+ * overridden day wins over the holidays.
+ * </li>
  * </ul>
  *
  * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
  * @see java.time
  * @since 1.8
  */
-public class BusinessCalendar implements Serializable {
+public class BusinessCalendar extends AbstractBusinessCalendar
+        implements Serializable {
 
 
     /**
@@ -46,11 +55,39 @@ public class BusinessCalendar implements Serializable {
     private Set<LocalDate> holidays;
 
     /**
-     * Simple private constructor that initialize fields.
+     * Set that contains the company holiday rules.
+     */
+    private Set<HolidayRule> holidayRules;
+
+    /**
+     * Map that contains the time slots (value) of the overridden days (key).
+     */
+    private Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides;
+
+    /**
+     * True to compile the business days aligned to whole minutes into minute
+     * lookup tables.
+     */
+    private boolean minuteResolution;
+
+    /**
+     * Version of the calendar, incremented by each modification.
      */
-    private BusinessCalendar() {
+    private transient int version;
+
+    /**
+     * Last compiled snapshot of the calendar, eventually outdated.
+     */
+    private transient CompiledCalendar compiled;
+
+    /**
+     * Simple constructor that initialize fields.
+     */
+    BusinessCalendar() {
         this.businessDays = new HashMap<>(7);
         this.holidays = new HashSet<>(20);
+        this.holidayRules = new HashSet<>();
+        this.dayOverrides = new HashMap<>();
     }
 
     /**
@@ -92,126 +129,33 @@ public class BusinessCalendar implements Serializable {
     }
 
     /**
-     * Get the duration getDuration two zonedDateTimes. This duration is
-     * calculated from "working hours" (eg: Duration = real Duration - off
-     * hours Duration - holidays Duration).
-     *
-     * @param startInclusive the start instant, inclusive, not null.
-     * @param endExclusive   the end instant, exclusive, not null.
-     * @return the duration getDuration two zonedDateTimes, not null, eventually
-     * negative.
-     */
-    public Duration getDuration(ZonedDateTime startInclusive,
-                                ZonedDateTime endExclusive) {
-        Objects.requireNonNull(startInclusive, "startInclusive");
-        Objects.requireNonNull(endExclusive, "endExclusive");
-
-        Duration duration = Duration.ZERO;
-        boolean isNegated = false;
-
-        //Negate duration if startInclusive is after endExclusive
-        if (startInclusive.isAfter(endExclusive)) {
-            ZonedDateTime temp = endExclusive;
-            endExclusive = startInclusive;
-            startInclusive = temp;
-            isNegated = true;
-        }
-
-        long days =
-                Duration.between(startInclusive.truncatedTo(ChronoUnit.DAYS),
-                        endExclusive.truncatedTo(ChronoUnit.DAYS)).toDays();
-
-        //if startInclusive and endExclusive are the same day
-        if (days == 0) {
-            //get the Duration getDuration these two parameters
-            duration = getDailyDuration(startInclusive.toLocalTime(),
-                    endExclusive.toLocalTime(), startInclusive);
-        } else {
-            //get the duration for the first day
-            //eg : the Duration getDuration the startInclusive and its end of
-            // the day
-            duration = duration.plus(
-                    getDailyDuration(startInclusive.toLocalTime(),
-                            LocalTime.MAX, startInclusive));
-
-            //add the Duration for all the days getDuration startInclusive and
-            // endExclusive
-            for (long i = 0; i + 1 < days; i++) {
-                startInclusive = startInclusive.plusDays(1);
-                duration = duration.plus(
-                        getDailyDuration(LocalTime.MIN, LocalTime.MAX,
-                                startInclusive));
-            }
-
-            //add the Duration for the last day
-            //eg : the Duration getDuration the endExclusive begin of the day and
-            // endExclusive
-            duration = duration.plus(
-                    getDailyDuration(LocalTime.MIN, endExclusive.toLocalTime(),
-                            endExclusive));
-        }
-
-        if (isNegated) {
-            return duration.negated();
-        } else {
-            return duration;
-        }
-    }
-
-    /**
-     * Get the duration getDuration two localTimes for a given day. This duration
-     * is calculated from "working hours" (eg : Duration = Real Duration -
-     * off hours - holidays).
+     * Obtains a builder of a deeply immutable business calendar.
      *
-     * @param startInclusive the start instant, inclusive, not null.
-     * @param endExclusive   the end instant, exclusive, not null.
-     * @param dayConcerned   the given day, not null.
-     * @return the duration getDuration two localTimes for a given day, not null.
-     */
-    private Duration getDailyDuration(LocalTime startInclusive,
-                                      LocalTime endExclusive,
-                                      ZonedDateTime dayConcerned) {
-        Objects.requireNonNull(startInclusive, "startInclusive");
-        Objects.requireNonNull(endExclusive, "endExclusive");
-        Objects.requireNonNull(dayConcerned, "dayConcerned");
-
-        //if the day the dayConcerned is not part of holidays
-        if (!holidays.contains(dayConcerned.toLocalDate())) {
-
-            BusinessDay businessDay =
-                    businessDays.get(dayConcerned.getDayOfWeek());
-
-            //if that day is part of businessDays, then return the duration
-            // getDuration startInclusive and endExclusive for that given day
-            if (businessDay != null) {
-                return businessDay.getDuration(startInclusive, endExclusive);
-            }
-
-        }
-        return Duration.ZERO;
+     * @return the builder, empty, not null.
+     * @see ImmutableBusinessCalendar
+     */
+    public static ImmutableBusinessCalendar.Builder builder() {
+        return new ImmutableBusinessCalendar.Builder();
     }
 
     /**
-     * Check if a zonedDateTime is in "working hours".
+     * Get the compiled snapshot of the calendar, compiling it again if the
+     * calendar, or one of its business days, has been modified since the
+     * last call.
      *
-     * @param zonedDateTime the zonedDateTime to check, not null.
-     * @return true if the zonedDateTime is in "working hours", false if not.
+     * @return the compiled calendar, not null.
      */
-    public Boolean isWorkingTime(ZonedDateTime zonedDateTime) {
-        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
-
-        if (!holidays.contains(zonedDateTime.toLocalDate())) {
-            DayOfWeek dayOfWeek = DayOfWeek.from(zonedDateTime);
-            BusinessDay businessDay = businessDays.get(dayOfWeek);
-
-            if (businessDay != null) {
-                if (businessDay.contains(zonedDateTime.toLocalTime())) {
-                    return true;
-                }
-            }
+    @Override
+    CompiledCalendar compiled() {
+        CompiledCalendar compiledCalendar = compiled;
+        if (compiledCalendar == null || !compiledCalendar.isValid(version)) {
+            compiledCalendar =
+                    CompiledCalendar.compile(businessDays, holidays,
+                            holidayRules, dayOverrides, minuteResolution,
+                            version);
+            compiled = compiledCalendar;
         }
-
-        return false;
+        return compiledCalendar;
     }
 
     /**
@@ -219,6 +163,7 @@ public class BusinessCalendar implements Serializable {
      *
      * @return the business days, not null.
      */
+    @Override
     public Set<BusinessDay> getBusinessDays() {
         return new HashSet<>(businessDays.values());
     }
@@ -235,8 +180,19 @@ public class BusinessCalendar implements Serializable {
     public void setBusinessDays(Set<BusinessDay> businessDays) {
         Objects.requireNonNull(businessDays, "businessDays");
 
-        this.businessDays.clear();
-        businessDays.forEach(this::addBusinessDay);
+        //fill a new map first, so that the calendar is left unchanged if
+        // two business days have the same day-of-week
+        Map<DayOfWeek, BusinessDay> newBusinessDays = new HashMap<>(7);
+        for (BusinessDay businessDay : businessDays) {
+            Objects.requireNonNull(businessDay, "businessDay");
+
+            DayOfWeek dayOfWeek = businessDay.getDayOfWeek();
+            if (newBusinessDays.putIfAbsent(dayOfWeek, businessDay) != null) {
+                throw new BusinessCalendarSameBusinessDaysException(dayOfWeek);
+            }
+        }
+        this.businessDays = newBusinessDays;
+        version++;
     }
 
     /**
@@ -255,6 +211,7 @@ public class BusinessCalendar implements Serializable {
             throw new BusinessCalendarSameBusinessDaysException(dayOfWeek);
         } else {
             businessDays.put(dayOfWeek, businessDay);
+            version++;
         }
     }
 
@@ -267,6 +224,7 @@ public class BusinessCalendar implements Serializable {
         Objects.requireNonNull(businessDay, "businessDay");
 
         businessDays.remove(businessDay.getDayOfWeek());
+        version++;
     }
 
     /**
@@ -279,26 +237,32 @@ public class BusinessCalendar implements Serializable {
         Objects.requireNonNull(dayOfWeek, "dayOfWeek");
 
         businessDays.remove(dayOfWeek);
+        version++;
     }
 
     /**
-     * Get the holidays from the calendar.
+     * Get an <b>unmodifiable</b> view of the holidays from the calendar. Use
+     * {@link #addHoliday(LocalDate)} and {@link #removeHoliday(LocalDate)}
+     * to modify them.
      *
      * @return the holidays, not null.
      */
+    @Override
     public Set<LocalDate> getHolidays() {
-        return holidays;
+        return Collections.unmodifiableSet(holidays);
     }
 
     /**
-     * Set the calendar holidays.
+     * Set the calendar holidays. The holidays are <b>copied</b>, later
+     * modifications of the given set are not seen by the calendar.
      *
      * @param holidays the holidays to set, not null.
      */
     public void setHolidays(Set<LocalDate> holidays) {
         Objects.requireNonNull(holidays, "holidays");
 
-        this.holidays = holidays;
+        this.holidays = new HashSet<>(holidays);
+        version++;
     }
 
     /**
@@ -310,6 +274,7 @@ public class BusinessCalendar implements Serializable {
     public boolean addHoliday(LocalDate holiday) {
         Objects.requireNonNull(holiday, "holiday");
 
+        version++;
         return this.holidays.add(holiday);
     }
 
@@ -322,7 +287,154 @@ public class BusinessCalendar implements Serializable {
     public boolean removeHoliday(LocalDate holiday) {
         Objects.requireNonNull(holiday, "holiday");
 
+        version++;
         return this.holidays.remove(holiday);
     }
-}
 
+    /**
+     * Get an <b>unmodifiable</b> view of the holiday rules from the
+     * calendar. Use {@link #addHolidayRule(HolidayRule)} and
+     * {@link #removeHolidayRule(HolidayRule)} to modify them.
+     *
+     * @return the holiday rules, not null.
+     */
+    @Override
+    public Set<HolidayRule> getHolidayRules() {
+        return Collections.unmodifiableSet(holidayRules);
+    }
+
+    /**
+     * Set the calendar holiday rules. The holiday rules are <b>copied</b>,
+     * later modifications of the given set are not seen by the calendar.
+     *
+     * @param holidayRules the holiday rules to set, not null.
+     */
+    public void setHolidayRules(Set<HolidayRule> holidayRules) {
+        Objects.requireNonNull(holidayRules, "holidayRules");
+
+        this.holidayRules = new HashSet<>(holidayRules);
+        version++;
+    }
+
+    /**
+     * Add an holiday rule to the calendar holiday rules.
+     *
+     * @param holidayRule the holiday rule to add, not null.
+     * @return true if this rule has been added, false if not.
+     */
+    public boolean addHolidayRule(HolidayRule holidayRule) {
+        Objects.requireNonNull(holidayRule, "holidayRule");
+
+        version++;
+        return this.holidayRules.add(holidayRule);
+    }
+
+    /**
+     * Remove an holiday rule from the calendar holiday rules.
+     *
+     * @param holidayRule the holiday rule to remove, not null.
+     * @return true if this rule has been removed, false if not.
+     */
+    public boolean removeHolidayRule(HolidayRule holidayRule) {
+        Objects.requireNonNull(holidayRule, "holidayRule");
+
+        version++;
+        return this.holidayRules.remove(holidayRule);
+    }
+
+    /**
+     * Get an <b>unmodifiable</b> view of the time slots of the overridden
+     * days of the calendar. Use
+     * {@link #setDayOverride(LocalDate, Set)} and
+     * {@link #removeDayOverride(LocalDate)} to modify them.
+     *
+     * @return the time slots by overridden day, not null.
+     */
+    @Override
+    public Map<LocalDate, Set<BusinessTimeSlot>> getDayOverrides() {
+        return Collections.unmodifiableMap(dayOverrides);
+    }
+
+    /**
+     * Set the overridden days of the calendar. The map and the sets of time
+     * slots are <b>copied</b>.
+     *
+     * @param dayOverrides the time slots by overridden day, not null.
+     */
+    public void setDayOverrides(
+            Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides) {
+        Objects.requireNonNull(dayOverrides, "dayOverrides");
+
+        Map<LocalDate, Set<BusinessTimeSlot>> newDayOverrides =
+                new HashMap<>();
+        for (Map.Entry<LocalDate, Set<BusinessTimeSlot>> entry
+                : dayOverrides.entrySet()) {
+            newDayOverrides.put(Objects.requireNonNull(entry.getKey()),
+                    Collections.unmodifiableSet(
+                            new HashSet<>(entry.getValue())));
+        }
+        this.dayOverrides = newDayOverrides;
+        version++;
+    }
+
+    /**
+     * Override the time slots of a day, replacing those of its day-of-week
+     * and those of a former override. The set of time slots is
+     * <b>copied</b>, an empty one closes the day.
+     *
+     * @param date              the day to override, not null.
+     * @param businessTimeSlots the time slots of the day, not null.
+     */
+    public void setDayOverride(LocalDate date,
+                               Set<BusinessTimeSlot> businessTimeSlots) {
+        Objects.requireNonNull(date, "date");
+        Objects.requireNonNull(businessTimeSlots, "businessTimeSlots");
+
+        version++;
+        this.dayOverrides.put(date,
+                Collections.unmodifiableSet(new HashSet<>(businessTimeSlots)));
+    }
+
+    /**
+     * Remove the override of a day, the day using the time slots of its
+     * day-of-week again.
+     *
+     * @param date the overridden day, not null.
+     * @return true if the override has been removed, false if the day was
+     * not overridden.
+     */
+    public boolean removeDayOverride(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+
+        version++;
+        return this.dayOverrides.remove(date) != null;
+    }
+
+    /**
+     * Check if the calendar uses the minute resolution mode.
+     *
+     * @return true if the minute resolution mode is on, false if not.
+     * @see #setMinuteResolution(boolean)
+     */
+    @Override
+    public boolean isMinuteResolution() {
+        return minuteResolution;
+    }
+
+    /**
+     * Turn the minute resolution mode on or off. When it is on, each business
+     * day whose time slots start and end on whole minutes is compiled into a
+     * 1440 bits open/closed mask and a table of the cumulative open minutes:
+     * checking a time is then a single bit test, and the duration between
+     * two times of a day two table reads. The business days whose time slots
+     * are not aligned to whole minutes keep the default, nano precise, lookup.
+     * The results are the same in both modes.
+     *
+     * @param minuteResolution true to turn the minute resolution mode on,
+     *                         false to turn it off.
+     */
+    public void setMinuteResolution(boolean minuteResolution) {
+        version++;
+        this.minuteResolution = minuteResolution;
+    }
+}
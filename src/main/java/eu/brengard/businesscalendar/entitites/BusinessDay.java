@@ -4,7 +4,9 @@ import java.io.Serializable;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.AbstractSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
 
@@ -23,13 +25,15 @@ import java.util.Set;
  * <li>
  * A collection of {@link BusinessTimeSlot} defining the business day
  * time slots.
- * It is <b>important</b> to know that defining two time slots crossing (eg:
- * 9h - 12h , 10h - 12h) will result in a <b>pondered</b> duration on the
- * crossing times. (eg: if we take again the two time slots 9h - 12h , 10h -
- * 12h ; the duration getDuration 11h and 12h using
- * {@link #getDuration(LocalTime, LocalTime)} method will return <b>2 hours</b>.
+ * Two time slots crossing or touching each other (eg: 9h - 12h , 10h - 15h)
+ * are <b>merged</b> (eg: 9h - 15h) : a time is never counted twice.
  * </li>
  * </ul>
+ * <p>
+ * The time slots are normalized into a sorted array of merged time slots,
+ * rebuilt only after a modification, so that
+ * {@link #contains(LocalTime)} is a binary search and
+ * {@link #getDuration(LocalTime, LocalTime)} a difference of prefix sums.
  *
  * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
  * @see java.time
@@ -45,7 +49,17 @@ public class BusinessDay implements Serializable {
     /**
      * Business day time slots.
      */
-    private Set<BusinessTimeSlot> businessTimeSlots;
+    private TimeSlots businessTimeSlots;
+
+    /**
+     * Normalized time slots, null until first use.
+     */
+    private transient TimeSlotTable timeSlotTable;
+
+    /**
+     * Stamp of the time slots the normalized time slots were built from.
+     */
+    private transient long timeSlotTableStamp;
 
     /**
      * Simple private constructor that initialize empty time slots from the
@@ -57,7 +71,7 @@ public class BusinessDay implements Serializable {
         Objects.requireNonNull(dayOfWeek, "dayOfWeek");
 
         this.dayOfWeek = dayOfWeek;
-        this.businessTimeSlots = new HashSet<>();
+        this.businessTimeSlots = new TimeSlots();
     }
 
     /**
@@ -85,32 +99,43 @@ public class BusinessDay implements Serializable {
         return businessDay;
     }
 
+    /**
+     * Obtains a deep copy of a business day, copying its time slots.
+     *
+     * @param businessDay the business day to copy, not null.
+     * @return the copy, not null.
+     */
+    static BusinessDay copyOf(BusinessDay businessDay) {
+        Objects.requireNonNull(businessDay, "businessDay");
+
+        Set<BusinessTimeSlot> businessTimeSlots = new HashSet<>();
+        for (BusinessTimeSlot businessTimeSlot
+                : businessDay.getBusinessTimeSlots()) {
+            businessTimeSlots.add(BusinessTimeSlot.of(
+                    businessTimeSlot.getStartInclusive(),
+                    businessTimeSlot.getEndExclusive()));
+        }
+        return of(businessDay.getDayOfWeek(), businessTimeSlots);
+    }
+
     /**
      * Get the duration getDuration two localTimes. This duration is calculated
      * from "working hours" (eg: Duration = real Duration - day-of-week off
-     * hours Duration).
-     * It is <b>important</b> to know that if this business day contains
-     * two time slots crossing (eg: 9h - 12h , 10h - 12h) this method will
-     * return a <b>pondered</b> duration on the crossing times. (eg: if we
-     * take again the two time slots 9h - 12h , 10h - 12h ; the duration
-     * getDuration 11h and 12h will be <b>2 hours</b>.
+     * hours Duration). Crossing time slots are merged, so each time is
+     * counted once.
      *
      * @param startInclusive the start instant, inclusive, not null.
      * @param endExclusive   the end instant, exclusive, not null.
      * @return the duration getDuration two localTimes, not null, eventually
-     * pondered, eventually negative.
+     * negative.
      */
     public Duration getDuration(LocalTime startInclusive,
                                 LocalTime endExclusive) {
         Objects.requireNonNull(startInclusive, "startInclusive");
         Objects.requireNonNull(endExclusive, "endExclusive");
 
-        Duration duration = Duration.ZERO;
-        for (BusinessTimeSlot businessTimeSlot : businessTimeSlots) {
-            duration = duration.plus(
-                    businessTimeSlot.getDuration(startInclusive, endExclusive));
-        }
-        return duration;
+        return Duration.ofNanos(getTimeSlotTable().nanosBetween(
+                startInclusive.toNanoOfDay(), endExclusive.toNanoOfDay()));
     }
 
     /**
@@ -131,15 +156,7 @@ public class BusinessDay implements Serializable {
     public boolean contains(LocalTime localTime) {
         Objects.requireNonNull(localTime, "localTime");
 
-        boolean isWorkingTime = false;
-        if (isWorkingDay()) {
-            for (BusinessTimeSlot businessTimeSlot : businessTimeSlots) {
-                if (businessTimeSlot.contains(localTime)) {
-                    isWorkingTime = true;
-                }
-            }
-        }
-        return isWorkingTime;
+        return getTimeSlotTable().contains(localTime.toNanoOfDay());
     }
 
     /**
@@ -163,7 +180,8 @@ public class BusinessDay implements Serializable {
     }
 
     /**
-     * Get the business day time slots.
+     * Get the business day time slots. The returned set is backed by this
+     * business day, it can be used to add or remove time slots.
      *
      * @return the business day time slots, not null.
      */
@@ -172,14 +190,46 @@ public class BusinessDay implements Serializable {
     }
 
     /**
-     * Set the business day time slots.
+     * Set the business day time slots. The time slots are <b>copied</b>,
+     * later modifications of the given set are not seen by the business day.
      *
      * @param businessTimeSlots the time slots to set, not null.
      */
     public void setBusinessTimeSlots(Set<BusinessTimeSlot> businessTimeSlots) {
         Objects.requireNonNull(businessTimeSlots, "businessTimeSlots");
 
-        this.businessTimeSlots = businessTimeSlots;
+        if (businessTimeSlots != this.businessTimeSlots) {
+            this.businessTimeSlots.clear();
+            this.businessTimeSlots.addAll(businessTimeSlots);
+        }
+    }
+
+    /**
+     * Get the modification stamp of the time slots. It changes each time a
+     * time slot is added to or removed from this business day, or one of its
+     * time slots is modified, and only then.
+     *
+     * @return the modification stamp.
+     */
+    long stamp() {
+        return businessTimeSlots.stamp();
+    }
+
+    /**
+     * Get the normalized time slots, rebuilding them if the time slots have
+     * been modified since they were built.
+     *
+     * @return the normalized time slots, not null.
+     */
+    TimeSlotTable getTimeSlotTable() {
+        long stamp = stamp();
+        TimeSlotTable table = timeSlotTable;
+        if (table == null || timeSlotTableStamp != stamp) {
+            table = TimeSlotTable.of(businessTimeSlots);
+            timeSlotTable = table;
+            timeSlotTableStamp = stamp;
+        }
+        return table;
     }
 
     /**
@@ -213,5 +263,117 @@ public class BusinessDay implements Serializable {
         result = 31 * result + businessTimeSlots.hashCode();
         return result;
     }
-}
 
+    /**
+     * Set of time slots counting its modifications, so that the business day
+     * can tell when to normalize them again.
+     */
+    private static final class TimeSlots extends AbstractSet<BusinessTimeSlot>
+            implements Serializable {
+
+        /**
+         * The time slots.
+         */
+        private final Set<BusinessTimeSlot> delegate = new HashSet<>();
+
+        /**
+         * Number of time slots added or removed.
+         */
+        private transient int modCount;
+
+        /**
+         * The time slots as an array, null until first use after a
+         * modification.
+         */
+        private transient BusinessTimeSlot[] elements;
+
+        /**
+         * Get the modification stamp of the time slots: the number of time
+         * slots added or removed in the high bits, plus the number of
+         * modifications of the time slots held. Both only grow, so the stamp
+         * changes with each modification.
+         *
+         * @return the modification stamp.
+         */
+        long stamp() {
+            BusinessTimeSlot[] slots = elements;
+            if (slots == null) {
+                slots = delegate.toArray(new BusinessTimeSlot[0]);
+                elements = slots;
+            }
+            long stamp = (long) modCount << 32;
+            for (BusinessTimeSlot slot : slots) {
+                stamp += slot.modCount();
+            }
+            return stamp;
+        }
+
+        /**
+         * Record a time slot added or removed.
+         */
+        private void modified() {
+            modCount++;
+            elements = null;
+        }
+
+        @Override
+        public Iterator<BusinessTimeSlot> iterator() {
+            Iterator<BusinessTimeSlot> iterator = delegate.iterator();
+            return new Iterator<BusinessTimeSlot>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public BusinessTimeSlot next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    modified();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return delegate.contains(o);
+        }
+
+        @Override
+        public boolean add(BusinessTimeSlot businessTimeSlot) {
+            Objects.requireNonNull(businessTimeSlot, "businessTimeSlot");
+
+            if (delegate.add(businessTimeSlot)) {
+                modified();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (delegate.remove(o)) {
+                modified();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            if (!delegate.isEmpty()) {
+                delegate.clear();
+                modified();
+            }
+        }
+    }
+}
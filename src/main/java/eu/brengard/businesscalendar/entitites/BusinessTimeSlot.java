@@ -52,6 +52,14 @@ public class BusinessTimeSlot implements Serializable {
      */
     public static final String DEFAULT_SLOTS_SEPARATOR = ",";
 
+    /**
+     * The formatter of the default date time pattern. Parsing with it, the
+     * default times separator and the default slots separator takes a
+     * hand-rolled path that does not go through the formatter.
+     */
+    private static final DateTimeFormatter DEFAULT_DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern(DEFAULT_DATE_TIME_FORMATTER_PATTERN);
+
     /**
      * The start time, inclusive, not null.
      */
@@ -62,6 +70,12 @@ public class BusinessTimeSlot implements Serializable {
      */
     private LocalTime endExclusive;
 
+    /**
+     * Number of modifications of the time slot, letting the business days
+     * holding it tell when to normalize their time slots again.
+     */
+    private transient int modCount;
+
     /**
      * Simple private constructor that initialize fields from the parameters.
      *
@@ -96,8 +110,8 @@ public class BusinessTimeSlot implements Serializable {
      * @see #DEFAULT_DATE_TIME_FORMATTER_PATTERN
      */
     public static BusinessTimeSlot parse(String timeSlot) {
-        return parse(timeSlot, DEFAULT_TIMES_SEPARATOR, DateTimeFormatter
-                .ofPattern(DEFAULT_DATE_TIME_FORMATTER_PATTERN));
+        return parse(timeSlot, DEFAULT_TIMES_SEPARATOR,
+                DEFAULT_DATE_TIME_FORMATTER);
     }
 
     /**
@@ -111,8 +125,8 @@ public class BusinessTimeSlot implements Serializable {
      */
     public static BusinessTimeSlot parse(String timeSlot,
                                          String regexTimesSeparator) {
-        return parse(timeSlot, regexTimesSeparator, DateTimeFormatter
-                .ofPattern(DEFAULT_DATE_TIME_FORMATTER_PATTERN));
+        return parse(timeSlot, regexTimesSeparator,
+                DEFAULT_DATE_TIME_FORMATTER);
     }
 
     /**
@@ -131,6 +145,10 @@ public class BusinessTimeSlot implements Serializable {
         Objects.requireNonNull(regexTimesSeparator, "regexTimesSeparator");
         Objects.requireNonNull(dateTimeFormatter, "dateTimeFormatter");
 
+        if (isDefault(regexTimesSeparator, dateTimeFormatter)) {
+            return parseDefault(timeSlot, 0, timeSlot.length());
+        }
+
         String[] times = timeSlot.split(regexTimesSeparator);
 
         try {
@@ -154,8 +172,7 @@ public class BusinessTimeSlot implements Serializable {
      */
     public static Set<BusinessTimeSlot> parseMultiple(String timeSlots) {
         return parseMultiple(timeSlots, DEFAULT_SLOTS_SEPARATOR,
-                DEFAULT_TIMES_SEPARATOR, DateTimeFormatter
-                        .ofPattern(DEFAULT_DATE_TIME_FORMATTER_PATTERN));
+                DEFAULT_TIMES_SEPARATOR, DEFAULT_DATE_TIME_FORMATTER);
     }
 
     /**
@@ -172,8 +189,7 @@ public class BusinessTimeSlot implements Serializable {
     public static Set<BusinessTimeSlot> parseMultiple(String timeSlots,
                                                       String regexSlotsSeparator) {
         return parseMultiple(timeSlots, regexSlotsSeparator,
-                DEFAULT_TIMES_SEPARATOR, DateTimeFormatter
-                        .ofPattern(DEFAULT_DATE_TIME_FORMATTER_PATTERN));
+                DEFAULT_TIMES_SEPARATOR, DEFAULT_DATE_TIME_FORMATTER);
     }
 
     /**
@@ -197,6 +213,25 @@ public class BusinessTimeSlot implements Serializable {
 
         Set<BusinessTimeSlot> timeSlotsList = new HashSet<>();
 
+        if (DEFAULT_SLOTS_SEPARATOR.equals(regexSlotsSeparator)
+                && isDefault(regexTimesSeparator, dateTimeFormatter)) {
+            //trailing separators are ignored, as by String.split
+            int end = timeSlots.length();
+            while (end > 0 && timeSlots.charAt(end - 1) == ',') {
+                end--;
+            }
+            int index = 0;
+            while (index < end) {
+                int next = timeSlots.indexOf(',', index);
+                if (next < 0 || next > end) {
+                    next = end;
+                }
+                timeSlotsList.add(parseDefault(timeSlots, index, next));
+                index = next + 1;
+            }
+            return timeSlotsList;
+        }
+
         String[] timeSlotsArray = timeSlots.split(regexSlotsSeparator);
 
         if (!timeSlotsArray[0].isEmpty()) {
@@ -211,6 +246,103 @@ public class BusinessTimeSlot implements Serializable {
         return timeSlotsList;
     }
 
+    /**
+     * Check if a times separator and a formatter are the default ones, so
+     * that the hand-rolled parsing can be used.
+     *
+     * @param regexTimesSeparator the times separator, not null.
+     * @param dateTimeFormatter   the formatter, not null.
+     * @return true if they are the default ones, false if not.
+     */
+    private static boolean isDefault(String regexTimesSeparator,
+                                     DateTimeFormatter dateTimeFormatter) {
+        return dateTimeFormatter == DEFAULT_DATE_TIME_FORMATTER
+                && DEFAULT_TIMES_SEPARATOR.equals(regexTimesSeparator);
+    }
+
+    /**
+     * Parse a time slot with the default times separator and time pattern,
+     * {@code H:mm-H:mm}, from a part of a text, without creating any
+     * intermediate object.
+     *
+     * @param text  the text, not null.
+     * @param start the index of the time slot in the text, inclusive.
+     * @param end   the index of the end of the time slot, exclusive.
+     * @return the time slot, not null.
+     * @throws BusinessTimeSlotParseException if the part of the text is not a
+     *                                        time slot.
+     */
+    private static BusinessTimeSlot parseDefault(String text, int start,
+                                                 int end) {
+        long startTime = parseDefaultTime(text, start, end);
+        int index = (int) startTime;
+        if (startTime >= 0 && (index == end || text.charAt(index) != '-')) {
+            startTime = -1 - index;
+        }
+        long endTime = startTime < 0 ? startTime
+                : parseDefaultTime(text, index + 1, end);
+        if (endTime >= 0 && (int) endTime != end) {
+            endTime = -1 - (int) endTime;
+        }
+        if (endTime < 0) {
+            int errorIndex = (int) (-1 - endTime);
+            throw new BusinessTimeSlotParseException("Text '"
+                    + text.substring(start, end)
+                    + "' could not be parsed at index " + (errorIndex - start),
+                    errorIndex);
+        }
+
+        return new BusinessTimeSlot(
+                LocalTime.ofSecondOfDay((startTime >>> 32) * 60),
+                LocalTime.ofSecondOfDay((endTime >>> 32) * 60));
+    }
+
+    /**
+     * Parse a time with the default time pattern, {@code H:mm}, from an
+     * index of a text.
+     *
+     * @param text  the text, not null.
+     * @param start the index of the time in the text, inclusive.
+     * @param end   the index after which the text is not read, exclusive.
+     * @return the minute-of-day shifted left by 32 bits plus the index after
+     * the time, or -1 minus the index of the error if the text is not a time.
+     */
+    private static long parseDefaultTime(String text, int start, int end) {
+        int index = start;
+        int hour = 0;
+        while (index < end && index - start < 2
+                && isDigit(text.charAt(index))) {
+            hour = hour * 10 + text.charAt(index++) - '0';
+        }
+        if (index == start || hour > 23) {
+            return -1 - start;
+        }
+        if (index == end || text.charAt(index) != ':') {
+            return -1 - index;
+        }
+        index++;
+        if (index + 2 > end || !isDigit(text.charAt(index))
+                || !isDigit(text.charAt(index + 1))) {
+            return -1 - index;
+        }
+        int minute = (text.charAt(index) - '0') * 10
+                + text.charAt(index + 1) - '0';
+        if (minute > 59) {
+            return -1 - index;
+        }
+        return (long) (hour * 60 + minute) << 32 | (index + 2);
+    }
+
+    /**
+     * Check if a character is an ASCII digit.
+     *
+     * @param c the character.
+     * @return true if it is a digit, false if not.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     /**
      * Check the coherence getDuration two times (eg: start time is before end
      * time).
@@ -312,7 +444,10 @@ public class BusinessTimeSlot implements Serializable {
      */
     public void setStartInclusive(LocalTime startInclusive) {
         validate(startInclusive, this.endExclusive);
-        this.startInclusive = startInclusive;
+        if (!startInclusive.equals(this.startInclusive)) {
+            this.startInclusive = startInclusive;
+            modCount++;
+        }
     }
 
     /**
@@ -332,7 +467,19 @@ public class BusinessTimeSlot implements Serializable {
      */
     public void setEndExclusive(LocalTime endExclusive) {
         validate(this.startInclusive, endExclusive);
-        this.endExclusive = endExclusive;
+        if (!endExclusive.equals(this.endExclusive)) {
+            this.endExclusive = endExclusive;
+            modCount++;
+        }
+    }
+
+    /**
+     * Get the number of modifications of the time slot.
+     *
+     * @return the number of modifications, only growing.
+     */
+    int modCount() {
+        return modCount;
     }
 
     /**
@@ -0,0 +1,372 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A read-only store of many compiled business calendars by tenant ID, packed
+ * into a single file and memory-mapped.
+ * <p>
+ * The file holds a directory of the tenant IDs, sorted by their UTF-8 bytes,
+ * pointing to the compiled calendars. Opening the store maps the file and
+ * checks its directory: a calendar is found by a binary search in the
+ * directory, and its queries are answered from the mapped bytes by a
+ * {@link StoredCalendar}, so the calendars do not take any heap until they
+ * are looked up. Tenants having the same calendar share the same compiled
+ * calendar in the file.
+ * <p>
+ * The file is limited to 2 gigabytes. It is written to a temporary file
+ * then moved, so that a store already opened on the previous file is not
+ * affected.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see StoredCalendar
+ * @since 1.8
+ */
+public final class CalendarStore {
+
+    /**
+     * {@value MAGIC} Magic number of the file, "BCST".
+     */
+    public static final int MAGIC = 0x42435354;
+
+    /**
+     * {@value VERSION} Version of the file format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * {@value HEADER_LENGTH} Length of the header: magic number, version,
+     * number of tenants and length of the file.
+     */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * {@value ENTRY_LENGTH} Length of a directory entry: offset and length of
+     * the tenant ID, offset of the calendar.
+     */
+    private static final int ENTRY_LENGTH = 16;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Number of tenants.
+     */
+    private final int size;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param buffer the mapped file, not null.
+     * @param size   the number of tenants.
+     */
+    private CalendarStore(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * Write a store of business calendars by tenant ID.
+     *
+     * @param file      the file to write, not null.
+     * @param calendars the business calendars by tenant ID, not null.
+     * @throws IOException              if the file can not be written.
+     * @throws IllegalArgumentException if the file would exceed 2
+     *                                  gigabytes.
+     */
+    public static void write(Path file,
+                             Map<String, ? extends AbstractBusinessCalendar>
+                                     calendars) throws IOException {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(calendars, "calendars");
+
+        //tenant IDs sorted by their UTF-8 bytes
+        TreeMap<byte[], AbstractBusinessCalendar> tenants =
+                new TreeMap<>(CalendarStore::compare);
+        int keysLength = 0;
+        for (Map.Entry<String, ? extends AbstractBusinessCalendar> entry
+                : calendars.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            tenants.put(key, Objects.requireNonNull(entry.getValue()));
+            keysLength += key.length;
+        }
+
+        long offset = HEADER_LENGTH + (long) ENTRY_LENGTH * tenants.size()
+                + ((keysLength + 7) & ~7);
+
+        //one block by distinct calendar
+        Map<ImmutableBusinessCalendar, Long> offsets = new HashMap<>();
+        List<byte[]> blocks = new ArrayList<>();
+        long[] calendarOffsets = new long[tenants.size()];
+        int i = 0;
+        for (AbstractBusinessCalendar calendar : tenants.values()) {
+            ImmutableBusinessCalendar key =
+                    ImmutableBusinessCalendar.copyOf(calendar);
+            Long calendarOffset = offsets.get(key);
+            if (calendarOffset == null) {
+                byte[] block = StoredCalendar.encode(key.compiled());
+                calendarOffset = offset;
+                offsets.put(key, calendarOffset);
+                blocks.add(block);
+                offset += block.length;
+            }
+            calendarOffsets[i++] = calendarOffset;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "the store would exceed 2 gigabytes");
+        }
+
+        ByteBuffer head = ByteBuffer.allocate((int) (HEADER_LENGTH
+                + (long) ENTRY_LENGTH * tenants.size()
+                + ((keysLength + 7) & ~7)));
+        head.putInt(MAGIC).putInt(VERSION).putInt(tenants.size())
+                .putInt((int) offset);
+        int keyOffset = HEADER_LENGTH + ENTRY_LENGTH * tenants.size();
+        i = 0;
+        for (byte[] key : tenants.keySet()) {
+            head.putInt(keyOffset).putInt(key.length)
+                    .putLong(calendarOffsets[i++]);
+            keyOffset += key.length;
+        }
+        for (byte[] key : tenants.keySet()) {
+            head.put(key);
+        }
+        head.rewind();
+
+        Path temporary = Files.createTempFile(
+                file.toAbsolutePath().getParent(), ".calendars", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE)) {
+                writeFully(channel, head);
+                for (byte[] block : blocks) {
+                    writeFully(channel, ByteBuffer.wrap(block));
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Open a store, mapping its file and checking its directory. The
+     * calendars are not read until they are looked up.
+     *
+     * @param file the file of the store, not null.
+     * @return the store, not null.
+     * @throws IOException if the file can not be mapped, is not a store of
+     *                     a known version, or is truncated or corrupted.
+     */
+    public static CalendarStore open(Path file) throws IOException {
+        Objects.requireNonNull(file, "file");
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH
+                    || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("not a calendar store");
+            }
+            //the mapping stays valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a calendar store");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(
+                    "unsupported calendar store version " + buffer.getInt(4));
+        }
+        if (buffer.getInt(12) != buffer.capacity()) {
+            throw new IOException("truncated calendar store");
+        }
+        int size = buffer.getInt(8);
+        if (size < 0 || HEADER_LENGTH + (long) ENTRY_LENGTH * size
+                > buffer.capacity()) {
+            throw new IOException("corrupted calendar store");
+        }
+        CalendarStore store = new CalendarStore(buffer, size);
+        store.checkDirectory();
+        return store;
+    }
+
+    /**
+     * Check that every tenant ID of the directory is inside the keys, after
+     * the previous one, and points to a calendar inside the file.
+     *
+     * @throws IOException if the directory is corrupted.
+     */
+    private void checkDirectory() throws IOException {
+        int keys = HEADER_LENGTH + ENTRY_LENGTH * size;
+        int keysEnd = keys;
+        for (int i = 0; i < size; i++) {
+            int entry = HEADER_LENGTH + ENTRY_LENGTH * i;
+            int keyOffset = buffer.getInt(entry);
+            int keyLength = buffer.getInt(entry + 4);
+            if (keyOffset != keysEnd || keyLength < 0
+                    || (long) keyOffset + keyLength > buffer.capacity()) {
+                throw new IOException("corrupted calendar store");
+            }
+            if (i > 0 && compare(buffer.getInt(entry - ENTRY_LENGTH),
+                    buffer.getInt(entry - ENTRY_LENGTH + 4), keyOffset,
+                    keyLength) >= 0) {
+                throw new IOException("corrupted calendar store");
+            }
+            keysEnd = keyOffset + keyLength;
+        }
+
+        int calendars = (keysEnd + 7) & ~7;
+        for (int i = 0; i < size; i++) {
+            long calendarOffset =
+                    buffer.getLong(HEADER_LENGTH + ENTRY_LENGTH * i + 8);
+            if (calendarOffset < calendars
+                    || calendarOffset >= buffer.capacity()
+                    || (calendarOffset & 7) != 0) {
+                throw new IOException("corrupted calendar store");
+            }
+        }
+    }
+
+    /**
+     * Get the business calendar of a tenant.
+     *
+     * @param tenantId the tenant ID, not null.
+     * @return the business calendar, null if the tenant is not in the store.
+     * @throws UncheckedIOException if the calendar is corrupted.
+     */
+    public StoredCalendar get(String tenantId) {
+        Objects.requireNonNull(tenantId, "tenantId");
+
+        byte[] key = tenantId.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = HEADER_LENGTH + ENTRY_LENGTH * middle;
+            int comparison = compare(buffer.getInt(entry),
+                    buffer.getInt(entry + 4), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                try {
+                    return StoredCalendar.decode(buffer,
+                            (int) buffer.getLong(entry + 8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of tenants.
+     *
+     * @return the number of tenants, positive or zero.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compare a tenant ID of the directory to a tenant ID, by their UTF-8
+     * bytes.
+     *
+     * @param offset the offset of the tenant ID of the directory.
+     * @param length the length of the tenant ID of the directory.
+     * @param key    the tenant ID, not null.
+     * @return negative, zero or positive if the tenant ID of the directory is
+     * before, the same as or after key.
+     */
+    private int compare(int offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF,
+                    key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Compare two tenant IDs of the directory by their UTF-8 bytes.
+     *
+     * @param offset      the offset of the first tenant ID.
+     * @param length      the length of the first tenant ID.
+     * @param otherOffset the offset of the second tenant ID.
+     * @param otherLength the length of the second tenant ID.
+     * @return negative, zero or positive if the first tenant ID is before,
+     * the same as or after the second one.
+     */
+    private int compare(int offset, int length, int otherOffset,
+                        int otherLength) {
+        int common = Math.min(length, otherLength);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF,
+                    buffer.get(otherOffset + i) & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, otherLength);
+    }
+
+    /**
+     * Compare two tenant IDs by their UTF-8 bytes.
+     *
+     * @param a the first tenant ID, not null.
+     * @param b the second tenant ID, not null.
+     * @return negative, zero or positive if a is before, the same as or after
+     * b.
+     */
+    private static int compare(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    /**
+     * Write the remaining bytes of a buffer to a channel.
+     *
+     * @param channel the channel, not null.
+     * @param buffer  the buffer, not null.
+     * @throws IOException if the channel can not be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,916 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarNoWorkingTimeException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compiled, immutable snapshot of a {@link BusinessCalendar}.
+ * <p>
+ * Every query is answered with integer math on epoch days and nano-of-days:
+ * <ul>
+ * <li>
+ * Each day-of-week is compiled into a {@link TimeSlotTable}.
+ * </li>
+ * <li>
+ * Whole weeks are counted from the weekly working nanos, the remaining days
+ * from a prefix sum over the week.
+ * </li>
+ * <li>
+ * Holidays are kept in a {@link HolidayIndex}, the working nanos they remove
+ * are counted by day-of-week.
+ * </li>
+ * <li>
+ * Holidays given by rules are kept in {@link HolidayRules}, expanded by year
+ * when a query touches that year.
+ * </li>
+ * <li>
+ * Dates whose time slots are overridden are kept in {@link DayOverrides},
+ * the working nanos they add or remove, compared to their day-of-week, in a
+ * prefix sum: a range is corrected only for the overridden days it holds.
+ * </li>
+ * </ul>
+ * A snapshot knows the calendar version it has been compiled from, and the
+ * {@link BusinessDay#stamp() stamp} of each business day at that time, so
+ * that the calendar can tell when to compile it again.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class CompiledCalendar {
+
+    /**
+     * {@value NANOS_PER_DAY} Nanos in a day.
+     */
+    static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    /**
+     * {@value MILLIS_PER_DAY} Millis in a day.
+     */
+    static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * {@value SECONDS_PER_DAY} Seconds in a day.
+     */
+    static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * {@value NANOS_PER_SECOND} Nanos in a second.
+     */
+    static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * {@value NANOS_PER_MILLI} Nanos in a milli.
+     */
+    static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * Compiled time slots, indexed by day-of-week ordinal.
+     */
+    private final TimeSlotTable[] days;
+
+    /**
+     * True if the days aligned to whole minutes have minute tables.
+     */
+    private final boolean minuteResolution;
+
+    /**
+     * Minute tables, indexed by day-of-week ordinal, null for a day when the
+     * minute resolution is off or its time slots are not aligned to whole
+     * minutes.
+     */
+    private final MinuteTable[] minutes;
+
+    /**
+     * Working nanos of each day-of-week, indexed by ordinal.
+     */
+    private final long[] dailyNanos;
+
+    /**
+     * Working nanos of a whole week.
+     */
+    private final long weeklyNanos;
+
+    /**
+     * Working nanos of the days of two consecutive weeks before each index,
+     * starting on monday.
+     */
+    private final long[] weekPrefix;
+
+    /**
+     * The holidays.
+     */
+    private final HolidayIndex holidays;
+
+    /**
+     * The holidays given by rules.
+     */
+    private final HolidayRules holidayRules;
+
+    /**
+     * The dates whose time slots are overridden.
+     */
+    private final DayOverrides dayOverrides;
+
+    /**
+     * Working nanos added by the overridden days before each index, compared
+     * to the working nanos of their day-of-week, or zero for an holiday.
+     */
+    private final long[] overrideCorrections;
+
+    /**
+     * Last overridden day having working time, {@link Long#MIN_VALUE} if
+     * there is none.
+     */
+    private final long lastWorkingOverride;
+
+    /**
+     * Calendar version this snapshot has been compiled from.
+     */
+    private final int version;
+
+    /**
+     * Business days this snapshot has been compiled from, indexed by
+     * day-of-week ordinal, null for a day without business day.
+     */
+    private final BusinessDay[] businessDays;
+
+    /**
+     * Stamps of the business days at compile time, indexed by day-of-week
+     * ordinal.
+     */
+    private final long[] stamps;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param days             the compiled time slots, not null.
+     * @param minuteResolution true to also compile the days aligned to whole
+     *                         minutes into minute tables.
+     * @param holidays         the holidays, not null.
+     * @param holidayRules     the holidays given by rules, not null.
+     * @param dayOverrides     the overridden days, not null.
+     * @param version          the calendar version.
+     * @param businessDays     the business days compiled, not null,
+     *                         eventually holding nulls.
+     * @param stamps           the stamps of the business days, not null.
+     */
+    private CompiledCalendar(TimeSlotTable[] days, boolean minuteResolution,
+                             HolidayIndex holidays, HolidayRules holidayRules,
+                             DayOverrides dayOverrides, int version,
+                             BusinessDay[] businessDays, long[] stamps) {
+        this.days = days;
+        this.minuteResolution = minuteResolution;
+        this.minutes = new MinuteTable[7];
+        if (minuteResolution) {
+            for (int i = 0; i < 7; i++) {
+                minutes[i] = MinuteTable.of(days[i]);
+            }
+        }
+        this.holidays = holidays;
+        this.holidayRules = holidayRules;
+        this.dayOverrides = dayOverrides;
+        this.version = version;
+        this.businessDays = businessDays;
+        this.stamps = stamps;
+
+        this.dailyNanos = new long[7];
+        long weekly = 0;
+        for (int i = 0; i < 7; i++) {
+            dailyNanos[i] = days[i].total();
+            weekly += dailyNanos[i];
+        }
+        this.weeklyNanos = weekly;
+
+        this.weekPrefix = new long[15];
+        for (int i = 0; i < 14; i++) {
+            weekPrefix[i + 1] = weekPrefix[i] + dailyNanos[i % 7];
+        }
+
+        this.overrideCorrections = new long[dayOverrides.size() + 1];
+        long lastWorking = Long.MIN_VALUE;
+        for (int i = 0; i < dayOverrides.size(); i++) {
+            long epochDay = dayOverrides.epochDay(i);
+            long total = dayOverrides.table(i).total();
+            long replaced = isHoliday(epochDay) ? 0
+                    : dailyNanos[dayOfWeek(epochDay)];
+            overrideCorrections[i + 1] = overrideCorrections[i] + total
+                    - replaced;
+            if (total != 0) {
+                lastWorking = epochDay;
+            }
+        }
+        this.lastWorkingOverride = lastWorking;
+    }
+
+    /**
+     * Compile business days and holidays.
+     *
+     * @param businessDays     the business days by day-of-week, not null.
+     * @param holidays         the holidays, not null.
+     * @param holidayRules     the holiday rules, not null.
+     * @param dayOverrides     the time slots of the overridden days, not
+     *                         null.
+     * @param minuteResolution true to also compile the days aligned to whole
+     *                         minutes into minute tables.
+     * @param version          the calendar version.
+     * @return the compiled calendar, not null.
+     */
+    static CompiledCalendar compile(Map<DayOfWeek, BusinessDay> businessDays,
+                                    Set<LocalDate> holidays,
+                                    Set<HolidayRule> holidayRules,
+                                    Map<LocalDate, Set<BusinessTimeSlot>>
+                                            dayOverrides,
+                                    boolean minuteResolution, int version) {
+        Objects.requireNonNull(businessDays, "businessDays");
+        Objects.requireNonNull(holidays, "holidays");
+        Objects.requireNonNull(holidayRules, "holidayRules");
+        Objects.requireNonNull(dayOverrides, "dayOverrides");
+
+        TimeSlotTable[] days = new TimeSlotTable[7];
+        BusinessDay[] sources = new BusinessDay[7];
+        long[] stamps = new long[7];
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            BusinessDay businessDay = businessDays.get(dayOfWeek);
+            sources[dayOfWeek.ordinal()] = businessDay;
+            if (businessDay == null) {
+                days[dayOfWeek.ordinal()] = TimeSlotTable.EMPTY;
+            } else {
+                //read the stamp first, a concurrent modification will then
+                // invalidate this snapshot
+                stamps[dayOfWeek.ordinal()] = businessDay.stamp();
+                days[dayOfWeek.ordinal()] = businessDay.getTimeSlotTable();
+            }
+        }
+
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        return new CompiledCalendar(days, minuteResolution, holidayIndex,
+                HolidayRules.of(holidayRules, holidayIndex),
+                DayOverrides.of(dayOverrides), version, sources, stamps);
+    }
+
+    /**
+     * Obtains a compiled calendar from its compiled parts, as read from a
+     * {@link CalendarStore}. It is never outdated.
+     *
+     * @param days             the compiled time slots, indexed by
+     *                         day-of-week ordinal, not null.
+     * @param minuteResolution true to also compile the days aligned to whole
+     *                         minutes into minute tables.
+     * @param holidays         the holidays, not null.
+     * @param holidayRules     the holidays given by rules, not null.
+     * @param dayOverrides     the overridden days, not null.
+     * @return the compiled calendar, not null.
+     */
+    static CompiledCalendar of(TimeSlotTable[] days, boolean minuteResolution,
+                               HolidayIndex holidays,
+                               HolidayRules holidayRules,
+                               DayOverrides dayOverrides) {
+        Objects.requireNonNull(holidays, "holidays");
+        Objects.requireNonNull(holidayRules, "holidayRules");
+        Objects.requireNonNull(dayOverrides, "dayOverrides");
+        if (days.length != 7) {
+            throw new IllegalArgumentException("7 days-of-week expected");
+        }
+
+        return new CompiledCalendar(days.clone(), minuteResolution, holidays,
+                holidayRules, dayOverrides, 0, new BusinessDay[7],
+                new long[7]);
+    }
+
+    /**
+     * Get the day-of-week ordinal of an epoch day.
+     *
+     * @param epochDay the epoch day.
+     * @return the day-of-week ordinal, monday being 0.
+     */
+    static int dayOfWeek(long epochDay) {
+        //1970-01-01 is a thursday
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+
+    /**
+     * Check if this snapshot is still valid for a calendar version: the
+     * calendar has not been modified, nor the business days it has been
+     * compiled from.
+     *
+     * @param version the calendar version.
+     * @return true if this snapshot is still valid, false if not.
+     */
+    boolean isValid(int version) {
+        if (this.version != version) {
+            return false;
+        }
+        for (int i = 0; i < 7; i++) {
+            BusinessDay businessDay = businessDays[i];
+            if (businessDay != null && businessDay.stamp() != stamps[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the calendar has any working time from an epoch day and
+     * nano-of-day.
+     *
+     * @param epochDay  the epoch day.
+     * @param nanoOfDay the nano-of-day, inclusive.
+     * @return true if at least one day-of-week has time slots, or an
+     * overridden day has some from epochDay and nanoOfDay.
+     */
+    boolean hasWorkingTime(long epochDay, long nanoOfDay) {
+        if (weeklyNanos != 0 || epochDay < lastWorkingOverride) {
+            return true;
+        }
+        return epochDay == lastWorkingOverride
+                && timeSlotTableOf(epochDay).nextWorking(nanoOfDay) >= 0;
+    }
+
+    /**
+     * Get the compiled time slots of a day-of-week.
+     *
+     * @param dayOfWeek the day-of-week ordinal, monday being 0.
+     * @return the compiled time slots, not null.
+     */
+    TimeSlotTable timeSlotTable(int dayOfWeek) {
+        return days[dayOfWeek];
+    }
+
+    /**
+     * Check if an epoch day is an holiday.
+     *
+     * @param epochDay the epoch day to check.
+     * @return true if it is an holiday, false if not.
+     */
+    boolean isHoliday(long epochDay) {
+        return holidays.isHoliday(epochDay)
+                || holidayRules.isHoliday(epochDay);
+    }
+
+    /**
+     * Get the holidays, without the holidays given by rules.
+     *
+     * @return the holidays, not null.
+     */
+    HolidayIndex getHolidays() {
+        return holidays;
+    }
+
+    /**
+     * Get the holidays given by rules.
+     *
+     * @return the holidays given by rules, not null.
+     */
+    HolidayRules getHolidayRules() {
+        return holidayRules;
+    }
+
+    /**
+     * Get the overridden days.
+     *
+     * @return the overridden days, not null.
+     */
+    DayOverrides getDayOverrides() {
+        return dayOverrides;
+    }
+
+    /**
+     * Check if the days aligned to whole minutes have minute tables.
+     *
+     * @return true if the minute resolution mode is on, false if not.
+     */
+    boolean isMinuteResolution() {
+        return minuteResolution;
+    }
+
+    /**
+     * Get the compiled time slots of an epoch day: those of its override if
+     * it is overridden, none if it is an holiday, those of its day-of-week
+     * otherwise.
+     *
+     * @param epochDay the epoch day.
+     * @return the compiled time slots, not null.
+     */
+    TimeSlotTable timeSlotTableOf(long epochDay) {
+        TimeSlotTable override = dayOverrides.tableOf(epochDay);
+        if (override != null) {
+            return override;
+        }
+        return isHoliday(epochDay) ? TimeSlotTable.EMPTY
+                : days[dayOfWeek(epochDay)];
+    }
+
+    /**
+     * Check if an epoch day and nano-of-day is in "working hours".
+     *
+     * @param epochDay  the epoch day.
+     * @param nanoOfDay the nano-of-day.
+     * @return true if it is in "working hours", false if not.
+     */
+    boolean isWorkingTime(long epochDay, long nanoOfDay) {
+        TimeSlotTable override = dayOverrides.tableOf(epochDay);
+        if (override != null) {
+            return override.contains(nanoOfDay);
+        }
+        int dayOfWeek = dayOfWeek(epochDay);
+        MinuteTable minuteTable = minutes[dayOfWeek];
+        boolean contains = minuteTable != null
+                ? minuteTable.contains(nanoOfDay)
+                : days[dayOfWeek].contains(nanoOfDay);
+        return contains && !isHoliday(epochDay);
+    }
+
+    /**
+     * Get the working nanos between two nano-of-days of the same day.
+     *
+     * @param epochDay       the day.
+     * @param startInclusive the start nano-of-day, inclusive.
+     * @param endExclusive   the end nano-of-day, exclusive.
+     * @return the working nanos, eventually negative.
+     */
+    long dailyNanos(long epochDay, long startInclusive, long endExclusive) {
+        TimeSlotTable override = dayOverrides.tableOf(epochDay);
+        if (override != null) {
+            return override.nanosBetween(startInclusive, endExclusive);
+        }
+        if (isHoliday(epochDay)) {
+            return 0;
+        }
+        int dayOfWeek = dayOfWeek(epochDay);
+        MinuteTable minuteTable = minutes[dayOfWeek];
+        if (minuteTable != null) {
+            return minuteTable.nanosBetween(startInclusive, endExclusive);
+        }
+        return days[dayOfWeek].nanosBetween(startInclusive, endExclusive);
+    }
+
+    /**
+     * Get the working nanos of all the whole days between two epoch days.
+     *
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the working nanos, zero if endExclusive is not after
+     * startInclusive.
+     */
+    long fullDaysNanos(long startInclusive, long endExclusive) {
+        long days = endExclusive - startInclusive;
+        if (days <= 0) {
+            return 0;
+        }
+
+        int first = dayOfWeek(startInclusive);
+        int remainder = (int) (days % 7);
+        long nanos = Math.addExact(
+                Math.multiplyExact(days / 7, weeklyNanos),
+                weekPrefix[first + remainder] - weekPrefix[first]);
+
+        //remove the working nanos of the holidays falling in the range
+        if (holidays.size() > 0) {
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                if (dailyNanos[dayOfWeek] != 0) {
+                    nanos -= dailyNanos[dayOfWeek] * holidays.countHolidaysOn(
+                            dayOfWeek, startInclusive, endExclusive);
+                }
+            }
+        }
+        nanos -= holidayRules.workingNanos(dailyNanos, startInclusive,
+                endExclusive);
+
+        //correct the overridden days falling in the range
+        if (!dayOverrides.isEmpty()) {
+            nanos += overrideCorrections[dayOverrides.countBefore(endExclusive)]
+                    - overrideCorrections[
+                    dayOverrides.countBefore(startInclusive)];
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos between two epoch days and nano-of-days.
+     *
+     * @param startDay       the start epoch day.
+     * @param startNanoOfDay the start nano-of-day, inclusive.
+     * @param endDay         the end epoch day.
+     * @param endNanoOfDay   the end nano-of-day, exclusive.
+     * @return the working nanos, negative if the start is after the end.
+     */
+    long nanosBetween(long startDay, long startNanoOfDay,
+                      long endDay, long endNanoOfDay) {
+        if (startDay > endDay) {
+            return -nanosBetween(endDay, endNanoOfDay, startDay,
+                    startNanoOfDay);
+        }
+        if (startDay == endDay) {
+            return dailyNanos(startDay, startNanoOfDay, endNanoOfDay);
+        }
+        return Math.addExact(
+                dailyNanos(startDay, startNanoOfDay, NANOS_PER_DAY)
+                        + dailyNanos(endDay, 0, endNanoOfDay),
+                fullDaysNanos(startDay + 1, endDay));
+    }
+
+    /**
+     * Get the working nanos between two local epoch millis, the epoch millis
+     * as read on a wall clock of the zone.
+     *
+     * @param startInclusive the start local epoch milli, inclusive.
+     * @param endExclusive   the end local epoch milli, exclusive.
+     * @return the working nanos, negative if the start is after the end.
+     */
+    long nanosBetweenLocalMillis(long startInclusive, long endExclusive) {
+        return nanosBetween(Math.floorDiv(startInclusive, MILLIS_PER_DAY),
+                Math.floorMod(startInclusive, MILLIS_PER_DAY) * NANOS_PER_MILLI,
+                Math.floorDiv(endExclusive, MILLIS_PER_DAY),
+                Math.floorMod(endExclusive, MILLIS_PER_DAY) * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Get the working nanos between two local epoch seconds, the epoch
+     * seconds as read on a wall clock of the zone.
+     *
+     * @param startInclusive the start local epoch second, inclusive.
+     * @param startNano      the nano-of-second of the start.
+     * @param endExclusive   the end local epoch second, exclusive.
+     * @param endNano        the nano-of-second of the end.
+     * @return the working nanos, negative if the start is after the end.
+     */
+    long nanosBetweenLocalSeconds(long startInclusive, long startNano,
+                                  long endExclusive, long endNano) {
+        return nanosBetween(Math.floorDiv(startInclusive, SECONDS_PER_DAY),
+                Math.floorMod(startInclusive, SECONDS_PER_DAY)
+                        * NANOS_PER_SECOND + startNano,
+                Math.floorDiv(endExclusive, SECONDS_PER_DAY),
+                Math.floorMod(endExclusive, SECONDS_PER_DAY)
+                        * NANOS_PER_SECOND + endNano);
+    }
+
+    /**
+     * Get the working nanos elapsed between two epoch millis in a zone.
+     *
+     * @param zoneTable       the zone table, not null.
+     * @param startEpochMilli the start epoch milli, inclusive.
+     * @param endEpochMilli   the end epoch milli, exclusive.
+     * @return the working nanos, negative if the start is after the end.
+     */
+    long nanosBetweenEpochMillis(ZoneTable zoneTable, long startEpochMilli,
+                                 long endEpochMilli) {
+        return nanosBetweenLocalMillis(
+                zoneTable.toLocalEpochMilli(startEpochMilli),
+                zoneTable.toLocalEpochMilli(endEpochMilli))
+                - transitionNanos(zoneTable,
+                Math.floorDiv(startEpochMilli, 1000L),
+                Math.floorDiv(endEpochMilli, 1000L));
+    }
+
+    /**
+     * Get the working nanos read on the wall clock of a zone that do not
+     * elapse between two epoch seconds: the working nanos of the wall
+     * clock periods skipped by the transitions crossed, minus the ones of
+     * the periods repeated. Subtracted from the working nanos read on the
+     * wall clock, they give the working nanos actually elapsed.
+     *
+     * @param zoneTable     the zone table, not null.
+     * @param startEpochSec the start epoch second.
+     * @param endEpochSec   the end epoch second.
+     * @return the working nanos of the transitions after startEpochSec up to
+     * endEpochSec, negated if the start is after the end.
+     */
+    long transitionNanos(ZoneTable zoneTable, long startEpochSec,
+                         long endEpochSec) {
+        if (startEpochSec > endEpochSec) {
+            return -transitionNanos(zoneTable, endEpochSec, startEpochSec);
+        }
+        long nanos = 0;
+        for (long transition = zoneTable.nextTransition(startEpochSec);
+             transition <= endEpochSec;
+             transition = zoneTable.nextTransition(transition)) {
+            nanos += nanosBetweenLocalSeconds(
+                    transition + zoneTable.offsetSeconds(transition - 1), 0,
+                    transition + zoneTable.offsetSeconds(transition), 0);
+        }
+        return nanos;
+    }
+
+    /**
+     * Check if a local epoch milli, the epoch milli as read on a wall clock
+     * of the zone, is in "working hours".
+     *
+     * @param localEpochMilli the local epoch milli.
+     * @return true if it is in "working hours", false if not.
+     */
+    boolean isWorkingTimeLocalMilli(long localEpochMilli) {
+        return isWorkingTime(Math.floorDiv(localEpochMilli, MILLIS_PER_DAY),
+                Math.floorMod(localEpochMilli, MILLIS_PER_DAY)
+                        * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Get the working seconds between pairs of epoch seconds. The zone
+     * offsets are read through a single cursor for the whole range of rows.
+     *
+     * @param zoneTable      the zone table, not null.
+     * @param startsEpochSec the start epoch seconds, inclusive, not null.
+     * @param endsEpochSec   the end epoch seconds, exclusive, not null.
+     * @param out            the working seconds, rounded toward zero, not
+     *                       null.
+     * @param fromIndex      the first row, inclusive.
+     * @param toIndex        the last row, exclusive.
+     */
+    void secondsBetween(ZoneTable zoneTable, long[] startsEpochSec,
+                        long[] endsEpochSec, long[] out, int fromIndex,
+                        int toIndex) {
+        ZoneTable.Cursor cursor = zoneTable.cursor();
+        for (int i = fromIndex; i < toIndex; i++) {
+            out[i] = secondsBetween(cursor, startsEpochSec[i], endsEpochSec[i]);
+        }
+    }
+
+    /**
+     * Get the working seconds between two epoch seconds.
+     *
+     * @param cursor        the cursor on the zone table, not null.
+     * @param startEpochSec the start epoch second, inclusive.
+     * @param endEpochSec   the end epoch second, exclusive.
+     * @return the working seconds, rounded toward zero, eventually negative.
+     */
+    long secondsBetween(ZoneTable.Cursor cursor, long startEpochSec,
+                        long endEpochSec) {
+        long start = startEpochSec + cursor.offsetSeconds(startEpochSec);
+        long end = endEpochSec + cursor.offsetSeconds(endEpochSec);
+        long nanos = nanosBetweenLocalSeconds(start, 0, end, 0);
+        //no transition between two epoch seconds of the same segment
+        if (!cursor.isInSegment(startEpochSec)) {
+            nanos -= transitionNanos(cursor.zoneTable(), startEpochSec,
+                    endEpochSec);
+        }
+        return nanos / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Get the date-time at which the working nanos from a start reach an
+     * amount. Whole weeks are skipped with {@link #fullDaysNanos(long, long)},
+     * then the remaining days are walked one by one.
+     *
+     * @param epochDay  the start epoch day.
+     * @param nanoOfDay the start nano-of-day.
+     * @param nanos     the working nanos to add, positive.
+     * @return the first date-time reaching the working nanos, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    LocalDateTime plus(long epochDay, long nanoOfDay, long nanos) {
+        long available = dailyNanos(epochDay, nanoOfDay, NANOS_PER_DAY);
+        if (nanos <= available) {
+            return toLocalDateTime(epochDay,
+                    timeSlotTableOf(epochDay).plus(nanoOfDay, nanos));
+        }
+        if (weeklyNanos == 0 && dayOverrides.isEmpty()) {
+            throw new BusinessCalendarNoWorkingTimeException();
+        }
+
+        long day = epochDay + 1;
+        long remaining = nanos - available;
+        while (true) {
+            long weeks = skippableWeeks(day, remaining, true);
+            if (weeks > 0) {
+                remaining -= fullDaysNanos(day, day + 7 * weeks);
+                day += 7 * weeks;
+            } else {
+                if (weeklyNanos == 0) {
+                    //only the overridden days have working time
+                    day = dayOverrides.nextDay(day);
+                    if (day == Long.MAX_VALUE) {
+                        throw new BusinessCalendarNoWorkingTimeException();
+                    }
+                }
+                long dayNanos = dailyNanos(day, 0, NANOS_PER_DAY);
+                if (remaining <= dayNanos) {
+                    return toLocalDateTime(day,
+                            timeSlotTableOf(day).plus(0, remaining));
+                }
+                remaining -= dayNanos;
+                day++;
+            }
+        }
+    }
+
+    /**
+     * Get the date-time from which the working nanos to an end reach an
+     * amount. Whole weeks are skipped with {@link #fullDaysNanos(long, long)},
+     * then the remaining days are walked one by one.
+     *
+     * @param epochDay  the end epoch day.
+     * @param nanoOfDay the end nano-of-day.
+     * @param nanos     the working nanos to subtract, positive.
+     * @return the last date-time reaching the working nanos, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    LocalDateTime minus(long epochDay, long nanoOfDay, long nanos) {
+        long available = dailyNanos(epochDay, 0, nanoOfDay);
+        if (nanos <= available) {
+            return toLocalDateTime(epochDay,
+                    timeSlotTableOf(epochDay).minus(nanoOfDay, nanos));
+        }
+        if (weeklyNanos == 0 && dayOverrides.isEmpty()) {
+            throw new BusinessCalendarNoWorkingTimeException();
+        }
+
+        //day is the first day after the remaining range
+        long day = epochDay;
+        long remaining = nanos - available;
+        while (true) {
+            long weeks = skippableWeeks(day, remaining, false);
+            if (weeks > 0) {
+                remaining -= fullDaysNanos(day - 7 * weeks, day);
+                day -= 7 * weeks;
+            } else {
+                if (weeklyNanos == 0) {
+                    //only the overridden days have working time
+                    day = dayOverrides.previousDay(day - 1);
+                    if (day == Long.MIN_VALUE) {
+                        throw new BusinessCalendarNoWorkingTimeException();
+                    }
+                } else {
+                    day--;
+                }
+                long dayNanos = dailyNanos(day, 0, NANOS_PER_DAY);
+                if (remaining <= dayNanos) {
+                    return toLocalDateTime(day, timeSlotTableOf(day)
+                            .minus(NANOS_PER_DAY, remaining));
+                }
+                remaining -= dayNanos;
+            }
+        }
+    }
+
+    /**
+     * Get the number of whole weeks, next to a day, whose working nanos do
+     * not reach an amount. An estimate from the weekly working nanos is
+     * halved until it fits, as overridden days may have more working time
+     * than their day-of-week.
+     *
+     * @param day       the first day after the weeks when backward, the
+     *                  first day of the weeks when forward.
+     * @param remaining the working nanos to reach, positive.
+     * @param forward   true for the weeks from day, false for the weeks
+     *                  before day.
+     * @return the number of weeks, positive or zero.
+     */
+    private long skippableWeeks(long day, long remaining, boolean forward) {
+        if (weeklyNanos == 0) {
+            return 0;
+        }
+        long weeks = (remaining - 1) / weeklyNanos;
+        if (weeks > 0 && !dayOverrides.isEmpty()) {
+            while (weeks > 0 && (forward
+                    ? fullDaysNanos(day, day + 7 * weeks)
+                    : fullDaysNanos(day - 7 * weeks, day)) >= remaining) {
+                weeks /= 2;
+            }
+        }
+        return weeks;
+    }
+
+    /**
+     * Get the first date-time, from a start, that is in "working hours".
+     *
+     * @param epochDay  the start epoch day.
+     * @param nanoOfDay the start nano-of-day, inclusive.
+     * @return the date-time, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    LocalDateTime nextWorkingTime(long epochDay, long nanoOfDay) {
+        long next = timeSlotTableOf(epochDay).nextWorking(nanoOfDay);
+        if (next >= 0) {
+            return toLocalDateTime(epochDay, next);
+        }
+
+        long day = epochDay + 1;
+        while (true) {
+            //the next day that may have working time
+            long candidate = dayOverrides.nextDay(day);
+            if (weeklyNanos != 0) {
+                candidate = Math.min(candidate, nextNonHoliday(day));
+            }
+            if (candidate == Long.MAX_VALUE) {
+                throw new BusinessCalendarNoWorkingTimeException();
+            }
+            TimeSlotTable timeSlotTable = timeSlotTableOf(candidate);
+            if (timeSlotTable.total() != 0) {
+                return toLocalDateTime(candidate,
+                        timeSlotTable.nextWorking(0));
+            }
+            day = candidate + 1;
+        }
+    }
+
+    /**
+     * Get the first date-time, from a start, that is not in "working hours".
+     *
+     * @param epochDay  the start epoch day.
+     * @param nanoOfDay the start nano-of-day, inclusive.
+     * @return the date-time, not null.
+     */
+    LocalDateTime nextNonWorkingTime(long epochDay, long nanoOfDay) {
+        return toLocalDateTime(epochDay,
+                timeSlotTableOf(epochDay).nextNonWorking(nanoOfDay));
+    }
+
+    /**
+     * Get the last date-time, up to an end, right after a nano in "working
+     * hours".
+     *
+     * @param epochDay  the end epoch day.
+     * @param nanoOfDay the end nano-of-day, inclusive.
+     * @return the date-time, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    LocalDateTime previousWorkingTime(long epochDay, long nanoOfDay) {
+        long previous = timeSlotTableOf(epochDay).previousWorking(nanoOfDay);
+        if (previous >= 0) {
+            return toLocalDateTime(epochDay, previous);
+        }
+
+        long day = epochDay - 1;
+        while (true) {
+            //the previous day that may have working time
+            long candidate = dayOverrides.previousDay(day);
+            if (weeklyNanos != 0) {
+                candidate = Math.max(candidate, previousNonHoliday(day));
+            }
+            if (candidate == Long.MIN_VALUE) {
+                throw new BusinessCalendarNoWorkingTimeException();
+            }
+            TimeSlotTable timeSlotTable = timeSlotTableOf(candidate);
+            if (timeSlotTable.total() != 0) {
+                return toLocalDateTime(candidate,
+                        timeSlotTable.previousWorking(NANOS_PER_DAY));
+            }
+            day = candidate - 1;
+        }
+    }
+
+    /**
+     * Get the last date-time, up to an end, right after a nano not in
+     * "working hours".
+     *
+     * @param epochDay  the end epoch day.
+     * @param nanoOfDay the end nano-of-day, inclusive.
+     * @return the date-time, not null.
+     */
+    LocalDateTime previousNonWorkingTime(long epochDay, long nanoOfDay) {
+        return toLocalDateTime(epochDay,
+                timeSlotTableOf(epochDay).previousNonWorking(nanoOfDay));
+    }
+
+    /**
+     * Get the first epoch day, from an epoch day, that is not an holiday.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, not before epochDay.
+     */
+    private long nextNonHoliday(long epochDay) {
+        long day = holidays.nextNonHoliday(epochDay);
+        while (holidayRules.isHoliday(day)) {
+            day = holidays.nextNonHoliday(day + 1);
+        }
+        return day;
+    }
+
+    /**
+     * Get the last epoch day, up to an epoch day, that is not an holiday.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, not after epochDay.
+     */
+    private long previousNonHoliday(long epochDay) {
+        long day = holidays.previousNonHoliday(epochDay);
+        while (holidayRules.isHoliday(day)) {
+            day = holidays.previousNonHoliday(day - 1);
+        }
+        return day;
+    }
+
+    /**
+     * Obtains a local date-time from an epoch day and a nano-of-day.
+     *
+     * @param epochDay  the epoch day.
+     * @param nanoOfDay the nano-of-day.
+     * @return the local date-time, not null.
+     */
+    private static LocalDateTime toLocalDateTime(long epochDay,
+                                                 long nanoOfDay) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDay),
+                LocalTime.ofNanoOfDay(nanoOfDay));
+    }
+}
@@ -0,0 +1,425 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A business calendar that can be shared by threads, some of them
+ * modifying it while others query it.
+ * <p>
+ * Queries never take a lock: each one reads a single volatile reference to
+ * an immutable snapshot of the calendar (the compiled business days and
+ * holidays), so they scale with the number of cores. Modifications are
+ * serialized, applied to the calendar, compiled, then published at once by
+ * replacing that reference: a query sees the calendar either before or
+ * after a modification, never in between.
+ * <p>
+ * As business days and time slots are mutable, they are <b>copied</b> when
+ * they are given to or taken from this calendar: modifying them afterwards
+ * does not modify the calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar
+ * @since 1.8
+ */
+public class ConcurrentBusinessCalendar extends BusinessCalendar {
+
+    /**
+     * Last published snapshot of the calendar.
+     */
+    private transient volatile Snapshot snapshot;
+
+    /**
+     * Simple private constructor that publishes an empty calendar.
+     */
+    private ConcurrentBusinessCalendar() {
+        publish();
+    }
+
+    /**
+     * Obtains an empty instance of {@code ConcurrentBusinessCalendar}.
+     *
+     * @return the business calendar, empty, not null.
+     */
+    public static ConcurrentBusinessCalendar empty() {
+        return new ConcurrentBusinessCalendar();
+    }
+
+    /**
+     * Obtains an instance of {@code ConcurrentBusinessCalendar} from typical
+     * business days.
+     *
+     * @param businessDays the business days to use, not null.
+     * @return the business calendar, not null.
+     */
+    public static ConcurrentBusinessCalendar of(
+            Set<BusinessDay> businessDays) {
+        ConcurrentBusinessCalendar businessCalendar =
+                new ConcurrentBusinessCalendar();
+        businessCalendar.setBusinessDays(businessDays);
+        return businessCalendar;
+    }
+
+    /**
+     * Obtains an instance of {@code ConcurrentBusinessCalendar} from typical
+     * business days and holidays.
+     *
+     * @param businessDays the business days to use, not null.
+     * @param holidays     the holidays to use, not null.
+     * @return the business calendar, not null.
+     */
+    public static ConcurrentBusinessCalendar of(Set<BusinessDay> businessDays,
+                                                Set<LocalDate> holidays) {
+        ConcurrentBusinessCalendar businessCalendar =
+                new ConcurrentBusinessCalendar();
+        businessCalendar.setBusinessDays(businessDays);
+        businessCalendar.setHolidays(holidays);
+        return businessCalendar;
+    }
+
+    /**
+     * Get the last published snapshot of the calendar.
+     *
+     * @return the compiled calendar, not null.
+     */
+    @Override
+    CompiledCalendar compiled() {
+        return snapshot.compiled;
+    }
+
+    /**
+     * Get a <b>copy</b> of the calendar business days.
+     *
+     * @return the business days, not null.
+     */
+    @Override
+    public Set<BusinessDay> getBusinessDays() {
+        Set<BusinessDay> businessDays = new HashSet<>();
+        for (BusinessDay businessDay : snapshot.businessDays) {
+            businessDays.add(BusinessDay.copyOf(businessDay));
+        }
+        return businessDays;
+    }
+
+    /**
+     * Set the calendar business days. The business days are <b>copied</b>.
+     *
+     * @param businessDays the business days to set, not null.
+     */
+    @Override
+    public synchronized void setBusinessDays(Set<BusinessDay> businessDays) {
+        Objects.requireNonNull(businessDays, "businessDays");
+
+        Set<BusinessDay> copies = new HashSet<>();
+        for (BusinessDay businessDay : businessDays) {
+            copies.add(BusinessDay.copyOf(businessDay));
+        }
+        super.setBusinessDays(copies);
+        publish();
+    }
+
+    /**
+     * Add a business day to the calendar. The business day is
+     * <b>copied</b>.
+     *
+     * @param businessDay the business day to add, not null.
+     */
+    @Override
+    public synchronized void addBusinessDay(BusinessDay businessDay) {
+        super.addBusinessDay(BusinessDay.copyOf(businessDay));
+        publish();
+    }
+
+    /**
+     * Remove a business day from the calendar business days.
+     *
+     * @param businessDay the business day to remove, not null.
+     */
+    @Override
+    public synchronized void removeBusinessDay(BusinessDay businessDay) {
+        super.removeBusinessDay(businessDay);
+        publish();
+    }
+
+    /**
+     * Remove a business day corresponding to a day-of-week from the calendar
+     * business days.
+     *
+     * @param dayOfWeek the day-of-week to remove, not null.
+     */
+    @Override
+    public synchronized void removeBusinessDayFromDayOfWeek(
+            DayOfWeek dayOfWeek) {
+        super.removeBusinessDayFromDayOfWeek(dayOfWeek);
+        publish();
+    }
+
+    /**
+     * Get an <b>unmodifiable</b> snapshot of the holidays from the calendar.
+     * Later modifications of the calendar are not seen by the returned set.
+     *
+     * @return the holidays, not null.
+     */
+    @Override
+    public Set<LocalDate> getHolidays() {
+        return snapshot.holidays;
+    }
+
+    /**
+     * Set the calendar holidays. The holidays are <b>copied</b>.
+     *
+     * @param holidays the holidays to set, not null.
+     */
+    @Override
+    public synchronized void setHolidays(Set<LocalDate> holidays) {
+        super.setHolidays(holidays);
+        publish();
+    }
+
+    /**
+     * Add an holiday to the calendar holidays.
+     *
+     * @param holiday the holiday to add, not null.
+     * @return true if this day has been added, false if not.
+     */
+    @Override
+    public synchronized boolean addHoliday(LocalDate holiday) {
+        boolean added = super.addHoliday(holiday);
+        publish();
+        return added;
+    }
+
+    /**
+     * Remove an holiday from the calendar holidays
+     *
+     * @param holiday the holiday to remove, not null.
+     * @return true if this day has been removed, false if not.
+     */
+    @Override
+    public synchronized boolean removeHoliday(LocalDate holiday) {
+        boolean removed = super.removeHoliday(holiday);
+        publish();
+        return removed;
+    }
+
+    /**
+     * Get an <b>unmodifiable</b> snapshot of the holiday rules from the
+     * calendar. Later modifications of the calendar are not seen by the
+     * returned set.
+     *
+     * @return the holiday rules, not null.
+     */
+    @Override
+    public Set<HolidayRule> getHolidayRules() {
+        return snapshot.holidayRules;
+    }
+
+    /**
+     * Set the calendar holiday rules. The holiday rules are <b>copied</b>.
+     *
+     * @param holidayRules the holiday rules to set, not null.
+     */
+    @Override
+    public synchronized void setHolidayRules(Set<HolidayRule> holidayRules) {
+        super.setHolidayRules(holidayRules);
+        publish();
+    }
+
+    /**
+     * Add an holiday rule to the calendar holiday rules.
+     *
+     * @param holidayRule the holiday rule to add, not null.
+     * @return true if this rule has been added, false if not.
+     */
+    @Override
+    public synchronized boolean addHolidayRule(HolidayRule holidayRule) {
+        boolean added = super.addHolidayRule(holidayRule);
+        publish();
+        return added;
+    }
+
+    /**
+     * Remove an holiday rule from the calendar holiday rules.
+     *
+     * @param holidayRule the holiday rule to remove, not null.
+     * @return true if this rule has been removed, false if not.
+     */
+    @Override
+    public synchronized boolean removeHolidayRule(HolidayRule holidayRule) {
+        boolean removed = super.removeHolidayRule(holidayRule);
+        publish();
+        return removed;
+    }
+
+    /**
+     * Get an <b>unmodifiable</b> snapshot of the time slots of the
+     * overridden days of the calendar. Later modifications of the calendar
+     * are not seen by the returned map.
+     *
+     * @return the time slots by overridden day, not null.
+     */
+    @Override
+    public Map<LocalDate, Set<BusinessTimeSlot>> getDayOverrides() {
+        return snapshot.dayOverrides;
+    }
+
+    /**
+     * Set the overridden days of the calendar. The map and the sets of time
+     * slots are <b>copied</b>.
+     *
+     * @param dayOverrides the time slots by overridden day, not null.
+     */
+    @Override
+    public synchronized void setDayOverrides(
+            Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides) {
+        super.setDayOverrides(dayOverrides);
+        publish();
+    }
+
+    /**
+     * Override the time slots of a day. The set of time slots is
+     * <b>copied</b>, an empty one closes the day.
+     *
+     * @param date              the day to override, not null.
+     * @param businessTimeSlots the time slots of the day, not null.
+     */
+    @Override
+    public synchronized void setDayOverride(
+            LocalDate date, Set<BusinessTimeSlot> businessTimeSlots) {
+        super.setDayOverride(date, businessTimeSlots);
+        publish();
+    }
+
+    /**
+     * Remove the override of a day.
+     *
+     * @param date the overridden day, not null.
+     * @return true if the override has been removed, false if the day was
+     * not overridden.
+     */
+    @Override
+    public synchronized boolean removeDayOverride(LocalDate date) {
+        boolean removed = super.removeDayOverride(date);
+        publish();
+        return removed;
+    }
+
+    /**
+     * Check if the calendar uses the minute resolution mode.
+     *
+     * @return true if the minute resolution mode is on, false if not.
+     */
+    @Override
+    public boolean isMinuteResolution() {
+        return snapshot.minuteResolution;
+    }
+
+    /**
+     * Turn the minute resolution mode on or off.
+     *
+     * @param minuteResolution true to turn the minute resolution mode on,
+     *                         false to turn it off.
+     */
+    @Override
+    public synchronized void setMinuteResolution(boolean minuteResolution) {
+        super.setMinuteResolution(minuteResolution);
+        publish();
+    }
+
+    /**
+     * Compile the calendar and publish the snapshot. Must be called holding
+     * the lock of this calendar, or while it is not yet shared.
+     */
+    private void publish() {
+        snapshot = new Snapshot(super.compiled(), super.getBusinessDays(),
+                Collections.unmodifiableSet(
+                        new HashSet<>(super.getHolidays())),
+                Collections.unmodifiableSet(
+                        new HashSet<>(super.getHolidayRules())),
+                Collections.unmodifiableMap(
+                        new HashMap<>(super.getDayOverrides())),
+                super.isMinuteResolution());
+    }
+
+    /**
+     * Publish the snapshot of a deserialized calendar.
+     *
+     * @param in the stream to read from, not null.
+     * @throws IOException            if an I/O error occurs.
+     * @throws ClassNotFoundException if a class cannot be found.
+     */
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        publish();
+    }
+
+    /**
+     * An immutable snapshot of the calendar.
+     */
+    private static final class Snapshot {
+
+        /**
+         * The compiled calendar.
+         */
+        private final CompiledCalendar compiled;
+
+        /**
+         * The business days, private copies never modified.
+         */
+        private final Set<BusinessDay> businessDays;
+
+        /**
+         * The holidays, unmodifiable.
+         */
+        private final Set<LocalDate> holidays;
+
+        /**
+         * The holiday rules, unmodifiable.
+         */
+        private final Set<HolidayRule> holidayRules;
+
+        /**
+         * The time slots by overridden day, unmodifiable.
+         */
+        private final Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides;
+
+        /**
+         * The minute resolution mode.
+         */
+        private final boolean minuteResolution;
+
+        /**
+         * Simple constructor that initialize fields from the parameters.
+         *
+         * @param compiled         the compiled calendar, not null.
+         * @param businessDays     the business days, not null.
+         * @param holidays         the holidays, not null.
+         * @param holidayRules     the holiday rules, not null.
+         * @param dayOverrides     the time slots by overridden day, not
+         *                         null.
+         * @param minuteResolution the minute resolution mode.
+         */
+        private Snapshot(CompiledCalendar compiled,
+                         Set<BusinessDay> businessDays,
+                         Set<LocalDate> holidays,
+                         Set<HolidayRule> holidayRules,
+                         Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides,
+                         boolean minuteResolution) {
+            this.compiled = compiled;
+            this.businessDays = businessDays;
+            this.holidays = holidays;
+            this.holidayRules = holidayRules;
+            this.dayOverrides = dayOverrides;
+            this.minuteResolution = minuteResolution;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A compiled, immutable overlay of the time slots of some dates, replacing
+ * the time slots of their day-of-week, such as a christmas eve closing at
+ * noon or a black friday open until late.
+ * <p>
+ * The overlay is sparse: the dates are stored as a sorted array of epoch
+ * days, along with the {@link TimeSlotTable} of each one at the same index.
+ * A day is looked up with a binary search, and the overridden days of a
+ * range are found with two. The epoch days are read through a
+ * {@link LongView}, so that an overlay can be backed by the heap or by a
+ * stored calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class DayOverrides {
+
+    /**
+     * Overlay without any overridden day.
+     */
+    static final DayOverrides EMPTY =
+            new DayOverrides(LongView.EMPTY, new TimeSlotTable[0]);
+
+    /**
+     * Sorted epoch days of the overridden days.
+     */
+    private final LongView epochDays;
+
+    /**
+     * Compiled time slots of each overridden day.
+     */
+    private final TimeSlotTable[] tables;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param epochDays the sorted epoch days, not null.
+     * @param tables    the compiled time slots, not null.
+     */
+    private DayOverrides(LongView epochDays, TimeSlotTable[] tables) {
+        this.epochDays = epochDays;
+        this.tables = tables;
+    }
+
+    /**
+     * Obtains an instance of {@code DayOverrides} from the time slots of some
+     * dates.
+     *
+     * @param dayOverrides the time slots by date, not null.
+     * @return the compiled overlay, not null.
+     */
+    static DayOverrides of(
+            Map<LocalDate, ? extends Collection<BusinessTimeSlot>>
+                    dayOverrides) {
+        Objects.requireNonNull(dayOverrides, "dayOverrides");
+
+        if (dayOverrides.isEmpty()) {
+            return EMPTY;
+        }
+
+        LocalDate[] dates =
+                dayOverrides.keySet().toArray(new LocalDate[0]);
+        Arrays.sort(dates);
+        long[] epochDays = new long[dates.length];
+        TimeSlotTable[] tables = new TimeSlotTable[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            epochDays[i] = dates[i].toEpochDay();
+            tables[i] = TimeSlotTable.of(dayOverrides.get(dates[i]));
+        }
+        return new DayOverrides(LongView.of(epochDays), tables);
+    }
+
+    /**
+     * Obtains an instance of {@code DayOverrides} from sorted epoch days and
+     * the compiled time slots of each one.
+     *
+     * @param epochDays the epoch days, sorted, not null.
+     * @param tables    the compiled time slots of each epoch day, not null.
+     * @return the compiled overlay, not null.
+     * @throws IllegalArgumentException if the epoch days are not sorted, or
+     *                                  the sizes do not match.
+     */
+    static DayOverrides of(LongView epochDays, TimeSlotTable[] tables) {
+        Objects.requireNonNull(epochDays, "epochDays");
+        Objects.requireNonNull(tables, "tables");
+
+        if (epochDays.size() != tables.length) {
+            throw new IllegalArgumentException("sizes do not match");
+        }
+        for (int i = 1; i < epochDays.size(); i++) {
+            if (epochDays.get(i) <= epochDays.get(i - 1)) {
+                throw new IllegalArgumentException("epoch days not sorted");
+            }
+        }
+        return tables.length == 0 ? EMPTY
+                : new DayOverrides(epochDays, tables.clone());
+    }
+
+    /**
+     * Check if there is no overridden day.
+     *
+     * @return true if there is no overridden day, false if not.
+     */
+    boolean isEmpty() {
+        return epochDays.size() == 0;
+    }
+
+    /**
+     * Get the number of overridden days.
+     *
+     * @return the number of overridden days, positive or zero.
+     */
+    int size() {
+        return epochDays.size();
+    }
+
+    /**
+     * Get the epoch day of an overridden day.
+     *
+     * @param index the index of the overridden day.
+     * @return the epoch day.
+     */
+    long epochDay(int index) {
+        return epochDays.get(index);
+    }
+
+    /**
+     * Get the compiled time slots of an overridden day.
+     *
+     * @param index the index of the overridden day.
+     * @return the compiled time slots, not null.
+     */
+    TimeSlotTable table(int index) {
+        return tables[index];
+    }
+
+    /**
+     * Get the compiled time slots of an epoch day, if it is overridden.
+     *
+     * @param epochDay the epoch day.
+     * @return the compiled time slots, null if the day is not overridden.
+     */
+    TimeSlotTable tableOf(long epochDay) {
+        if (epochDays.size() == 0) {
+            return null;
+        }
+        int index = epochDays.binarySearch(epochDay);
+        return index >= 0 ? tables[index] : null;
+    }
+
+    /**
+     * Count the overridden days before an epoch day.
+     *
+     * @param epochDay the epoch day, exclusive.
+     * @return the number of overridden days before epochDay, which is also
+     * the index of the first one from epochDay.
+     */
+    int countBefore(long epochDay) {
+        int index = epochDays.binarySearch(epochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Get the first overridden day from an epoch day.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, {@link Long#MAX_VALUE} if there is none.
+     */
+    long nextDay(long epochDay) {
+        int index = countBefore(epochDay);
+        return index < epochDays.size() ? epochDays.get(index)
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the last overridden day up to an epoch day.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, {@link Long#MIN_VALUE} if there is none.
+     */
+    long previousDay(long epochDay) {
+        int index = countBefore(epochDay + 1) - 1;
+        return index >= 0 ? epochDays.get(index) : Long.MIN_VALUE;
+    }
+}
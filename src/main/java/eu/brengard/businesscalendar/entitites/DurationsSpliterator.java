@@ -0,0 +1,117 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A spliterator over the working seconds of a range of rows of a batch,
+ * computed against a compiled calendar.
+ * <p>
+ * Each spliterator keeps its own cursor on the zone table, and splits its
+ * range in halves. The arrays of the caller are read as the rows are
+ * traversed, so the spliterator is not {@link #IMMUTABLE}.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#durationsSpliterator(long[], long[], java.time.ZoneId)
+ * @since 1.8
+ */
+final class DurationsSpliterator implements Spliterator.OfLong {
+
+    /**
+     * The compiled calendar, shared by every spliterator.
+     */
+    private final CompiledCalendar compiled;
+
+    /**
+     * The zone table, shared by every spliterator.
+     */
+    private final ZoneTable zoneTable;
+
+    /**
+     * The cursor on the zone table, own to this spliterator.
+     */
+    private final ZoneTable.Cursor cursor;
+
+    /**
+     * The start epoch seconds.
+     */
+    private final long[] startsEpochSec;
+
+    /**
+     * The end epoch seconds.
+     */
+    private final long[] endsEpochSec;
+
+    /**
+     * The next row.
+     */
+    private int index;
+
+    /**
+     * The last row, exclusive.
+     */
+    private final int toIndex;
+
+    /**
+     * Simple constructor that initialize fields from the parameters.
+     *
+     * @param compiled       the compiled calendar, not null.
+     * @param zoneTable      the zone table, not null.
+     * @param startsEpochSec the start epoch seconds, not null.
+     * @param endsEpochSec   the end epoch seconds, not null.
+     * @param fromIndex      the first row, inclusive.
+     * @param toIndex        the last row, exclusive.
+     */
+    DurationsSpliterator(CompiledCalendar compiled, ZoneTable zoneTable,
+                         long[] startsEpochSec, long[] endsEpochSec,
+                         int fromIndex, int toIndex) {
+        this.compiled = compiled;
+        this.zoneTable = zoneTable;
+        this.cursor = zoneTable.cursor();
+        this.startsEpochSec = startsEpochSec;
+        this.endsEpochSec = endsEpochSec;
+        this.index = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (index >= toIndex) {
+            return false;
+        }
+        action.accept(compiled.secondsBetween(cursor, startsEpochSec[index],
+                endsEpochSec[index]));
+        index++;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        for (; index < toIndex; index++) {
+            action.accept(compiled.secondsBetween(cursor,
+                    startsEpochSec[index], endsEpochSec[index]));
+        }
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        int middle = (index + toIndex) >>> 1;
+        if (middle <= index) {
+            return null;
+        }
+        Spliterator.OfLong prefix = new DurationsSpliterator(compiled,
+                zoneTable, startsEpochSec, endsEpochSec, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return toIndex - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
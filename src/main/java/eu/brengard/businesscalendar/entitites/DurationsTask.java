@@ -0,0 +1,100 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task computing the working seconds of a range of rows of a
+ * batch against a compiled calendar.
+ * <p>
+ * The range is split in halves until it holds at most {@value #THRESHOLD}
+ * rows. Each row is written at its own index in the output, so the result
+ * does not depend on the order in which the tasks run.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#parallelDurations(long[], long[], java.time.ZoneId, long[])
+ * @since 1.8
+ */
+final class DurationsTask extends RecursiveAction {
+
+    /**
+     * {@value THRESHOLD} Maximum number of rows computed without splitting.
+     */
+    static final int THRESHOLD = 1 << 13;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The compiled calendar, shared by every task.
+     */
+    private final transient CompiledCalendar compiled;
+
+    /**
+     * The zone table, shared by every task.
+     */
+    private final transient ZoneTable zoneTable;
+
+    /**
+     * The start epoch seconds.
+     */
+    private final long[] startsEpochSec;
+
+    /**
+     * The end epoch seconds.
+     */
+    private final long[] endsEpochSec;
+
+    /**
+     * The working seconds.
+     */
+    private final long[] out;
+
+    /**
+     * The first row, inclusive.
+     */
+    private final int fromIndex;
+
+    /**
+     * The last row, exclusive.
+     */
+    private final int toIndex;
+
+    /**
+     * Simple constructor that initialize fields from the parameters.
+     *
+     * @param compiled       the compiled calendar, not null.
+     * @param zoneTable      the zone table, not null.
+     * @param startsEpochSec the start epoch seconds, not null.
+     * @param endsEpochSec   the end epoch seconds, not null.
+     * @param out            the working seconds, not null.
+     * @param fromIndex      the first row, inclusive.
+     * @param toIndex        the last row, exclusive.
+     */
+    DurationsTask(CompiledCalendar compiled, ZoneTable zoneTable,
+                  long[] startsEpochSec, long[] endsEpochSec, long[] out,
+                  int fromIndex, int toIndex) {
+        this.compiled = compiled;
+        this.zoneTable = zoneTable;
+        this.startsEpochSec = startsEpochSec;
+        this.endsEpochSec = endsEpochSec;
+        this.out = out;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    /**
+     * Compute the rows, splitting the range while it is too large.
+     */
+    @Override
+    protected void compute() {
+        if (toIndex - fromIndex <= THRESHOLD) {
+            compiled.secondsBetween(zoneTable, startsEpochSec, endsEpochSec,
+                    out, fromIndex, toIndex);
+            return;
+        }
+        int middle = (fromIndex + toIndex) >>> 1;
+        invokeAll(new DurationsTask(compiled, zoneTable, startsEpochSec,
+                        endsEpochSec, out, fromIndex, middle),
+                new DurationsTask(compiled, zoneTable, startsEpochSec,
+                        endsEpochSec, out, middle, toIndex));
+    }
+}
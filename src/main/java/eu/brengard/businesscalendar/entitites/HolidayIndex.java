@@ -0,0 +1,638 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * An immutable index of holidays, backed by a bitset keyed by epoch day.
+ * <p>
+ * This class provides methods to check if a day is an holiday and to count
+ * the holidays of a range of days, eventually only those falling on a given
+ * day-of-week. A day is checked with a single bit test. A range is counted
+ * in constant time from the number of holidays stored before each block of
+ * 512 days, plus the popcount of at most 8 words at each end of the range.
+ * <p>
+ * The bitset spans from the first holiday to the last one: an index holding
+ * 200 holidays over 10 years takes less than 1 kilobyte. When the holidays
+ * span more than {@value #MAX_BITSET_WORDS} words (about 700 years), as
+ * with a mistyped year, the index keeps instead the sorted epoch days of the
+ * holidays with the number of holidays before each of them: a day is then
+ * checked and a range counted with binary searches, and the memory taken
+ * stays proportional to the number of holidays.
+ * <p>
+ * The words, the days and the ranks are read through a {@link LongView}, so
+ * that an index can be backed by the heap or by a stored calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#getHolidayIndex()
+ * @since 1.8
+ */
+public final class HolidayIndex implements Serializable {
+
+    /**
+     * {@value BLOCK_SHIFT} Shift giving the block of a word, a block being 8
+     * words (512 days).
+     */
+    static final int BLOCK_SHIFT = 3;
+
+    /**
+     * {@value RANK_COLUMNS} Number of ranks by block, one for each
+     * day-of-week and one for every day.
+     */
+    static final int RANK_COLUMNS = 8;
+
+    /**
+     * {@value MAX_BITSET_WORDS} Maximum number of words of a bitset, beyond
+     * which the holidays are kept as sorted epoch days.
+     */
+    static final int MAX_BITSET_WORDS = 4096;
+
+    /**
+     * Masks of the bits of a word whose position modulo 7 is the index.
+     */
+    private static final long[] MODULO_MASKS = new long[7];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            MODULO_MASKS[i % 7] |= 1L << i;
+        }
+    }
+
+    /**
+     * Index without any holiday.
+     */
+    private static final HolidayIndex EMPTY =
+            new HolidayIndex(0, LongView.EMPTY, LongView.EMPTY, LongView.of(
+                    new long[RANK_COLUMNS]));
+
+    /**
+     * Epoch day of the first bit, a multiple of 64.
+     */
+    private final long firstDay;
+
+    /**
+     * Bitset of the holidays, bit i of word w being the epoch day
+     * firstDay + 64 * w + i, empty when the holidays are kept as epoch days.
+     */
+    private final LongView words;
+
+    /**
+     * Holidays as sorted epoch days, empty when the holidays are kept in the
+     * bitset.
+     */
+    private final LongView days;
+
+    /**
+     * Number of holidays.
+     */
+    private final int size;
+
+    /**
+     * Number of holidays before each block of words, or before each of the
+     * epoch days, for each day-of-week ordinal and then for every day.
+     */
+    private final LongView ranks;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param firstDay the epoch day of the first bit.
+     * @param words    the bitset, not null.
+     * @param days     the holidays as sorted epoch days, not null.
+     * @param ranks    the number of holidays before each block or each day,
+     *                 not null.
+     */
+    private HolidayIndex(long firstDay, LongView words, LongView days,
+                         LongView ranks) {
+        this.firstDay = firstDay;
+        this.words = words;
+        this.days = days;
+        this.ranks = ranks;
+        this.size = (int) ranks.get(ranks.size() - 1);
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayIndex} from a bitset, counting
+     * its ranks.
+     *
+     * @param firstDay the epoch day of the first bit.
+     * @param words    the bitset, not null.
+     * @return the holiday index, not null.
+     */
+    private static HolidayIndex ofWords(long firstDay, long[] words) {
+        long[] ranks = new long[blocks(words.length) * RANK_COLUMNS];
+        for (int w = 0; w < words.length; w++) {
+            int next = ((w >>> BLOCK_SHIFT) + 1) * RANK_COLUMNS;
+            if ((w & ((1 << BLOCK_SHIFT) - 1)) == 0) {
+                System.arraycopy(ranks, next - RANK_COLUMNS, ranks, next,
+                        RANK_COLUMNS);
+            }
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                ranks[next + dayOfWeek] +=
+                        Long.bitCount(select(firstDay, dayOfWeek, w, words[w]));
+            }
+            ranks[next + RANK_COLUMNS - 1] += Long.bitCount(words[w]);
+        }
+        return new HolidayIndex(firstDay, LongView.of(words), LongView.EMPTY,
+                LongView.of(ranks));
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayIndex} from sorted distinct epoch
+     * days, counting their ranks.
+     *
+     * @param firstDay the epoch day of the first bit, kept for equality.
+     * @param days     the holidays as sorted distinct epoch days, not null.
+     * @return the holiday index, not null.
+     */
+    private static HolidayIndex ofDays(long firstDay, long[] days) {
+        long[] ranks = new long[(days.length + 1) * RANK_COLUMNS];
+        for (int i = 0; i < days.length; i++) {
+            int next = (i + 1) * RANK_COLUMNS;
+            System.arraycopy(ranks, next - RANK_COLUMNS, ranks, next,
+                    RANK_COLUMNS);
+            ranks[next + CompiledCalendar.dayOfWeek(days[i])]++;
+            ranks[next + RANK_COLUMNS - 1]++;
+        }
+        return new HolidayIndex(firstDay, LongView.EMPTY, LongView.of(days),
+                LongView.of(ranks));
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayIndex} from a bitset or sorted
+     * epoch days and their ranks, as given by {@link #words()},
+     * {@link #days()} and {@link #ranks()}.
+     *
+     * @param firstDay the epoch day of the first bit, a multiple of 64.
+     * @param words    the bitset, not null.
+     * @param days     the holidays as sorted epoch days, not null.
+     * @param ranks    the ranks, not null.
+     * @return the holiday index, not null.
+     * @throws IllegalArgumentException if the ranks do not match the bitset
+     *                                  or the epoch days.
+     */
+    static HolidayIndex of(long firstDay, LongView words, LongView days,
+                           LongView ranks) {
+        Objects.requireNonNull(words, "words");
+        Objects.requireNonNull(days, "days");
+        Objects.requireNonNull(ranks, "ranks");
+
+        if (days.size() == 0) {
+            if (Math.floorMod(firstDay, 64L) != 0
+                    || ranks.size() != blocks(words.size()) * RANK_COLUMNS
+                    || ranks.get(ranks.size() - 1) < 0
+                    || ranks.get(ranks.size() - 1) > 64L * words.size()) {
+                throw new IllegalArgumentException("ranks do not match");
+            }
+            return words.size() == 0 ? EMPTY
+                    : new HolidayIndex(firstDay, words, days, ranks);
+        }
+
+        if (words.size() != 0 || Math.floorMod(firstDay, 64L) != 0
+                || ranks.size() != (days.size() + 1) * RANK_COLUMNS
+                || ranks.get(ranks.size() - 1) != days.size()) {
+            throw new IllegalArgumentException("ranks do not match");
+        }
+        for (int i = 1; i < days.size(); i++) {
+            if (days.get(i - 1) >= days.get(i)) {
+                throw new IllegalArgumentException("days not sorted");
+            }
+        }
+        return new HolidayIndex(firstDay, words, days, ranks);
+    }
+
+    /**
+     * Get the number of blocks of ranks of a bitset, one more than the
+     * blocks of words.
+     *
+     * @param words the number of words.
+     * @return the number of blocks.
+     */
+    private static int blocks(int words) {
+        return ((words + 7) >>> BLOCK_SHIFT) + 1;
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayIndex} from holidays.
+     *
+     * @param holidays the holidays to index, not null.
+     * @return the holiday index, not null.
+     */
+    public static HolidayIndex of(Collection<LocalDate> holidays) {
+        Objects.requireNonNull(holidays, "holidays");
+
+        if (holidays.isEmpty()) {
+            return EMPTY;
+        }
+
+        long[] epochDays = new long[holidays.size()];
+        int i = 0;
+        for (LocalDate holiday : holidays) {
+            epochDays[i++] = holiday.toEpochDay();
+        }
+        return ofEpochDays(epochDays);
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayIndex} from holidays as epoch
+     * days.
+     *
+     * @param epochDays the holidays to index, not null.
+     * @return the holiday index, not null.
+     * @throws IllegalArgumentException if the holidays span more days than
+     *                                  a long can count.
+     */
+    static HolidayIndex ofEpochDays(long[] epochDays) {
+        if (epochDays.length == 0) {
+            return EMPTY;
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long epochDay : epochDays) {
+            min = Math.min(min, epochDay);
+            max = Math.max(max, epochDay);
+        }
+
+        long firstDay = Math.floorDiv(min, 64) * 64;
+        long span;
+        try {
+            span = Math.subtractExact(max, firstDay);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("holidays from epoch day " + min
+                    + " to epoch day " + max + " span too many days", e);
+        }
+
+        if (span / 64 >= MAX_BITSET_WORDS) {
+            long[] days = epochDays.clone();
+            Arrays.sort(days);
+            int distinct = 0;
+            for (long day : days) {
+                if (distinct == 0 || days[distinct - 1] != day) {
+                    days[distinct++] = day;
+                }
+            }
+            return ofDays(firstDay, Arrays.copyOf(days, distinct));
+        }
+
+        long[] words = new long[Math.toIntExact(span / 64 + 1)];
+        for (long epochDay : epochDays) {
+            long bit = epochDay - firstDay;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        return ofWords(firstDay, words);
+    }
+
+    /**
+     * Check if a day is an holiday.
+     *
+     * @param date the day to check, not null.
+     * @return true if it is an holiday, false if not.
+     */
+    public boolean isHoliday(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+
+        return isHoliday(date.toEpochDay());
+    }
+
+    /**
+     * Count the holidays between two days.
+     *
+     * @param startInclusive the first day, inclusive, not null.
+     * @param endExclusive   the last day, exclusive, not null.
+     * @return the number of holidays, zero if endExclusive is not after
+     * startInclusive.
+     */
+    public int countHolidays(LocalDate startInclusive, LocalDate endExclusive) {
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        return countHolidays(startInclusive.toEpochDay(),
+                endExclusive.toEpochDay());
+    }
+
+    /**
+     * Count the holidays falling on a day-of-week between two days.
+     *
+     * @param dayOfWeek      the day-of-week, not null.
+     * @param startInclusive the first day, inclusive, not null.
+     * @param endExclusive   the last day, exclusive, not null.
+     * @return the number of holidays, zero if endExclusive is not after
+     * startInclusive.
+     */
+    public int countHolidaysOn(DayOfWeek dayOfWeek, LocalDate startInclusive,
+                               LocalDate endExclusive) {
+        Objects.requireNonNull(dayOfWeek, "dayOfWeek");
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        return countHolidaysOn(dayOfWeek.ordinal(), startInclusive.toEpochDay(),
+                endExclusive.toEpochDay());
+    }
+
+    /**
+     * Get the number of holidays.
+     *
+     * @return the number of holidays, positive or zero.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the epoch day of the first bit of the bitset.
+     *
+     * @return the epoch day, a multiple of 64.
+     */
+    long firstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Get the bitset of the holidays.
+     *
+     * @return the words of the bitset, empty if the holidays are kept as
+     * epoch days, not null.
+     */
+    LongView words() {
+        return words;
+    }
+
+    /**
+     * Get the holidays as sorted epoch days.
+     *
+     * @return the epoch days, empty if the holidays are kept in the bitset,
+     * not null.
+     */
+    LongView days() {
+        return days;
+    }
+
+    /**
+     * Get the number of holidays before each block of words, or before each
+     * of the epoch days.
+     *
+     * @return the ranks, {@value #RANK_COLUMNS} by block or by day, not null.
+     */
+    LongView ranks() {
+        return ranks;
+    }
+
+    /**
+     * Check if an epoch day is an holiday.
+     *
+     * @param epochDay the epoch day to check.
+     * @return true if it is an holiday, false if not.
+     */
+    boolean isHoliday(long epochDay) {
+        if (days.size() > 0) {
+            return days.binarySearch(epochDay) >= 0;
+        }
+        long bit = epochDay - firstDay;
+        return bit >= 0 && bit < 64L * words.size()
+                && (words.get((int) (bit >>> 6)) & 1L << bit) != 0;
+    }
+
+    /**
+     * Get the first holiday from an epoch day.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day of the holiday, {@link Long#MAX_VALUE} if there is
+     * no holiday from epochDay.
+     */
+    long nextHoliday(long epochDay) {
+        if (days.size() > 0) {
+            int index = insertion(epochDay);
+            return index < days.size() ? days.get(index) : Long.MAX_VALUE;
+        }
+        long bit = Math.max(epochDay - firstDay, 0);
+        if (bit >= 64L * words.size()) {
+            return Long.MAX_VALUE;
+        }
+        int word = (int) (bit >>> 6);
+        long set = words.get(word) & -1L << bit;
+        while (set == 0) {
+            if (++word == words.size()) {
+                return Long.MAX_VALUE;
+            }
+            set = words.get(word);
+        }
+        return firstDay + 64L * word + Long.numberOfTrailingZeros(set);
+    }
+
+    /**
+     * Get the first epoch day, from an epoch day, that is not an holiday. Runs
+     * of holidays are skipped a word at a time.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, not before epochDay.
+     */
+    long nextNonHoliday(long epochDay) {
+        if (days.size() > 0) {
+            int index = days.binarySearch(epochDay);
+            if (index < 0) {
+                return epochDay;
+            }
+            while (index + 1 < days.size()
+                    && days.get(index + 1) == days.get(index) + 1) {
+                index++;
+            }
+            return days.get(index) + 1;
+        }
+        long bit = epochDay - firstDay;
+        if (bit < 0 || bit >= 64L * words.size()) {
+            return epochDay;
+        }
+        int word = (int) (bit >>> 6);
+        long free = ~words.get(word) & -1L << bit;
+        while (free == 0) {
+            if (++word == words.size()) {
+                return firstDay + 64L * word;
+            }
+            free = ~words.get(word);
+        }
+        return firstDay + 64L * word + Long.numberOfTrailingZeros(free);
+    }
+
+    /**
+     * Get the last epoch day, up to an epoch day, that is not an holiday.
+     * Runs of holidays are skipped a word at a time.
+     *
+     * @param epochDay the epoch day, inclusive.
+     * @return the epoch day, not after epochDay.
+     */
+    long previousNonHoliday(long epochDay) {
+        if (days.size() > 0) {
+            int index = days.binarySearch(epochDay);
+            if (index < 0) {
+                return epochDay;
+            }
+            while (index > 0 && days.get(index - 1) == days.get(index) - 1) {
+                index--;
+            }
+            return days.get(index) - 1;
+        }
+        long bit = epochDay - firstDay;
+        if (bit < 0 || bit >= 64L * words.size()) {
+            return epochDay;
+        }
+        int word = (int) (bit >>> 6);
+        long free = ~words.get(word) & -1L >>> (63 - (bit & 63));
+        while (free == 0) {
+            if (--word < 0) {
+                return firstDay - 1;
+            }
+            free = ~words.get(word);
+        }
+        return firstDay + 64L * word + 63 - Long.numberOfLeadingZeros(free);
+    }
+
+    /**
+     * Count the holidays between two epoch days.
+     *
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the number of holidays.
+     */
+    int countHolidays(long startInclusive, long endExclusive) {
+        return count(-1, startInclusive, endExclusive);
+    }
+
+    /**
+     * Count the holidays falling on a day-of-week between two epoch days.
+     *
+     * @param dayOfWeek      the day-of-week ordinal, monday being 0.
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the number of holidays.
+     */
+    int countHolidaysOn(int dayOfWeek, long startInclusive, long endExclusive) {
+        return count(dayOfWeek, startInclusive, endExclusive);
+    }
+
+    /**
+     * Count the holidays between two epoch days.
+     *
+     * @param dayOfWeek      the day-of-week ordinal, -1 for every day.
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the number of holidays.
+     */
+    private int count(int dayOfWeek, long startInclusive, long endExclusive) {
+        if (days.size() > 0) {
+            if (startInclusive >= endExclusive) {
+                return 0;
+            }
+            int column = dayOfWeek < 0 ? RANK_COLUMNS - 1 : dayOfWeek;
+            return (int) (ranks.get(insertion(endExclusive) * RANK_COLUMNS
+                    + column) - ranks.get(insertion(startInclusive)
+                    * RANK_COLUMNS + column));
+        }
+        long from = Math.max(startInclusive - firstDay, 0);
+        long to = Math.min(endExclusive - firstDay, 64L * words.size());
+        if (from >= to) {
+            return 0;
+        }
+        return countBefore(dayOfWeek, to) - countBefore(dayOfWeek, from);
+    }
+
+    /**
+     * Get the index of the first of the epoch days not before an epoch day.
+     *
+     * @param epochDay the epoch day.
+     * @return the index, between 0 and the number of epoch days.
+     */
+    private int insertion(long epochDay) {
+        int index = days.binarySearch(epochDay);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * Count the holidays before a bit, starting from the rank of its block
+     * and adding the popcount of the words of the block before it.
+     *
+     * @param dayOfWeek the day-of-week ordinal, -1 for every day.
+     * @param bit       the bit, between 0 and the number of bits.
+     * @return the number of holidays before the bit.
+     */
+    private int countBefore(int dayOfWeek, long bit) {
+        int word = (int) (bit >>> 6);
+        int block = word >>> BLOCK_SHIFT;
+        int count = (int) ranks.get(block * RANK_COLUMNS
+                + (dayOfWeek < 0 ? RANK_COLUMNS - 1 : dayOfWeek));
+        for (int w = block << BLOCK_SHIFT; w < word; w++) {
+            count += Long.bitCount(select(dayOfWeek, w, words.get(w)));
+        }
+        if ((bit & 63) != 0) {
+            count += Long.bitCount(
+                    select(dayOfWeek, word, words.get(word) & ~(-1L << bit)));
+        }
+        return count;
+    }
+
+    /**
+     * Keep the bits of a word falling on a day-of-week.
+     *
+     * @param dayOfWeek the day-of-week ordinal, -1 for every day.
+     * @param index     the index of the word.
+     * @param word      the bits of the word.
+     * @return the bits falling on the day-of-week.
+     */
+    private long select(int dayOfWeek, int index, long word) {
+        return select(firstDay, dayOfWeek, index, word);
+    }
+
+    /**
+     * Keep the bits of a word of a bitset falling on a day-of-week.
+     *
+     * @param firstDay  the epoch day of the first bit of the bitset.
+     * @param dayOfWeek the day-of-week ordinal, -1 for every day.
+     * @param index     the index of the word.
+     * @param word      the bits of the word.
+     * @return the bits falling on the day-of-week.
+     */
+    private static long select(long firstDay, int dayOfWeek, int index,
+                               long word) {
+        if (dayOfWeek < 0) {
+            return word;
+        }
+        int wordDayOfWeek = CompiledCalendar.dayOfWeek(firstDay + 64L * index);
+        return word & MODULO_MASKS[Math.floorMod(dayOfWeek - wordDayOfWeek, 7)];
+    }
+
+    /**
+     * Check if two holiday indexes are equals.
+     *
+     * @param o the second holiday index.
+     * @return true if the two holiday indexes hold the same holidays.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HolidayIndex that = (HolidayIndex) o;
+        return firstDay == that.firstDay && words.equals(that.words)
+                && days.equals(that.days);
+    }
+
+    /**
+     * Get hashCode from the holidays.
+     *
+     * @return the holiday index hashcode.
+     */
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(firstDay);
+        result = 31 * result + words.hashCode();
+        result = 31 * result + days.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,586 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.HolidayRuleParseException;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Objects;
+
+/**
+ * An immutable rule giving an holiday each year, such as christmas or easter
+ * monday.
+ * <p>
+ * A calendar holding rules does not store their holidays: the rules are
+ * expanded into the holidays of a year only when a query touches that year,
+ * so the memory taken by the holidays stays proportional to the years
+ * queried.
+ * <p>
+ * A rule can be written as a String, parsed by {@link #parse(CharSequence)}:
+ * <ul>
+ * <li>
+ * {@code 25/12}, a fixed day of the year, as {@code d/M}.
+ * </li>
+ * <li>
+ * {@code monday#1/5}, the nth day-of-week of a month, as
+ * {@code dayOfWeek#n/M}, n being from 1 to 5, or from -1 to -5 to count
+ * from the end of the month.
+ * </li>
+ * <li>
+ * {@code easter}, {@code easter+1} or {@code easter-2}, a number of days
+ * from easter sunday.
+ * </li>
+ * <li>
+ * Any of them followed by {@code >monday}, the holiday being observed on the
+ * next monday when it falls on a saturday or a sunday.
+ * </li>
+ * </ul>
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#setHolidayRules(java.util.Set)
+ * @since 1.8
+ */
+public abstract class HolidayRule implements Serializable {
+
+    /**
+     * {@value MAX_EASTER_OFFSET} Maximum number of days from easter sunday.
+     */
+    public static final int MAX_EASTER_OFFSET = 366;
+
+    /**
+     * {@value EASTER} Keyword of the easter rules.
+     */
+    private static final String EASTER = "easter";
+
+    /**
+     * {@value OBSERVED} Suffix of the rules observed on monday.
+     */
+    private static final String OBSERVED = ">monday";
+
+    /**
+     * Simple private constructor, the rules are obtained from the static
+     * methods.
+     */
+    private HolidayRule() {
+    }
+
+    /**
+     * Obtains a rule giving a fixed day of the year. A rule on february 29
+     * gives an holiday on leap years only.
+     *
+     * @param monthDay the day of the year, not null.
+     * @return the holiday rule, not null.
+     */
+    public static HolidayRule fixed(MonthDay monthDay) {
+        Objects.requireNonNull(monthDay, "monthDay");
+
+        return new Fixed(monthDay);
+    }
+
+    /**
+     * Obtains a rule giving the nth day-of-week of a month, such as the
+     * first monday of may or the last monday of august. A rule on a fifth
+     * day-of-week gives an holiday only on the years the month has one.
+     *
+     * @param ordinal   the ordinal of the day-of-week in the month, from 1
+     *                  to 5, or from -1 to -5 to count from the end of the
+     *                  month.
+     * @param dayOfWeek the day-of-week, not null.
+     * @param month     the month, not null.
+     * @return the holiday rule, not null.
+     * @throws IllegalArgumentException if ordinal is not valid.
+     */
+    public static HolidayRule nthWeekday(int ordinal, DayOfWeek dayOfWeek,
+                                         Month month) {
+        Objects.requireNonNull(dayOfWeek, "dayOfWeek");
+        Objects.requireNonNull(month, "month");
+
+        if (ordinal == 0 || ordinal < -5 || ordinal > 5) {
+            throw new IllegalArgumentException(
+                    "ordinal must be from 1 to 5 or from -1 to -5");
+        }
+        return new NthWeekday(ordinal, dayOfWeek, month);
+    }
+
+    /**
+     * Obtains a rule giving a day relative to easter sunday, such as easter
+     * monday (1) or good friday (-2). Easter sunday is computed in the
+     * gregorian calendar, from year 1.
+     *
+     * @param offset the number of days from easter sunday, between
+     *               -{@value #MAX_EASTER_OFFSET} and
+     *               {@value #MAX_EASTER_OFFSET}.
+     * @return the holiday rule, not null.
+     * @throws IllegalArgumentException if offset is out of range.
+     */
+    public static HolidayRule easter(int offset) {
+        if (offset < -MAX_EASTER_OFFSET || offset > MAX_EASTER_OFFSET) {
+            throw new IllegalArgumentException("offset must be between -"
+                    + MAX_EASTER_OFFSET + " and " + MAX_EASTER_OFFSET);
+        }
+        return new Easter(offset);
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayRule} from a text, such as
+     * {@code 25/12}, {@code monday#-1/5}, {@code easter+1} or
+     * {@code 1/1>monday}. The day-of-weeks and the keywords are case
+     * insensitive.
+     *
+     * @param text the text to parse, not null.
+     * @return the holiday rule, not null.
+     * @throws HolidayRuleParseException if the text can not be parsed.
+     */
+    public static HolidayRule parse(CharSequence text) {
+        Objects.requireNonNull(text, "text");
+
+        String string = text.toString();
+        int end = string.length();
+        boolean observed = end >= OBSERVED.length() && string.regionMatches(
+                true, end - OBSERVED.length(), OBSERVED, 0, OBSERVED.length());
+        if (observed) {
+            end -= OBSERVED.length();
+        }
+
+        HolidayRule rule;
+        if (string.regionMatches(true, 0, EASTER, 0, EASTER.length())) {
+            rule = parseEaster(string, EASTER.length(), end);
+        } else if (end > 0 && isDigit(string.charAt(0))) {
+            rule = parseFixed(string, end);
+        } else {
+            rule = parseNthWeekday(string, end);
+        }
+        return observed ? rule.observedOnMonday() : rule;
+    }
+
+    /**
+     * Obtains a rule giving the same holidays as this rule, except that an
+     * holiday falling on a saturday or a sunday is observed on the next
+     * monday.
+     *
+     * @return the holiday rule, not null.
+     */
+    public HolidayRule observedOnMonday() {
+        return new ObservedOnMonday(this);
+    }
+
+    /**
+     * Get the holiday given by the rule in a year. An holiday observed on
+     * monday can fall in the next year.
+     *
+     * @param year the year.
+     * @return the holiday, null if the rule gives no holiday that year.
+     */
+    public abstract LocalDate dateIn(int year);
+
+    /**
+     * Check if the holidays given by the rule repeat every 400 years. The
+     * gregorian cycle lasts 146097 days, a whole number of weeks, so a rule
+     * that does not depend on easter gives the same days of the year on the
+     * same days-of-week.
+     *
+     * @return true if the holidays repeat every 400 years, false if not.
+     */
+    boolean isPeriodic() {
+        return true;
+    }
+
+    /**
+     * Get the rule as a String that can be parsed by
+     * {@link #parse(CharSequence)}.
+     *
+     * @return the rule, not null.
+     */
+    @Override
+    public abstract String toString();
+
+    /**
+     * Parse an easter rule.
+     *
+     * @param text  the text, not null.
+     * @param index the index of the offset.
+     * @param end   the end of the rule, exclusive.
+     * @return the holiday rule, not null.
+     */
+    private static HolidayRule parseEaster(String text, int index, int end) {
+        if (index == end) {
+            return easter(0);
+        }
+        if (index > end
+                || text.charAt(index) != '+' && text.charAt(index) != '-') {
+            throw new HolidayRuleParseException(text, Math.min(index, end));
+        }
+        int offset = parseNumber(text, index + 1, end, 3);
+        if (offset > MAX_EASTER_OFFSET) {
+            throw new HolidayRuleParseException(text, index + 1);
+        }
+        return easter(text.charAt(index) == '-' ? -offset : offset);
+    }
+
+    /**
+     * Parse a fixed day of the year rule, as {@code d/M}.
+     *
+     * @param text the text, not null.
+     * @param end  the end of the rule, exclusive.
+     * @return the holiday rule, not null.
+     */
+    private static HolidayRule parseFixed(String text, int end) {
+        int slash = text.indexOf('/');
+        if (slash < 0 || slash >= end) {
+            throw new HolidayRuleParseException(text, digitsEnd(text, 0, end));
+        }
+        int day = parseNumber(text, 0, slash, 2);
+        int month = parseMonth(text, slash + 1, end);
+        if (day < 1 || day > Month.of(month).maxLength()) {
+            throw new HolidayRuleParseException(text, 0);
+        }
+        return fixed(MonthDay.of(month, day));
+    }
+
+    /**
+     * Parse a nth day-of-week of a month rule, as {@code dayOfWeek#n/M}.
+     *
+     * @param text the text, not null.
+     * @param end  the end of the rule, exclusive.
+     * @return the holiday rule, not null.
+     */
+    private static HolidayRule parseNthWeekday(String text, int end) {
+        int hash = text.indexOf('#');
+        if (hash < 0 || hash >= end) {
+            throw new HolidayRuleParseException(text, 0);
+        }
+        DayOfWeek dayOfWeek = null;
+        for (DayOfWeek value : DayOfWeek.values()) {
+            if (value.name().length() == hash
+                    && value.name().regionMatches(true, 0, text, 0, hash)) {
+                dayOfWeek = value;
+            }
+        }
+        if (dayOfWeek == null) {
+            throw new HolidayRuleParseException(text, 0);
+        }
+
+        int index = hash + 1;
+        boolean last = index < end && text.charAt(index) == '-';
+        if (last) {
+            index++;
+        }
+        if (index + 1 >= end || text.charAt(index + 1) != '/') {
+            throw new HolidayRuleParseException(text, Math.min(index + 1, end));
+        }
+        int ordinal = parseNumber(text, index, index + 1, 1);
+        if (ordinal < 1 || ordinal > 5) {
+            throw new HolidayRuleParseException(text, index);
+        }
+        int month = parseMonth(text, index + 2, end);
+        return nthWeekday(last ? -ordinal : ordinal, dayOfWeek,
+                Month.of(month));
+    }
+
+    /**
+     * Parse a month of the year, as {@code M}.
+     *
+     * @param text  the text, not null.
+     * @param start the index of the month, inclusive.
+     * @param end   the end of the month, exclusive.
+     * @return the month, from 1 to 12.
+     */
+    private static int parseMonth(String text, int start, int end) {
+        int month = parseNumber(text, start, end, 2);
+        if (month < 1 || month > 12) {
+            throw new HolidayRuleParseException(text, start);
+        }
+        return month;
+    }
+
+    /**
+     * Parse a positive number made only of digits.
+     *
+     * @param text      the text, not null.
+     * @param start     the index of the number, inclusive.
+     * @param end       the end of the number, exclusive.
+     * @param maxDigits the maximum number of digits.
+     * @return the number, positive or zero.
+     */
+    private static int parseNumber(String text, int start, int end,
+                                   int maxDigits) {
+        int digitsEnd = digitsEnd(text, start, end);
+        if (digitsEnd == start || digitsEnd != end) {
+            throw new HolidayRuleParseException(text, digitsEnd);
+        }
+        if (end - start > maxDigits) {
+            throw new HolidayRuleParseException(text, start + maxDigits);
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + text.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Get the end of the digits starting at an index.
+     *
+     * @param text  the text, not null.
+     * @param start the index of the digits, inclusive.
+     * @param end   the end of the text to read, exclusive.
+     * @return the index of the first non digit, or end.
+     */
+    private static int digitsEnd(String text, int start, int end) {
+        int index = start;
+        while (index < end && isDigit(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Check if a character is an ASCII digit.
+     *
+     * @param c the character.
+     * @return true if it is a digit, false if not.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Get easter sunday of a year of the gregorian calendar, with the
+     * anonymous gregorian algorithm.
+     *
+     * @param year the year, from 1.
+     * @return easter sunday, not null.
+     */
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * A fixed day of the year.
+     */
+    private static final class Fixed extends HolidayRule {
+
+        /**
+         * The day of the year.
+         */
+        private final MonthDay monthDay;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param monthDay the day of the year, not null.
+         */
+        private Fixed(MonthDay monthDay) {
+            this.monthDay = monthDay;
+        }
+
+        @Override
+        public LocalDate dateIn(int year) {
+            return monthDay.isValidYear(year) ? monthDay.atYear(year) : null;
+        }
+
+        @Override
+        public String toString() {
+            return monthDay.getDayOfMonth() + "/" + monthDay.getMonthValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Fixed && monthDay.equals(((Fixed) o).monthDay);
+        }
+
+        @Override
+        public int hashCode() {
+            return monthDay.hashCode();
+        }
+    }
+
+    /**
+     * The nth day-of-week of a month.
+     */
+    private static final class NthWeekday extends HolidayRule {
+
+        /**
+         * The ordinal of the day-of-week in the month, negative from the end
+         * of the month.
+         */
+        private final int ordinal;
+
+        /**
+         * The day-of-week.
+         */
+        private final DayOfWeek dayOfWeek;
+
+        /**
+         * The month.
+         */
+        private final Month month;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param ordinal   the ordinal of the day-of-week.
+         * @param dayOfWeek the day-of-week, not null.
+         * @param month     the month, not null.
+         */
+        private NthWeekday(int ordinal, DayOfWeek dayOfWeek, Month month) {
+            this.ordinal = ordinal;
+            this.dayOfWeek = dayOfWeek;
+            this.month = month;
+        }
+
+        @Override
+        public LocalDate dateIn(int year) {
+            LocalDate date = LocalDate.of(year, month, 1).with(
+                    TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek));
+            return date.getMonth() == month ? date : null;
+        }
+
+        @Override
+        public String toString() {
+            return dayOfWeek.name().toLowerCase() + "#" + ordinal + "/"
+                    + month.getValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NthWeekday)) {
+                return false;
+            }
+            NthWeekday that = (NthWeekday) o;
+            return ordinal == that.ordinal && dayOfWeek == that.dayOfWeek
+                    && month == that.month;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = ordinal;
+            result = 31 * result + dayOfWeek.hashCode();
+            result = 31 * result + month.hashCode();
+            return result;
+        }
+    }
+
+    /**
+     * A day relative to easter sunday.
+     */
+    private static final class Easter extends HolidayRule {
+
+        /**
+         * The number of days from easter sunday.
+         */
+        private final int offset;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param offset the number of days from easter sunday.
+         */
+        private Easter(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public LocalDate dateIn(int year) {
+            return year >= 1 ? easterSunday(year).plusDays(offset) : null;
+        }
+
+        @Override
+        boolean isPeriodic() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return offset == 0 ? EASTER
+                    : EASTER + (offset > 0 ? "+" : "") + offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Easter && offset == ((Easter) o).offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return offset;
+        }
+    }
+
+    /**
+     * A rule whose holidays falling on a weekend are observed on monday.
+     */
+    private static final class ObservedOnMonday extends HolidayRule {
+
+        /**
+         * The rule giving the holidays, not observed on monday itself.
+         */
+        private final HolidayRule rule;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param rule the rule giving the holidays, not null.
+         */
+        private ObservedOnMonday(HolidayRule rule) {
+            this.rule = rule;
+        }
+
+        @Override
+        public HolidayRule observedOnMonday() {
+            return this;
+        }
+
+        @Override
+        public LocalDate dateIn(int year) {
+            LocalDate date = rule.dateIn(year);
+            if (date != null && (date.getDayOfWeek() == DayOfWeek.SATURDAY
+                    || date.getDayOfWeek() == DayOfWeek.SUNDAY)) {
+                return date.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+            }
+            return date;
+        }
+
+        @Override
+        boolean isPeriodic() {
+            return rule.isPeriodic();
+        }
+
+        @Override
+        public String toString() {
+            return rule + OBSERVED;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ObservedOnMonday
+                    && rule.equals(((ObservedOnMonday) o).rule);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * rule.hashCode() + 1;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The holidays given by {@link HolidayRule}s, expanded lazily by year.
+ * <p>
+ * The holidays of a year are computed the first time a query touches that
+ * year, then cached as a small sorted array of epoch days along with their
+ * count by day-of-week. Checking a day is a lookup of its year and a binary
+ * search in a dozen of days. Only the first and the last years of a range
+ * are cached, the whole years between them are counted by day-of-week
+ * without their days:
+ * <ul>
+ * <li>from {@value #HORIZON_FIRST_YEAR} and for {@value #HORIZON_CYCLES}
+ * cycles of {@value #CYCLE_YEARS} years, with prefix sums of the counts of
+ * each year, computed the first time a range spans whole years of a
+ * cycle,</li>
+ * <li>outside that horizon, with prefix sums of the rules that are not based
+ * on easter over the first cycle, as they repeat every {@value #CYCLE_YEARS}
+ * years of the gregorian cycle. The explicit holidays falling there are
+ * then checked one by one.</li>
+ * </ul>
+ * Easter being not periodic, the years of the easter holidays outside the
+ * horizon are expanded one by one, without being cached. A range of
+ * centuries inside the horizon then costs a few lookups, and the memory
+ * taken stays bounded, even for a range of millions of years.
+ * <p>
+ * The days that are already explicit holidays of the calendar are left out,
+ * so that the holidays of both are counted once.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class HolidayRules {
+
+    /**
+     * {@value HORIZON_FIRST_YEAR} First year of the horizon counted with
+     * prefix sums.
+     */
+    static final int HORIZON_FIRST_YEAR = 1600;
+
+    /**
+     * {@value CYCLE_YEARS} Number of years of the gregorian cycle.
+     */
+    static final int CYCLE_YEARS = 400;
+
+    /**
+     * {@value HORIZON_CYCLES} Number of cycles of the horizon.
+     */
+    static final int HORIZON_CYCLES = 4;
+
+    /**
+     * Holiday index without any holiday, to expand the rules alone.
+     */
+    private static final HolidayIndex NO_HOLIDAY =
+            HolidayIndex.ofEpochDays(new long[0]);
+
+    /**
+     * Rules without any holiday.
+     */
+    static final HolidayRules EMPTY =
+            new HolidayRules(new HolidayRule[0], NO_HOLIDAY);
+
+    /**
+     * The rules.
+     */
+    private final HolidayRule[] rules;
+
+    /**
+     * The rules that are not based on easter.
+     */
+    private final HolidayRule[] periodicRules;
+
+    /**
+     * The explicit holidays of the calendar, left out of the rule holidays.
+     */
+    private final HolidayIndex explicit;
+
+    /**
+     * The rule holidays of the years queried, by year.
+     */
+    private final ConcurrentMap<Integer, YearHolidays> years =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The number of rule holidays by day-of-week before each year of each
+     * cycle of the horizon, null until a range spans whole years of it.
+     */
+    private final AtomicReferenceArray<int[]> horizon =
+            new AtomicReferenceArray<>(HORIZON_CYCLES);
+
+    /**
+     * The number of holidays of the periodic rules, explicit holidays
+     * included, by day-of-week before each year of a cycle starting at
+     * {@value #HORIZON_FIRST_YEAR}, null until a range spans whole years
+     * outside the horizon.
+     */
+    private volatile int[] cycle;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param rules    the rules, not null.
+     * @param explicit the explicit holidays, not null.
+     */
+    private HolidayRules(HolidayRule[] rules, HolidayIndex explicit) {
+        this.rules = rules;
+        this.explicit = explicit;
+        int size = 0;
+        HolidayRule[] periodic = new HolidayRule[rules.length];
+        for (HolidayRule rule : rules) {
+            if (rule.isPeriodic()) {
+                periodic[size++] = rule;
+            }
+        }
+        this.periodicRules = Arrays.copyOf(periodic, size);
+    }
+
+    /**
+     * Obtains an instance of {@code HolidayRules} from rules.
+     *
+     * @param rules    the rules, not null.
+     * @param explicit the explicit holidays of the calendar, not null.
+     * @return the rule holidays, not null.
+     */
+    static HolidayRules of(Collection<HolidayRule> rules,
+                           HolidayIndex explicit) {
+        Objects.requireNonNull(rules, "rules");
+        Objects.requireNonNull(explicit, "explicit");
+
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+        return new HolidayRules(rules.toArray(new HolidayRule[0]), explicit);
+    }
+
+    /**
+     * Check if there is no rule.
+     *
+     * @return true if there is no rule, false if not.
+     */
+    boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Get the rules.
+     *
+     * @return a copy of the rules, not null.
+     */
+    HolidayRule[] rules() {
+        return rules.clone();
+    }
+
+    /**
+     * Get the number of years expanded so far.
+     *
+     * @return the number of years, positive or zero.
+     */
+    int expandedYears() {
+        return years.size();
+    }
+
+    /**
+     * Check if an epoch day is a rule holiday, and not an explicit one.
+     *
+     * @param epochDay the epoch day to check.
+     * @return true if it is a rule holiday, false if not.
+     */
+    boolean isHoliday(long epochDay) {
+        if (rules.length == 0) {
+            return false;
+        }
+        return Arrays.binarySearch(year(yearOf(epochDay)).epochDays,
+                epochDay) >= 0;
+    }
+
+    /**
+     * Get the working nanos of the rule holidays between two epoch days.
+     *
+     * @param dailyNanos     the working nanos of each day-of-week, not null.
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the working nanos, positive or zero.
+     */
+    long workingNanos(long[] dailyNanos, long startInclusive,
+                      long endExclusive) {
+        if (rules.length == 0 || startInclusive >= endExclusive) {
+            return 0;
+        }
+
+        int firstYear = yearOf(startInclusive);
+        int lastYear = yearOf(endExclusive - 1);
+        long nanos = yearNanos(dailyNanos, firstYear, startInclusive,
+                endExclusive);
+        if (lastYear > firstYear) {
+            nanos += yearsNanos(dailyNanos, firstYear + 1, lastYear);
+            nanos += yearNanos(dailyNanos, lastYear, startInclusive,
+                    endExclusive);
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos of the rule holidays of a year between two epoch
+     * days, caching the holidays of the year.
+     *
+     * @param dailyNanos     the working nanos of each day-of-week, not null.
+     * @param year           the year.
+     * @param startInclusive the first epoch day, inclusive.
+     * @param endExclusive   the last epoch day, exclusive.
+     * @return the working nanos, positive or zero.
+     */
+    private long yearNanos(long[] dailyNanos, int year, long startInclusive,
+                           long endExclusive) {
+        long nanos = 0;
+        for (long epochDay : year(year).epochDays) {
+            if (epochDay >= startInclusive && epochDay < endExclusive) {
+                nanos += dailyNanos[CompiledCalendar.dayOfWeek(epochDay)];
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos of the rule holidays of whole years.
+     *
+     * @param dailyNanos the working nanos of each day-of-week, not null.
+     * @param fromYear   the first year, inclusive.
+     * @param toYear     the last year, exclusive.
+     * @return the working nanos, positive or zero.
+     */
+    private long yearsNanos(long[] dailyNanos, int fromYear, int toYear) {
+        int horizonEnd = HORIZON_FIRST_YEAR + HORIZON_CYCLES * CYCLE_YEARS;
+        long nanos = outsideNanos(dailyNanos, fromYear,
+                Math.min(toYear, HORIZON_FIRST_YEAR));
+        nanos += outsideNanos(dailyNanos, Math.max(fromYear, horizonEnd),
+                toYear);
+
+        int from = Math.max(fromYear, HORIZON_FIRST_YEAR) - HORIZON_FIRST_YEAR;
+        int to = Math.min(toYear, horizonEnd) - HORIZON_FIRST_YEAR;
+        while (from < to) {
+            int cycle = from / CYCLE_YEARS;
+            int end = Math.min(to, (cycle + 1) * CYCLE_YEARS);
+            int[] prefixSums = horizon(cycle);
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                nanos += dailyNanos[dayOfWeek]
+                        * (prefixSums[(end - cycle * CYCLE_YEARS) * 7
+                        + dayOfWeek] - prefixSums[(from - cycle * CYCLE_YEARS)
+                        * 7 + dayOfWeek]);
+            }
+            from = end;
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos of the rule holidays of whole years outside the
+     * horizon.
+     *
+     * @param dailyNanos the working nanos of each day-of-week, not null.
+     * @param fromYear   the first year, inclusive.
+     * @param toYear     the last year, exclusive.
+     * @return the working nanos, positive or zero.
+     */
+    private long outsideNanos(long[] dailyNanos, int fromYear, int toYear) {
+        if (fromYear >= toYear) {
+            return 0;
+        }
+
+        //the rules of the years around are not all expanded near the limits
+        // of LocalDate, and easter holidays fall from year 0
+        int periodicFrom = Math.min(Math.max(fromYear, Year.MIN_VALUE + 2),
+                toYear);
+        int periodicTo = Math.max(periodicFrom, Math.min(toYear,
+                periodicRules.length == rules.length ? Year.MAX_VALUE - 1 : 0));
+        long nanos = expandedNanos(dailyNanos, fromYear, periodicFrom)
+                + expandedNanos(dailyNanos, periodicTo, toYear);
+        if (periodicFrom == periodicTo) {
+            return nanos;
+        }
+
+        int[] cycle = cycle();
+        for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+            nanos += dailyNanos[dayOfWeek]
+                    * (cycleCount(cycle, dayOfWeek, periodicTo)
+                    - cycleCount(cycle, dayOfWeek, periodicFrom));
+        }
+
+        //the explicit holidays given by the rules were counted by the cycle
+        long end = LocalDate.of(periodicTo, 1, 1).toEpochDay();
+        for (long epochDay = explicit.nextHoliday(
+                LocalDate.of(periodicFrom, 1, 1).toEpochDay()); epochDay < end;
+             epochDay = explicit.nextHoliday(epochDay + 1)) {
+            if (Arrays.binarySearch(expand(periodicRules, NO_HOLIDAY,
+                    yearOf(epochDay)).epochDays, epochDay) >= 0) {
+                nanos -= dailyNanos[CompiledCalendar.dayOfWeek(epochDay)];
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos of the rule holidays of whole years, expanding
+     * each year without caching it.
+     *
+     * @param dailyNanos the working nanos of each day-of-week, not null.
+     * @param fromYear   the first year, inclusive.
+     * @param toYear     the last year, exclusive.
+     * @return the working nanos, positive or zero.
+     */
+    private long expandedNanos(long[] dailyNanos, int fromYear, int toYear) {
+        long nanos = 0;
+        for (int year = fromYear; year < toYear; year++) {
+            int[] counts = expand(rules, explicit, year).countsByDayOfWeek;
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                nanos += dailyNanos[dayOfWeek] * counts[dayOfWeek];
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the number of holidays of the periodic rules on a day-of-week
+     * before a year, from the first year of a cycle.
+     *
+     * @param cycle     the prefix sums of a cycle, not null.
+     * @param dayOfWeek the day-of-week ordinal, monday being 0.
+     * @param year      the year, exclusive.
+     * @return the number of holidays, negative before the cycle.
+     */
+    private static long cycleCount(int[] cycle, int dayOfWeek, int year) {
+        long years = (long) year - HORIZON_FIRST_YEAR;
+        return Math.floorDiv(years, CYCLE_YEARS) * cycle[CYCLE_YEARS * 7
+                + dayOfWeek] + cycle[(int) Math.floorMod(years,
+                (long) CYCLE_YEARS) * 7 + dayOfWeek];
+    }
+
+    /**
+     * Get the prefix sums of a cycle of the horizon, computing them the first
+     * time.
+     *
+     * @param cycle the index of the cycle in the horizon.
+     * @return the prefix sums, not null.
+     */
+    private int[] horizon(int cycle) {
+        int[] prefixSums = horizon.get(cycle);
+        if (prefixSums == null) {
+            //threads racing for it compute the same sums
+            prefixSums = prefixSums(rules, explicit,
+                    HORIZON_FIRST_YEAR + cycle * CYCLE_YEARS);
+            horizon.set(cycle, prefixSums);
+        }
+        return prefixSums;
+    }
+
+    /**
+     * Get the prefix sums of the cycle, computing them the first time.
+     *
+     * @return the prefix sums, not null.
+     */
+    private int[] cycle() {
+        int[] cycle = this.cycle;
+        if (cycle == null) {
+            //threads racing for it compute the same sums
+            cycle = prefixSums(periodicRules, NO_HOLIDAY, HORIZON_FIRST_YEAR);
+            this.cycle = cycle;
+        }
+        return cycle;
+    }
+
+    /**
+     * Get the number of holidays by day-of-week before each year of a cycle.
+     *
+     * @param rules     the rules, not null.
+     * @param explicit  the explicit holidays left out, not null.
+     * @param firstYear the first year of the cycle.
+     * @return the counts, by year from firstYear then by day-of-week ordinal,
+     * not null.
+     */
+    private static int[] prefixSums(HolidayRule[] rules,
+                                    HolidayIndex explicit, int firstYear) {
+        int[] prefixSums = new int[(CYCLE_YEARS + 1) * 7];
+        for (int year = 0; year < CYCLE_YEARS; year++) {
+            int[] counts = expand(rules, explicit,
+                    firstYear + year).countsByDayOfWeek;
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                prefixSums[(year + 1) * 7 + dayOfWeek] =
+                        prefixSums[year * 7 + dayOfWeek] + counts[dayOfWeek];
+            }
+        }
+        return prefixSums;
+    }
+
+    /**
+     * Get the rule holidays of a year, expanding them the first time.
+     *
+     * @param year the year.
+     * @return the rule holidays of the year, not null.
+     */
+    private YearHolidays year(int year) {
+        Integer key = year;
+        YearHolidays holidays = years.get(key);
+        if (holidays == null) {
+            holidays = expand(rules, explicit, year);
+            YearHolidays existing = years.putIfAbsent(key, holidays);
+            if (existing != null) {
+                holidays = existing;
+            }
+        }
+        return holidays;
+    }
+
+    /**
+     * Expand the rules into the holidays falling in a year. The rules of the
+     * years around are expanded too, as an holiday observed on monday can
+     * move to the next year.
+     *
+     * @param rules    the rules, not null.
+     * @param explicit the explicit holidays left out, not null.
+     * @param year     the year.
+     * @return the rule holidays of the year, not null.
+     */
+    private static YearHolidays expand(HolidayRule[] rules,
+                                       HolidayIndex explicit, int year) {
+        long[] epochDays = new long[3 * rules.length];
+        int size = 0;
+        for (int ruleYear = Math.max(year - 1, Year.MIN_VALUE + 1);
+             ruleYear <= Math.min(year + 1, Year.MAX_VALUE - 1); ruleYear++) {
+            for (HolidayRule rule : rules) {
+                LocalDate date = rule.dateIn(ruleYear);
+                if (date != null && date.getYear() == year
+                        && !explicit.isHoliday(date.toEpochDay())) {
+                    epochDays[size++] = date.toEpochDay();
+                }
+            }
+        }
+
+        //sort and remove the days given by several rules
+        Arrays.sort(epochDays, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || epochDays[i] != epochDays[distinct - 1]) {
+                epochDays[distinct++] = epochDays[i];
+            }
+        }
+        epochDays = Arrays.copyOf(epochDays, distinct);
+
+        int[] countsByDayOfWeek = new int[7];
+        for (long epochDay : epochDays) {
+            countsByDayOfWeek[CompiledCalendar.dayOfWeek(epochDay)]++;
+        }
+        return new YearHolidays(epochDays, countsByDayOfWeek);
+    }
+
+    /**
+     * Get the year of an epoch day, without creating a {@link LocalDate}.
+     *
+     * @param epochDay the epoch day.
+     * @return the year of the proleptic gregorian calendar.
+     */
+    static int yearOf(long epochDay) {
+        //days since 0000-03-01, years starting in march
+        long days = epochDay + 719_468;
+        long era = Math.floorDiv(days, 146_097);
+        long dayOfEra = days - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524
+                - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra
+                - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        //january and february belong to the next year
+        return (int) (yearOfEra + era * 400 + (dayOfYear >= 306 ? 1 : 0));
+    }
+
+    /**
+     * The rule holidays falling in a year.
+     */
+    private static final class YearHolidays {
+
+        /**
+         * The holidays as sorted epoch days.
+         */
+        private final long[] epochDays;
+
+        /**
+         * The number of holidays by day-of-week ordinal.
+         */
+        private final int[] countsByDayOfWeek;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param epochDays         the holidays, sorted, not null.
+         * @param countsByDayOfWeek the number of holidays by day-of-week,
+         *                          not null.
+         */
+        private YearHolidays(long[] epochDays, int[] countsByDayOfWeek) {
+            this.epochDays = epochDays;
+            this.countsByDayOfWeek = countsByDayOfWeek;
+        }
+    }
+}
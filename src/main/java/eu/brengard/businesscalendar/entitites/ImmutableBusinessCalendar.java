@@ -0,0 +1,452 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarSameBusinessDaysException;
+
+import java.io.ObjectStreamException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A deeply immutable business calendar, created with
+ * {@link BusinessCalendar#builder()}.
+ * <p>
+ * The business days, their time slots, the holidays and the overridden days
+ * are copied when the calendar is built, and copied again when they are
+ * read, so that nothing can modify the calendar afterwards. The calendar is
+ * compiled once, when it is built: it can be shared by threads without any
+ * lock, and used as a key as it is compared by its business days, holidays,
+ * holiday rules, overridden days and resolution mode. The holidays given by
+ * the rules are still expanded lazily, by year, once the calendar is built.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar
+ * @since 1.8
+ */
+public final class ImmutableBusinessCalendar extends AbstractBusinessCalendar {
+
+    /**
+     * Business days, private copies never modified.
+     */
+    private final Set<BusinessDay> businessDays;
+
+    /**
+     * Holidays, unmodifiable.
+     */
+    private final Set<LocalDate> holidays;
+
+    /**
+     * Holiday rules, unmodifiable.
+     */
+    private final Set<HolidayRule> holidayRules;
+
+    /**
+     * Time slots by overridden day, private copies never modified.
+     */
+    private final Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides;
+
+    /**
+     * True if the calendar uses the minute resolution mode.
+     */
+    private final boolean minuteResolution;
+
+    /**
+     * The compiled calendar.
+     */
+    private final transient CompiledCalendar compiled;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters
+     * and compiles the calendar.
+     *
+     * @param businessDays     the business days by day-of-week, private
+     *                         copies, not null.
+     * @param holidays         the holidays, not null.
+     * @param holidayRules     the holiday rules, not null.
+     * @param dayOverrides     the time slots by overridden day, private
+     *                         copies, not null.
+     * @param minuteResolution the minute resolution mode.
+     */
+    private ImmutableBusinessCalendar(
+            Map<DayOfWeek, BusinessDay> businessDays, Set<LocalDate> holidays,
+            Set<HolidayRule> holidayRules,
+            Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides,
+            boolean minuteResolution) {
+        this.businessDays = Collections.unmodifiableSet(
+                new HashSet<>(businessDays.values()));
+        this.holidays = Collections.unmodifiableSet(new HashSet<>(holidays));
+        this.holidayRules =
+                Collections.unmodifiableSet(new HashSet<>(holidayRules));
+        this.dayOverrides = Collections.unmodifiableMap(dayOverrides);
+        this.minuteResolution = minuteResolution;
+        this.compiled = CompiledCalendar.compile(businessDays, this.holidays,
+                this.holidayRules, this.dayOverrides, minuteResolution, 0);
+    }
+
+    /**
+     * Obtains an immutable copy of a business calendar.
+     *
+     * @param businessCalendar the business calendar to copy, not null.
+     * @return the immutable business calendar, not null.
+     */
+    public static ImmutableBusinessCalendar copyOf(
+            AbstractBusinessCalendar businessCalendar) {
+        Objects.requireNonNull(businessCalendar, "businessCalendar");
+
+        if (businessCalendar instanceof ImmutableBusinessCalendar) {
+            return (ImmutableBusinessCalendar) businessCalendar;
+        }
+        return BusinessCalendar.builder()
+                .businessDays(businessCalendar.getBusinessDays())
+                .holidays(businessCalendar.getHolidays())
+                .holidayRules(businessCalendar.getHolidayRules())
+                .dayOverrides(businessCalendar.getDayOverrides())
+                .minuteResolution(businessCalendar.isMinuteResolution())
+                .build();
+    }
+
+    /**
+     * Get the compiled calendar, compiled when the calendar was built.
+     *
+     * @return the compiled calendar, not null.
+     */
+    @Override
+    CompiledCalendar compiled() {
+        return compiled;
+    }
+
+    /**
+     * Get a <b>copy</b> of the calendar business days.
+     *
+     * @return the business days, not null.
+     */
+    @Override
+    public Set<BusinessDay> getBusinessDays() {
+        Set<BusinessDay> copies = new HashSet<>();
+        for (BusinessDay businessDay : businessDays) {
+            copies.add(BusinessDay.copyOf(businessDay));
+        }
+        return copies;
+    }
+
+    /**
+     * Get the <b>unmodifiable</b> holidays from the calendar.
+     *
+     * @return the holidays, not null.
+     */
+    @Override
+    public Set<LocalDate> getHolidays() {
+        return holidays;
+    }
+
+    /**
+     * Get the <b>unmodifiable</b> holiday rules from the calendar.
+     *
+     * @return the holiday rules, not null.
+     */
+    @Override
+    public Set<HolidayRule> getHolidayRules() {
+        return holidayRules;
+    }
+
+    /**
+     * Get a <b>copy</b> of the time slots of the overridden days of the
+     * calendar.
+     *
+     * @return the time slots by overridden day, not null.
+     */
+    @Override
+    public Map<LocalDate, Set<BusinessTimeSlot>> getDayOverrides() {
+        Map<LocalDate, Set<BusinessTimeSlot>> copies = new HashMap<>();
+        dayOverrides.forEach((date, businessTimeSlots) ->
+                copies.put(date, copyTimeSlots(businessTimeSlots)));
+        return copies;
+    }
+
+    /**
+     * Check if the calendar uses the minute resolution mode.
+     *
+     * @return true if the minute resolution mode is on, false if not.
+     */
+    @Override
+    public boolean isMinuteResolution() {
+        return minuteResolution;
+    }
+
+    /**
+     * Check if two immutable business calendars are equals.
+     *
+     * @param o the second immutable business calendar.
+     * @return true if the two calendars have the same business days,
+     * holidays, holiday rules, overridden days and resolution mode.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ImmutableBusinessCalendar that = (ImmutableBusinessCalendar) o;
+        return minuteResolution == that.minuteResolution
+                && businessDays.equals(that.businessDays)
+                && holidays.equals(that.holidays)
+                && holidayRules.equals(that.holidayRules)
+                && dayOverrides.equals(that.dayOverrides);
+    }
+
+    /**
+     * Get hashCode from the business days, holidays, holiday rules,
+     * overridden days and resolution mode.
+     *
+     * @return the calendar hashcode.
+     */
+    @Override
+    public int hashCode() {
+        int result = businessDays.hashCode();
+        result = 31 * result + holidays.hashCode();
+        result = 31 * result + holidayRules.hashCode();
+        result = 31 * result + dayOverrides.hashCode();
+        result = 31 * result + (minuteResolution ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * Build the calendar again when it is deserialized, to compile it.
+     *
+     * @return the compiled calendar, not null.
+     * @throws ObjectStreamException never.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        return BusinessCalendar.builder()
+                .businessDays(businessDays)
+                .holidays(holidays)
+                .holidayRules(holidayRules)
+                .dayOverrides(dayOverrides)
+                .minuteResolution(minuteResolution)
+                .build();
+    }
+
+    /**
+     * Copy time slots.
+     *
+     * @param businessTimeSlots the time slots to copy, not null.
+     * @return the copies, not null.
+     */
+    private static Set<BusinessTimeSlot> copyTimeSlots(
+            Set<BusinessTimeSlot> businessTimeSlots) {
+        Set<BusinessTimeSlot> copies = new HashSet<>();
+        for (BusinessTimeSlot businessTimeSlot : businessTimeSlots) {
+            copies.add(BusinessTimeSlot.of(businessTimeSlot.getStartInclusive(),
+                    businessTimeSlot.getEndExclusive()));
+        }
+        return copies;
+    }
+
+    /**
+     * A builder of {@code ImmutableBusinessCalendar}.
+     * <p>
+     * The business days and the time slots of the overridden days are
+     * copied when they are added: modifying them afterwards does not modify
+     * the builder.
+     */
+    public static final class Builder {
+
+        /**
+         * Business days by day-of-week, private copies.
+         */
+        private final Map<DayOfWeek, BusinessDay> businessDays =
+                new EnumMap<>(DayOfWeek.class);
+
+        /**
+         * Holidays.
+         */
+        private final Set<LocalDate> holidays = new HashSet<>();
+
+        /**
+         * Holiday rules.
+         */
+        private final Set<HolidayRule> holidayRules = new HashSet<>();
+
+        /**
+         * Time slots by overridden day, private copies.
+         */
+        private final Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides =
+                new HashMap<>();
+
+        /**
+         * True to use the minute resolution mode.
+         */
+        private boolean minuteResolution;
+
+        /**
+         * Simple constructor of an empty builder.
+         */
+        Builder() {
+        }
+
+        /**
+         * Add a business day.
+         *
+         * @param businessDay the business day to add, not null.
+         * @return this builder, not null.
+         * @throws BusinessCalendarSameBusinessDaysException if this day is
+         *                                                   already in the
+         *                                                   business days.
+         */
+        public Builder businessDay(BusinessDay businessDay) {
+            Objects.requireNonNull(businessDay, "businessDay");
+
+            DayOfWeek dayOfWeek = businessDay.getDayOfWeek();
+            if (businessDays.containsKey(dayOfWeek)) {
+                throw new BusinessCalendarSameBusinessDaysException(dayOfWeek);
+            }
+            businessDays.put(dayOfWeek, BusinessDay.copyOf(businessDay));
+            return this;
+        }
+
+        /**
+         * Add business days.
+         *
+         * @param businessDays the business days to add, not null.
+         * @return this builder, not null.
+         * @throws BusinessCalendarSameBusinessDaysException if one of these
+         *                                                   days is already
+         *                                                   in the business
+         *                                                   days.
+         */
+        public Builder businessDays(Set<BusinessDay> businessDays) {
+            Objects.requireNonNull(businessDays, "businessDays");
+
+            businessDays.forEach(this::businessDay);
+            return this;
+        }
+
+        /**
+         * Add an holiday.
+         *
+         * @param holiday the holiday to add, not null.
+         * @return this builder, not null.
+         */
+        public Builder holiday(LocalDate holiday) {
+            Objects.requireNonNull(holiday, "holiday");
+
+            holidays.add(holiday);
+            return this;
+        }
+
+        /**
+         * Add holidays.
+         *
+         * @param holidays the holidays to add, not null.
+         * @return this builder, not null.
+         */
+        public Builder holidays(Set<LocalDate> holidays) {
+            Objects.requireNonNull(holidays, "holidays");
+
+            holidays.forEach(this::holiday);
+            return this;
+        }
+
+        /**
+         * Add an holiday rule.
+         *
+         * @param holidayRule the holiday rule to add, not null.
+         * @return this builder, not null.
+         */
+        public Builder holidayRule(HolidayRule holidayRule) {
+            Objects.requireNonNull(holidayRule, "holidayRule");
+
+            holidayRules.add(holidayRule);
+            return this;
+        }
+
+        /**
+         * Add holiday rules.
+         *
+         * @param holidayRules the holiday rules to add, not null.
+         * @return this builder, not null.
+         */
+        public Builder holidayRules(Set<HolidayRule> holidayRules) {
+            Objects.requireNonNull(holidayRules, "holidayRules");
+
+            holidayRules.forEach(this::holidayRule);
+            return this;
+        }
+
+        /**
+         * Override the time slots of a day, replacing those of a former
+         * override. An empty set of time slots closes the day.
+         *
+         * @param date              the day to override, not null.
+         * @param businessTimeSlots the time slots of the day, not null.
+         * @return this builder, not null.
+         * @see BusinessCalendar#setDayOverride(LocalDate, Set)
+         */
+        public Builder dayOverride(LocalDate date,
+                                   Set<BusinessTimeSlot> businessTimeSlots) {
+            Objects.requireNonNull(date, "date");
+            Objects.requireNonNull(businessTimeSlots, "businessTimeSlots");
+
+            dayOverrides.put(date, copyTimeSlots(businessTimeSlots));
+            return this;
+        }
+
+        /**
+         * Override the time slots of days.
+         *
+         * @param dayOverrides the time slots by overridden day, not null.
+         * @return this builder, not null.
+         */
+        public Builder dayOverrides(
+                Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides) {
+            Objects.requireNonNull(dayOverrides, "dayOverrides");
+
+            dayOverrides.forEach(this::dayOverride);
+            return this;
+        }
+
+        /**
+         * Turn the minute resolution mode on or off.
+         *
+         * @param minuteResolution true to turn the minute resolution mode
+         *                         on, false to turn it off.
+         * @return this builder, not null.
+         * @see BusinessCalendar#setMinuteResolution(boolean)
+         */
+        public Builder minuteResolution(boolean minuteResolution) {
+            this.minuteResolution = minuteResolution;
+            return this;
+        }
+
+        /**
+         * Build an immutable business calendar from this builder. The
+         * builder can still be used afterwards, it does not modify the built
+         * calendars.
+         *
+         * @return the immutable business calendar, not null.
+         */
+        public ImmutableBusinessCalendar build() {
+            Map<DayOfWeek, BusinessDay> copies =
+                    new EnumMap<>(DayOfWeek.class);
+            for (BusinessDay businessDay : businessDays.values()) {
+                copies.put(businessDay.getDayOfWeek(),
+                        BusinessDay.copyOf(businessDay));
+            }
+            Map<LocalDate, Set<BusinessTimeSlot>> overrideCopies =
+                    new HashMap<>();
+            dayOverrides.forEach((date, businessTimeSlots) ->
+                    overrideCopies.put(date, Collections.unmodifiableSet(
+                            copyTimeSlots(businessTimeSlots))));
+            return new ImmutableBusinessCalendar(copies, holidays,
+                    holidayRules, overrideCopies, minuteResolution);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A read-only view of a sequence of longs, backed by an array or by a region
+ * of a buffer.
+ * <p>
+ * The compiled tables of a calendar read their values through this view
+ * only: a calendar compiled on the heap and a calendar stored in a
+ * memory-mapped {@link CalendarStore} are then answered by the same code.
+ * A view backed by a buffer is serialized as a view backed by an array.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+abstract class LongView implements Serializable {
+
+    /**
+     * View without any value.
+     */
+    static final LongView EMPTY = new ArrayView(new long[0]);
+
+    /**
+     * Simple constructor, for the implementations of this class only.
+     */
+    private LongView() {
+    }
+
+    /**
+     * Obtains a view of an array, the array not being copied.
+     *
+     * @param values the values, not to be modified, not null.
+     * @return the view, not null.
+     */
+    static LongView of(long[] values) {
+        Objects.requireNonNull(values, "values");
+
+        return values.length == 0 ? EMPTY : new ArrayView(values);
+    }
+
+    /**
+     * Obtains a view of consecutive longs of a buffer, read with absolute
+     * methods.
+     *
+     * @param buffer the buffer, not null.
+     * @param offset the offset of the first long.
+     * @param size   the number of longs.
+     * @return the view, not null.
+     * @throws IndexOutOfBoundsException if the longs are not all in the
+     *                                   buffer.
+     */
+    static LongView of(ByteBuffer buffer, int offset, int size) {
+        Objects.requireNonNull(buffer, "buffer");
+
+        if (offset < 0 || size < 0
+                || offset + 8L * size > buffer.limit()) {
+            throw new IndexOutOfBoundsException(
+                    size + " longs at " + offset);
+        }
+        return size == 0 ? EMPTY : new BufferView(buffer, offset, size);
+    }
+
+    /**
+     * Get the number of values.
+     *
+     * @return the number of values, positive or zero.
+     */
+    abstract int size();
+
+    /**
+     * Get a value.
+     *
+     * @param index the index of the value.
+     * @return the value.
+     */
+    abstract long get(int index);
+
+    /**
+     * Search a value in the view, sorted, as
+     * {@link Arrays#binarySearch(long[], long)}.
+     *
+     * @param key the value to search.
+     * @return the index of the value if it is found, (-(insertion point) - 1)
+     * if not.
+     */
+    int binarySearch(long key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Copy the values into an array.
+     *
+     * @return the values, not null.
+     */
+    long[] toArray() {
+        long[] values = new long[size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Check if two views are equals.
+     *
+     * @param o the second view.
+     * @return true if the two views hold the same values.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongView)) {
+            return false;
+        }
+        LongView that = (LongView) o;
+        if (size() != that.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (get(i) != that.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get hashCode from the values, as {@link Arrays#hashCode(long[])}.
+     *
+     * @return the view hashcode.
+     */
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size(); i++) {
+            result = 31 * result + Long.hashCode(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * A view of an array.
+     */
+    private static final class ArrayView extends LongView {
+
+        /**
+         * The values.
+         */
+        private final long[] values;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param values the values, not null.
+         */
+        private ArrayView(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+
+        @Override
+        long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        int binarySearch(long key) {
+            return Arrays.binarySearch(values, key);
+        }
+
+        @Override
+        long[] toArray() {
+            return values.clone();
+        }
+    }
+
+    /**
+     * A view of consecutive longs of a buffer.
+     */
+    private static final class BufferView extends LongView {
+
+        /**
+         * The buffer, only read with absolute methods.
+         */
+        private final transient ByteBuffer buffer;
+
+        /**
+         * Offset of the first long.
+         */
+        private final int offset;
+
+        /**
+         * Number of longs.
+         */
+        private final int size;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param buffer the buffer, not null.
+         * @param offset the offset of the first long.
+         * @param size   the number of longs.
+         */
+        private BufferView(ByteBuffer buffer, int offset, int size) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        long get(int index) {
+            return buffer.getLong(offset + 8 * index);
+        }
+
+        /**
+         * Serialize the view as a view of an array.
+         *
+         * @return the view of a copy of the values, not null.
+         */
+        private Object writeReplace() {
+            return new ArrayView(toArray());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package eu.brengard.businesscalendar.entitites;
+
+/**
+ * A compiled, immutable view of the time slots of a business day aligned to
+ * whole minutes.
+ * <p>
+ * The day is stored as a {@value #MINUTES_PER_DAY} bits open/closed mask and
+ * a table of the cumulative open minutes before each minute. A nano-of-day is
+ * then checked with a single bit test, and the working nanos before it are
+ * read from the table, plus the part of its minute if that minute is open.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#setMinuteResolution(boolean)
+ * @since 1.8
+ */
+final class MinuteTable {
+
+    /**
+     * {@value MINUTES_PER_DAY} Minutes in a day.
+     */
+    static final int MINUTES_PER_DAY = 1440;
+
+    /**
+     * {@value NANOS_PER_MINUTE} Nanos in a minute.
+     */
+    static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    /**
+     * Open/closed mask, bit m being the minute-of-day m.
+     */
+    private final long[] mask;
+
+    /**
+     * Open minutes before each minute-of-day, the last one being the open
+     * minutes of the whole day.
+     */
+    private final short[] cumulative;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param mask       the open/closed mask, not null.
+     * @param cumulative the cumulative open minutes, not null.
+     */
+    private MinuteTable(long[] mask, short[] cumulative) {
+        this.mask = mask;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Obtains an instance of {@code MinuteTable} from normalized time slots.
+     *
+     * @param timeSlotTable the normalized time slots, not null.
+     * @return the minute table, null if a boundary of the time slots is not
+     * aligned to a whole minute.
+     */
+    static MinuteTable of(TimeSlotTable timeSlotTable) {
+        if (!timeSlotTable.isAlignedTo(NANOS_PER_MINUTE)) {
+            return null;
+        }
+
+        long[] mask = new long[(MINUTES_PER_DAY + 63) / 64];
+        short[] cumulative = new short[MINUTES_PER_DAY + 1];
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            boolean open = timeSlotTable.contains(minute * NANOS_PER_MINUTE);
+            if (open) {
+                mask[minute >>> 6] |= 1L << minute;
+            }
+            cumulative[minute + 1] =
+                    (short) (cumulative[minute] + (open ? 1 : 0));
+        }
+        return new MinuteTable(mask, cumulative);
+    }
+
+    /**
+     * Check if a nano-of-day is part of the time slots.
+     *
+     * @param nanoOfDay the nano-of-day to check.
+     * @return true if it is part of the time slots, false if not.
+     */
+    boolean contains(long nanoOfDay) {
+        int minute = (int) (nanoOfDay / NANOS_PER_MINUTE);
+        return (mask[minute >>> 6] & 1L << minute) != 0;
+    }
+
+    /**
+     * Get the working nanos from the start of the day to a nano-of-day.
+     *
+     * @param nanoOfDay the nano-of-day, exclusive, up to the end of the day.
+     * @return the working nanos before nanoOfDay, positive or zero.
+     */
+    long nanosBefore(long nanoOfDay) {
+        int minute = (int) (nanoOfDay / NANOS_PER_MINUTE);
+        long nanos = cumulative[minute] * NANOS_PER_MINUTE;
+        if (minute < MINUTES_PER_DAY
+                && (mask[minute >>> 6] & 1L << minute) != 0) {
+            nanos += nanoOfDay - minute * NANOS_PER_MINUTE;
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the working nanos between two nano-of-days.
+     *
+     * @param startInclusive the start nano-of-day, inclusive.
+     * @param endExclusive   the end nano-of-day, exclusive.
+     * @return the working nanos, eventually negative.
+     */
+    long nanosBetween(long startInclusive, long endExclusive) {
+        return nanosBefore(endExclusive) - nanosBefore(startInclusive);
+    }
+}
@@ -0,0 +1,404 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.HolidayRuleParseException;
+import eu.brengard.businesscalendar.metrics.CalendarMetrics;
+import eu.brengard.businesscalendar.metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-only business calendar of a {@link CalendarStore}, answering the
+ * queries straight from the compiled calendar stored in the file, without
+ * creating any {@link BusinessDay} or {@link BusinessTimeSlot}.
+ * <p>
+ * The compiled calendar is stored as a block of 8-byte values, the arrays
+ * being written as their size followed by their values:
+ * <ul>
+ * <li>
+ * The flags, bit 0 being the minute resolution mode.
+ * </li>
+ * <li>
+ * For each day-of-week, the boundaries of its merged time slots and their
+ * cumulative working nanos, as in a {@link TimeSlotTable}.
+ * </li>
+ * <li>
+ * The epoch day of the first bit of the holidays bitset, the bitset, the
+ * holidays as sorted epoch days when they are not kept in the bitset, and
+ * their ranks, as in a {@link HolidayIndex}.
+ * </li>
+ * <li>
+ * The number of holiday rules, then each one as the length of its text
+ * followed by its text in ASCII, padded to 8 bytes.
+ * </li>
+ * <li>
+ * The sorted epoch days of the overridden days, then the time slots of each
+ * one as those of a day-of-week.
+ * </li>
+ * </ul>
+ * The arrays are not copied: the compiled calendar reads them from the file
+ * through {@link LongView}s, so the answers are computed by the same code,
+ * and are the same, as the ones of the calendar the block has been written
+ * from. A stored calendar is immutable and can be shared by threads; it
+ * should be kept rather than looked up again for each query.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see CalendarStore#get(String)
+ * @since 1.8
+ */
+public final class StoredCalendar {
+
+    /**
+     * {@value FLAG_MINUTE_RESOLUTION} Flag of the minute resolution mode.
+     */
+    private static final long FLAG_MINUTE_RESOLUTION = 1;
+
+    /**
+     * The compiled calendar, backed by the file.
+     */
+    private final CompiledCalendar compiled;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param compiled the compiled calendar, not null.
+     */
+    private StoredCalendar(CompiledCalendar compiled) {
+        this.compiled = compiled;
+    }
+
+    /**
+     * Write the block of a compiled calendar.
+     *
+     * @param compiled the compiled calendar, not null.
+     * @return the block, its length being a multiple of 8, not null.
+     */
+    static byte[] encode(CompiledCalendar compiled) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+
+        writeLong(block, compiled.isMinuteResolution()
+                ? FLAG_MINUTE_RESOLUTION : 0);
+        for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+            writeTable(block, compiled.timeSlotTable(dayOfWeek));
+        }
+
+        HolidayIndex holidays = compiled.getHolidays();
+        writeLong(block, holidays.firstDay());
+        writeLongs(block, holidays.words());
+        writeLongs(block, holidays.days());
+        writeLongs(block, holidays.ranks());
+
+        HolidayRule[] rules = compiled.getHolidayRules().rules();
+        writeLong(block, rules.length);
+        for (HolidayRule rule : rules) {
+            byte[] text = rule.toString().getBytes(StandardCharsets.US_ASCII);
+            writeLong(block, text.length);
+            block.write(text, 0, text.length);
+            block.write(new byte[-text.length & 7], 0, -text.length & 7);
+        }
+
+        DayOverrides dayOverrides = compiled.getDayOverrides();
+        long[] epochDays = new long[dayOverrides.size()];
+        for (int i = 0; i < epochDays.length; i++) {
+            epochDays[i] = dayOverrides.epochDay(i);
+        }
+        writeLongs(block, LongView.of(epochDays));
+        for (int i = 0; i < epochDays.length; i++) {
+            writeTable(block, dayOverrides.table(i));
+        }
+
+        return block.toByteArray();
+    }
+
+    /**
+     * Read the block of a compiled calendar, its arrays staying in the
+     * buffer.
+     *
+     * @param buffer the buffer, only read with absolute methods, not null.
+     * @param base   the offset of the block.
+     * @return the calendar, not null.
+     * @throws IOException if the block is corrupted.
+     */
+    static StoredCalendar decode(ByteBuffer buffer, int base)
+            throws IOException {
+        try {
+            Reader reader = new Reader(buffer, base);
+
+            boolean minuteResolution =
+                    (reader.readLong() & FLAG_MINUTE_RESOLUTION) != 0;
+            TimeSlotTable[] days = new TimeSlotTable[7];
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                days[dayOfWeek] = reader.readTable();
+            }
+
+            long firstDay = reader.readLong();
+            HolidayIndex holidays = HolidayIndex.of(firstDay,
+                    reader.readLongs(), reader.readLongs(), reader.readLongs());
+
+            int rules = reader.readSize(1);
+            List<HolidayRule> holidayRules = new ArrayList<>(rules);
+            for (int i = 0; i < rules; i++) {
+                holidayRules.add(HolidayRule.parse(reader.readText()));
+            }
+
+            LongView epochDays = reader.readLongs();
+            TimeSlotTable[] tables = new TimeSlotTable[epochDays.size()];
+            for (int i = 0; i < tables.length; i++) {
+                tables[i] = reader.readTable();
+            }
+
+            return new StoredCalendar(CompiledCalendar.of(days,
+                    minuteResolution, holidays,
+                    HolidayRules.of(holidayRules, holidays),
+                    DayOverrides.of(epochDays, tables)));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException
+                | HolidayRuleParseException e) {
+            throw new IOException("corrupted calendar store", e);
+        }
+    }
+
+    /**
+     * Get the duration between two zonedDateTimes, as
+     * {@link AbstractBusinessCalendar#getDuration(ZonedDateTime,
+     * ZonedDateTime)}, reported to the {@link CalendarMetrics} installed as
+     * well.
+     *
+     * @param startInclusive the start instant, inclusive, not null.
+     * @param endExclusive   the end instant, exclusive, not null.
+     * @return the duration between two zonedDateTimes, not null, eventually
+     * negative.
+     */
+    public Duration getDuration(ZonedDateTime startInclusive,
+                                ZonedDateTime endExclusive) {
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        CalendarMetrics metrics = Metrics.installed();
+        if (metrics == CalendarMetrics.NOOP) {
+            return Duration.ofNanos(nanosBetween(startInclusive, endExclusive));
+        }
+        long start = System.nanoTime();
+        Duration duration =
+                Duration.ofNanos(nanosBetween(startInclusive, endExclusive));
+        metrics.durationComputed(this, startInclusive, endExclusive,
+                System.nanoTime() - start);
+        return duration;
+    }
+
+    /**
+     * Get the working nanos between two zonedDateTimes, read in the zone
+     * of startInclusive.
+     *
+     * @param startInclusive the start instant, inclusive, not null.
+     * @param endExclusive   the end instant, exclusive, not null.
+     * @return the working nanos, eventually negative.
+     */
+    private long nanosBetween(ZonedDateTime startInclusive,
+                              ZonedDateTime endExclusive) {
+        return ZonedCalendar.of(compiled, startInclusive.getZone())
+                .nanosBetween(startInclusive, endExclusive);
+    }
+
+    /**
+     * Get the "working hours" millis between two epoch millis in a zone,
+     * as {@link AbstractBusinessCalendar#businessMillisBetween(long, long,
+     * ZoneId)}.
+     *
+     * @param startEpochMilli the start epoch milli, inclusive.
+     * @param endEpochMilli   the end epoch milli, exclusive.
+     * @param zone            the zone of the calendar, not null.
+     * @return the "working hours" millis, rounded toward zero, negative if
+     * startEpochMilli is after endEpochMilli.
+     */
+    public long businessMillisBetween(long startEpochMilli, long endEpochMilli,
+                                      ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        return compiled.nanosBetweenEpochMillis(ZoneTable.of(zone),
+                startEpochMilli, endEpochMilli)
+                / CompiledCalendar.NANOS_PER_MILLI;
+    }
+
+    /**
+     * Check if a zonedDateTime is in "working hours".
+     *
+     * @param zonedDateTime the zonedDateTime to check, not null.
+     * @return true if the zonedDateTime is in "working hours", false if not.
+     */
+    public boolean isWorkingTime(ZonedDateTime zonedDateTime) {
+        Objects.requireNonNull(zonedDateTime, "zonedDateTime");
+
+        return compiled.isWorkingTime(
+                zonedDateTime.toLocalDate().toEpochDay(),
+                zonedDateTime.toLocalTime().toNanoOfDay());
+    }
+
+    /**
+     * Check if an epoch milli is in "working hours" in a zone.
+     *
+     * @param epochMilli the epoch milli to check.
+     * @param zone       the zone of the calendar, not null.
+     * @return true if the epoch milli is in "working hours", false if not.
+     */
+    public boolean isWorkingTime(long epochMilli, ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        return compiled.isWorkingTimeLocalMilli(
+                ZoneTable.of(zone).toLocalEpochMilli(epochMilli));
+    }
+
+    /**
+     * Check if a day is one of the calendar holidays, given explicitly or by
+     * a rule.
+     *
+     * @param date the day to check, not null.
+     * @return true if it is an holiday, false if not.
+     */
+    public boolean isHoliday(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+
+        return compiled.isHoliday(date.toEpochDay());
+    }
+
+    /**
+     * Write a value, big-endian as read by a {@link ByteBuffer}.
+     *
+     * @param block the block, not null.
+     * @param value the value.
+     */
+    private static void writeLong(ByteArrayOutputStream block, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            block.write((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Write an array as its size followed by its values.
+     *
+     * @param block  the block, not null.
+     * @param values the values, not null.
+     */
+    private static void writeLongs(ByteArrayOutputStream block,
+                                   LongView values) {
+        writeLong(block, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            writeLong(block, values.get(i));
+        }
+    }
+
+    /**
+     * Write compiled time slots as their boundaries followed by their
+     * cumulative working nanos.
+     *
+     * @param block         the block, not null.
+     * @param timeSlotTable the compiled time slots, not null.
+     */
+    private static void writeTable(ByteArrayOutputStream block,
+                                   TimeSlotTable timeSlotTable) {
+        writeLongs(block, timeSlotTable.boundaries());
+        writeLongs(block, timeSlotTable.cumulative());
+    }
+
+    /**
+     * A reader of the values of a block, checking that each one is inside
+     * the buffer.
+     */
+    private static final class Reader {
+
+        /**
+         * The buffer, only read with absolute methods.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Offset of the next value.
+         */
+        private int position;
+
+        /**
+         * Simple private constructor that initialize fields from the
+         * parameters.
+         *
+         * @param buffer   the buffer, not null.
+         * @param position the offset of the first value.
+         */
+        private Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        /**
+         * Read a value.
+         *
+         * @return the value.
+         * @throws IndexOutOfBoundsException if the value is not inside the
+         *                                   buffer.
+         */
+        private long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        /**
+         * Read a size, bounded by the remaining bytes.
+         *
+         * @param bytes the minimum number of bytes taken by each element.
+         * @return the size, positive or zero.
+         * @throws IllegalArgumentException if the size is not plausible.
+         */
+        private int readSize(int bytes) {
+            long size = readLong();
+            if (size < 0 || size > (buffer.limit() - position) / bytes) {
+                throw new IllegalArgumentException("size too large");
+            }
+            return (int) size;
+        }
+
+        /**
+         * Read an array written as its size followed by its values, without
+         * copying it.
+         *
+         * @return the view of the values, not null.
+         */
+        private LongView readLongs() {
+            int size = readSize(8);
+            LongView values = LongView.of(buffer, position, size);
+            position += 8 * size;
+            return values;
+        }
+
+        /**
+         * Read compiled time slots.
+         *
+         * @return the compiled time slots, not null.
+         */
+        private TimeSlotTable readTable() {
+            return TimeSlotTable.of(readLongs(), readLongs());
+        }
+
+        /**
+         * Read an ASCII text written as its length followed by its bytes,
+         * padded to 8 bytes.
+         *
+         * @return the text, not null.
+         */
+        private String readText() {
+            byte[] text = new byte[readSize(1)];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = buffer.get(position + i);
+            }
+            position += (text.length + 7) & ~7;
+            return new String(text, StandardCharsets.US_ASCII);
+        }
+    }
+}
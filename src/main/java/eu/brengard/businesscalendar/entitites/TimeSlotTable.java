@@ -0,0 +1,360 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A compiled, immutable view of the time slots of a business day.
+ * <p>
+ * The time slots are normalized: sorted, and merged when they cross or
+ * touch each other. They are stored as a sorted array of nano-of-day
+ * boundaries, the start of a merged time slot at an even index and its end
+ * at the next odd index, along with the cumulative "working" nanos from the
+ * start of the day up to each boundary. A nano-of-day is then looked up with
+ * a binary search, and the working nanos between two nano-of-days are a
+ * difference of prefix sums.
+ * <p>
+ * Both arrays are read through a {@link LongView}, so that a table can be
+ * backed by the heap or by a stored calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class TimeSlotTable {
+
+    /**
+     * Table without any time slot.
+     */
+    static final TimeSlotTable EMPTY =
+            new TimeSlotTable(LongView.EMPTY, LongView.EMPTY);
+
+    /**
+     * Sorted nano-of-day boundaries of the merged time slots, starts at even
+     * indexes and ends at odd indexes.
+     */
+    private final LongView boundaries;
+
+    /**
+     * Working nanos from the start of the day to each boundary.
+     */
+    private final LongView cumulative;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param boundaries the boundaries, not null.
+     * @param cumulative the cumulative nanos, not null.
+     */
+    private TimeSlotTable(LongView boundaries, LongView cumulative) {
+        this.boundaries = boundaries;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * Obtains an instance of {@code TimeSlotTable} from time slots.
+     *
+     * @param businessTimeSlots the time slots to compile, not null.
+     * @return the compiled time slots, not null.
+     */
+    static TimeSlotTable of(Collection<BusinessTimeSlot> businessTimeSlots) {
+        Objects.requireNonNull(businessTimeSlots, "businessTimeSlots");
+
+        if (businessTimeSlots.isEmpty()) {
+            return EMPTY;
+        }
+
+        //sort the time slots by start
+        long[][] slots = new long[businessTimeSlots.size()][];
+        int i = 0;
+        for (BusinessTimeSlot businessTimeSlot : businessTimeSlots) {
+            slots[i++] = new long[]{
+                    businessTimeSlot.getStartInclusive().toNanoOfDay(),
+                    businessTimeSlot.getEndExclusive().toNanoOfDay()};
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(a[0], b[0]));
+
+        //merge the crossing and touching time slots
+        long[] boundaries = new long[2 * slots.length];
+        int size = 0;
+        for (long[] slot : slots) {
+            if (size > 0 && slot[0] <= boundaries[size - 1]) {
+                boundaries[size - 1] = Math.max(boundaries[size - 1], slot[1]);
+            } else {
+                boundaries[size++] = slot[0];
+                boundaries[size++] = slot[1];
+            }
+        }
+        boundaries = Arrays.copyOf(boundaries, size);
+
+        long[] cumulative = new long[size];
+        for (int j = 1; j < size; j++) {
+            cumulative[j] = cumulative[j - 1] + ((j & 1) == 1
+                    ? boundaries[j] - boundaries[j - 1] : 0);
+        }
+
+        return new TimeSlotTable(LongView.of(boundaries),
+                LongView.of(cumulative));
+    }
+
+    /**
+     * Obtains an instance of {@code TimeSlotTable} from the boundaries of
+     * normalized time slots and their cumulative working nanos, as given by
+     * {@link #boundaries()} and {@link #cumulative()}.
+     *
+     * @param boundaries the boundaries, not null.
+     * @param cumulative the cumulative nanos, of the same size, not null.
+     * @return the compiled time slots, not null.
+     * @throws IllegalArgumentException if they are not the boundaries and
+     *                                  cumulative nanos of normalized time
+     *                                  slots.
+     */
+    static TimeSlotTable of(LongView boundaries, LongView cumulative) {
+        Objects.requireNonNull(boundaries, "boundaries");
+        Objects.requireNonNull(cumulative, "cumulative");
+
+        int size = boundaries.size();
+        if (size != cumulative.size() || (size & 1) != 0) {
+            throw new IllegalArgumentException("not normalized time slots");
+        }
+        long previous = -1;
+        long nanos = 0;
+        for (int i = 0; i < size; i++) {
+            long boundary = boundaries.get(i);
+            if (boundary <= previous
+                    || boundary > CompiledCalendar.NANOS_PER_DAY) {
+                throw new IllegalArgumentException(
+                        "not normalized time slots");
+            }
+            if ((i & 1) == 1) {
+                nanos += boundary - previous;
+            }
+            if (cumulative.get(i) != nanos) {
+                throw new IllegalArgumentException(
+                        "not normalized time slots");
+            }
+            previous = boundary;
+        }
+        return size == 0 ? EMPTY : new TimeSlotTable(boundaries, cumulative);
+    }
+
+    /**
+     * Get the working nanos from the start of the day to a nano-of-day.
+     *
+     * @param nanoOfDay the nano-of-day, exclusive.
+     * @return the working nanos before nanoOfDay, positive or zero.
+     */
+    long nanosBefore(long nanoOfDay) {
+        int index = floorIndex(nanoOfDay);
+        if (index < 0) {
+            return 0;
+        }
+        if (isStart(index)) {
+            return cumulative.get(index) + nanoOfDay - boundaries.get(index);
+        }
+        return cumulative.get(index);
+    }
+
+    /**
+     * Get the working nanos between two nano-of-days.
+     *
+     * @param startInclusive the start nano-of-day, inclusive.
+     * @param endExclusive   the end nano-of-day, exclusive.
+     * @return the working nanos, eventually negative.
+     */
+    long nanosBetween(long startInclusive, long endExclusive) {
+        return nanosBefore(endExclusive) - nanosBefore(startInclusive);
+    }
+
+    /**
+     * Check if a nano-of-day is part of the time slots.
+     *
+     * @param nanoOfDay the nano-of-day to check.
+     * @return true if it is part of the time slots, false if not.
+     */
+    boolean contains(long nanoOfDay) {
+        return isStart(floorIndex(nanoOfDay));
+    }
+
+    /**
+     * Get the working nanos of the whole day.
+     *
+     * @return the working nanos of the day, positive or zero.
+     */
+    long total() {
+        return boundaries.size() == 0 ? 0
+                : cumulative.get(cumulative.size() - 1);
+    }
+
+    /**
+     * Get the boundaries of the merged time slots.
+     *
+     * @return the sorted boundaries, starts at even indexes and ends at odd
+     * indexes, not null.
+     */
+    LongView boundaries() {
+        return boundaries;
+    }
+
+    /**
+     * Get the working nanos from the start of the day to each boundary.
+     *
+     * @return the cumulative nanos, not null.
+     */
+    LongView cumulative() {
+        return cumulative;
+    }
+
+    /**
+     * Check if every boundary of the time slots is a multiple of an amount
+     * of nanos.
+     *
+     * @param nanos the amount of nanos, positive.
+     * @return true if every boundary is aligned, false if not.
+     */
+    boolean isAlignedTo(long nanos) {
+        for (int i = 0; i < boundaries.size(); i++) {
+            if (boundaries.get(i) % nanos != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the nano-of-day at which the working nanos from a start
+     * nano-of-day reach an amount. The amount must be positive and not
+     * greater than the working nanos from the start to the end of the day.
+     *
+     * @param startInclusive the start nano-of-day, inclusive.
+     * @param nanos          the working nanos to add, positive.
+     * @return the nano-of-day, after startInclusive.
+     */
+    long plus(long startInclusive, long nanos) {
+        long target = nanosBefore(startInclusive) + nanos;
+
+        //first end reaching the target
+        int low = 0;
+        int high = boundaries.size() / 2 - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative.get(2 * middle + 1) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return boundaries.get(2 * low) + target - cumulative.get(2 * low);
+    }
+
+    /**
+     * Get the nano-of-day from which the working nanos to an end
+     * nano-of-day reach an amount. The amount must be positive and not
+     * greater than the working nanos from the start of the day to the end.
+     *
+     * @param endExclusive the end nano-of-day, exclusive.
+     * @param nanos        the working nanos to subtract, positive.
+     * @return the nano-of-day, before endExclusive.
+     */
+    long minus(long endExclusive, long nanos) {
+        long target = nanosBefore(endExclusive) - nanos;
+
+        //last start not exceeding the target
+        int low = 0;
+        int high = boundaries.size() / 2 - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (cumulative.get(2 * middle) > target) {
+                high = middle - 1;
+            } else {
+                low = middle;
+            }
+        }
+
+        if (target >= cumulative.get(2 * low + 1)) {
+            return boundaries.get(2 * low + 1);
+        }
+        return boundaries.get(2 * low) + target - cumulative.get(2 * low);
+    }
+
+    /**
+     * Get the first nano-of-day, from a nano-of-day, that is part of the time
+     * slots.
+     *
+     * @param nanoOfDay the nano-of-day, inclusive.
+     * @return the nano-of-day, -1 if no time slot is open from nanoOfDay to
+     * the end of the day.
+     */
+    long nextWorking(long nanoOfDay) {
+        int index = floorIndex(nanoOfDay);
+        if (isStart(index)) {
+            return nanoOfDay;
+        }
+        return index + 1 < boundaries.size() ? boundaries.get(index + 1) : -1;
+    }
+
+    /**
+     * Get the first nano-of-day, from a nano-of-day, that is not part of the
+     * time slots. As a time slot ends before the end of the day, there is
+     * always one.
+     *
+     * @param nanoOfDay the nano-of-day, inclusive.
+     * @return the nano-of-day, not before nanoOfDay.
+     */
+    long nextNonWorking(long nanoOfDay) {
+        int index = floorIndex(nanoOfDay);
+        return isStart(index) ? boundaries.get(index + 1) : nanoOfDay;
+    }
+
+    /**
+     * Get the last nano-of-day, up to a nano-of-day, right after a nano that
+     * is part of the time slots: the end of the last time slot, or
+     * nanoOfDay itself if the nano before it is part of the time slots.
+     *
+     * @param nanoOfDay the nano-of-day, inclusive.
+     * @return the nano-of-day, -1 if no time slot is open from the start of
+     * the day to nanoOfDay.
+     */
+    long previousWorking(long nanoOfDay) {
+        int index = floorIndex(nanoOfDay - 1);
+        if (isStart(index)) {
+            return nanoOfDay;
+        }
+        return index >= 0 ? boundaries.get(index) : -1;
+    }
+
+    /**
+     * Get the last nano-of-day, up to a nano-of-day, right after a nano that
+     * is not part of the time slots: the start of the current time slot, or
+     * nanoOfDay itself if the nano before it is not part of the time slots.
+     *
+     * @param nanoOfDay the nano-of-day, inclusive.
+     * @return the nano-of-day, not after nanoOfDay.
+     */
+    long previousNonWorking(long nanoOfDay) {
+        int index = floorIndex(nanoOfDay - 1);
+        return isStart(index) ? boundaries.get(index) : nanoOfDay;
+    }
+
+    /**
+     * Check if a boundary index is the start of a time slot.
+     *
+     * @param index the boundary index, eventually -1.
+     * @return true if index is the start of a time slot, false if not.
+     */
+    private static boolean isStart(int index) {
+        return index >= 0 && (index & 1) == 0;
+    }
+
+    /**
+     * Get the index of the last boundary before or equal to a nano-of-day.
+     *
+     * @param nanoOfDay the nano-of-day.
+     * @return the boundary index, -1 if nanoOfDay is before all boundaries.
+     */
+    private int floorIndex(long nanoOfDay) {
+        int index = boundaries.binarySearch(nanoOfDay);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,130 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * An immutable interval of "working hours", defined by a start
+ * zonedDateTime and an end zonedDateTime.
+ * <p>
+ * A working interval is constituted of two {@link ZonedDateTime}s :
+ * <ul>
+ * <li>
+ * A start zonedDateTime, inclusive.
+ * </li>
+ * <li>
+ * An end zonedDateTime, exclusive.
+ * </li>
+ * </ul>
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#workingIntervals(ZonedDateTime, ZonedDateTime)
+ * @since 1.8
+ */
+public final class WorkingInterval implements Serializable {
+
+    /**
+     * The start zonedDateTime, inclusive, not null.
+     */
+    private final ZonedDateTime startInclusive;
+
+    /**
+     * The end zonedDateTime, exclusive, not null.
+     */
+    private final ZonedDateTime endExclusive;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param startInclusive the start zonedDateTime, inclusive, not null.
+     * @param endExclusive   the end zonedDateTime, exclusive, not null.
+     */
+    private WorkingInterval(ZonedDateTime startInclusive,
+                            ZonedDateTime endExclusive) {
+        this.startInclusive = startInclusive;
+        this.endExclusive = endExclusive;
+    }
+
+    /**
+     * Obtains an instance of {@code WorkingInterval} from start and end
+     * zonedDateTimes.
+     *
+     * @param startInclusive the start zonedDateTime, inclusive, not null.
+     * @param endExclusive   the end zonedDateTime, exclusive, not null.
+     * @return the working interval, not null.
+     * @throws IllegalArgumentException if endExclusive is not after
+     *                                  startInclusive.
+     */
+    public static WorkingInterval of(ZonedDateTime startInclusive,
+                                     ZonedDateTime endExclusive) {
+        Objects.requireNonNull(startInclusive, "startInclusive");
+        Objects.requireNonNull(endExclusive, "endExclusive");
+
+        if (!startInclusive.isBefore(endExclusive)) {
+            throw new IllegalArgumentException(
+                    "startInclusive must be before endExclusive");
+        }
+        return new WorkingInterval(startInclusive, endExclusive);
+    }
+
+    /**
+     * Get the working interval start zonedDateTime.
+     *
+     * @return the start zonedDateTime, inclusive, not null.
+     */
+    public ZonedDateTime getStartInclusive() {
+        return startInclusive;
+    }
+
+    /**
+     * Get the working interval end zonedDateTime.
+     *
+     * @return the end zonedDateTime, exclusive, not null.
+     */
+    public ZonedDateTime getEndExclusive() {
+        return endExclusive;
+    }
+
+    /**
+     * Get the duration of the working interval.
+     *
+     * @return the duration between the start and the end, not null,
+     * positive.
+     */
+    public Duration getDuration() {
+        return Duration.between(startInclusive, endExclusive);
+    }
+
+    /**
+     * Check if two working intervals are equals.
+     *
+     * @param o the second working interval.
+     * @return true if the two working intervals have the same start and end.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        WorkingInterval that = (WorkingInterval) o;
+        return startInclusive.equals(that.startInclusive) && endExclusive
+                .equals(that.endExclusive);
+    }
+
+    /**
+     * Get hashCode from the working interval start and end.
+     *
+     * @return the working interval hashcode.
+     */
+    @Override
+    public int hashCode() {
+        int result = startInclusive.hashCode();
+        result = 31 * result + endExclusive.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over the working intervals of a zoned calendar between
+ * two zonedDateTimes.
+ * <p>
+ * The intervals are found one at a time, jumping from the start of a working
+ * period to its end with the navigation of the zoned calendar, so the whole
+ * range is never materialized. A working period going on across a daylight
+ * saving time transition gives a single interval.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see BusinessCalendar#workingIntervals(ZonedDateTime, ZonedDateTime)
+ * @since 1.8
+ */
+final class WorkingIntervalIterator implements Iterator<WorkingInterval> {
+
+    /**
+     * The zoned calendar, in the zone of the intervals.
+     */
+    private final ZonedCalendar zoned;
+
+    /**
+     * The end of the range, exclusive.
+     */
+    private final ZonedDateTime endExclusive;
+
+    /**
+     * The start of the next interval, null if it is not found yet.
+     */
+    private ZonedDateTime nextStart;
+
+    /**
+     * The position from which the next interval is searched.
+     */
+    private ZonedDateTime position;
+
+    /**
+     * Simple constructor that initialize fields from the parameters.
+     *
+     * @param zoned          the zoned calendar, not null.
+     * @param startInclusive the start of the range, inclusive, in the zone
+     *                       of the calendar, not null.
+     * @param endExclusive   the end of the range, exclusive, not null.
+     */
+    WorkingIntervalIterator(ZonedCalendar zoned, ZonedDateTime startInclusive,
+                            ZonedDateTime endExclusive) {
+        this.zoned = zoned;
+        this.endExclusive = endExclusive;
+        this.position = startInclusive;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextStart == null && position.isBefore(endExclusive)
+                && zoned.hasWorkingTime(position)) {
+            ZonedDateTime start = zoned.next(position, true);
+            if (start.isBefore(endExclusive)) {
+                nextStart = start;
+            } else {
+                position = endExclusive;
+            }
+        }
+        return nextStart != null;
+    }
+
+    @Override
+    public WorkingInterval next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ZonedDateTime end = zoned.next(nextStart, false);
+        if (end.isAfter(endExclusive)) {
+            end = endExclusive.withZoneSameInstant(nextStart.getZone());
+        }
+        WorkingInterval workingInterval = WorkingInterval.of(nextStart, end);
+        position = end;
+        nextStart = null;
+        return workingInterval;
+    }
+}
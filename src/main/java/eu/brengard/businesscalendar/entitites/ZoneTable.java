@@ -0,0 +1,300 @@
+package eu.brengard.businesscalendar.entitites;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The offsets of a zone, precomputed as primitive arrays.
+ * <p>
+ * The transitions of the zone from {@value #FIRST_YEAR} to
+ * {@value #LAST_YEAR} are resolved once and kept as sorted epoch seconds, so
+ * that the offset of an epoch second is found by binary search without
+ * creating any object. Epoch seconds outside of that horizon are resolved
+ * from the {@link ZoneRules}.
+ * <p>
+ * The transitions are also walked by the zone-aware queries of the
+ * calendars: within two transitions the wall clock is a mere translation of
+ * the instants, so the working time elapsed between two instants is the
+ * working time read on the wall clock, corrected at each transition crossed.
+ * <p>
+ * Tables are cached by zone and shared by every calendar.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class ZoneTable {
+
+    /**
+     * {@value FIRST_YEAR} First year of the precomputed transitions.
+     */
+    static final int FIRST_YEAR = 1900;
+
+    /**
+     * {@value LAST_YEAR} Last year of the precomputed transitions, exclusive.
+     */
+    static final int LAST_YEAR = 2100;
+
+    /**
+     * Cached tables by zone.
+     */
+    private static final ConcurrentMap<ZoneId, ZoneTable> TABLES =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The zone rules, used outside of the horizon.
+     */
+    private final ZoneRules rules;
+
+    /**
+     * True if the zone has a single offset, and so no transition.
+     */
+    private final boolean fixedOffset;
+
+    /**
+     * First epoch second of the horizon, inclusive.
+     */
+    private final long horizonStart;
+
+    /**
+     * Last epoch second of the horizon, exclusive.
+     */
+    private final long horizonEnd;
+
+    /**
+     * Sorted epoch seconds of the transitions within the horizon.
+     */
+    private final long[] transitions;
+
+    /**
+     * Offset in seconds before the first transition, then after each
+     * transition.
+     */
+    private final int[] offsets;
+
+    /**
+     * Simple private constructor that resolves the transitions of a zone.
+     *
+     * @param zone the zone, not null.
+     */
+    private ZoneTable(ZoneId zone) {
+        this.rules = zone.getRules();
+        this.fixedOffset = rules.isFixedOffset();
+        this.horizonStart = LocalDate.of(FIRST_YEAR, 1, 1)
+                .atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        this.horizonEnd = LocalDate.of(LAST_YEAR, 1, 1)
+                .atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+
+        long[] epochSeconds = new long[16];
+        int[] offsetSeconds = new int[17];
+        offsetSeconds[0] = rules.getOffset(Instant.ofEpochSecond(horizonStart))
+                .getTotalSeconds();
+        int size = 0;
+        ZoneOffsetTransition transition =
+                rules.nextTransition(Instant.ofEpochSecond(horizonStart));
+        while (transition != null
+                && transition.toEpochSecond() < horizonEnd) {
+            if (size == epochSeconds.length) {
+                epochSeconds = Arrays.copyOf(epochSeconds, size * 2);
+                offsetSeconds = Arrays.copyOf(offsetSeconds, size * 2 + 1);
+            }
+            epochSeconds[size] = transition.toEpochSecond();
+            offsetSeconds[++size] =
+                    transition.getOffsetAfter().getTotalSeconds();
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        this.transitions = Arrays.copyOf(epochSeconds, size);
+        this.offsets = Arrays.copyOf(offsetSeconds, size + 1);
+    }
+
+    /**
+     * Obtains the {@code ZoneTable} of a zone, resolving it on first use.
+     *
+     * @param zone the zone, not null.
+     * @return the zone table, not null.
+     */
+    static ZoneTable of(ZoneId zone) {
+        Objects.requireNonNull(zone, "zone");
+
+        ZoneTable zoneTable = TABLES.get(zone);
+        if (zoneTable == null) {
+            zoneTable = new ZoneTable(zone);
+            ZoneTable previous = TABLES.putIfAbsent(zone, zoneTable);
+            if (previous != null) {
+                zoneTable = previous;
+            }
+        }
+        return zoneTable;
+    }
+
+    /**
+     * Get the offset of an epoch second.
+     *
+     * @param epochSecond the epoch second.
+     * @return the offset in seconds.
+     */
+    int offsetSeconds(long epochSecond) {
+        if (epochSecond < horizonStart || epochSecond >= horizonEnd) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond))
+                    .getTotalSeconds();
+        }
+        int index = Arrays.binarySearch(transitions, epochSecond);
+        return offsets[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    /**
+     * Get the first transition after an epoch second.
+     *
+     * @param epochSecond the epoch second, exclusive.
+     * @return the epoch second of the transition, {@link Long#MAX_VALUE} if
+     * there is none.
+     */
+    long nextTransition(long epochSecond) {
+        if (fixedOffset) {
+            return Long.MAX_VALUE;
+        }
+        long from = epochSecond;
+        if (epochSecond >= horizonStart && epochSecond < horizonEnd) {
+            int index = Arrays.binarySearch(transitions, epochSecond);
+            index = index >= 0 ? index + 1 : -index - 1;
+            if (index < transitions.length) {
+                return transitions[index];
+            }
+            from = horizonEnd - 1;
+        }
+        ZoneOffsetTransition transition =
+                rules.nextTransition(Instant.ofEpochSecond(from));
+        return transition == null ? Long.MAX_VALUE
+                : transition.toEpochSecond();
+    }
+
+    /**
+     * Get the last transition before an epoch second.
+     *
+     * @param epochSecond the epoch second, exclusive.
+     * @return the epoch second of the transition, {@link Long#MIN_VALUE} if
+     * there is none.
+     */
+    long previousTransition(long epochSecond) {
+        if (fixedOffset) {
+            return Long.MIN_VALUE;
+        }
+        long from = epochSecond;
+        if (epochSecond > horizonStart && epochSecond <= horizonEnd) {
+            int index = Arrays.binarySearch(transitions, epochSecond);
+            index = index >= 0 ? index - 1 : -index - 2;
+            if (index >= 0) {
+                return transitions[index];
+            }
+            //a transition at the start of the horizon is not in the table
+            from = horizonStart + 1;
+        }
+        ZoneOffsetTransition transition =
+                rules.previousTransition(Instant.ofEpochSecond(from));
+        return transition == null ? Long.MIN_VALUE
+                : transition.toEpochSecond();
+    }
+
+    /**
+     * Get the local epoch milli, the epoch milli as read on a wall clock of
+     * the zone, of an epoch milli.
+     *
+     * @param epochMilli the epoch milli.
+     * @return the local epoch milli.
+     */
+    long toLocalEpochMilli(long epochMilli) {
+        return epochMilli
+                + offsetSeconds(Math.floorDiv(epochMilli, 1000L)) * 1000L;
+    }
+
+    /**
+     * Obtains a new cursor on this table.
+     *
+     * @return the cursor, not null.
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A cursor remembering the last offset segment found, for queries on
+     * nearby epoch seconds. A cursor must not be shared across threads.
+     */
+    final class Cursor {
+
+        /**
+         * First epoch second of the last segment, inclusive.
+         */
+        private long segmentStart = 1;
+
+        /**
+         * Last epoch second of the last segment, exclusive.
+         */
+        private long segmentEnd;
+
+        /**
+         * Offset in seconds of the last segment.
+         */
+        private int segmentOffset;
+
+        /**
+         * Simple private constructor.
+         */
+        private Cursor() {
+        }
+
+        /**
+         * Get the offset of an epoch second, searching the transitions only
+         * if it is outside of the last segment found.
+         *
+         * @param epochSecond the epoch second.
+         * @return the offset in seconds.
+         */
+        int offsetSeconds(long epochSecond) {
+            if (epochSecond >= segmentStart && epochSecond < segmentEnd) {
+                return segmentOffset;
+            }
+            if (epochSecond < horizonStart || epochSecond >= horizonEnd) {
+                segmentStart = 1;
+                segmentEnd = 0;
+                return ZoneTable.this.offsetSeconds(epochSecond);
+            }
+            int index = Arrays.binarySearch(transitions, epochSecond);
+            index = index >= 0 ? index + 1 : -index - 1;
+            segmentStart = index == 0 ? horizonStart : transitions[index - 1];
+            segmentEnd = index == transitions.length ? horizonEnd
+                    : transitions[index];
+            segmentOffset = offsets[index];
+            return segmentOffset;
+        }
+
+        /**
+         * Check if an epoch second is in the last offset segment found, so
+         * that there is no transition between it and the last epoch
+         * second whose offset was read.
+         *
+         * @param epochSecond the epoch second.
+         * @return true if it is in the last segment, false if not or if the
+         * last epoch second read is outside of the horizon.
+         */
+        boolean isInSegment(long epochSecond) {
+            return epochSecond >= segmentStart && epochSecond < segmentEnd;
+        }
+
+        /**
+         * Get the table of this cursor.
+         *
+         * @return the zone table, not null.
+         */
+        ZoneTable zoneTable() {
+            return ZoneTable.this;
+        }
+    }
+}
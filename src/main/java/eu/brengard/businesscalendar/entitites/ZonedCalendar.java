@@ -0,0 +1,371 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarNoWorkingTimeException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * A compiled calendar read in a zone, counting the working time that
+ * actually elapses between instants.
+ * <p>
+ * The time slots are read on the wall clock of the zone. Within two offset
+ * transitions the wall clock is a translation of the instants, so each
+ * query works on the local date-times of the compiled calendar, one offset
+ * segment at a time, and only the transitions crossed are walked through the
+ * {@link ZoneTable} of the zone. Around a transition the answers are
+ * deterministic:
+ * <ul>
+ * <li>
+ * The working time of a skipped wall clock period, a gap, is not counted: a
+ * time slot starting in a gap starts at the transition.
+ * </li>
+ * <li>
+ * The working time of a repeated wall clock period, an overlap, is counted
+ * twice: a time slot covering an overlap lasts one more period, and one
+ * ending in an overlap is worked on both passes of the wall clock.
+ * </li>
+ * </ul>
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+final class ZonedCalendar {
+
+    /**
+     * The local date-time from which the working nanos since the epoch are
+     * counted.
+     */
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1,
+            0, 0);
+
+    /**
+     * The compiled calendar.
+     */
+    private final CompiledCalendar compiled;
+
+    /**
+     * The zone of the calendar.
+     */
+    private final ZoneId zone;
+
+    /**
+     * The offsets and transitions of the zone.
+     */
+    private final ZoneTable zoneTable;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param compiled  the compiled calendar, not null.
+     * @param zone      the zone of the calendar, not null.
+     * @param zoneTable the zone table of zone, not null.
+     */
+    private ZonedCalendar(CompiledCalendar compiled, ZoneId zone,
+                          ZoneTable zoneTable) {
+        this.compiled = compiled;
+        this.zone = zone;
+        this.zoneTable = zoneTable;
+    }
+
+    /**
+     * Obtains an instance of {@code ZonedCalendar} from a compiled calendar
+     * and a zone.
+     *
+     * @param compiled the compiled calendar, not null.
+     * @param zone     the zone of the calendar, not null.
+     * @return the zoned calendar, not null.
+     */
+    static ZonedCalendar of(CompiledCalendar compiled, ZoneId zone) {
+        return new ZonedCalendar(compiled, zone, ZoneTable.of(zone));
+    }
+
+    /**
+     * Get the working nanos elapsed between two zonedDateTimes, the end
+     * being read in the zone of the calendar.
+     *
+     * @param startInclusive the start, inclusive, not null.
+     * @param endExclusive   the end, exclusive, not null.
+     * @return the working nanos, negative if the start is after the end.
+     */
+    long nanosBetween(ZonedDateTime startInclusive,
+                      ZonedDateTime endExclusive) {
+        long startSecond = startInclusive.toEpochSecond();
+        long endSecond = endExclusive.toEpochSecond();
+        long nanos = compiled.nanosBetweenLocalSeconds(
+                startSecond + offsetSeconds(startInclusive),
+                startInclusive.getNano(),
+                endSecond + offsetSeconds(endExclusive),
+                endExclusive.getNano());
+        return nanos - compiled.transitionNanos(zoneTable, startSecond,
+                endSecond);
+    }
+
+    /**
+     * Get the working nanos elapsed between 1970-01-01T00:00 in the zone of
+     * the calendar and a zonedDateTime, negative before 1970-01-01T00:00.
+     * As the working nanos actually elapsed are never negative, the result
+     * never decreases as the zonedDateTime increases.
+     *
+     * @param zonedDateTime the zonedDateTime, not null.
+     * @return the working nanos since the epoch.
+     */
+    long nanosSinceEpoch(ZonedDateTime zonedDateTime) {
+        return nanosBetween(EPOCH.atZone(zone), zonedDateTime);
+    }
+
+    /**
+     * Get the first zonedDateTime whose working nanos since 1970-01-01T00:00
+     * reach an amount. This is the inverse of
+     * {@link #nanosSinceEpoch(ZonedDateTime)}.
+     *
+     * @param nanos the working nanos since the epoch, eventually negative.
+     * @return the first zonedDateTime reaching the working nanos, in the zone
+     * of the calendar, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    ZonedDateTime fromNanosSinceEpoch(long nanos) {
+        ZonedDateTime epoch = EPOCH.atZone(zone);
+        if (nanos > 0) {
+            return plus(epoch, nanos);
+        }
+        if (nanos == 0) {
+            return epoch;
+        }
+        //the last zonedDateTime one working nano further is inside a time
+        // slot, the next nano is then the first one reaching the amount
+        return minus(epoch, Math.addExact(-nanos, 1)).plusNanos(1);
+    }
+
+    /**
+     * Get the zonedDateTime at which an amount of working nanos has elapsed
+     * since a zonedDateTime, as {@link CompiledCalendar#plus(long, long,
+     * long)} on the wall clock.
+     *
+     * @param zonedDateTime the start, in the zone of the calendar, not null.
+     * @param nanos         the working nanos, strictly positive.
+     * @return the first zonedDateTime reaching the working nanos, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    ZonedDateTime plus(ZonedDateTime zonedDateTime, long nanos) {
+        long second = zonedDateTime.toEpochSecond();
+        int offset = offsetSeconds(zonedDateTime);
+        long local = second + offset;
+        long nano = zonedDateTime.getNano();
+
+        while (true) {
+            LocalDateTime result = compiled.plus(dayOf(local),
+                    nanoOfDayOf(local, nano), nanos);
+            long transition = zoneTable.nextTransition(second);
+            long segmentEnd = transition == Long.MAX_VALUE ? Long.MAX_VALUE
+                    : transition + offset;
+            long resultSecond = result.toEpochSecond(ZoneOffset.UTC);
+            if (resultSecond < segmentEnd
+                    || resultSecond == segmentEnd && result.getNano() == 0) {
+                return atOffset(zonedDateTime, result, offset);
+            }
+
+            //the working time of the segment is not enough, go on after it
+            nanos -= compiled.nanosBetweenLocalSeconds(local, nano,
+                    segmentEnd, 0);
+            second = transition;
+            offset = zoneTable.offsetSeconds(transition);
+            local = transition + offset;
+            nano = 0;
+        }
+    }
+
+    /**
+     * Get the zonedDateTime from which an amount of working nanos elapses
+     * until a zonedDateTime, as {@link CompiledCalendar#minus(long, long,
+     * long)} on the wall clock.
+     *
+     * @param zonedDateTime the end, in the zone of the calendar, not null.
+     * @param nanos         the working nanos, strictly positive.
+     * @return the last zonedDateTime reaching the working nanos, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    ZonedDateTime minus(ZonedDateTime zonedDateTime, long nanos) {
+        long second = zonedDateTime.toEpochSecond();
+        int nanoOfSecond = zonedDateTime.getNano();
+        //the segment is the one of the time right before zonedDateTime
+        int offset = nanoOfSecond == 0 ? zoneTable.offsetSeconds(second - 1)
+                : offsetSeconds(zonedDateTime);
+        long searchFrom = nanoOfSecond == 0 ? second : second + 1;
+        long local = second + offset;
+        long nano = nanoOfSecond;
+
+        while (true) {
+            LocalDateTime result = compiled.minus(dayOf(local),
+                    nanoOfDayOf(local, nano), nanos);
+            long transition = zoneTable.previousTransition(searchFrom);
+            long segmentStart = transition == Long.MIN_VALUE ? Long.MIN_VALUE
+                    : transition + offset;
+            if (result.toEpochSecond(ZoneOffset.UTC) >= segmentStart) {
+                return atOffset(zonedDateTime, result, offset);
+            }
+
+            //the working time of the segment is not enough, go on before it
+            nanos -= compiled.nanosBetweenLocalSeconds(segmentStart, 0,
+                    local, nano);
+            offset = zoneTable.offsetSeconds(transition - 1);
+            local = transition + offset;
+            nano = 0;
+            searchFrom = transition;
+        }
+    }
+
+    /**
+     * Get the first zonedDateTime, from a zonedDateTime, that is in "working
+     * hours", or that is not.
+     *
+     * @param zonedDateTime the start, inclusive, in the zone of the
+     *                      calendar, not null.
+     * @param working       true for the first working time, false for the
+     *                      first non working time.
+     * @return the first zonedDateTime found, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    ZonedDateTime next(ZonedDateTime zonedDateTime, boolean working) {
+        long second = zonedDateTime.toEpochSecond();
+        int offset = offsetSeconds(zonedDateTime);
+        long local = second + offset;
+        long nano = zonedDateTime.getNano();
+
+        while (true) {
+            long epochDay = dayOf(local);
+            long nanoOfDay = nanoOfDayOf(local, nano);
+            LocalDateTime result = working
+                    ? compiled.nextWorkingTime(epochDay, nanoOfDay)
+                    : compiled.nextNonWorkingTime(epochDay, nanoOfDay);
+            long transition = zoneTable.nextTransition(second);
+            if (transition == Long.MAX_VALUE || result.toEpochSecond(
+                    ZoneOffset.UTC) < transition + offset) {
+                return atOffset(zonedDateTime, result, offset);
+            }
+
+            second = transition;
+            offset = zoneTable.offsetSeconds(transition);
+            local = transition + offset;
+            nano = 0;
+        }
+    }
+
+    /**
+     * Get the last zonedDateTime, up to a zonedDateTime, that ends "working
+     * hours", or "off hours".
+     *
+     * @param zonedDateTime the end, inclusive, in the zone of the calendar,
+     *                      not null.
+     * @param working       true for the last end of working time, false for
+     *                      the last end of non working time.
+     * @return the last zonedDateTime found, not null.
+     * @throws BusinessCalendarNoWorkingTimeException if the calendar has no
+     *                                                working time.
+     */
+    ZonedDateTime previous(ZonedDateTime zonedDateTime, boolean working) {
+        long second = zonedDateTime.toEpochSecond();
+        int nanoOfSecond = zonedDateTime.getNano();
+        int offset = nanoOfSecond == 0 ? zoneTable.offsetSeconds(second - 1)
+                : offsetSeconds(zonedDateTime);
+        long searchFrom = nanoOfSecond == 0 ? second : second + 1;
+        long local = second + offset;
+        long nano = nanoOfSecond;
+
+        while (true) {
+            long epochDay = dayOf(local);
+            long nanoOfDay = nanoOfDayOf(local, nano);
+            LocalDateTime result = working
+                    ? compiled.previousWorkingTime(epochDay, nanoOfDay)
+                    : compiled.previousNonWorkingTime(epochDay, nanoOfDay);
+            long transition = zoneTable.previousTransition(searchFrom);
+            if (transition == Long.MIN_VALUE || result.toEpochSecond(
+                    ZoneOffset.UTC) > transition + offset
+                    || result.getNano() != 0 && result.toEpochSecond(
+                    ZoneOffset.UTC) == transition + offset) {
+                return atOffset(zonedDateTime, result, offset);
+            }
+
+            offset = zoneTable.offsetSeconds(transition - 1);
+            local = transition + offset;
+            nano = 0;
+            searchFrom = transition;
+        }
+    }
+
+    /**
+     * Check if the calendar has any working time from a zonedDateTime.
+     *
+     * @param zonedDateTime the zonedDateTime, inclusive, in the zone of the
+     *                      calendar, not null.
+     * @return true if there is working time from zonedDateTime, false if not.
+     */
+    boolean hasWorkingTime(ZonedDateTime zonedDateTime) {
+        return compiled.hasWorkingTime(
+                zonedDateTime.toLocalDate().toEpochDay(),
+                zonedDateTime.toLocalTime().toNanoOfDay());
+    }
+
+    /**
+     * Get the offset of a zonedDateTime in the zone of the calendar, without
+     * any search if it is already in that zone.
+     *
+     * @param zonedDateTime the zonedDateTime, not null.
+     * @return the offset in seconds.
+     */
+    private int offsetSeconds(ZonedDateTime zonedDateTime) {
+        if (zone.equals(zonedDateTime.getZone())) {
+            return zonedDateTime.getOffset().getTotalSeconds();
+        }
+        return zoneTable.offsetSeconds(zonedDateTime.toEpochSecond());
+    }
+
+    /**
+     * Obtains the zonedDateTime of a local date-time read with an offset,
+     * keeping the original zonedDateTime if it is the same instant.
+     *
+     * @param zonedDateTime the original zonedDateTime, not null.
+     * @param localDateTime the local date-time, not null.
+     * @param offset        the offset in seconds of localDateTime.
+     * @return the zonedDateTime, in the zone of the calendar, not null.
+     */
+    private ZonedDateTime atOffset(ZonedDateTime zonedDateTime,
+                                   LocalDateTime localDateTime, int offset) {
+        if (localDateTime.toEpochSecond(ZoneOffset.UTC) - offset
+                == zonedDateTime.toEpochSecond()
+                && localDateTime.getNano() == zonedDateTime.getNano()
+                && zone.equals(zonedDateTime.getZone())) {
+            return zonedDateTime;
+        }
+        return ZonedDateTime.ofInstant(localDateTime,
+                ZoneOffset.ofTotalSeconds(offset), zone);
+    }
+
+    /**
+     * Get the epoch day of a local epoch second.
+     *
+     * @param localSecond the local epoch second.
+     * @return the epoch day.
+     */
+    private static long dayOf(long localSecond) {
+        return Math.floorDiv(localSecond, CompiledCalendar.SECONDS_PER_DAY);
+    }
+
+    /**
+     * Get the nano-of-day of a local epoch second and nano-of-second.
+     *
+     * @param localSecond  the local epoch second.
+     * @param nanoOfSecond the nano-of-second.
+     * @return the nano-of-day.
+     */
+    private static long nanoOfDayOf(long localSecond, long nanoOfSecond) {
+        return Math.floorMod(localSecond, CompiledCalendar.SECONDS_PER_DAY)
+                * CompiledCalendar.NANOS_PER_SECOND + nanoOfSecond;
+    }
+}
@@ -0,0 +1,23 @@
+package eu.brengard.businesscalendar.exceptions;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exception thrown when a
+ * {@link eu.brengard.businesscalendar.entitites.BusinessCalendar} without
+ * any working time is asked for a working time it can never reach.
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public class BusinessCalendarNoWorkingTimeException extends RuntimeException {
+    private static final Logger logger =
+            LogManager.getLogger(BusinessCalendarNoWorkingTimeException.class);
+
+    public BusinessCalendarNoWorkingTimeException() {
+        super("the business calendar has no working time, add "
+                + "BusinessTimeSlot to its BusinessDay");
+        logger.log(Level.ERROR, this);
+    }
+}
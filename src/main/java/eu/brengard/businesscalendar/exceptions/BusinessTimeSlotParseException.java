@@ -14,9 +14,27 @@ public class BusinessTimeSlotParseException extends RuntimeException {
     private static final Logger logger =
             LogManager.getLogger(BusinessTimeSlotParseException.class);
 
+    /**
+     * The index in the parsed text where the error was found, -1 if unknown.
+     */
+    private final int errorIndex;
+
     public BusinessTimeSlotParseException(String message) {
+        this(message, -1);
+    }
+
+    public BusinessTimeSlotParseException(String message, int errorIndex) {
         super(message);
+        this.errorIndex = errorIndex;
         logger.log(Level.ERROR, this);
     }
-}
 
+    /**
+     * Get the index in the parsed text where the error was found.
+     *
+     * @return the index, -1 if unknown.
+     */
+    public int getErrorIndex() {
+        return errorIndex;
+    }
+}
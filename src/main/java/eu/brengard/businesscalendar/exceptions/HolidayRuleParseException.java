@@ -0,0 +1,37 @@
+package eu.brengard.businesscalendar.exceptions;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exception thrown when an error occur while creating a
+ * {@link eu.brengard.businesscalendar.entitites.HolidayRule} from a String.
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public class HolidayRuleParseException extends RuntimeException {
+    private static final Logger logger =
+            LogManager.getLogger(HolidayRuleParseException.class);
+
+    /**
+     * The index in the parsed text where the error was found.
+     */
+    private final int errorIndex;
+
+    public HolidayRuleParseException(String text, int errorIndex) {
+        super("Text '" + text + "' could not be parsed as an holiday rule at"
+                + " index " + errorIndex);
+        this.errorIndex = errorIndex;
+        logger.log(Level.ERROR, this);
+    }
+
+    /**
+     * Get the index in the parsed text where the error was found.
+     *
+     * @return the index, positive or zero.
+     */
+    public int getErrorIndex() {
+        return errorIndex;
+    }
+}
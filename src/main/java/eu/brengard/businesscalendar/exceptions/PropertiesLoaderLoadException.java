@@ -17,5 +17,10 @@ public class PropertiesLoaderLoadException extends RuntimeException {
     public PropertiesLoaderLoadException() {
         logger.log(Level.ERROR, this);
     }
+
+    public PropertiesLoaderLoadException(Throwable cause) {
+        super(cause);
+        logger.log(Level.ERROR, this);
+    }
 }
 
@@ -0,0 +1,71 @@
+package eu.brengard.businesscalendar.exceptions;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exception thrown when a property value of a business calendar properties
+ * file can not be parsed. The line and the column of the error are given
+ * when they are known.
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public class PropertiesLoaderParseException extends RuntimeException {
+    private static final Logger logger =
+            LogManager.getLogger(PropertiesLoaderParseException.class);
+
+    /**
+     * The key of the property, not null.
+     */
+    private final String key;
+
+    /**
+     * The line of the error, starting at 1, 0 if unknown.
+     */
+    private final int line;
+
+    /**
+     * The column of the error, starting at 1.
+     */
+    private final int column;
+
+    public PropertiesLoaderParseException(String key, int line, int column,
+                                          Throwable cause) {
+        super("property " + key + " could not be parsed"
+                + (line > 0 ? " at line " + line + ", column " + column
+                : " at column " + column) + ": " + cause.getMessage(), cause);
+        this.key = key;
+        this.line = line;
+        this.column = column;
+        logger.log(Level.ERROR, this);
+    }
+
+    /**
+     * Get the key of the property.
+     *
+     * @return the key, not null.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Get the line of the error in the properties file.
+     *
+     * @return the line, starting at 1, 0 if unknown.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Get the column of the error in the properties file, or in the property
+     * value if the line is unknown.
+     *
+     * @return the column, starting at 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+}
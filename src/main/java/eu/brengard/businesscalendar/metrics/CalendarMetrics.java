@@ -0,0 +1,44 @@
+package eu.brengard.businesscalendar.metrics;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The service provider interface reporting the queries of the business
+ * calendars.
+ * <p>
+ * The implementation in use is the one installed with
+ * {@link Metrics#install(CalendarMetrics)}, or else the first one declared
+ * in a {@code META-INF/services/eu.brengard.businesscalendar.metrics
+ * .CalendarMetrics} file of the class path, or else {@link #NOOP}. While
+ * {@link #NOOP} is in use, the calendars do not read the clock and do not
+ * call it at all.
+ * <p>
+ * An implementation is called by every thread querying a calendar, so it
+ * must be thread-safe, and cheap enough not to slow the queries down.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see HistogramMetrics
+ * @since 1.8
+ */
+public interface CalendarMetrics {
+
+    /**
+     * The implementation reporting nothing, used by default.
+     */
+    CalendarMetrics NOOP = (calendar, startInclusive, endExclusive,
+                            latencyNanos) -> {
+    };
+
+    /**
+     * Report a duration computed between two zonedDateTimes.
+     *
+     * @param calendar       the calendar queried, an
+     *                       {@code AbstractBusinessCalendar} or a
+     *                       {@code StoredCalendar}, not null.
+     * @param startInclusive the start instant of the query, not null.
+     * @param endExclusive   the end instant of the query, not null.
+     * @param latencyNanos   the time taken by the query, in nanos.
+     */
+    void durationComputed(Object calendar, ZonedDateTime startInclusive,
+                          ZonedDateTime endExclusive, long latencyNanos);
+}
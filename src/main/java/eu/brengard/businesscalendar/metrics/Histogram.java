@@ -0,0 +1,154 @@
+package eu.brengard.businesscalendar.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, recorded concurrently.
+ * <p>
+ * The values are counted in power of two buckets: the bucket 0 holds 0, and
+ * the bucket {@code i} the values from 2<sup>i-1</sup> to
+ * 2<sup>i</sup> - 1. Every counter is a {@link LongAdder}, so recording a
+ * value never blocks and threads recording at the same time do not contend
+ * on a single memory location.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public final class Histogram {
+
+    /**
+     * {@value BUCKETS} Number of buckets.
+     */
+    public static final int BUCKETS = 64;
+
+    /**
+     * Counts by bucket.
+     */
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    /**
+     * Sum of the values.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Largest value.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Simple constructor of an empty histogram.
+     */
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Get the bucket of a value.
+     *
+     * @param value the value, non-negative.
+     * @return the bucket, from 0 to {@value BUCKETS} - 1.
+     */
+    static int bucketOf(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Get the largest value of a bucket.
+     *
+     * @param bucket the bucket, from 0 to {@value BUCKETS} - 1.
+     * @return the largest value.
+     */
+    public static long upperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value the value, a negative value being recorded as 0.
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts[bucketOf(recorded)].increment();
+        sum.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return the number of values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucketCount : counts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of values recorded in a bucket.
+     *
+     * @param bucket the bucket, from 0 to {@value BUCKETS} - 1.
+     * @return the number of values.
+     */
+    public long getCount(int bucket) {
+        return counts[bucket].sum();
+    }
+
+    /**
+     * Get the sum of the values recorded.
+     *
+     * @return the sum.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return the largest value, 0 if none is recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get an upper bound of a percentile of the values recorded: the largest
+     * value of the bucket holding it, or the largest value recorded if it is
+     * lower.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the upper bound, 0 if no value is recorded.
+     * @throws IllegalArgumentException if the percentile is not from 0 to
+     *                                  100.
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(
+                    "percentile must be from 0 to 100");
+        }
+
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return 0;
+    }
+}
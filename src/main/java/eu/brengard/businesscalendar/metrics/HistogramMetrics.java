@@ -0,0 +1,239 @@
+package eu.brengard.businesscalendar.metrics;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link CalendarMetrics} keeping, by calendar name, the number of
+ * queries, a histogram of their latencies in nanos and a histogram of their
+ * spans in days.
+ * <p>
+ * Calendars are named by a function given at creation, eg: from the tenant
+ * IDs they have been loaded for. Queries slower than a threshold can also be
+ * logged, one every given number of them, so that a burst of slow queries
+ * does not flood the log.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see Metrics#install(CalendarMetrics)
+ * @since 1.8
+ */
+public final class HistogramMetrics implements CalendarMetrics {
+    private static final Logger logger =
+            LogManager.getLogger(HistogramMetrics.class);
+
+    /**
+     * {@value SECONDS_PER_DAY} Seconds per day.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * Function naming the calendars.
+     */
+    private final Function<Object, String> naming;
+
+    /**
+     * Latency in nanos from which a query is slow.
+     */
+    private final long slowQueryNanos;
+
+    /**
+     * Number of slow queries for each one logged.
+     */
+    private final long sampling;
+
+    /**
+     * Number of slow queries.
+     */
+    private final AtomicLong slowQueries = new AtomicLong();
+
+    /**
+     * Statistics by calendar name.
+     */
+    private final ConcurrentMap<String, Stats> stats =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param naming         function naming the calendars, not null.
+     * @param slowQueryNanos the latency in nanos from which a query is slow.
+     * @param sampling       the number of slow queries for each one logged,
+     *                       positive.
+     */
+    private HistogramMetrics(Function<Object, String> naming,
+                             long slowQueryNanos, long sampling) {
+        this.naming = naming;
+        this.slowQueryNanos = slowQueryNanos;
+        this.sampling = sampling;
+    }
+
+    /**
+     * Obtains an instance of {@code HistogramMetrics} logging no query.
+     *
+     * @param naming function naming the calendars, not null.
+     * @return the metrics, empty, not null.
+     */
+    public static HistogramMetrics of(Function<Object, String> naming) {
+        Objects.requireNonNull(naming, "naming");
+
+        return new HistogramMetrics(naming, Long.MAX_VALUE, 1);
+    }
+
+    /**
+     * Obtains an instance of {@code HistogramMetrics} logging the slow
+     * queries, at the warn level.
+     *
+     * @param naming    function naming the calendars, not null.
+     * @param slowQuery the latency from which a query is slow, not null.
+     * @param sampling  the number of slow queries for each one logged,
+     *                  1 to log them all, positive.
+     * @return the metrics, empty, not null.
+     * @throws IllegalArgumentException if the latency is negative or if the
+     *                                  sampling is not positive.
+     */
+    public static HistogramMetrics of(Function<Object, String> naming,
+                                      Duration slowQuery, int sampling) {
+        Objects.requireNonNull(naming, "naming");
+        Objects.requireNonNull(slowQuery, "slowQuery");
+        if (slowQuery.isNegative()) {
+            throw new IllegalArgumentException(
+                    "slowQuery must not be negative");
+        }
+        if (sampling <= 0) {
+            throw new IllegalArgumentException("sampling must be positive");
+        }
+
+        long slowQueryNanos;
+        try {
+            slowQueryNanos = slowQuery.toNanos();
+        } catch (ArithmeticException e) {
+            slowQueryNanos = Long.MAX_VALUE;
+        }
+        return new HistogramMetrics(naming, slowQueryNanos, sampling);
+    }
+
+    @Override
+    public void durationComputed(Object calendar,
+                                 ZonedDateTime startInclusive,
+                                 ZonedDateTime endExclusive,
+                                 long latencyNanos) {
+        String name = naming.apply(calendar);
+        long spanDays = Math.abs(endExclusive.toEpochSecond()
+                - startInclusive.toEpochSecond()) / SECONDS_PER_DAY;
+
+        Stats calendarStats = stats.get(name);
+        if (calendarStats == null) {
+            calendarStats = new Stats();
+            Stats previous = stats.putIfAbsent(name, calendarStats);
+            if (previous != null) {
+                calendarStats = previous;
+            }
+        }
+        calendarStats.calls.increment();
+        calendarStats.latencies.record(latencyNanos);
+        calendarStats.spanDays.record(spanDays);
+
+        if (latencyNanos >= slowQueryNanos
+                && slowQueries.getAndIncrement() % sampling == 0) {
+            logger.log(Level.WARN, "Slow getDuration on " + name + ": "
+                    + latencyNanos + " ns from " + startInclusive + " to "
+                    + endExclusive + " (" + spanDays + " days)");
+        }
+    }
+
+    /**
+     * Get the names of the calendars queried.
+     *
+     * @return the names, unmodifiable, not null.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(stats.keySet());
+    }
+
+    /**
+     * Get the statistics of a calendar.
+     *
+     * @param name the name of the calendar, not null.
+     * @return the statistics, null if the calendar has not been queried.
+     */
+    public Stats getStats(String name) {
+        Objects.requireNonNull(name, "name");
+
+        return stats.get(name);
+    }
+
+    /**
+     * Get the number of slow queries.
+     *
+     * @return the number of slow queries, logged or not.
+     */
+    public long getSlowQueries() {
+        return slowQueries.get();
+    }
+
+    /**
+     * The statistics of the queries of a calendar.
+     */
+    public static final class Stats {
+
+        /**
+         * Number of queries.
+         */
+        private final LongAdder calls = new LongAdder();
+
+        /**
+         * Latencies of the queries, in nanos.
+         */
+        private final Histogram latencies = new Histogram();
+
+        /**
+         * Spans of the queries, in whole days.
+         */
+        private final Histogram spanDays = new Histogram();
+
+        /**
+         * Simple private constructor of empty statistics.
+         */
+        private Stats() {
+        }
+
+        /**
+         * Get the number of queries.
+         *
+         * @return the number of queries.
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * Get the histogram of the latencies of the queries, in nanos.
+         *
+         * @return the histogram, not null.
+         */
+        public Histogram getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * Get the histogram of the spans of the queries, in whole days.
+         *
+         * @return the histogram, not null.
+         */
+        public Histogram getSpanDays() {
+            return spanDays;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package eu.brengard.businesscalendar.metrics;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link CalendarMetrics} in use by the business calendars.
+ * <p>
+ * The implementation is looked up once, with a {@link ServiceLoader}, the
+ * first time the calendars report a query, and can be replaced at any time
+ * with {@link #install(CalendarMetrics)}. Reading it is a single volatile
+ * read, so a calendar checks it on every query and skips the timing
+ * altogether while it is {@link CalendarMetrics#NOOP}.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public final class Metrics {
+    private static final Logger logger = LogManager.getLogger(Metrics.class);
+
+    /**
+     * The implementation in use.
+     */
+    private static volatile CalendarMetrics installed = load();
+
+    /**
+     * Simple private constructor, this class only has static methods.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Find the first implementation declared as a service.
+     *
+     * @return the implementation, {@link CalendarMetrics#NOOP} if none is
+     * declared or if it cannot be loaded.
+     */
+    private static CalendarMetrics load() {
+        try {
+            Iterator<CalendarMetrics> providers = ServiceLoader
+                    .load(CalendarMetrics.class).iterator();
+            if (providers.hasNext()) {
+                return providers.next();
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.log(Level.ERROR, "Cannot load the calendar metrics", e);
+        }
+        return CalendarMetrics.NOOP;
+    }
+
+    /**
+     * Get the implementation in use.
+     *
+     * @return the implementation, not null.
+     */
+    public static CalendarMetrics installed() {
+        return installed;
+    }
+
+    /**
+     * Install an implementation, replacing the one in use.
+     *
+     * @param metrics the implementation, {@link CalendarMetrics#NOOP} to
+     *                report nothing, not null.
+     */
+    public static void install(CalendarMetrics metrics) {
+        Objects.requireNonNull(metrics, "metrics");
+
+        installed = metrics;
+    }
+}
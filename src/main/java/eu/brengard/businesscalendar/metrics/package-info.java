@@ -0,0 +1,8 @@
+/**
+ * Provides the service provider interface reporting the queries of the
+ * business calendars, and an implementation keeping histograms of them.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+package eu.brengard.businesscalendar.metrics;
@@ -0,0 +1,439 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.AbstractBusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessDay;
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.HolidayRule;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarSameBusinessDaysException;
+import eu.brengard.businesscalendar.exceptions.HolidayRuleParseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A compact, versioned binary format of business calendars, to ship them
+ * between services or to cache them on disk without Java serialization.
+ * <p>
+ * A calendar is written as a header, the magic number {@value #MAGIC}, the
+ * format version and the length of the body, followed by the body:
+ * <ul>
+ * <li>
+ * The flags, bit 0 being the minute resolution mode.
+ * </li>
+ * <li>
+ * The business days, each one as its day-of-week and its time slots, the
+ * times of a time slot being second-of-days followed by their nano-of-second
+ * when it is not zero.
+ * </li>
+ * <li>
+ * The holidays, sorted, as the first epoch day followed by the number of
+ * days from each holiday to the next one.
+ * </li>
+ * <li>
+ * Since version 2, the holiday rules, each one as the length of its text
+ * followed by its text in ASCII, as given by {@link HolidayRule#toString()}.
+ * </li>
+ * <li>
+ * Since version 3, the overridden days, sorted, each one as the number of
+ * days from the previous one, the first one as its epoch day, followed by
+ * its time slots as those of a business day.
+ * </li>
+ * </ul>
+ * Every number of the body is a variable-length integer, 7 bits by byte. The
+ * body is read by chunks of at most {@value #CHUNK_SIZE} bytes, growing as
+ * they arrive so that a corrupted length does not allocate more memory than
+ * the input holds, then decoded from memory. The calendars written by
+ * any former version can still be read.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public final class BusinessCalendarCodec {
+
+    /**
+     * {@value MAGIC} Magic number of the format, "BCAL".
+     */
+    public static final int MAGIC = 0x4243414C;
+
+    /**
+     * {@value VERSION} Version of the format written.
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * {@value FLAG_MINUTE_RESOLUTION} Flag of the minute resolution mode.
+     */
+    private static final int FLAG_MINUTE_RESOLUTION = 1;
+
+    /**
+     * {@value NANOS_PER_SECOND} Nanos by second.
+     */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * {@value SECONDS_PER_DAY} Seconds by day.
+     */
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * {@value CHUNK_SIZE} Size of the first chunk of the body read.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Simple private constructor, this class is not meant to be instantiated.
+     */
+    private BusinessCalendarCodec() {
+    }
+
+    /**
+     * Write a business calendar.
+     *
+     * @param businessCalendar the business calendar to write, not null.
+     * @param output           the output, not null.
+     * @throws IOException if the output can not be written.
+     */
+    public static void write(AbstractBusinessCalendar businessCalendar,
+                             DataOutput output) throws IOException {
+        Objects.requireNonNull(businessCalendar, "businessCalendar");
+        Objects.requireNonNull(output, "output");
+
+        byte[] body = encode(businessCalendar);
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(body.length);
+        output.write(body);
+    }
+
+    /**
+     * Read a business calendar.
+     *
+     * @param input the input, not null.
+     * @return the business calendar, not null.
+     * @throws IOException if the input can not be read, or does not hold a
+     *                     business calendar of a known version.
+     */
+    public static ImmutableBusinessCalendar read(DataInput input)
+            throws IOException {
+        Objects.requireNonNull(input, "input");
+
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a business calendar");
+        }
+        int version = input.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException(
+                    "unsupported business calendar version " + version);
+        }
+        int length = input.readInt();
+        if (length < 0) {
+            throw new IOException("corrupted business calendar");
+        }
+        byte[] body = new byte[Math.min(length, CHUNK_SIZE)];
+        int read = 0;
+        while (read < length) {
+            if (read == body.length) {
+                body = Arrays.copyOf(body,
+                        (int) Math.min(length, 2L * body.length));
+            }
+            input.readFully(body, read, body.length - read);
+            read = body.length;
+        }
+        return decode(ByteBuffer.wrap(body), version);
+    }
+
+    /**
+     * Encode the body of a business calendar.
+     *
+     * @param businessCalendar the business calendar, not null.
+     * @return the body, not null.
+     */
+    private static byte[] encode(AbstractBusinessCalendar businessCalendar) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+
+        writeVarLong(body, businessCalendar.isMinuteResolution()
+                ? FLAG_MINUTE_RESOLUTION : 0);
+
+        Set<BusinessDay> businessDays = businessCalendar.getBusinessDays();
+        writeVarLong(body, businessDays.size());
+        for (BusinessDay businessDay : businessDays) {
+            body.write(businessDay.getDayOfWeek().ordinal());
+            Set<BusinessTimeSlot> timeSlots =
+                    businessDay.getBusinessTimeSlots();
+            writeTimeSlots(body, timeSlots);
+        }
+
+        Set<LocalDate> holidays = businessCalendar.getHolidays();
+        long[] epochDays = new long[holidays.size()];
+        int i = 0;
+        for (LocalDate holiday : holidays) {
+            epochDays[i++] = holiday.toEpochDay();
+        }
+        Arrays.sort(epochDays);
+        writeVarLong(body, epochDays.length);
+        long previous = 0;
+        for (int j = 0; j < epochDays.length; j++) {
+            writeVarLong(body, j == 0 ? zigZag(epochDays[j])
+                    : epochDays[j] - previous);
+            previous = epochDays[j];
+        }
+
+        Set<HolidayRule> holidayRules = businessCalendar.getHolidayRules();
+        writeVarLong(body, holidayRules.size());
+        for (HolidayRule holidayRule : holidayRules) {
+            byte[] text =
+                    holidayRule.toString().getBytes(StandardCharsets.US_ASCII);
+            writeVarLong(body, text.length);
+            body.write(text, 0, text.length);
+        }
+
+        Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides =
+                new TreeMap<>(businessCalendar.getDayOverrides());
+        writeVarLong(body, dayOverrides.size());
+        previous = 0;
+        boolean first = true;
+        for (Map.Entry<LocalDate, Set<BusinessTimeSlot>> entry
+                : dayOverrides.entrySet()) {
+            long epochDay = entry.getKey().toEpochDay();
+            writeVarLong(body, first ? zigZag(epochDay) : epochDay - previous);
+            previous = epochDay;
+            first = false;
+            writeTimeSlots(body, entry.getValue());
+        }
+
+        return body.toByteArray();
+    }
+
+    /**
+     * Decode the body of a business calendar.
+     *
+     * @param body    the body, not null.
+     * @param version the format version of the body.
+     * @return the business calendar, not null.
+     * @throws IOException if the body is corrupted.
+     */
+    private static ImmutableBusinessCalendar decode(ByteBuffer body,
+                                                    int version)
+            throws IOException {
+        try {
+            ImmutableBusinessCalendar.Builder builder =
+                    BusinessCalendar.builder();
+
+            long flags = readVarLong(body);
+            builder.minuteResolution((flags & FLAG_MINUTE_RESOLUTION) != 0);
+
+            int businessDays = readSize(body);
+            for (int i = 0; i < businessDays; i++) {
+                int dayOfWeek = body.get();
+                if (dayOfWeek < 0 || dayOfWeek >= 7) {
+                    throw new IOException("corrupted business calendar");
+                }
+                builder.businessDay(BusinessDay.of(
+                        DayOfWeek.values()[dayOfWeek], readTimeSlots(body)));
+            }
+
+            int holidays = readSize(body);
+            long epochDay = 0;
+            for (int i = 0; i < holidays; i++) {
+                long value = readVarLong(body);
+                epochDay = i == 0 ? unZigZag(value) : epochDay + value;
+                builder.holiday(LocalDate.ofEpochDay(epochDay));
+            }
+
+            if (version >= 2) {
+                int holidayRules = readSize(body);
+                for (int i = 0; i < holidayRules; i++) {
+                    byte[] text = new byte[readSize(body)];
+                    body.get(text);
+                    builder.holidayRule(HolidayRule.parse(
+                            new String(text, StandardCharsets.US_ASCII)));
+                }
+            }
+
+            if (version >= 3) {
+                int dayOverrides = readSize(body);
+                epochDay = 0;
+                for (int i = 0; i < dayOverrides; i++) {
+                    long value = readVarLong(body);
+                    epochDay = i == 0 ? unZigZag(value) : epochDay + value;
+                    builder.dayOverride(LocalDate.ofEpochDay(epochDay),
+                            readTimeSlots(body));
+                }
+            }
+
+            if (body.hasRemaining()) {
+                throw new IOException("corrupted business calendar");
+            }
+            return builder.build();
+        } catch (BufferUnderflowException | IllegalArgumentException
+                | DateTimeException
+                | BusinessCalendarSameBusinessDaysException
+                | HolidayRuleParseException e) {
+            throw new IOException("corrupted business calendar", e);
+        }
+    }
+
+    /**
+     * Write time slots as their number followed by the times of each one.
+     *
+     * @param body      the body, not null.
+     * @param timeSlots the time slots, not null.
+     */
+    private static void writeTimeSlots(ByteArrayOutputStream body,
+                                       Set<BusinessTimeSlot> timeSlots) {
+        writeVarLong(body, timeSlots.size());
+        for (BusinessTimeSlot timeSlot : timeSlots) {
+            writeTime(body, timeSlot.getStartInclusive());
+            writeTime(body, timeSlot.getEndExclusive());
+        }
+    }
+
+    /**
+     * Read time slots written by {@link #writeTimeSlots(
+     * ByteArrayOutputStream, Set)}.
+     *
+     * @param body the body, not null.
+     * @return the time slots, not null.
+     */
+    private static Set<BusinessTimeSlot> readTimeSlots(ByteBuffer body) {
+        int timeSlots = readSize(body);
+        Set<BusinessTimeSlot> businessTimeSlots = new HashSet<>(timeSlots * 2);
+        for (int i = 0; i < timeSlots; i++) {
+            businessTimeSlots.add(BusinessTimeSlot.of(readTime(body),
+                    readTime(body)));
+        }
+        return businessTimeSlots;
+    }
+
+    /**
+     * Write a time as its second-of-day, shifted left by one bit, the bit
+     * telling if its nano-of-second follows.
+     *
+     * @param body the body, not null.
+     * @param time the time, not null.
+     */
+    private static void writeTime(ByteArrayOutputStream body, LocalTime time) {
+        int nano = time.getNano();
+        writeVarLong(body, (long) time.toSecondOfDay() << 1
+                | (nano != 0 ? 1 : 0));
+        if (nano != 0) {
+            writeVarLong(body, nano);
+        }
+    }
+
+    /**
+     * Read a time written by {@link #writeTime(ByteArrayOutputStream,
+     * LocalTime)}.
+     *
+     * @param body the body, not null.
+     * @return the time, not null.
+     * @throws IllegalArgumentException if the second-of-day or the
+     *                                  nano-of-second is out of range.
+     */
+    private static LocalTime readTime(ByteBuffer body) {
+        long value = readVarLong(body);
+        long secondOfDay = value >>> 1;
+        if (secondOfDay >= SECONDS_PER_DAY) {
+            throw new IllegalArgumentException(
+                    "second-of-day out of range: " + secondOfDay);
+        }
+        long nanoOfDay = secondOfDay * NANOS_PER_SECOND;
+        if ((value & 1) != 0) {
+            long nano = readVarLong(body);
+            if (nano < 0 || nano >= NANOS_PER_SECOND) {
+                throw new IllegalArgumentException(
+                        "nano-of-second out of range: " + nano);
+            }
+            nanoOfDay += nano;
+        }
+        return LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    /**
+     * Write a positive variable-length integer, 7 bits by byte, the high bit
+     * telling if another byte follows.
+     *
+     * @param body  the body, not null.
+     * @param value the value, positive or zero.
+     */
+    private static void writeVarLong(ByteArrayOutputStream body, long value) {
+        while ((value & ~0x7FL) != 0) {
+            body.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        body.write((int) value);
+    }
+
+    /**
+     * Read a variable-length integer.
+     *
+     * @param body the body, not null.
+     * @return the value.
+     * @throws IllegalArgumentException if the integer is longer than 64 bits.
+     */
+    private static long readVarLong(ByteBuffer body) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = body.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("variable-length integer too long");
+    }
+
+    /**
+     * Read a number of elements, bounded by the remaining bytes as each
+     * element takes at least one byte.
+     *
+     * @param body the body, not null.
+     * @return the number of elements, positive or zero.
+     * @throws IllegalArgumentException if the number is not plausible.
+     */
+    private static int readSize(ByteBuffer body) {
+        long size = readVarLong(body);
+        if (size < 0 || size > body.remaining()) {
+            throw new IllegalArgumentException("size out of range: " + size);
+        }
+        return (int) size;
+    }
+
+    /**
+     * Map a signed value to a positive one, small absolute values giving
+     * small values.
+     *
+     * @param value the signed value.
+     * @return the positive value.
+     */
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    /**
+     * Reverse {@link #zigZag(long)}.
+     *
+     * @param value the positive value.
+     * @return the signed value.
+     */
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+}
@@ -0,0 +1,288 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.AbstractBusinessCalendar;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of compiled business calendars by tenant ID, loaded from a
+ * {@link CalendarSource}.
+ * <p>
+ * The calendar of a tenant is loaded and compiled once, on first access,
+ * even if several threads ask for it at the same time: the other threads
+ * wait for the first one. Calendars are frozen into
+ * {@link ImmutableBusinessCalendar}s and interned by content, so tenants
+ * sharing the same business days and holidays share a single compiled
+ * calendar. At most a maximum number of tenants are kept, the least
+ * recently used ones being evicted first.
+ * <p>
+ * The registry counts the hits, the misses and the evictions.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @since 1.8
+ */
+public class CalendarRegistry {
+
+    /**
+     * The source of the calendars.
+     */
+    private final CalendarSource source;
+
+    /**
+     * Maximum number of tenants kept.
+     */
+    private final int maximumSize;
+
+    /**
+     * Calendars being loaded or loaded, by tenant ID, in access order.
+     * Guarded by itself.
+     */
+    private final LinkedHashMap<String, Future<ImmutableBusinessCalendar>>
+            calendars;
+
+    /**
+     * Interned calendars, weakly referenced. Guarded by itself.
+     */
+    private final Map<ImmutableBusinessCalendar,
+            WeakReference<ImmutableBusinessCalendar>> interned =
+            new WeakHashMap<>();
+
+    /**
+     * Number of calendars found already loaded or being loaded.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of calendars loaded.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of tenants evicted.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param source      the source of the calendars, not null.
+     * @param maximumSize the maximum number of tenants kept, positive.
+     */
+    private CalendarRegistry(CalendarSource source, int maximumSize) {
+        this.source = source;
+        this.maximumSize = maximumSize;
+        this.calendars = new LinkedHashMap<String,
+                Future<ImmutableBusinessCalendar>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Future<ImmutableBusinessCalendar>>
+                            eldest) {
+                if (size() > CalendarRegistry.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Obtains an instance of {@code CalendarRegistry} from a source.
+     *
+     * @param source      the source of the calendars, not null.
+     * @param maximumSize the maximum number of tenants kept, positive.
+     * @return the registry, empty, not null.
+     * @throws IllegalArgumentException if maximumSize is not positive.
+     */
+    public static CalendarRegistry of(CalendarSource source,
+                                      int maximumSize) {
+        Objects.requireNonNull(source, "source");
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(
+                    "maximumSize must be positive");
+        }
+
+        return new CalendarRegistry(source, maximumSize);
+    }
+
+    /**
+     * Get the calendar of a tenant, loading it from the source if it is not
+     * already loaded.
+     *
+     * @param tenantId the tenant ID, not null.
+     * @return the calendar, null if the tenant is unknown.
+     */
+    public ImmutableBusinessCalendar get(String tenantId) {
+        Objects.requireNonNull(tenantId, "tenantId");
+
+        FutureTask<ImmutableBusinessCalendar> task = null;
+        Future<ImmutableBusinessCalendar> future;
+        synchronized (calendars) {
+            future = calendars.get(tenantId);
+            if (future == null) {
+                task = new FutureTask<>(() -> load(tenantId));
+                future = task;
+                calendars.put(tenantId, future);
+            }
+        }
+
+        if (task == null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            task.run();
+        }
+
+        try {
+            ImmutableBusinessCalendar calendar = getUninterruptibly(future);
+            if (calendar == null) {
+                remove(tenantId, future);
+            }
+            return calendar;
+        } catch (ExecutionException e) {
+            remove(tenantId, future);
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Remove the calendar of a tenant, so that it is loaded again on next
+     * access.
+     *
+     * @param tenantId the tenant ID, not null.
+     */
+    public void invalidate(String tenantId) {
+        Objects.requireNonNull(tenantId, "tenantId");
+
+        synchronized (calendars) {
+            calendars.remove(tenantId);
+        }
+    }
+
+    /**
+     * Remove the calendars of every tenant.
+     */
+    public void invalidateAll() {
+        synchronized (calendars) {
+            calendars.clear();
+        }
+    }
+
+    /**
+     * Get the number of tenants kept.
+     *
+     * @return the number of tenants, positive or zero.
+     */
+    public int size() {
+        synchronized (calendars) {
+            return calendars.size();
+        }
+    }
+
+    /**
+     * Get the number of calendars found already loaded, or being loaded by
+     * another thread.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of calendars loaded from the source.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of tenants evicted to keep the maximum size.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Load the calendar of a tenant from the source, and intern it.
+     *
+     * @param tenantId the tenant ID, not null.
+     * @return the calendar, null if the tenant is unknown.
+     */
+    private ImmutableBusinessCalendar load(String tenantId) {
+        AbstractBusinessCalendar businessCalendar = source.load(tenantId);
+        if (businessCalendar == null) {
+            return null;
+        }
+        ImmutableBusinessCalendar calendar =
+                ImmutableBusinessCalendar.copyOf(businessCalendar);
+
+        synchronized (interned) {
+            WeakReference<ImmutableBusinessCalendar> reference =
+                    interned.get(calendar);
+            ImmutableBusinessCalendar existing =
+                    reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            interned.put(calendar, new WeakReference<>(calendar));
+            return calendar;
+        }
+    }
+
+    /**
+     * Remove the calendar of a tenant if it is still a given one.
+     *
+     * @param tenantId the tenant ID, not null.
+     * @param future   the calendar to remove, not null.
+     */
+    private void remove(String tenantId,
+                        Future<ImmutableBusinessCalendar> future) {
+        synchronized (calendars) {
+            calendars.remove(tenantId, future);
+        }
+    }
+
+    /**
+     * Wait for a calendar being loaded, keeping the interrupt status of the
+     * current thread.
+     *
+     * @param future the calendar being loaded, not null.
+     * @return the calendar, eventually null.
+     * @throws ExecutionException if the calendar can not be loaded.
+     */
+    private static ImmutableBusinessCalendar getUninterruptibly(
+            Future<ImmutableBusinessCalendar> future)
+            throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.AbstractBusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.exceptions.PropertiesLoaderLoadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A source of business calendars by tenant ID, used by a
+ * {@link CalendarRegistry}.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see CalendarRegistry
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface CalendarSource {
+
+    /**
+     * Load the business calendar of a tenant.
+     *
+     * @param tenantId the tenant ID, not null.
+     * @return the business calendar, null if the tenant is unknown.
+     */
+    AbstractBusinessCalendar load(String tenantId);
+
+    /**
+     * Obtains a source reading the business calendar of a tenant from the
+     * properties file named after its ID, {@code <tenantId>.properties}, in
+     * a directory.
+     *
+     * @param directory the directory of the properties files, not null.
+     * @return the source, not null.
+     * @see PropertiesLoader
+     */
+    static CalendarSource ofDirectory(Path directory) {
+        Objects.requireNonNull(directory, "directory");
+
+        Path root = directory.toAbsolutePath().normalize();
+        return tenantId -> {
+            Path file = root.resolve(tenantId + ".properties").normalize();
+            if (!root.equals(file.getParent()) || !Files.isRegularFile(file)) {
+                return null;
+            }
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                PropertiesLoader propertiesLoader =
+                        PropertiesLoader.load(inputStream);
+                BusinessCalendar businessCalendar = BusinessCalendar.of(
+                        propertiesLoader.getBusinessDays(),
+                        propertiesLoader.getHolidays());
+                businessCalendar.setHolidayRules(
+                        propertiesLoader.getHolidayRules());
+                businessCalendar.setDayOverrides(
+                        propertiesLoader.getDayOverrides());
+                return businessCalendar;
+            } catch (IOException e) {
+                throw new PropertiesLoaderLoadException(e);
+            }
+        };
+    }
+}
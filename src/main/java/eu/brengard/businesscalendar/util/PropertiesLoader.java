@@ -2,12 +2,22 @@ package eu.brengard.businesscalendar.util;
 
 import eu.brengard.businesscalendar.entitites.BusinessDay;
 import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.HolidayRule;
+import eu.brengard.businesscalendar.exceptions.BusinessTimeSlotParseException;
+import eu.brengard.businesscalendar.exceptions.HolidayRuleParseException;
 import eu.brengard.businesscalendar.exceptions.PropertiesLoaderLoadException;
+import eu.brengard.businesscalendar.exceptions.PropertiesLoaderParseException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -16,6 +26,20 @@ import java.util.*;
  * <p>
  * These settings can then be used to get the required objects needed
  * to create a {@link eu.brengard.businesscalendar.entitites.BusinessCalendar}.
+ * <p>
+ * Time slots and holidays in the default formats, {@code H:mm-H:mm} and
+ * {@code d/M/yyyy}, are parsed by hand, without going through a
+ * {@link DateTimeFormatter}. A value that can not be parsed is reported with
+ * the line and the column of the error in the properties file.
+ * <p>
+ * Holidays recurring each year can be given as rules, such as
+ * {@code holiday.rules=1/1>monday,easter+1,monday#-1/5,25/12}, in the
+ * format of {@link HolidayRule#parse(CharSequence)}.
+ * <p>
+ * The time slots of some days can be overridden, replacing those of their
+ * day-of-week, such as
+ * {@code day.overrides=24/12/2024=9:00-12:00;29/11/2024=9:00-22:00}, each
+ * day being followed by its time slots, none closing the day.
  *
  * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
  * @since 1.8
@@ -31,6 +55,16 @@ public class PropertiesLoader {
      */
     private static final String PROP_HOLIDAYS = "holidays";
 
+    /**
+     * {@value PROP_HOLIDAY_RULES} Holiday rules property.
+     */
+    private static final String PROP_HOLIDAY_RULES = "holiday.rules";
+
+    /**
+     * {@value PROP_DAY_OVERRIDES} Overridden days property.
+     */
+    private static final String PROP_DAY_OVERRIDES = "day.overrides";
+
     /**
      * {@value PROP_DATE_PATTERN} Date pattern property.
      */
@@ -46,6 +80,12 @@ public class PropertiesLoader {
      */
     private Properties properties;
 
+    /**
+     * Text of the properties file, used to locate the parse errors, null if
+     * unknown.
+     */
+    private String source;
+
     /**
      * Simple private constructor that initialize field.
      */
@@ -65,17 +105,44 @@ public class PropertiesLoader {
 
         PropertiesLoader propertiesLoader = new PropertiesLoader();
         try {
-            propertiesLoader.properties.load(properties);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = properties.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+            //same encoding as Properties.load(InputStream)
+            propertiesLoader.source = new String(bytes.toByteArray(),
+                    StandardCharsets.ISO_8859_1);
+            propertiesLoader.properties.load(
+                    new StringReader(propertiesLoader.source));
         } catch (Exception e) {
             throw new PropertiesLoaderLoadException();
         }
         return propertiesLoader;
     }
 
+    /**
+     * Obtains an instance of {@code PropertiesLoader} from properties. The
+     * properties are <b>copied</b>.
+     *
+     * @param properties the properties to use, not null.
+     * @return the properties loader, not null.
+     */
+    public static PropertiesLoader of(Properties properties) {
+        Objects.requireNonNull(properties, "properties");
+
+        PropertiesLoader propertiesLoader = new PropertiesLoader();
+        propertiesLoader.properties.putAll(properties);
+        return propertiesLoader;
+    }
+
     /**
      * Get the business days.
      *
      * @return the business days, not null.
+     * @throws PropertiesLoaderParseException if time slots can not be
+     *                                        parsed.
      */
     public Set<BusinessDay> getBusinessDays() {
 
@@ -87,8 +154,15 @@ public class PropertiesLoader {
 
             if (timeSlotsString != null) {
                 BusinessDay businessDay = BusinessDay.of(dayOfWeek);
-                Set<BusinessTimeSlot> businessTimeSlots =
-                        BusinessTimeSlot.parseMultiple(timeSlotsString);
+                Set<BusinessTimeSlot> businessTimeSlots;
+                try {
+                    businessTimeSlots =
+                            BusinessTimeSlot.parseMultiple(timeSlotsString);
+                } catch (BusinessTimeSlotParseException e) {
+                    throw parseException(PROP_PREFIX_WEEK_DAY
+                                    + dayOfWeek.name().toLowerCase(),
+                            Math.max(e.getErrorIndex(), 0), e);
+                }
 
                 businessDay.setBusinessTimeSlots(businessTimeSlots);
 
@@ -104,6 +178,7 @@ public class PropertiesLoader {
      * Get the holidays.
      *
      * @return the holidays, not null.
+     * @throws PropertiesLoaderParseException if an holiday can not be parsed.
      */
     public Set<LocalDate> getHolidays() {
         Set<LocalDate> holidays = new HashSet<>();
@@ -111,21 +186,300 @@ public class PropertiesLoader {
         String holidaysString = properties.getProperty(PROP_HOLIDAYS);
 
         if (holidaysString != null && !holidaysString.isEmpty()) {
-            String datePattern = properties
-                    .getProperty(PROP_DATE_PATTERN, PROP_DEFAULT_DATE_PATTERN);
-            DateTimeFormatter dateTimeFormatter =
-                    DateTimeFormatter.ofPattern(datePattern);
-
-            String[] holidaysTable = holidaysString.split(",");
+            DateTimeFormatter dateTimeFormatter = dateTimeFormatter();
 
-            for (String holidayString : holidaysTable) {
-                LocalDate holidayLocalDate =
-                        LocalDate.parse(holidayString, dateTimeFormatter);
-                holidays.add(holidayLocalDate);
+            //trailing separators are ignored, as by String.split
+            int end = holidaysString.length();
+            while (end > 0 && holidaysString.charAt(end - 1) == ',') {
+                end--;
+            }
+            int index = 0;
+            while (index < end) {
+                int next = holidaysString.indexOf(',', index);
+                if (next < 0 || next > end) {
+                    next = end;
+                }
+                holidays.add(parseDate(PROP_HOLIDAYS, holidaysString, index,
+                        next, dateTimeFormatter));
+                index = next + 1;
             }
         }
 
         return holidays;
     }
+
+    /**
+     * Get the holiday rules.
+     *
+     * @return the holiday rules, not null.
+     * @throws PropertiesLoaderParseException if an holiday rule can not be
+     *                                        parsed.
+     */
+    public Set<HolidayRule> getHolidayRules() {
+        Set<HolidayRule> holidayRules = new HashSet<>();
+
+        String rulesString = properties.getProperty(PROP_HOLIDAY_RULES);
+
+        if (rulesString != null && !rulesString.isEmpty()) {
+            //trailing separators are ignored, as by String.split
+            int end = rulesString.length();
+            while (end > 0 && rulesString.charAt(end - 1) == ',') {
+                end--;
+            }
+            int index = 0;
+            while (index < end) {
+                int next = rulesString.indexOf(',', index);
+                if (next < 0 || next > end) {
+                    next = end;
+                }
+                try {
+                    holidayRules.add(HolidayRule.parse(
+                            rulesString.substring(index, next)));
+                } catch (HolidayRuleParseException e) {
+                    throw parseException(PROP_HOLIDAY_RULES,
+                            index + e.getErrorIndex(), e);
+                }
+                index = next + 1;
+            }
+        }
+
+        return holidayRules;
+    }
+
+    /**
+     * Get the time slots of the overridden days.
+     *
+     * @return the time slots by overridden day, not null.
+     * @throws PropertiesLoaderParseException if a day or its time slots can
+     *                                        not be parsed.
+     */
+    public Map<LocalDate, Set<BusinessTimeSlot>> getDayOverrides() {
+        Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides = new HashMap<>();
+
+        String overridesString = properties.getProperty(PROP_DAY_OVERRIDES);
+
+        if (overridesString != null && !overridesString.isEmpty()) {
+            DateTimeFormatter dateTimeFormatter = dateTimeFormatter();
+
+            //trailing separators are ignored, as by String.split
+            int end = overridesString.length();
+            while (end > 0 && overridesString.charAt(end - 1) == ';') {
+                end--;
+            }
+            int index = 0;
+            while (index < end) {
+                int next = overridesString.indexOf(';', index);
+                if (next < 0 || next > end) {
+                    next = end;
+                }
+                int equals = overridesString.indexOf('=', index);
+                if (equals < 0 || equals > next) {
+                    equals = next;
+                }
+                LocalDate date = parseDate(PROP_DAY_OVERRIDES, overridesString,
+                        index, equals, dateTimeFormatter);
+                Set<BusinessTimeSlot> businessTimeSlots = new HashSet<>();
+                if (equals + 1 < next) {
+                    try {
+                        businessTimeSlots = BusinessTimeSlot.parseMultiple(
+                                overridesString.substring(equals + 1, next));
+                    } catch (BusinessTimeSlotParseException e) {
+                        throw parseException(PROP_DAY_OVERRIDES, equals + 1
+                                + Math.max(e.getErrorIndex(), 0), e);
+                    }
+                }
+                dayOverrides.put(date, businessTimeSlots);
+                index = next + 1;
+            }
+        }
+
+        return dayOverrides;
+    }
+
+    /**
+     * Get the formatter of the custom date pattern.
+     *
+     * @return the formatter, null for the default date pattern.
+     */
+    private DateTimeFormatter dateTimeFormatter() {
+        String datePattern = properties
+                .getProperty(PROP_DATE_PATTERN, PROP_DEFAULT_DATE_PATTERN);
+        return PROP_DEFAULT_DATE_PATTERN.equals(datePattern) ? null
+                : DateTimeFormatter.ofPattern(datePattern);
+    }
+
+    /**
+     * Parse a date from a part of a property.
+     *
+     * @param key               the key of the property, not null.
+     * @param text              the property, not null.
+     * @param start             the index of the date, inclusive.
+     * @param end               the index of the end of the date, exclusive.
+     * @param dateTimeFormatter the custom date pattern, null for the default
+     *                          one.
+     * @return the date, not null.
+     * @throws PropertiesLoaderParseException if the date can not be parsed.
+     */
+    private LocalDate parseDate(String key, String text, int start, int end,
+                                DateTimeFormatter dateTimeFormatter) {
+        if (dateTimeFormatter != null) {
+            String dateString = text.substring(start, end);
+            try {
+                return LocalDate.parse(dateString, dateTimeFormatter);
+            } catch (DateTimeParseException e) {
+                throw parseException(key, start + e.getErrorIndex(), e);
+            }
+        }
+
+        //d/M/yyyy, the day being adjusted to the month as by the smart
+        //resolver of DateTimeFormatter
+        int errorIndex = digitsEnd(text, start, end, 2);
+        if (errorIndex > start && errorIndex < end
+                && text.charAt(errorIndex) == '/') {
+            int monthStart = errorIndex + 1;
+            errorIndex = digitsEnd(text, monthStart, end, 2);
+            if (errorIndex > monthStart && errorIndex < end
+                    && text.charAt(errorIndex) == '/') {
+                int yearStart = errorIndex + 1;
+                errorIndex = digitsEnd(text, yearStart, end, 4);
+                if (errorIndex == yearStart + 4 && errorIndex == end) {
+                    int day = digitsValue(text, start, monthStart - 1);
+                    int month = digitsValue(text, monthStart, yearStart - 1);
+                    int year = digitsValue(text, yearStart, end);
+                    if (day >= 1 && day <= 31 && month >= 1 && month <= 12
+                            && year >= 1) {
+                        return LocalDate.of(year, month, Math.min(day,
+                                Month.of(month).length(Year.isLeap(year))));
+                    }
+                    errorIndex = start;
+                }
+            }
+        }
+
+        String dateString = text.substring(start, end);
+        throw parseException(key, errorIndex,
+                new DateTimeParseException("Text '" + dateString
+                        + "' could not be parsed at index "
+                        + (errorIndex - start), dateString,
+                        errorIndex - start));
+    }
+
+    /**
+     * Get the end of the digits of a text from an index.
+     *
+     * @param text      the text, not null.
+     * @param start     the index of the digits, inclusive.
+     * @param end       the index after which the text is not read, exclusive.
+     * @param maxDigits the maximum number of digits.
+     * @return the index of the first character that is not a digit, not after
+     * end and start + maxDigits.
+     */
+    private static int digitsEnd(String text, int start, int end,
+                                 int maxDigits) {
+        int index = start;
+        while (index < end && index - start < maxDigits
+                && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Get the value of the digits of a text.
+     *
+     * @param text  the text, not null.
+     * @param start the index of the digits, inclusive.
+     * @param end   the index of the end of the digits, exclusive.
+     * @return the value.
+     */
+    private static int digitsValue(String text, int start, int end) {
+        int value = 0;
+        for (int index = start; index < end; index++) {
+            value = value * 10 + text.charAt(index) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Build the exception of a property value that can not be parsed,
+     * locating the error in the properties file. The column is exact unless
+     * the value is escaped or continued on several lines.
+     *
+     * @param key        the key of the property, not null.
+     * @param errorIndex the index of the error in the property value.
+     * @param cause      the parse error, not null.
+     * @return the exception, not null.
+     */
+    private PropertiesLoaderParseException parseException(String key,
+                                                          int errorIndex,
+                                                          Throwable cause) {
+        if (source == null) {
+            return new PropertiesLoaderParseException(key, 0, errorIndex + 1,
+                    cause);
+        }
+
+        //the last definition of the key is the one kept by Properties
+        int keyLine = 0;
+        int valueColumn = 0;
+        int line = 1;
+        int lineStart = 0;
+        while (lineStart <= source.length()) {
+            int lineEnd = lineStart;
+            while (lineEnd < source.length() && source.charAt(lineEnd) != '\n'
+                    && source.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+
+            int index = skipWhitespaces(lineStart, lineEnd);
+            if (source.startsWith(key, index)) {
+                index += key.length();
+                if (index == lineEnd || isWhitespace(source.charAt(index))
+                        || source.charAt(index) == '='
+                        || source.charAt(index) == ':') {
+                    index = skipWhitespaces(index, lineEnd);
+                    if (index < lineEnd && (source.charAt(index) == '='
+                            || source.charAt(index) == ':')) {
+                        index = skipWhitespaces(index + 1, lineEnd);
+                    }
+                    keyLine = line;
+                    valueColumn = index - lineStart;
+                }
+            }
+
+            if (lineEnd + 1 < source.length() && source.charAt(lineEnd) == '\r'
+                    && source.charAt(lineEnd + 1) == '\n') {
+                lineEnd++;
+            }
+            lineStart = lineEnd + 1;
+            line++;
+        }
+        return new PropertiesLoaderParseException(key, keyLine,
+                valueColumn + errorIndex + 1, cause);
+    }
+
+    /**
+     * Skip the whitespaces of the properties file from an index.
+     *
+     * @param index the index, inclusive.
+     * @param end   the index of the end of the line, exclusive.
+     * @return the index of the first character that is not a whitespace,
+     * end if there is none.
+     */
+    private int skipWhitespaces(int index, int end) {
+        while (index < end && isWhitespace(source.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Check if a character is a whitespace of a properties file.
+     *
+     * @param c the character.
+     * @return true if it is a whitespace, false if not.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
 }
 
@@ -0,0 +1,262 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import eu.brengard.businesscalendar.exceptions.PropertiesLoaderLoadException;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Utility class provided to load a business calendar from formatted business
+ * calendar properties files, and to load it again each time one of the
+ * files is modified.
+ * <p>
+ * The files are read in order, the properties of a file overriding the ones
+ * of the previous files. The calendar is built and compiled on a background
+ * thread watching the files with a {@link WatchService}, then swapped
+ * atomically: {@link #getCalendar()} returns either the previous calendar
+ * or the new one, and queries already running on the previous calendar end
+ * on it. Modifications are debounced, so that a burst of writes from an
+ * editor triggers a single reload. If a reload fails, the error is logged
+ * and the last calendar successfully loaded is kept.
+ *
+ * @author Nicolas BRENGARD (eu.brengard.businesscalendar.entitites@brengard.eu)
+ * @see PropertiesLoader
+ * @since 1.8
+ */
+public class ReloadingPropertiesLoader implements Closeable {
+    private static final Logger logger =
+            LogManager.getLogger(ReloadingPropertiesLoader.class);
+
+    /**
+     * The properties files, in order.
+     */
+    private final List<Path> files;
+
+    /**
+     * Delay without modification before a reload.
+     */
+    private final Duration debounce;
+
+    /**
+     * Last calendar successfully loaded.
+     */
+    private final AtomicReference<ImmutableBusinessCalendar> calendar =
+            new AtomicReference<>();
+
+    /**
+     * The watch service, null until the loader is started.
+     */
+    private WatchService watchService;
+
+    /**
+     * The thread watching the files, null until the loader is started.
+     */
+    private Thread watcher;
+
+    /**
+     * Simple private constructor that initialize fields from the parameters.
+     *
+     * @param files    the properties files, not null.
+     * @param debounce the delay without modification before a reload, not
+     *                 null.
+     */
+    private ReloadingPropertiesLoader(List<Path> files, Duration debounce) {
+        this.files = files;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Obtains a started instance of {@code ReloadingPropertiesLoader} from
+     * properties files.
+     *
+     * @param debounce the delay without modification before a reload, not
+     *                 null, not negative.
+     * @param files    the properties files, in order, not null, not empty.
+     * @return the loader, watching the files, not null.
+     * @throws PropertiesLoaderLoadException if the files can not be loaded
+     *                                       or watched.
+     */
+    public static ReloadingPropertiesLoader watch(Duration debounce,
+                                                  Path... files) {
+        Objects.requireNonNull(debounce, "debounce");
+        Objects.requireNonNull(files, "files");
+        if (debounce.isNegative() || files.length == 0) {
+            throw new IllegalArgumentException(
+                    "debounce must be positive and files not empty");
+        }
+
+        List<Path> paths = new ArrayList<>(files.length);
+        for (Path file : files) {
+            paths.add(Objects.requireNonNull(file, "file")
+                    .toAbsolutePath().normalize());
+        }
+
+        ReloadingPropertiesLoader loader =
+                new ReloadingPropertiesLoader(paths, debounce);
+        loader.calendar.set(loader.load());
+        loader.start();
+        return loader;
+    }
+
+    /**
+     * Get the last calendar successfully loaded.
+     *
+     * @return the calendar, not null.
+     */
+    public ImmutableBusinessCalendar getCalendar() {
+        return calendar.get();
+    }
+
+    /**
+     * Load the files now, without waiting for a modification.
+     *
+     * @return true if the calendar has been loaded, false if the files can
+     * not be loaded and the last calendar is kept.
+     */
+    public boolean reload() {
+        try {
+            calendar.set(load());
+            return true;
+        } catch (RuntimeException e) {
+            logger.log(Level.ERROR, "Reload of " + files
+                    + " failed, keeping the last calendar", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stop watching the files. The last calendar is still returned by
+     * {@link #getCalendar()}.
+     *
+     * @throws IOException if the watch service can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    /**
+     * Read the files and build the calendar.
+     *
+     * @return the calendar, not null.
+     * @throws PropertiesLoaderLoadException if a file can not be read.
+     */
+    private ImmutableBusinessCalendar load() {
+        Properties properties = new Properties();
+        for (Path file : files) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                properties.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new PropertiesLoaderLoadException(e);
+            }
+        }
+
+        PropertiesLoader propertiesLoader = PropertiesLoader.of(properties);
+        return BusinessCalendar.builder()
+                .businessDays(propertiesLoader.getBusinessDays())
+                .holidays(propertiesLoader.getHolidays())
+                .holidayRules(propertiesLoader.getHolidayRules())
+                .dayOverrides(propertiesLoader.getDayOverrides())
+                .build();
+    }
+
+    /**
+     * Register the directories of the files and start the watching thread.
+     *
+     * @throws PropertiesLoaderLoadException if the files can not be watched.
+     */
+    private void start() {
+        Set<Path> directories = new HashSet<>();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path file : files) {
+                if (directories.add(file.getParent())) {
+                    file.getParent().register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            //do not leak the watch service of the directories registered
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new PropertiesLoaderLoadException(e);
+        }
+
+        watcher = new Thread(this::run, "business-calendar-reloader");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Wait for modifications of the files and reload them once no more
+     * modification happens during the debounce delay.
+     */
+    private void run() {
+        try {
+            while (true) {
+                if (!isModified(watchService.take())) {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = watchService.poll(debounce.toMillis(),
+                        TimeUnit.MILLISECONDS)) != null) {
+                    isModified(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //the loader has been closed
+        }
+    }
+
+    /**
+     * Check if the events of a key modify one of the files, and reset it.
+     *
+     * @param key the key of a watched directory, not null.
+     * @return true if one of the files has been modified.
+     */
+    private boolean isModified(WatchKey key) {
+        boolean modified = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || files.contains(directory.resolve(
+                    (Path) event.context()))) {
+                modified = true;
+            }
+        }
+        key.reset();
+        return modified;
+    }
+}
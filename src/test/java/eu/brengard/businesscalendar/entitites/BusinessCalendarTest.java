@@ -1,13 +1,14 @@
 package eu.brengard.businesscalendar.entitites;
 
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarNoWorkingTimeException;
 import eu.brengard.businesscalendar.exceptions.BusinessCalendarSameBusinessDaysException;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.time.*;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -192,6 +193,713 @@ public class BusinessCalendarTest extends BusinessTest {
                 businessCalendar.getDuration(saturdayAt10h00, sundayAt11h00));
     }
 
+    @Test
+    public void timeBetweenOverAYear() {
+        ZonedDateTime mondayAt0h00 =
+                ZonedDateTime.of(2016, 4, 18, 0, 0, 0, 0, zoneId);
+        ZonedDateTime mondayAt0h00YearAfter =
+                ZonedDateTime.of(2017, 4, 17, 0, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        //52 weeks of 15 hours, minus the tuesday holiday
+        assertEquals(Duration.ofHours(52 * 15 - 8), businessCalendar
+                .getDuration(mondayAt0h00, mondayAt0h00YearAfter));
+    }
+
+    @Test
+    public void timeBetweenOverAYearInverted() {
+        ZonedDateTime mondayAt0h00 =
+                ZonedDateTime.of(2016, 4, 18, 0, 0, 0, 0, zoneId);
+        ZonedDateTime mondayAt0h00YearAfter =
+                ZonedDateTime.of(2017, 4, 17, 0, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(Duration.ofHours(52 * 15 - 8).negated(), businessCalendar
+                .getDuration(mondayAt0h00YearAfter, mondayAt0h00));
+    }
+
+    @Test
+    public void timeBetweenSameAsDayByDay() {
+        holidays.add(LocalDate.of(2016, 5, 16));
+        holidays.add(LocalDate.of(2017, 1, 3));
+        holidays.add(LocalDate.of(2018, 12, 25));
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+        ZonedDateTime origin =
+                ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        for (int i = 0; i < 500; i++) {
+            ZonedDateTime start = origin.plusMinutes(random.nextInt(1500000));
+            ZonedDateTime end = start.plusMinutes(random.nextInt(200000));
+            assertEquals(getDurationDayByDay(businessCalendar, start, end),
+                    businessCalendar.getDuration(start, end));
+        }
+    }
+
+    /**
+     * Reference implementation walking the range one day at a time.
+     */
+    private static Duration getDurationDayByDay(
+            BusinessCalendar businessCalendar, ZonedDateTime startInclusive,
+            ZonedDateTime endExclusive) {
+        Duration duration = Duration.ZERO;
+        LocalDate day = startInclusive.toLocalDate();
+        while (!day.isAfter(endExclusive.toLocalDate())) {
+            LocalTime from = day.equals(startInclusive.toLocalDate())
+                    ? startInclusive.toLocalTime() : LocalTime.MIN;
+            LocalTime to = day.equals(endExclusive.toLocalDate())
+                    ? endExclusive.toLocalTime() : LocalTime.MAX;
+            if (!businessCalendar.getHolidays().contains(day)) {
+                for (BusinessDay businessDay : businessCalendar
+                        .getBusinessDays()) {
+                    if (businessDay.getDayOfWeek() == day.getDayOfWeek()) {
+                        duration = duration
+                                .plus(businessDay.getDuration(from, to));
+                    }
+                }
+            }
+            day = day.plusDays(1);
+        }
+        return duration;
+    }
+
+    @Test
+    public void isWorkingTimeAfterAddHoliday() {
+        ZonedDateTime mondayAt11h00 =
+                ZonedDateTime.of(2016, 4, 18, 11, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertTrue(businessCalendar.isWorkingTime(mondayAt11h00));
+
+        businessCalendar.addHoliday(LocalDate.of(2016, 4, 18));
+        assertFalse(businessCalendar.isWorkingTime(mondayAt11h00));
+    }
+
+    @Test
+    public void timeBetweenAfterBusinessDayModification() {
+        ZonedDateTime tuesdayAt8h00 =
+                ZonedDateTime.of(2016, 4, 19, 8, 0, 0, 0, zoneId);
+        ZonedDateTime tuesdayAt20h00 =
+                ZonedDateTime.of(2016, 4, 19, 20, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(Duration.ofHours(8),
+                businessCalendar.getDuration(tuesdayAt8h00, tuesdayAt20h00));
+
+        for (BusinessDay businessDay : businessCalendar.getBusinessDays()) {
+            if (businessDay.getDayOfWeek() == DayOfWeek.TUESDAY) {
+                businessDay.getBusinessTimeSlots().add(BusinessTimeSlot
+                        .of(LocalTime.of(18, 0), LocalTime.of(19, 0)));
+            }
+        }
+        assertEquals(Duration.ofHours(9),
+                businessCalendar.getDuration(tuesdayAt8h00, tuesdayAt20h00));
+    }
+
+    @Test
+    public void compiledOnlyAfterOwnModification() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        CompiledCalendar compiled = businessCalendar.compiled();
+
+        BusinessCalendar other = BusinessCalendar.of(businessDays);
+        BusinessDay.copyOf(businessDays.iterator().next());
+        BusinessDay.of(DayOfWeek.FRIDAY).getBusinessTimeSlots().add(
+                BusinessTimeSlot.of(LocalTime.of(9, 0), LocalTime.of(12, 0)));
+        ConcurrentBusinessCalendar.of(businessDays).getBusinessDays();
+        BusinessTimeSlot businessTimeSlot = businessDays.iterator().next()
+                .getBusinessTimeSlots().iterator().next();
+        businessTimeSlot.setEndExclusive(businessTimeSlot.getEndExclusive());
+        businessDays.iterator().next().getBusinessTimeSlots()
+                .add(businessTimeSlot);
+        assertSame(compiled, businessCalendar.compiled());
+
+        other.addHoliday(LocalDate.of(2016, 4, 25));
+        assertSame(compiled, businessCalendar.compiled());
+
+        businessTimeSlot.setEndExclusive(
+                businessTimeSlot.getEndExclusive().plusMinutes(1));
+        assertNotSame(compiled, businessCalendar.compiled());
+    }
+
+    @Test
+    public void holidaysAreCopied() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        holidays.add(LocalDate.of(2016, 12, 12));
+        assertEquals(1, businessCalendar.getHolidays().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void holidaysAreUnmodifiable() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        businessCalendar.getHolidays().add(LocalDate.of(2016, 12, 12));
+    }
+
+    @Test
+    public void isHoliday() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertTrue(businessCalendar.isHoliday(LocalDate.of(2016, 4, 26)));
+        assertFalse(businessCalendar.isHoliday(LocalDate.of(2016, 4, 27)));
+    }
+
+    @Test
+    public void getHolidayIndex() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(HolidayIndex.of(holidays),
+                businessCalendar.getHolidayIndex());
+    }
+
+    @Test
+    public void plusSameDay() {
+        ZonedDateTime tuesdayAt13h00 =
+                ZonedDateTime.of(2016, 4, 19, 13, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 19, 17, 0, 0, 0, zoneId),
+                businessCalendar.plus(tuesdayAt13h00, Duration.ofHours(4)));
+    }
+
+    @Test
+    public void plusIncludingWeekEnd() {
+        ZonedDateTime tuesdayAt15h30 =
+                ZonedDateTime.of(2016, 4, 19, 15, 30, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 11, 30, 0, 0, zoneId),
+                businessCalendar.plus(tuesdayAt15h30, Duration.ofHours(4)));
+    }
+
+    @Test
+    public void plusIncludingHolidayAndWeekEnd() {
+        ZonedDateTime tuesdayAt15h30 =
+                ZonedDateTime.of(2016, 4, 19, 15, 30, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 5, 2, 10, 30, 0, 0, zoneId),
+                businessCalendar.plus(tuesdayAt15h30, Duration.ofHours(10)));
+    }
+
+    @Test
+    public void plusNegative() {
+        ZonedDateTime tuesdayAt13h00 =
+                ZonedDateTime.of(2016, 4, 19, 13, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 19, 9, 0, 0, 0, zoneId),
+                businessCalendar.plus(tuesdayAt13h00, Duration.ofHours(-4)));
+    }
+
+    @Test
+    public void minusIncludingWeekEnd() {
+        ZonedDateTime mondayAt10h00 =
+                ZonedDateTime.of(2016, 4, 25, 10, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 19, 15, 0, 0, 0, zoneId),
+                businessCalendar.minus(mondayAt10h00, Duration.ofHours(3)));
+    }
+
+    @Test
+    public void minusToStartOfTimeSlot() {
+        ZonedDateTime mondayAt14h00 =
+                ZonedDateTime.of(2016, 4, 25, 14, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 13, 0, 0, 0, zoneId),
+                businessCalendar.minus(mondayAt14h00, Duration.ofHours(1)));
+    }
+
+    @Test
+    public void plusZero() {
+        ZonedDateTime saturdayAt10h00 =
+                ZonedDateTime.of(2016, 4, 23, 10, 0, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(saturdayAt10h00,
+                businessCalendar.plus(saturdayAt10h00, Duration.ZERO));
+    }
+
+    @Test(expected = BusinessCalendarNoWorkingTimeException.class)
+    public void plusWithoutWorkingTime() {
+        ZonedDateTime saturdayAt10h00 =
+                ZonedDateTime.of(2016, 4, 23, 10, 0, 0, 0, zoneId);
+        BusinessCalendar.empty().plus(saturdayAt10h00, Duration.ofHours(1));
+    }
+
+    @Test
+    public void plusAndMinusSameAsGetDuration() {
+        holidays.add(LocalDate.of(2016, 5, 16));
+        holidays.add(LocalDate.of(2017, 1, 3));
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+        ZonedDateTime origin =
+                ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        for (int i = 0; i < 500; i++) {
+            ZonedDateTime start = origin.plusMinutes(random.nextInt(1500000));
+            Duration duration = Duration.ofMinutes(1 + random.nextInt(100000));
+
+            ZonedDateTime end = businessCalendar.plus(start, duration);
+            assertEquals(duration, businessCalendar.getDuration(start, end));
+            assertEquals(end, businessCalendar.plus(
+                    businessCalendar.minus(end, duration), duration));
+
+            ZonedDateTime begin = businessCalendar.minus(start, duration);
+            assertEquals(duration, businessCalendar.getDuration(begin, start));
+        }
+    }
+
+    @Test
+    public void toBusinessSecondsDifference() {
+        ZonedDateTime tuesdayAt16h00 =
+                ZonedDateTime.of(2016, 4, 19, 16, 0, 0, 0, zoneId);
+        ZonedDateTime tuesdayAt9h30WeekAfter =
+                ZonedDateTime.of(2016, 4, 26, 9, 30, 0, 0, zoneId);
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        long start = businessCalendar
+                .toBusinessSeconds(tuesdayAt16h00.toInstant(), zoneId);
+        long end = businessCalendar
+                .toBusinessSeconds(tuesdayAt9h30WeekAfter.toInstant(), zoneId);
+        assertEquals(Duration.ofHours(8).getSeconds(), end - start);
+    }
+
+    @Test
+    public void toBusinessSecondsEpoch() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(0, businessCalendar.toBusinessSeconds(
+                ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, zoneId).toInstant(),
+                zoneId));
+        assertEquals(-Duration.ofHours(15).getSeconds(),
+                businessCalendar.toBusinessSeconds(ZonedDateTime
+                        .of(1969, 12, 25, 0, 0, 0, 0, zoneId).toInstant(),
+                        zoneId));
+    }
+
+    @Test
+    public void fromBusinessSeconds() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ZonedDateTime tuesdayAt16h00 =
+                ZonedDateTime.of(2016, 4, 19, 16, 0, 0, 0, zoneId);
+        long seconds = businessCalendar
+                .toBusinessSeconds(tuesdayAt16h00.toInstant(), zoneId);
+        assertEquals(tuesdayAt16h00.toInstant(),
+                businessCalendar.fromBusinessSeconds(seconds, zoneId));
+    }
+
+    @Test
+    public void businessSecondsRoundTrip() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            long seconds = random.nextInt(2_000_000_000) - 1_000_000_000L;
+            Instant instant =
+                    businessCalendar.fromBusinessSeconds(seconds, zoneId);
+            assertEquals(seconds,
+                    businessCalendar.toBusinessSeconds(instant, zoneId));
+            assertEquals(seconds - 1, businessCalendar
+                    .toBusinessSeconds(instant.minusNanos(1), zoneId));
+        }
+    }
+
+    @Test
+    public void businessMillisBetween() {
+        long tuesdayAt16h00 = ZonedDateTime
+                .of(2016, 4, 19, 16, 0, 0, 0, zoneId).toInstant().toEpochMilli();
+        long tuesdayAt9h30WeekAfter = ZonedDateTime
+                .of(2016, 4, 26, 9, 30, 0, 0, zoneId).toInstant().toEpochMilli();
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(Duration.ofHours(8).toMillis(), businessCalendar
+                .businessMillisBetween(tuesdayAt16h00, tuesdayAt9h30WeekAfter,
+                        zoneId));
+        assertEquals(-Duration.ofHours(8).toMillis(), businessCalendar
+                .businessMillisBetween(tuesdayAt9h30WeekAfter, tuesdayAt16h00,
+                        zoneId));
+    }
+
+    @Test
+    public void businessMillisBetweenSameAsGetDuration() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+        long origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId)
+                .toInstant().toEpochMilli();
+
+        for (int i = 0; i < 500; i++) {
+            long start = origin + (long) random.nextInt(Integer.MAX_VALUE) * 50;
+            long end = start + (long) random.nextInt(Integer.MAX_VALUE) * 5;
+            assertEquals(businessCalendar.getDuration(
+                    Instant.ofEpochMilli(start).atZone(zoneId),
+                    Instant.ofEpochMilli(end).atZone(zoneId)).toMillis(),
+                    businessCalendar.businessMillisBetween(start, end, zoneId));
+        }
+    }
+
+    @Test
+    public void isWorkingTimeEpochMilli() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+        long origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId)
+                .toInstant().toEpochMilli();
+
+        for (int i = 0; i < 500; i++) {
+            long epochMilli =
+                    origin + (long) random.nextInt(Integer.MAX_VALUE) * 50;
+            assertEquals(businessCalendar.isWorkingTime(
+                    Instant.ofEpochMilli(epochMilli).atZone(zoneId)),
+                    businessCalendar.isWorkingTime(epochMilli, zoneId));
+        }
+    }
+
+    @Test
+    public void durations() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(42);
+        long origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId)
+                .toEpochSecond();
+        long[] starts = new long[1000];
+        long[] ends = new long[1000];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = origin + random.nextInt(100_000_000);
+            ends[i] = origin + random.nextInt(100_000_000);
+        }
+
+        long[] out = new long[starts.length];
+        businessCalendar.durations(starts, ends, zoneId, out);
+
+        for (int i = 0; i < starts.length; i++) {
+            assertEquals(businessCalendar.businessMillisBetween(
+                    starts[i] * 1000, ends[i] * 1000, zoneId) / 1000, out[i]);
+        }
+    }
+
+    @Test
+    public void parallelDurations() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(43);
+        long origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId)
+                .toEpochSecond();
+        long[] starts = new long[5 * DurationsTask.THRESHOLD + 17];
+        long[] ends = new long[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = origin + random.nextInt(100_000_000);
+            ends[i] = origin + random.nextInt(100_000_000);
+        }
+
+        long[] expected = new long[starts.length];
+        businessCalendar.durations(starts, ends, zoneId, expected);
+        long[] out = new long[starts.length];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            businessCalendar.parallelDurations(starts, ends, zoneId, out, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void summingDuration() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(44);
+        ZonedDateTime origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId);
+        List<ZonedDateTime[]> intervals = new ArrayList<>();
+        Duration expected = Duration.ZERO;
+        for (int i = 0; i < 1000; i++) {
+            ZonedDateTime start = origin.plusMinutes(random.nextInt(1_000_000));
+            ZonedDateTime end = origin.plusMinutes(random.nextInt(1_000_000));
+            intervals.add(new ZonedDateTime[]{start, end});
+            expected = expected.plus(businessCalendar.getDuration(start, end));
+        }
+
+        assertEquals(expected, intervals.parallelStream().collect(
+                businessCalendar.summingDuration(interval -> interval[0],
+                        interval -> interval[1])));
+    }
+
+    @Test
+    public void summingDurationBy() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        //2016-01-04 is a monday, the wednesday is not a business day
+        ZonedDateTime monday = ZonedDateTime.of(2016, 1, 4, 9, 0, 0, 0, zoneId);
+        List<ZonedDateTime> starts = Arrays.asList(monday, monday.plusDays(1),
+                monday.plusDays(2));
+
+        Map<Boolean, Duration> durations = starts.stream().collect(
+                businessCalendar.summingDurationBy(
+                        start -> start.getDayOfWeek() == DayOfWeek.MONDAY,
+                        start -> start, start -> start.plusHours(2)));
+
+        assertEquals(Duration.ofHours(2), durations.get(true));
+        assertEquals(Duration.ofHours(2), durations.get(false));
+    }
+
+    @Test
+    public void durationsStream() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(45);
+        long origin = ZonedDateTime.of(2015, 1, 1, 0, 0, 0, 0, zoneId)
+                .toEpochSecond();
+        long[] starts = new long[10_000];
+        long[] ends = new long[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = origin + random.nextInt(100_000_000);
+            ends[i] = origin + random.nextInt(100_000_000);
+        }
+
+        long[] expected = new long[starts.length];
+        businessCalendar.durations(starts, ends, zoneId, expected);
+
+        assertArrayEquals(expected, businessCalendar
+                .durationsStream(starts, ends, zoneId).toArray());
+        assertArrayEquals(expected, businessCalendar
+                .durationsStream(starts, ends, zoneId).parallel().toArray());
+    }
+
+    @Test
+    public void durationsSpliteratorNotImmutable() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Spliterator.OfLong spliterator = businessCalendar.durationsSpliterator(
+                new long[3], new long[3], zoneId);
+
+        assertEquals(3, spliterator.getExactSizeIfKnown());
+        assertFalse(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void durationsSpliteratorLengthsMismatch() {
+        BusinessCalendar.of(businessDays, holidays).durationsSpliterator(
+                new long[3], new long[2], zoneId);
+    }
+
+    @Test
+    public void nextWorkingTime() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        //2016-04-22 is a friday, 2016-04-26 a tuesday holiday
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 9, 0, 0, 0, zoneId),
+                businessCalendar.nextWorkingTime(ZonedDateTime
+                        .of(2016, 4, 22, 10, 0, 0, 0, zoneId)));
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 13, 0, 0, 0, zoneId),
+                businessCalendar.nextWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 12, 0, 0, 0, zoneId)));
+        assertEquals(ZonedDateTime.of(2016, 5, 2, 9, 0, 0, 0, zoneId),
+                businessCalendar.nextWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 17, 0, 0, 0, zoneId)));
+        ZonedDateTime working = ZonedDateTime.of(2016, 4, 25, 10, 0, 0, 0,
+                zoneId);
+        assertSame(working, businessCalendar.nextWorkingTime(working));
+    }
+
+    @Test
+    public void nextNonWorkingTime() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 12, 0, 0, 0, zoneId),
+                businessCalendar.nextNonWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 10, 0, 0, 0, zoneId)));
+        ZonedDateTime holiday = ZonedDateTime.of(2016, 4, 26, 10, 0, 0, 0,
+                zoneId);
+        assertSame(holiday, businessCalendar.nextNonWorkingTime(holiday));
+    }
+
+    @Test
+    public void previousWorkingTime() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 17, 0, 0, 0, zoneId),
+                businessCalendar.previousWorkingTime(ZonedDateTime
+                        .of(2016, 4, 29, 10, 0, 0, 0, zoneId)));
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 12, 0, 0, 0, zoneId),
+                businessCalendar.previousWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 13, 0, 0, 0, zoneId)));
+        assertEquals(ZonedDateTime.of(2016, 4, 19, 17, 0, 0, 0, zoneId),
+                businessCalendar.previousWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 9, 0, 0, 0, zoneId)));
+    }
+
+    @Test
+    public void previousNonWorkingTime() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 13, 0, 0, 0, zoneId),
+                businessCalendar.previousNonWorkingTime(ZonedDateTime
+                        .of(2016, 4, 25, 15, 0, 0, 0, zoneId)));
+        ZonedDateTime opening = ZonedDateTime.of(2016, 4, 25, 9, 0, 0, 0,
+                zoneId);
+        assertSame(opening, businessCalendar.previousNonWorkingTime(opening));
+    }
+
+    @Test(expected = BusinessCalendarNoWorkingTimeException.class)
+    public void nextWorkingTimeWithoutWorkingTime() {
+        BusinessCalendar.empty().nextWorkingTime(ZonedDateTime
+                .of(2016, 4, 25, 9, 0, 0, 0, zoneId));
+    }
+
+    @Test
+    public void navigationSameAsMinuteByMinute() {
+        //a run of holidays over every business day of august
+        for (LocalDate day = LocalDate.of(2016, 8, 1);
+             day.getMonthValue() == 8; day = day.plusDays(1)) {
+            holidays.add(day);
+        }
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        Random random = new Random(46);
+        ZonedDateTime origin = ZonedDateTime.of(2016, 6, 1, 0, 0, 0, 0,
+                ZoneOffset.UTC);
+        Duration minute = Duration.ofMinutes(1);
+        for (int i = 0; i < 100; i++) {
+            ZonedDateTime time = origin.plusMinutes(random.nextInt(200_000));
+
+            ZonedDateTime expected = time;
+            while (!businessCalendar.isWorkingTime(expected)) {
+                expected = expected.plus(minute);
+            }
+            assertEquals(expected, businessCalendar.nextWorkingTime(time));
+
+            expected = time;
+            while (businessCalendar.isWorkingTime(expected)) {
+                expected = expected.plus(minute);
+            }
+            assertEquals(expected, businessCalendar.nextNonWorkingTime(time));
+
+            expected = time;
+            while (!businessCalendar.isWorkingTime(expected.minus(minute))) {
+                expected = expected.minus(minute);
+            }
+            assertEquals(expected, businessCalendar.previousWorkingTime(time));
+
+            expected = time;
+            while (businessCalendar.isWorkingTime(expected.minus(minute))) {
+                expected = expected.minus(minute);
+            }
+            assertEquals(expected,
+                    businessCalendar.previousNonWorkingTime(time));
+        }
+    }
+
+    @Test
+    public void workingIntervals() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        //2016-04-25 is a monday, 2016-04-26 a tuesday holiday
+        List<WorkingInterval> workingIntervals = businessCalendar
+                .workingIntervals(
+                        ZonedDateTime.of(2016, 4, 25, 10, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 5, 3, 12, 0, 0, 0, zoneId))
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(
+                WorkingInterval.of(
+                        ZonedDateTime.of(2016, 4, 25, 10, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 4, 25, 12, 0, 0, 0, zoneId)),
+                WorkingInterval.of(
+                        ZonedDateTime.of(2016, 4, 25, 13, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 4, 25, 17, 0, 0, 0, zoneId)),
+                WorkingInterval.of(
+                        ZonedDateTime.of(2016, 5, 2, 9, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 5, 2, 12, 0, 0, 0, zoneId)),
+                WorkingInterval.of(
+                        ZonedDateTime.of(2016, 5, 2, 13, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 5, 2, 17, 0, 0, 0, zoneId)),
+                WorkingInterval.of(
+                        ZonedDateTime.of(2016, 5, 3, 9, 0, 0, 0, zoneId),
+                        ZonedDateTime.of(2016, 5, 3, 12, 0, 0, 0, zoneId))),
+                workingIntervals);
+    }
+
+    @Test
+    public void workingIntervalsSameAsGetDuration() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ZonedDateTime start = ZonedDateTime.of(2010, 3, 3, 11, 0, 0, 0, zoneId);
+        ZonedDateTime end = ZonedDateTime.of(2030, 7, 7, 15, 0, 0, 0, zoneId);
+
+        assertEquals(businessCalendar.getDuration(start, end),
+                businessCalendar.workingIntervals(start, end)
+                        .map(WorkingInterval::getDuration)
+                        .reduce(Duration.ZERO, Duration::plus));
+    }
+
+    @Test
+    public void workingIntervalsLazy() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ZonedDateTime start = ZonedDateTime.of(2016, 4, 25, 0, 0, 0, 0, zoneId);
+
+        assertEquals(ZonedDateTime.of(2016, 4, 25, 9, 0, 0, 0, zoneId),
+                businessCalendar.workingIntervals(start,
+                        start.plusYears(1_000_000)).findFirst().get()
+                        .getStartInclusive());
+    }
+
+    @Test
+    public void workingIntervalsEmpty() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ZonedDateTime start = ZonedDateTime.of(2016, 4, 25, 0, 0, 0, 0, zoneId);
+
+        assertEquals(0, businessCalendar.workingIntervals(start,
+                start.minusDays(7)).count());
+        assertEquals(0, BusinessCalendar.empty().workingIntervals(start,
+                start.plusDays(7)).count());
+    }
+
+    @Test
+    public void minuteResolutionSameAsDefault() {
+        //a time slot not aligned to whole minutes falls back for its day
+        BusinessDay friday = BusinessDay.of(DayOfWeek.FRIDAY);
+        friday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(9, 0, 30), LocalTime.of(11, 0)));
+        businessDays.add(friday);
+        BusinessCalendar defaultCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        BusinessCalendar minuteCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        minuteCalendar.setMinuteResolution(true);
+        assertTrue(minuteCalendar.isMinuteResolution());
+
+        Random random = new Random(47);
+        ZonedDateTime origin = ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, zoneId);
+        for (int i = 0; i < 1000; i++) {
+            ZonedDateTime start = origin.plusSeconds(random.nextInt(50_000_000))
+                    .plusNanos(random.nextInt(1_000_000_000));
+            ZonedDateTime end = origin.plusSeconds(random.nextInt(50_000_000));
+            assertEquals(defaultCalendar.getDuration(start, end),
+                    minuteCalendar.getDuration(start, end));
+            assertEquals(defaultCalendar.isWorkingTime(start),
+                    minuteCalendar.isWorkingTime(start));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void durationsDifferentLengths() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        businessCalendar.durations(new long[2], new long[1], zoneId,
+                new long[2]);
+    }
+
     @Test
     public void addBusinessDay() {
         BusinessCalendar businessCalendar = BusinessCalendar.of(businessDays);
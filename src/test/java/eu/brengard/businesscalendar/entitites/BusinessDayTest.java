@@ -212,8 +212,8 @@ public class BusinessDayTest extends BusinessTest {
         BusinessDay businessDay = BusinessDay.of(dayOfWeek, businessTimeSlots);
         Duration duration = businessDay
                 .getDuration(LocalTime.of(11, 0), LocalTime.of(13, 0));
-        //expected behavior allow coefficient
-        assertEquals(Duration.ofHours(3), duration);
+        //crossing time slots are merged
+        assertEquals(Duration.ofHours(2), duration);
     }
 
     @Test
@@ -225,8 +225,45 @@ public class BusinessDayTest extends BusinessTest {
         BusinessDay businessDay = BusinessDay.of(dayOfWeek, businessTimeSlots);
         Duration duration = businessDay
                 .getDuration(LocalTime.of(12, 0), LocalTime.of(11, 0));
-        //expected behavior allow coefficient
-        assertEquals(Duration.ofHours(2).negated(), duration);
+        //crossing time slots are merged
+        assertEquals(Duration.ofHours(1).negated(), duration);
+    }
+
+    @Test
+    public void touchingBusinessTimeSlots() {
+        //a rota of 15 minutes time slots from 8h to 20h
+        for (LocalTime start = LocalTime.of(8, 0);
+             start.isBefore(LocalTime.of(20, 0));
+             start = start.plusMinutes(15)) {
+            businessTimeSlots.add(BusinessTimeSlot
+                    .of(start, start.plusMinutes(15)));
+        }
+        BusinessDay businessDay = BusinessDay.of(dayOfWeek, businessTimeSlots);
+        assertEquals(Duration.ofHours(12), businessDay
+                .getDuration(LocalTime.MIN, LocalTime.MAX));
+        assertEquals(Duration.ofMinutes(80), businessDay
+                .getDuration(LocalTime.of(9, 5), LocalTime.of(10, 25)));
+        assertTrue(businessDay.contains(LocalTime.of(12, 15)));
+        assertFalse(businessDay.contains(LocalTime.of(20, 0)));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getDurationAfterTimeSlotModification() {
+        BusinessTimeSlot businessTimeSlot = BusinessTimeSlot
+                .of(LocalTime.of(9, 0), LocalTime.of(12, 0));
+        businessTimeSlots.add(businessTimeSlot);
+        BusinessDay businessDay = BusinessDay.of(dayOfWeek, businessTimeSlots);
+        assertEquals(Duration.ofHours(3), businessDay
+                .getDuration(LocalTime.MIN, LocalTime.MAX));
+
+        businessTimeSlot.setEndExclusive(LocalTime.of(13, 0));
+        assertEquals(Duration.ofHours(4), businessDay
+                .getDuration(LocalTime.MIN, LocalTime.MAX));
+
+        businessDay.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(14, 0), LocalTime.of(15, 0)));
+        assertEquals(Duration.ofHours(5), businessDay
+                .getDuration(LocalTime.MIN, LocalTime.MAX));
+        assertTrue(businessDay.contains(LocalTime.of(14, 30)));
+    }
+}
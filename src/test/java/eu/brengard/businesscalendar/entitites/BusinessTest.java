@@ -1,6 +1,9 @@
 package eu.brengard.businesscalendar.entitites;
 
+import java.time.DayOfWeek;
 import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
 
 class BusinessTest {
     ZoneId zoneId;
@@ -9,4 +12,22 @@ class BusinessTest {
         this.zoneId = ZoneId.of("Europe/Paris");
     }
 
+    static Set<BusinessTimeSlot> slots(String timeSlots) {
+        return BusinessTimeSlot.parseMultiple(timeSlots);
+    }
+
+    /**
+     * Business days from monday to friday, all with the same time slots.
+     */
+    static Set<BusinessDay> weekdays(String timeSlots) {
+        Set<BusinessDay> businessDays = new HashSet<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek != DayOfWeek.SATURDAY
+                    && dayOfWeek != DayOfWeek.SUNDAY) {
+                businessDays.add(BusinessDay.of(dayOfWeek, slots(timeSlots)));
+            }
+        }
+        return businessDays;
+    }
+
 }
\ No newline at end of file
@@ -308,4 +308,31 @@ public class BusinessTimeSlotTest extends BusinessTest {
         assertEquals(Duration.ofHours(7), duration);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void parseMultipleSameAsFormatter() {
+        //a distinct formatter instance takes the formatter path
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
+        String[] texts = {"", "9:00-12:00", "9:00-12:00,13:00-17:30",
+                "09:05-23:59,", "0:00-1:00,1:00-2:00,22:10-23:00"};
+        for (String text : texts) {
+            assertEquals(BusinessTimeSlot.parseMultiple(text, ",", "-",
+                    formatter), BusinessTimeSlot.parseMultiple(text));
+        }
+    }
+
+    @Test
+    public void parseMultipleErrorIndex() {
+        String[] texts = {"9:00-12:00,13:0017:00", "9:00-12:00,13:00-17:60",
+                "9:00-12:00,24:00-25:00", "9:00-12:00,,13:00-14:00",
+                "9:00-12:00,13:00-14:00 ", "9h00-12:00"};
+        int[] errorIndexes = {16, 20, 11, 11, 22, 1};
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                BusinessTimeSlot.parseMultiple(texts[i]);
+                fail(texts[i]);
+            } catch (BusinessTimeSlotParseException e) {
+                assertEquals(texts[i], errorIndexes[i], e.getErrorIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package eu.brengard.businesscalendar.entitites;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CalendarStoreTest extends BusinessTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, BusinessCalendar> calendars;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        Random random = new Random(21);
+        calendars = new HashMap<>();
+        for (int tenant = 0; tenant < 20; tenant++) {
+            Set<BusinessDay> businessDays = new HashSet<>();
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                BusinessDay businessDay = BusinessDay.of(dayOfWeek);
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    int start = random.nextInt(23 * 60);
+                    businessDay.getBusinessTimeSlots().add(BusinessTimeSlot.of(
+                            LocalTime.ofSecondOfDay(start * 60L),
+                            LocalTime.ofSecondOfDay(Math.min(start
+                                    + 1 + random.nextInt(300), 1439) * 60L)));
+                }
+                businessDays.add(businessDay);
+            }
+            Set<LocalDate> holidays = new HashSet<>();
+            for (int i = random.nextInt(200); i > 0; i--) {
+                holidays.add(LocalDate.of(2010, 1, 1)
+                        .plusDays(random.nextInt(5000)));
+            }
+            calendars.put("tenant-" + tenant,
+                    BusinessCalendar.of(businessDays, holidays));
+        }
+        calendars.put("same-as-tenant-0", calendars.get("tenant-0"));
+        calendars.put("ténant", calendars.get("tenant-1"));
+
+        file = folder.getRoot().toPath().resolve("calendars.store");
+        CalendarStore.write(file, calendars);
+    }
+
+    @Test
+    public void sameAsBusinessCalendar() throws IOException {
+        CalendarStore store = CalendarStore.open(file);
+        assertEquals(calendars.size(), store.size());
+
+        Random random = new Random(22);
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        long origin = LocalDate.of(2009, 1, 1).atStartOfDay(paris)
+                .toInstant().toEpochMilli();
+        for (Map.Entry<String, BusinessCalendar> entry
+                : calendars.entrySet()) {
+            BusinessCalendar calendar = entry.getValue();
+            StoredCalendar stored = store.get(entry.getKey());
+            assertNotNull(entry.getKey(), stored);
+
+            for (int i = 0; i < 300; i++) {
+                long start = origin + (long) (random.nextDouble()
+                        * 16 * 365 * 86_400_000L);
+                long end = start + (long) (random.nextDouble()
+                        * (i % 3 == 0 ? 86_400_000L : 3 * 365 * 86_400_000L));
+                ZonedDateTime startDateTime =
+                        Instant.ofEpochMilli(start).atZone(paris);
+                ZonedDateTime endDateTime =
+                        Instant.ofEpochMilli(end).atZone(paris);
+
+                assertEquals(calendar.getDuration(startDateTime, endDateTime),
+                        stored.getDuration(startDateTime, endDateTime));
+                assertEquals(calendar.getDuration(endDateTime, startDateTime),
+                        stored.getDuration(endDateTime, startDateTime));
+                assertEquals(calendar.businessMillisBetween(start, end, paris),
+                        stored.businessMillisBetween(start, end, paris));
+                assertEquals(calendar.isWorkingTime(startDateTime),
+                        stored.isWorkingTime(startDateTime));
+                assertEquals(calendar.isWorkingTime(end, paris),
+                        stored.isWorkingTime(end, paris));
+                assertEquals(calendar.isHoliday(startDateTime.toLocalDate()),
+                        stored.isHoliday(startDateTime.toLocalDate()));
+            }
+        }
+    }
+
+    @Test
+    public void unknownTenant() throws IOException {
+        CalendarStore store = CalendarStore.open(file);
+        assertNull(store.get("unknown"));
+        assertNull(store.get(""));
+        assertNull(store.get("tenant-"));
+    }
+
+    @Test
+    public void identicalCalendarsStoredOnce() throws IOException {
+        long size = Files.size(file);
+        calendars.remove("same-as-tenant-0");
+        calendars.remove("ténant");
+        CalendarStore.write(file, calendars);
+
+        assertTrue(size - Files.size(file) < 100);
+    }
+
+    @Test
+    public void empty() throws IOException {
+        CalendarStore.write(file, Collections.emptyMap());
+        CalendarStore store = CalendarStore.open(file);
+        assertEquals(0, store.size());
+        assertNull(store.get("tenant-0"));
+    }
+
+    @Test(expected = IOException.class)
+    public void openNotAStore() throws IOException {
+        Files.write(file, new byte[64]);
+        CalendarStore.open(file);
+    }
+
+    @Test
+    public void holidayRulesAndDayOverrides() throws IOException {
+        BusinessCalendar calendar = calendars.get("tenant-2");
+        calendar.addHolidayRule(HolidayRule.easter(1));
+        calendar.addHolidayRule(HolidayRule.parse("25/12").observedOnMonday());
+        calendar.setDayOverride(LocalDate.of(2016, 12, 24),
+                Collections.singleton(BusinessTimeSlot.of(LocalTime.of(9, 0),
+                        LocalTime.of(12, 0))));
+        calendar.setDayOverride(LocalDate.of(2017, 11, 24),
+                Collections.emptySet());
+        calendar.setMinuteResolution(true);
+        CalendarStore.write(file, calendars);
+        StoredCalendar stored = CalendarStore.open(file).get("tenant-2");
+
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, paris);
+        for (int day = 0; day < 2 * 365; day++) {
+            ZonedDateTime date = start.plusDays(day);
+            assertEquals(calendar.isHoliday(date.toLocalDate()),
+                    stored.isHoliday(date.toLocalDate()));
+            assertEquals(calendar.isWorkingTime(date.plusHours(10)),
+                    stored.isWorkingTime(date.plusHours(10)));
+            assertEquals(calendar.getDuration(start, date),
+                    stored.getDuration(start, date));
+        }
+    }
+
+    @Test
+    public void mistypedHolidayYear() throws IOException {
+        BusinessCalendar calendar = calendars.get("tenant-3");
+        calendar.addHoliday(LocalDate.of(20200, 1, 1));
+        CalendarStore.write(file, calendars);
+        StoredCalendar stored = CalendarStore.open(file).get("tenant-3");
+
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        ZonedDateTime start = ZonedDateTime.of(2010, 1, 1, 0, 0, 0, 0, paris);
+        for (int day = 0; day < 5000; day += 7) {
+            ZonedDateTime date = start.plusDays(day);
+            assertEquals(calendar.isHoliday(date.toLocalDate()),
+                    stored.isHoliday(date.toLocalDate()));
+            assertEquals(calendar.getDuration(start, date),
+                    stored.getDuration(start, date));
+        }
+        assertTrue(stored.isHoliday(LocalDate.of(20200, 1, 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void openTruncated() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        CalendarStore.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openCorruptedDirectory() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        //length of the first tenant ID
+        bytes[16 + 4] = 0x7F;
+        Files.write(file, bytes);
+        CalendarStore.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openCorruptedCalendarOffset() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        //offset of the calendar of the first tenant
+        bytes[16 + 8] = 0x7F;
+        Files.write(file, bytes);
+        CalendarStore.open(file);
+    }
+}
@@ -0,0 +1,133 @@
+package eu.brengard.businesscalendar.entitites;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBusinessCalendarTest extends BusinessTest {
+    private Set<BusinessDay> businessDays;
+    private Set<LocalDate> holidays;
+
+    @Before
+    public void setUp() {
+        BusinessDay monday = BusinessDay.of(DayOfWeek.MONDAY);
+        monday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(9, 0), LocalTime.of(12, 0)));
+        monday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(13, 0), LocalTime.of(17, 0)));
+
+        BusinessDay tuesday = BusinessDay.of(DayOfWeek.TUESDAY);
+        tuesday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(9, 0), LocalTime.of(17, 0)));
+
+        businessDays = new HashSet<>();
+        businessDays.add(monday);
+        businessDays.add(tuesday);
+
+        holidays = new HashSet<>();
+        holidays.add(LocalDate.of(2016, 4, 26));
+    }
+
+    @Test
+    public void sameAsBusinessCalendar() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ConcurrentBusinessCalendar concurrentBusinessCalendar =
+                ConcurrentBusinessCalendar.of(businessDays, holidays);
+
+        ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 10, 0, 0, 0, zoneId);
+        ZonedDateTime end = ZonedDateTime.of(2017, 1, 1, 10, 0, 0, 0, zoneId);
+        assertEquals(businessCalendar.getDuration(start, end),
+                concurrentBusinessCalendar.getDuration(start, end));
+        assertEquals(businessCalendar.getBusinessDays(),
+                concurrentBusinessCalendar.getBusinessDays());
+        assertEquals(businessCalendar.getHolidays(),
+                concurrentBusinessCalendar.getHolidays());
+    }
+
+    @Test
+    public void businessDaysCopied() {
+        ConcurrentBusinessCalendar businessCalendar =
+                ConcurrentBusinessCalendar.of(businessDays, holidays);
+        ZonedDateTime start = ZonedDateTime.of(2016, 4, 25, 0, 0, 0, 0, zoneId);
+        Duration before = businessCalendar.getDuration(start,
+                start.plusDays(1));
+
+        for (BusinessDay businessDay : businessDays) {
+            businessDay.getBusinessTimeSlots().clear();
+        }
+        for (BusinessDay businessDay : businessCalendar.getBusinessDays()) {
+            businessDay.getBusinessTimeSlots().clear();
+        }
+
+        assertEquals(before, businessCalendar.getDuration(start,
+                start.plusDays(1)));
+    }
+
+    @Test
+    public void holidaysSnapshot() {
+        ConcurrentBusinessCalendar businessCalendar =
+                ConcurrentBusinessCalendar.of(businessDays, holidays);
+        Set<LocalDate> snapshot = businessCalendar.getHolidays();
+
+        businessCalendar.addHoliday(LocalDate.of(2016, 5, 16));
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, businessCalendar.getHolidays().size());
+        assertTrue(businessCalendar.isHoliday(LocalDate.of(2016, 5, 16)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void holidaysUnmodifiable() {
+        ConcurrentBusinessCalendar.of(businessDays, holidays).getHolidays()
+                .add(LocalDate.of(2016, 5, 16));
+    }
+
+    @Test
+    public void noHalfAppliedUpdate() throws Exception {
+        ConcurrentBusinessCalendar businessCalendar =
+                ConcurrentBusinessCalendar.of(businessDays,
+                        Collections.emptySet());
+        //2016-05-16 and 2016-05-17 are a monday and a tuesday
+        Set<LocalDate> mondayAndTuesday = new HashSet<>(Arrays.asList(
+                LocalDate.of(2016, 5, 16), LocalDate.of(2016, 5, 17)));
+        ZonedDateTime start = ZonedDateTime.of(2016, 5, 16, 0, 0, 0, 0, zoneId);
+        ZonedDateTime end = start.plusDays(2);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    while (!stop.get()) {
+                        Duration duration = businessCalendar
+                                .getDuration(start, end);
+                        if (!duration.isZero()
+                                && !duration.equals(Duration.ofHours(15))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (int i = 0; i < 2000; i++) {
+                businessCalendar.setHolidays(mondayAndTuesday);
+                businessCalendar.setHolidays(Collections.emptySet());
+            }
+            stop.set(true);
+            for (Future<Boolean> reader : readers) {
+                assertTrue(reader.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarNoWorkingTimeException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DayOverrideTest extends BusinessTest {
+
+    private static final String OFFICE_HOURS = "9:00-12:00,14:00-18:00";
+
+    private static ZonedDateTime at(int year, int month, int day, int hour,
+                                    int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0,
+                ZoneOffset.UTC);
+    }
+
+    @Test
+    public void halfDay() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays(OFFICE_HOURS))
+                .dayOverride(LocalDate.of(2024, 12, 24), slots("9:00-12:00"))
+                .build();
+
+        assertEquals(Duration.ofHours(3), businessCalendar.getDuration(
+                at(2024, 12, 24, 0, 0), at(2024, 12, 25, 0, 0)));
+        assertFalse(businessCalendar.isWorkingTime(at(2024, 12, 24, 15, 0)));
+        assertEquals(at(2024, 12, 25, 9, 0),
+                businessCalendar.nextWorkingTime(at(2024, 12, 24, 12, 0)));
+        assertEquals(at(2024, 12, 24, 12, 0), businessCalendar
+                .previousWorkingTime(at(2024, 12, 24, 17, 0)));
+        assertEquals(at(2024, 12, 25, 10, 0), businessCalendar.plus(
+                at(2024, 12, 24, 11, 0), Duration.ofHours(2)));
+    }
+
+    @Test
+    public void extendedDay() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays(OFFICE_HOURS))
+                .dayOverride(LocalDate.of(2024, 11, 29),
+                        slots("9:00-12:00,13:00-22:00"))
+                .build();
+
+        assertEquals(Duration.ofHours(12), businessCalendar.getDuration(
+                at(2024, 11, 29, 0, 0), at(2024, 11, 30, 0, 0)));
+        assertTrue(businessCalendar.isWorkingTime(at(2024, 11, 29, 21, 0)));
+        assertEquals(at(2024, 11, 29, 21, 0), businessCalendar.minus(
+                at(2024, 12, 2, 10, 0), Duration.ofHours(2)));
+        assertEquals(at(2024, 11, 29, 22, 0), businessCalendar
+                .nextNonWorkingTime(at(2024, 11, 29, 13, 0)));
+    }
+
+    @Test
+    public void openOnHolidayAndWeekend() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays(OFFICE_HOURS))
+                .holiday(LocalDate.of(2024, 5, 1))
+                .dayOverride(LocalDate.of(2024, 5, 1), slots("10:00-12:00"))
+                .dayOverride(LocalDate.of(2024, 5, 4), slots("10:00-11:00"))
+                .build();
+
+        //the holiday is still an holiday, but with working time
+        assertTrue(businessCalendar.isHoliday(LocalDate.of(2024, 5, 1)));
+        assertTrue(businessCalendar.isWorkingTime(at(2024, 5, 1, 11, 0)));
+        assertEquals(Duration.ofHours(2 + 7 + 7 + 1),
+                businessCalendar.getDuration(at(2024, 5, 1, 0, 0),
+                        at(2024, 5, 6, 0, 0)));
+        assertEquals(at(2024, 5, 4, 10, 0),
+                businessCalendar.nextWorkingTime(at(2024, 5, 3, 18, 0)));
+        assertEquals(at(2024, 4, 30, 18, 0),
+                businessCalendar.previousWorkingTime(at(2024, 5, 1, 9, 0)));
+    }
+
+    @Test
+    public void closedDay() {
+        BusinessCalendar overridden = BusinessCalendar.of(
+                weekdays(OFFICE_HOURS));
+        overridden.setDayOverride(LocalDate.of(2024, 7, 15), new HashSet<>());
+        Set<LocalDate> holidays = new HashSet<>();
+        holidays.add(LocalDate.of(2024, 7, 15));
+        BusinessCalendar holiday = BusinessCalendar.of(
+                weekdays(OFFICE_HOURS), holidays);
+
+        ZonedDateTime start = at(2024, 7, 12, 10, 0);
+        assertEquals(holiday.getDuration(start, start.plusDays(10)),
+                overridden.getDuration(start, start.plusDays(10)));
+        assertEquals(holiday.plus(start, Duration.ofHours(20)),
+                overridden.plus(start, Duration.ofHours(20)));
+        assertFalse(overridden.isHoliday(LocalDate.of(2024, 7, 15)));
+
+        assertTrue(overridden.removeDayOverride(LocalDate.of(2024, 7, 15)));
+        assertFalse(overridden.removeDayOverride(LocalDate.of(2024, 7, 15)));
+        assertEquals(Duration.ofHours(7), overridden.getDuration(
+                at(2024, 7, 15, 0, 0), at(2024, 7, 16, 0, 0)));
+    }
+
+    @Test
+    public void onlyOverriddenDays() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(new HashSet<>())
+                .dayOverride(LocalDate.of(2024, 3, 9), slots("9:00-12:00"))
+                .dayOverride(LocalDate.of(2025, 3, 8), slots("9:00-12:00"))
+                .build();
+
+        assertEquals(Duration.ofHours(6), businessCalendar.getDuration(
+                at(2020, 1, 1, 0, 0), at(2030, 1, 1, 0, 0)));
+        assertEquals(at(2025, 3, 8, 10, 0), businessCalendar.plus(
+                at(2024, 1, 1, 0, 0), Duration.ofHours(4)));
+        assertEquals(at(2024, 3, 9, 11, 0), businessCalendar.minus(
+                at(2026, 1, 1, 0, 0), Duration.ofHours(4)));
+        assertEquals(at(2025, 3, 8, 9, 0),
+                businessCalendar.nextWorkingTime(at(2024, 3, 9, 12, 0)));
+        assertEquals(2, businessCalendar.workingIntervals(
+                at(2020, 1, 1, 0, 0), at(2030, 1, 1, 0, 0)).count());
+    }
+
+    @Test(expected = BusinessCalendarNoWorkingTimeException.class)
+    public void onlyOverriddenDaysExhausted() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(new HashSet<>())
+                .dayOverride(LocalDate.of(2024, 3, 9), slots("9:00-12:00"))
+                .build();
+
+        businessCalendar.plus(at(2024, 1, 1, 0, 0), Duration.ofHours(4));
+    }
+
+    @Test
+    public void sameAsWorkingIntervals() {
+        Random random = new Random(7);
+        BusinessCalendar businessCalendar = BusinessCalendar.of(
+                weekdays(OFFICE_HOURS));
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        String[] timeSlots = {"", "9:00-12:00", "8:00-20:00",
+                "0:00-6:00,22:00-23:59"};
+        for (int i = 0; i < 300; i++) {
+            businessCalendar.setDayOverride(
+                    first.plusDays(random.nextInt(3_000)),
+                    slots(timeSlots[random.nextInt(timeSlots.length)]));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            ZonedDateTime start = ZonedDateTime.of(
+                    first.minusDays(100).plusDays(random.nextInt(3_200)),
+                    LocalTime.ofSecondOfDay(random.nextInt(86_400)),
+                    ZoneOffset.UTC);
+            ZonedDateTime end = start.plusDays(random.nextInt(400))
+                    .plusMinutes(random.nextInt(1_440));
+            Duration duration = businessCalendar.getDuration(start, end);
+            assertEquals(businessCalendar.workingIntervals(start, end)
+                            .map(WorkingInterval::getDuration)
+                            .reduce(Duration.ZERO, Duration::plus),
+                    duration);
+
+            if (!duration.isZero()) {
+                ZonedDateTime plus = businessCalendar.plus(start, duration);
+                assertEquals(duration,
+                        businessCalendar.getDuration(start, plus));
+                assertTrue(businessCalendar.isWorkingTime(
+                        plus.minusNanos(1)));
+                ZonedDateTime minus = businessCalendar.minus(end, duration);
+                assertEquals(duration,
+                        businessCalendar.getDuration(minus, end));
+                assertTrue(businessCalendar.isWorkingTime(minus));
+            }
+
+            ZonedDateTime next = businessCalendar.nextWorkingTime(start);
+            assertTrue(businessCalendar.isWorkingTime(next));
+            assertEquals(Duration.ZERO,
+                    businessCalendar.getDuration(start, next));
+            ZonedDateTime previous = businessCalendar.previousWorkingTime(end);
+            assertTrue(businessCalendar.isWorkingTime(previous.minusNanos(1)));
+            assertEquals(Duration.ZERO,
+                    businessCalendar.getDuration(previous, end));
+        }
+    }
+
+    @Test
+    public void immutableCopy() {
+        BusinessCalendar businessCalendar = BusinessCalendar.of(
+                weekdays(OFFICE_HOURS));
+        businessCalendar.setDayOverride(LocalDate.of(2024, 12, 24),
+                slots("9:00-12:00"));
+        ImmutableBusinessCalendar copy =
+                ImmutableBusinessCalendar.copyOf(businessCalendar);
+
+        assertEquals(businessCalendar.getDayOverrides(),
+                copy.getDayOverrides());
+        assertEquals(copy, ImmutableBusinessCalendar.copyOf(copy));
+        assertNotEquals(copy, BusinessCalendar.builder()
+                .businessDays(weekdays(OFFICE_HOURS)).build());
+    }
+}
@@ -0,0 +1,227 @@
+package eu.brengard.businesscalendar.entitites;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HolidayIndexTest {
+    private Set<LocalDate> holidays;
+
+    @Before
+    public void setUp() {
+        holidays = new HashSet<>();
+        holidays.add(LocalDate.of(2016, 1, 1));
+        holidays.add(LocalDate.of(2016, 3, 28));
+        holidays.add(LocalDate.of(2016, 5, 1));
+        holidays.add(LocalDate.of(2016, 12, 25));
+        holidays.add(LocalDate.of(2017, 1, 1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void ofNullParameter() {
+        HolidayIndex.of(null);
+    }
+
+    @Test
+    public void isHolidayTrue() {
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        assertTrue(holidayIndex.isHoliday(LocalDate.of(2016, 3, 28)));
+    }
+
+    @Test
+    public void isHolidayFalse() {
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        assertFalse(holidayIndex.isHoliday(LocalDate.of(2016, 3, 29)));
+        assertFalse(holidayIndex.isHoliday(LocalDate.of(1970, 1, 1)));
+        assertFalse(holidayIndex.isHoliday(LocalDate.of(2100, 1, 1)));
+    }
+
+    @Test
+    public void empty() {
+        HolidayIndex holidayIndex = HolidayIndex.of(Collections.emptySet());
+        assertEquals(0, holidayIndex.size());
+        assertFalse(holidayIndex.isHoliday(LocalDate.of(2016, 1, 1)));
+        assertEquals(0, holidayIndex.countHolidays(LocalDate.of(2000, 1, 1),
+                LocalDate.of(2100, 1, 1)));
+    }
+
+    @Test
+    public void size() {
+        assertEquals(5, HolidayIndex.of(holidays).size());
+    }
+
+    @Test
+    public void countHolidays() {
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        assertEquals(5, holidayIndex.countHolidays(LocalDate.of(2000, 1, 1),
+                LocalDate.of(2100, 1, 1)));
+        assertEquals(3, holidayIndex.countHolidays(LocalDate.of(2016, 1, 1),
+                LocalDate.of(2016, 12, 25)));
+        assertEquals(0, holidayIndex.countHolidays(LocalDate.of(2016, 12, 25),
+                LocalDate.of(2016, 1, 1)));
+    }
+
+    @Test
+    public void countHolidaysOn() {
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        //2016-03-28 is a monday, 2016-01-01 a friday, 2017-01-01 a sunday
+        assertEquals(1, holidayIndex.countHolidaysOn(DayOfWeek.MONDAY,
+                LocalDate.of(2016, 1, 1), LocalDate.of(2018, 1, 1)));
+        assertEquals(1, holidayIndex.countHolidaysOn(DayOfWeek.FRIDAY,
+                LocalDate.of(2016, 1, 1), LocalDate.of(2018, 1, 1)));
+        assertEquals(3, holidayIndex.countHolidaysOn(DayOfWeek.SUNDAY,
+                LocalDate.of(2016, 1, 1), LocalDate.of(2018, 1, 1)));
+        assertEquals(0, holidayIndex.countHolidaysOn(DayOfWeek.TUESDAY,
+                LocalDate.of(2016, 1, 1), LocalDate.of(2018, 1, 1)));
+    }
+
+    @Test
+    public void countHolidaysOnSameAsDayByDay() {
+        Random random = new Random(7);
+        Set<LocalDate> randomHolidays = new HashSet<>();
+        LocalDate origin = LocalDate.of(1965, 1, 1);
+        for (int i = 0; i < 300; i++) {
+            randomHolidays.add(origin.plusDays(random.nextInt(5000)));
+        }
+        HolidayIndex holidayIndex = HolidayIndex.of(randomHolidays);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDate start = origin.plusDays(random.nextInt(5200) - 100);
+            LocalDate end = start.plusDays(random.nextInt(2000));
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                int expected = 0;
+                for (LocalDate holiday : randomHolidays) {
+                    if (holiday.getDayOfWeek() == dayOfWeek
+                            && !holiday.isBefore(start)
+                            && holiday.isBefore(end)) {
+                        expected++;
+                    }
+                }
+                assertEquals(expected,
+                        holidayIndex.countHolidaysOn(dayOfWeek, start, end));
+            }
+        }
+    }
+
+    @Test
+    public void nextAndPreviousNonHolidaySameAsDayByDay() {
+        Random random = new Random(8);
+        Set<LocalDate> randomHolidays = new HashSet<>();
+        LocalDate origin = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            randomHolidays.add(origin.plusDays(random.nextInt(2500)));
+        }
+        HolidayIndex holidayIndex = HolidayIndex.of(randomHolidays);
+
+        for (long day = origin.toEpochDay() - 100;
+             day < origin.toEpochDay() + 2600; day++) {
+            long next = day;
+            while (holidayIndex.isHoliday(next)) {
+                next++;
+            }
+            assertEquals(next, holidayIndex.nextNonHoliday(day));
+
+            long holiday = day;
+            while (holiday < origin.toEpochDay() + 2500
+                    && !holidayIndex.isHoliday(holiday)) {
+                holiday++;
+            }
+            assertEquals(holiday < origin.toEpochDay() + 2500 ? holiday
+                    : Long.MAX_VALUE, holidayIndex.nextHoliday(day));
+
+            long previous = day;
+            while (holidayIndex.isHoliday(previous)) {
+                previous--;
+            }
+            assertEquals(previous, holidayIndex.previousNonHoliday(day));
+        }
+    }
+
+    @Test
+    public void minAndMaxDays() {
+        holidays.add(LocalDate.MIN);
+        holidays.add(LocalDate.MAX);
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        assertEquals(7, holidayIndex.size());
+        assertTrue(holidayIndex.isHoliday(LocalDate.MIN));
+        assertTrue(holidayIndex.isHoliday(LocalDate.MAX));
+        assertTrue(holidayIndex.isHoliday(LocalDate.of(2016, 3, 28)));
+        assertFalse(holidayIndex.isHoliday(LocalDate.of(2016, 3, 29)));
+        assertEquals(6, holidayIndex.countHolidays(LocalDate.MIN,
+                LocalDate.MAX));
+        assertEquals(LocalDate.MIN.toEpochDay() + 1,
+                holidayIndex.nextNonHoliday(LocalDate.MIN.toEpochDay()));
+        assertEquals(LocalDate.MAX.toEpochDay() - 1,
+                holidayIndex.previousNonHoliday(LocalDate.MAX.toEpochDay()));
+    }
+
+    @Test
+    public void mistypedYear() {
+        holidays.add(LocalDate.of(1, 1, 1));
+        holidays.add(LocalDate.of(20200, 1, 1));
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        assertEquals(0, holidayIndex.words().size());
+        assertEquals(7, holidayIndex.days().size());
+        assertEquals(5, holidayIndex.countHolidays(LocalDate.of(2, 1, 1),
+                LocalDate.of(20000, 1, 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofEpochDaysTooFarApart() {
+        HolidayIndex.ofEpochDays(new long[]{Long.MIN_VALUE, Long.MAX_VALUE});
+    }
+
+    @Test
+    public void daysSameAsBitset() {
+        Random random = new Random(9);
+        Set<LocalDate> randomHolidays = new HashSet<>();
+        LocalDate origin = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            randomHolidays.add(origin.plusDays(random.nextInt(2500)));
+        }
+        HolidayIndex bitset = HolidayIndex.of(randomHolidays);
+        randomHolidays.add(LocalDate.of(20200, 1, 1));
+        HolidayIndex days = HolidayIndex.of(randomHolidays);
+        assertEquals(0, days.words().size());
+
+        long first = origin.toEpochDay() - 100;
+        for (long day = first; day < origin.toEpochDay() + 2600; day++) {
+            assertEquals(bitset.isHoliday(day), days.isHoliday(day));
+            assertEquals(bitset.nextNonHoliday(day), days.nextNonHoliday(day));
+            assertEquals(Math.min(bitset.nextHoliday(day),
+                    LocalDate.of(20200, 1, 1).toEpochDay()),
+                    days.nextHoliday(day));
+            assertEquals(bitset.previousNonHoliday(day),
+                    days.previousNonHoliday(day));
+            assertEquals(bitset.countHolidays(first, day),
+                    days.countHolidays(first, day));
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                assertEquals(bitset.countHolidaysOn(dayOfWeek, day, day + 400),
+                        days.countHolidaysOn(dayOfWeek, day, day + 400));
+            }
+        }
+    }
+
+    @Test
+    public void equals() {
+        assertEquals(HolidayIndex.of(holidays),
+                HolidayIndex.of(new HashSet<>(holidays)));
+        assertEquals(HolidayIndex.of(holidays).hashCode(),
+                HolidayIndex.of(new HashSet<>(holidays)).hashCode());
+    }
+
+    @Test
+    public void notEquals() {
+        HolidayIndex holidayIndex = HolidayIndex.of(holidays);
+        holidays.add(LocalDate.of(2016, 7, 14));
+        assertNotEquals(holidayIndex, HolidayIndex.of(holidays));
+    }
+}
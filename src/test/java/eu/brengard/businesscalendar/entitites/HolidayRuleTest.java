@@ -0,0 +1,272 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.HolidayRuleParseException;
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HolidayRuleTest extends BusinessTest {
+
+    private static Set<HolidayRule> rules() {
+        Set<HolidayRule> rules = new HashSet<>();
+        rules.add(HolidayRule.parse("1/1>monday"));
+        rules.add(HolidayRule.parse("easter-2"));
+        rules.add(HolidayRule.parse("easter+1"));
+        rules.add(HolidayRule.parse("monday#1/5"));
+        rules.add(HolidayRule.parse("monday#-1/8"));
+        rules.add(HolidayRule.parse("25/12>monday"));
+        rules.add(HolidayRule.parse("26/12"));
+        rules.add(HolidayRule.parse("31/12>monday"));
+        return rules;
+    }
+
+    @Test
+    public void fixed() {
+        HolidayRule rule = HolidayRule.fixed(MonthDay.of(Month.JULY, 14));
+        assertEquals(LocalDate.of(2024, 7, 14), rule.dateIn(2024));
+    }
+
+    @Test
+    public void fixedFebruary29() {
+        HolidayRule rule = HolidayRule.parse("29/2");
+        assertEquals(LocalDate.of(2024, 2, 29), rule.dateIn(2024));
+        assertNull(rule.dateIn(2023));
+    }
+
+    @Test
+    public void nthWeekday() {
+        assertEquals(LocalDate.of(2024, 5, 6),
+                HolidayRule.parse("monday#1/5").dateIn(2024));
+        assertEquals(LocalDate.of(2024, 5, 27),
+                HolidayRule.parse("MONDAY#-1/5").dateIn(2024));
+        assertEquals(LocalDate.of(2024, 11, 28), HolidayRule.nthWeekday(4,
+                DayOfWeek.THURSDAY, Month.NOVEMBER).dateIn(2024));
+        //no fifth friday in february 2023
+        assertNull(HolidayRule.parse("friday#5/2").dateIn(2023));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nthWeekdayZeroOrdinal() {
+        HolidayRule.nthWeekday(0, DayOfWeek.MONDAY, Month.MAY);
+    }
+
+    @Test
+    public void easter() {
+        assertEquals(LocalDate.of(2000, 4, 23),
+                HolidayRule.parse("easter").dateIn(2000));
+        assertEquals(LocalDate.of(2024, 4, 1),
+                HolidayRule.parse("easter+1").dateIn(2024));
+        assertEquals(LocalDate.of(2025, 4, 18),
+                HolidayRule.parse("easter-2").dateIn(2025));
+        assertEquals(LocalDate.of(2038, 4, 25), HolidayRule.easter(0)
+                .dateIn(2038));
+    }
+
+    @Test
+    public void observedOnMonday() {
+        HolidayRule rule = HolidayRule.parse("25/12>monday");
+        //sunday, then saturday, then wednesday
+        assertEquals(LocalDate.of(2022, 12, 26), rule.dateIn(2022));
+        assertEquals(LocalDate.of(2021, 12, 27), rule.dateIn(2021));
+        assertEquals(LocalDate.of(2024, 12, 25), rule.dateIn(2024));
+        assertSame(rule, rule.observedOnMonday());
+    }
+
+    @Test
+    public void toStringParse() {
+        for (HolidayRule rule : rules()) {
+            assertEquals(rule, HolidayRule.parse(rule.toString()));
+        }
+        assertEquals("monday#-1/8", HolidayRule.parse("Monday#-1/08")
+                .toString());
+        assertEquals("easter", HolidayRule.parse("easter+0").toString());
+    }
+
+    @Test
+    public void parseErrorIndex() {
+        String[] texts = {"32/1", "25-12", "25/13", "easter*1",
+                "easter+400", "monday#6/5", "moonday#1/5", "monday#1/5>"};
+        int[] errorIndexes = {0, 2, 3, 6, 7, 7, 0, 10};
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                HolidayRule.parse(texts[i]);
+                fail(texts[i]);
+            } catch (HolidayRuleParseException e) {
+                assertEquals(texts[i], errorIndexes[i], e.getErrorIndex());
+            }
+        }
+    }
+
+    @Test
+    public void yearOf() {
+        for (long epochDay = -800_000; epochDay < 800_000; epochDay += 97) {
+            assertEquals(LocalDate.ofEpochDay(epochDay).getYear(),
+                    HolidayRules.yearOf(epochDay));
+        }
+        assertEquals(2023, HolidayRules.yearOf(
+                LocalDate.of(2023, 12, 31).toEpochDay()));
+        assertEquals(2024, HolidayRules.yearOf(
+                LocalDate.of(2024, 1, 1).toEpochDay()));
+    }
+
+    @Test
+    public void observedInTheNextYear() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays("9:00-17:00"))
+                .holidayRule(HolidayRule.parse("31/12>monday"))
+                .build();
+
+        //2022-12-31 is a saturday
+        assertTrue(businessCalendar.isHoliday(LocalDate.of(2023, 1, 2)));
+        assertFalse(businessCalendar.isHoliday(LocalDate.of(2022, 12, 31)));
+    }
+
+    @Test
+    public void expandedLazily() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays("9:00-17:00"))
+                .holidayRules(rules())
+                .build();
+
+        assertEquals(0,
+                businessCalendar.compiled().getHolidayRules().expandedYears());
+        assertTrue(businessCalendar.isHoliday(LocalDate.of(2024, 5, 6)));
+        assertEquals(1,
+                businessCalendar.compiled().getHolidayRules().expandedYears());
+    }
+
+    @Test
+    public void longRangesNotCached() {
+        long[] dailyNanos = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+        long[][] ranges = {
+                {LocalDate.MIN.toEpochDay(),
+                        LocalDate.MIN.plusYears(20_000).toEpochDay()},
+                {LocalDate.MAX.minusYears(20_000).toEpochDay(),
+                        LocalDate.MAX.toEpochDay() + 1},
+                {LocalDate.of(-5_000, 3, 1).toEpochDay(),
+                        LocalDate.of(15_000, 10, 1).toEpochDay()}};
+        for (long[] range : ranges) {
+            HolidayRules holidayRules = HolidayRules.of(rules(),
+                    HolidayIndex.of(new HashSet<>()));
+            long nanos = holidayRules.workingNanos(dailyNanos, range[0],
+                    range[1]);
+            assertEquals(2, holidayRules.expandedYears());
+
+            long expected = 0;
+            for (long start = range[0]; start < range[1]; start += 100) {
+                expected += holidayRules.workingNanos(dailyNanos, start,
+                        Math.min(start + 100, range[1]));
+            }
+            assertEquals(expected, nanos);
+        }
+    }
+
+    @Test
+    public void periodicOutsideTheHorizon() {
+        Set<HolidayRule> rules = rules();
+        rules.remove(HolidayRule.parse("easter-2"));
+        rules.remove(HolidayRule.parse("easter+1"));
+        Set<LocalDate> holidays = new HashSet<>();
+        holidays.add(LocalDate.of(3500, 12, 26));
+        holidays.add(LocalDate.of(-300, 6, 2));
+        holidays.add(LocalDate.of(1900, 5, 7));
+        HolidayRules holidayRules = HolidayRules.of(rules,
+                HolidayIndex.of(holidays));
+        long[] dailyNanos = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+        long first = LocalDate.of(-1_000, 7, 1).toEpochDay();
+        long last = LocalDate.of(4_000, 7, 1).toEpochDay();
+        long nanos = holidayRules.workingNanos(dailyNanos, first, last);
+        long expected = 0;
+        for (long start = first; start < last; start += 100) {
+            expected += holidayRules.workingNanos(dailyNanos, start,
+                    Math.min(start + 100, last));
+        }
+        assertEquals(expected, nanos);
+
+        //the whole range of LocalDate, split anywhere
+        long min = LocalDate.MIN.toEpochDay();
+        long max = LocalDate.MAX.toEpochDay() + 1;
+        long whole = holidayRules.workingNanos(dailyNanos, min, max);
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            long split = min + (long) (random.nextDouble() * (max - min));
+            assertEquals(whole,
+                    holidayRules.workingNanos(dailyNanos, min, split)
+                            + holidayRules.workingNanos(dailyNanos, split,
+                            max));
+        }
+    }
+
+    @Test
+    public void explicitHolidayCountedOnce() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar.builder()
+                .businessDays(weekdays("9:00-17:00"))
+                .holiday(LocalDate.of(2024, 12, 25))
+                .holidayRule(HolidayRule.parse("25/12"))
+                .build();
+
+        ZonedDateTime start = ZonedDateTime.of(2024, 12, 23, 0, 0, 0, 0,
+                ZoneOffset.UTC);
+        assertEquals(Duration.ofHours(8 * 4),
+                businessCalendar.getDuration(start, start.plusDays(7)));
+    }
+
+    @Test
+    public void sameAsExplicitHolidays() {
+        Set<HolidayRule> rules = rules();
+        Set<LocalDate> holidays = new HashSet<>();
+        for (int year = 2015; year <= 2065; year++) {
+            for (HolidayRule rule : rules) {
+                holidays.add(rule.dateIn(year));
+            }
+        }
+        holidays.add(LocalDate.of(2030, 12, 26));
+        holidays.add(LocalDate.of(2031, 3, 3));
+
+        BusinessCalendar ruled = BusinessCalendar.of(weekdays("9:00-17:00"));
+        ruled.addHoliday(LocalDate.of(2030, 12, 26));
+        ruled.addHoliday(LocalDate.of(2031, 3, 3));
+        ruled.setHolidayRules(rules);
+        BusinessCalendar explicit = BusinessCalendar.of(
+                weekdays("9:00-17:00"), holidays);
+
+        Random random = new Random(42);
+        long first = LocalDate.of(2020, 1, 1).toEpochDay();
+        long last = LocalDate.of(2040, 12, 31).toEpochDay();
+        for (int i = 0; i < 2000; i++) {
+            ZonedDateTime start = ZonedDateTime.of(
+                    LocalDate.ofEpochDay(first + random.nextInt(
+                            (int) (last - first))),
+                    LocalTime.ofSecondOfDay(random.nextInt(86_400)),
+                    ZoneOffset.UTC);
+            ZonedDateTime end = start.plusDays(random.nextInt(7_300))
+                    .plusMinutes(random.nextInt(1_440));
+            assertEquals(explicit.getDuration(start, end),
+                    ruled.getDuration(start, end));
+            assertEquals(explicit.isHoliday(start.toLocalDate()),
+                    ruled.isHoliday(start.toLocalDate()));
+            assertEquals(explicit.nextWorkingTime(start),
+                    ruled.nextWorkingTime(start));
+            assertEquals(explicit.previousWorkingTime(end),
+                    ruled.previousWorkingTime(end));
+            Duration duration = Duration.ofMinutes(random.nextInt(200_000));
+            assertEquals(explicit.plus(start, duration),
+                    ruled.plus(start, duration));
+            assertEquals(explicit.minus(end, duration),
+                    ruled.minus(end, duration));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package eu.brengard.businesscalendar.entitites;
+
+import eu.brengard.businesscalendar.exceptions.BusinessCalendarSameBusinessDaysException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.time.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ImmutableBusinessCalendarTest extends BusinessTest {
+    private Set<BusinessDay> businessDays;
+    private Set<LocalDate> holidays;
+
+    @Before
+    public void setUp() {
+        BusinessDay monday = BusinessDay.of(DayOfWeek.MONDAY);
+        monday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(9, 0), LocalTime.of(12, 0)));
+        monday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(13, 0), LocalTime.of(17, 0)));
+
+        BusinessDay tuesday = BusinessDay.of(DayOfWeek.TUESDAY);
+        tuesday.getBusinessTimeSlots().add(BusinessTimeSlot
+                .of(LocalTime.of(9, 0), LocalTime.of(17, 0)));
+
+        businessDays = new HashSet<>();
+        businessDays.add(monday);
+        businessDays.add(tuesday);
+
+        holidays = new HashSet<>();
+        holidays.add(LocalDate.of(2016, 4, 26));
+    }
+
+    @Test
+    public void sameAsBusinessCalendar() {
+        BusinessCalendar businessCalendar = BusinessCalendar
+                .of(businessDays, holidays);
+        ImmutableBusinessCalendar immutableBusinessCalendar = BusinessCalendar
+                .builder().businessDays(businessDays).holidays(holidays)
+                .build();
+
+        ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 10, 0, 0, 0, zoneId);
+        ZonedDateTime end = ZonedDateTime.of(2017, 1, 1, 10, 0, 0, 0, zoneId);
+        assertEquals(businessCalendar.getDuration(start, end),
+                immutableBusinessCalendar.getDuration(start, end));
+        assertEquals(businessCalendar.getBusinessDays(),
+                immutableBusinessCalendar.getBusinessDays());
+        assertEquals(businessCalendar.getHolidays(),
+                immutableBusinessCalendar.getHolidays());
+    }
+
+    @Test
+    public void notModifiedByTimeSlots() {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar
+                .builder().businessDays(businessDays).build();
+        ZonedDateTime start = ZonedDateTime.of(2016, 4, 25, 0, 0, 0, 0, zoneId);
+        Duration before = businessCalendar.getDuration(start,
+                start.plusDays(1));
+
+        for (BusinessDay businessDay : businessDays) {
+            for (BusinessTimeSlot businessTimeSlot
+                    : businessDay.getBusinessTimeSlots()) {
+                businessTimeSlot.setStartInclusive(LocalTime.of(8, 0));
+            }
+        }
+        for (BusinessDay businessDay : businessCalendar.getBusinessDays()) {
+            businessDay.getBusinessTimeSlots().clear();
+        }
+
+        assertEquals(before, businessCalendar.getDuration(start,
+                start.plusDays(1)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void holidaysUnmodifiable() {
+        BusinessCalendar.builder().holidays(holidays).build().getHolidays()
+                .add(LocalDate.of(2016, 5, 16));
+    }
+
+    @Test(expected = BusinessCalendarSameBusinessDaysException.class)
+    public void sameBusinessDay() {
+        BusinessCalendar.builder().businessDays(businessDays)
+                .businessDay(BusinessDay.of(DayOfWeek.TUESDAY));
+    }
+
+    @Test
+    public void equals() {
+        ImmutableBusinessCalendar first = BusinessCalendar.builder()
+                .businessDays(businessDays).holidays(holidays).build();
+        ImmutableBusinessCalendar second = ImmutableBusinessCalendar
+                .copyOf(BusinessCalendar.of(businessDays, holidays));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, BusinessCalendar.builder()
+                .businessDays(businessDays).build());
+    }
+
+    @Test
+    public void serialization() throws Exception {
+        ImmutableBusinessCalendar businessCalendar = BusinessCalendar
+                .builder().businessDays(businessDays).holidays(holidays)
+                .build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(businessCalendar);
+        }
+        ImmutableBusinessCalendar deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = (ImmutableBusinessCalendar) in.readObject();
+        }
+
+        assertEquals(businessCalendar, deserialized);
+        ZonedDateTime start = ZonedDateTime.of(2016, 1, 1, 10, 0, 0, 0, zoneId);
+        assertEquals(businessCalendar.getDuration(start, start.plusYears(1)),
+                deserialized.getDuration(start, start.plusYears(1)));
+    }
+}
@@ -0,0 +1,286 @@
+package eu.brengard.businesscalendar.entitites;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ZonedCalendarTest extends BusinessTest {
+
+    private static final String[] ZONES = {"Europe/Paris",
+            "America/New_York", "Australia/Lord_Howe"};
+
+    /**
+     * A calendar with time slots around the transitions of the three zones,
+     * which all happen at night.
+     */
+    private static ImmutableBusinessCalendar nightShifts() {
+        Set<BusinessDay> businessDays = new HashSet<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek == DayOfWeek.SATURDAY) {
+                businessDays.add(BusinessDay.of(dayOfWeek,
+                        slots("0:00-23:59")));
+            } else if (dayOfWeek == DayOfWeek.SUNDAY) {
+                businessDays.add(BusinessDay.of(dayOfWeek,
+                        slots("1:45-2:15,2:40-3:20,10:00-12:00")));
+            } else {
+                businessDays.add(BusinessDay.of(dayOfWeek,
+                        slots("1:15-2:45,9:00-17:00")));
+            }
+        }
+        return BusinessCalendar.builder().businessDays(businessDays).build();
+    }
+
+    private static List<Instant> transitions(ZoneId zone) {
+        List<Instant> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition = zone.getRules()
+                .nextTransition(Instant.parse("2018-01-01T00:00:00Z"));
+        while (transition.getInstant()
+                .isBefore(Instant.parse("2026-01-01T00:00:00Z"))) {
+            transitions.add(transition.getInstant());
+            transition = zone.getRules()
+                    .nextTransition(transition.getInstant());
+        }
+        return transitions;
+    }
+
+    private static Duration elapsedMinutes(AbstractBusinessCalendar calendar,
+                                           ZonedDateTime start,
+                                           ZonedDateTime end) {
+        long minutes = 0;
+        for (ZonedDateTime time = start; time.isBefore(end);
+             time = time.plusMinutes(1)) {
+            if (calendar.isWorkingTime(time)) {
+                minutes++;
+            }
+        }
+        return Duration.ofMinutes(minutes);
+    }
+
+    private static ZonedDateTime at(String localDateTime, String zone) {
+        return ZonedDateTime.of(LocalDateTime.parse(localDateTime),
+                ZoneId.of(zone));
+    }
+
+    @Test
+    public void gapNotCounted() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+
+        //2024-03-31, 2:00 to 3:00 is skipped in Paris
+        ZonedDateTime sunday = at("2024-03-31T00:00", "Europe/Paris");
+        assertEquals(Duration.ofMinutes(15 + 20 + 120),
+                calendar.getDuration(sunday, sunday.plusDays(1)));
+        //the working time goes on across the transition
+        assertEquals(at("2024-03-31T03:20", "Europe/Paris"), calendar
+                .nextNonWorkingTime(at("2024-03-31T01:50", "Europe/Paris")));
+        assertEquals(1, calendar.workingIntervals(sunday,
+                sunday.plusHours(4)).count());
+        assertEquals(at("2024-03-31T03:10", "Europe/Paris"), calendar.plus(
+                at("2024-03-31T01:45", "Europe/Paris"),
+                Duration.ofMinutes(25)));
+    }
+
+    @Test
+    public void overlapCountedTwice() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+
+        //2024-10-27, 2:00 to 3:00 is repeated in Paris
+        ZonedDateTime sunday = at("2024-10-27T00:00", "Europe/Paris");
+        assertEquals(Duration.ofMinutes(30 + 15 + 20 + 40 + 120),
+                calendar.getDuration(sunday, sunday.plusDays(1)));
+        ZonedDateTime firstPass = at("2024-10-27T02:15", "Europe/Paris")
+                .withEarlierOffsetAtOverlap();
+        ZonedDateTime secondPass = firstPass.withLaterOffsetAtOverlap();
+        assertEquals(firstPass.plusMinutes(25),
+                calendar.nextWorkingTime(firstPass));
+        assertEquals(firstPass.minusMinutes(10), calendar.minus(
+                secondPass.plusMinutes(40), Duration.ofMinutes(60)));
+        assertEquals(3, calendar.workingIntervals(sunday.plusHours(1),
+                sunday.plusHours(4)).count());
+    }
+
+    @Test
+    public void halfHourTransitions() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+
+        //Lord Howe goes from 2:00 to 2:30 on 2024-10-06, a sunday
+        ZonedDateTime sunday = at("2024-10-06T00:00", "Australia/Lord_Howe");
+        assertEquals(Duration.ofMinutes(15 + 40 + 120),
+                calendar.getDuration(sunday, sunday.plusDays(1)));
+        //and from 2:00 back to 1:30 on 2024-04-07, a sunday
+        sunday = at("2024-04-07T00:00", "Australia/Lord_Howe");
+        assertEquals(Duration.ofMinutes(15 + 30 + 40 + 120),
+                calendar.getDuration(sunday, sunday.plusDays(1)));
+    }
+
+    @Test
+    public void endInAnotherZone() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+        ZonedDateTime start = at("2024-03-08T00:00", "America/New_York");
+        ZonedDateTime end = start.plusDays(4);
+
+        assertEquals(calendar.getDuration(start, end), calendar.getDuration(
+                start, end.withZoneSameInstant(ZoneId.of("UTC"))));
+    }
+
+    @Test
+    public void sameAsElapsedMinutes() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+        Random random = new Random(42);
+
+        for (String zoneId : ZONES) {
+            ZoneId zone = ZoneId.of(zoneId);
+            List<Instant> transitions = transitions(zone);
+            long[] starts = new long[60];
+            long[] ends = new long[starts.length];
+            for (int i = 0; i < starts.length; i++) {
+                Instant transition =
+                        transitions.get(random.nextInt(transitions.size()));
+                ZonedDateTime start = transition.atZone(zone)
+                        .minusMinutes(random.nextInt(4 * 1_440));
+                ZonedDateTime end = start
+                        .plusMinutes(random.nextInt(8 * 1_440));
+                starts[i] = start.toEpochSecond();
+                ends[i] = end.toEpochSecond();
+
+                Duration elapsed = elapsedMinutes(calendar, start, end);
+                String message = zoneId + " " + start + " " + end;
+                assertEquals(message, elapsed,
+                        calendar.getDuration(start, end));
+                assertEquals(message, elapsed.negated(),
+                        calendar.getDuration(end, start));
+                assertEquals(message, elapsed.toMillis(),
+                        calendar.businessMillisBetween(
+                                start.toInstant().toEpochMilli(),
+                                end.toInstant().toEpochMilli(), zone));
+                assertEquals(message, elapsed, calendar
+                        .workingIntervals(start, end)
+                        .map(WorkingInterval::getDuration)
+                        .reduce(Duration.ZERO, Duration::plus));
+            }
+
+            long[] out = new long[starts.length];
+            calendar.durations(starts, ends, zone, out);
+            for (int i = 0; i < starts.length; i++) {
+                assertEquals(calendar.businessMillisBetween(starts[i] * 1000,
+                        ends[i] * 1000, zone) / 1000, out[i]);
+            }
+        }
+    }
+
+    @Test
+    public void businessSecondsAcrossOverlap() {
+        Set<BusinessDay> businessDays = new HashSet<>();
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            businessDays.add(BusinessDay.of(dayOfWeek, slots("0:00-23:59")));
+        }
+        ImmutableBusinessCalendar calendar = BusinessCalendar.builder()
+                .businessDays(businessDays).build();
+        ZonedDateTime start = at("2023-10-29T02:50", "Europe/Paris");
+        ZonedDateTime end = start.plusMinutes(20);
+
+        assertEquals(Duration.ofMinutes(20), calendar.getDuration(start, end));
+        assertEquals(1_200, calendar.toBusinessSeconds(end.toInstant(),
+                start.getZone()) - calendar.toBusinessSeconds(
+                start.toInstant(), start.getZone()));
+    }
+
+    @Test
+    public void businessSecondsNeverDecrease() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+
+        for (String zoneId : ZONES) {
+            ZoneId zone = ZoneId.of(zoneId);
+            for (Instant transition : transitions(zone)) {
+                Instant previous = transition.minus(3, ChronoUnit.HOURS);
+                long previousSeconds =
+                        calendar.toBusinessSeconds(previous, zone);
+                for (int step = 0; step < 36; step++) {
+                    Instant instant = previous.plus(10, ChronoUnit.MINUTES);
+                    long seconds = calendar.toBusinessSeconds(instant, zone);
+                    String message = zoneId + " " + instant;
+                    assertTrue(message, seconds >= previousSeconds);
+                    assertEquals(message, calendar.getDuration(
+                            previous.atZone(zone), instant.atZone(zone))
+                            .getSeconds(), seconds - previousSeconds);
+                    assertEquals(message, seconds, calendar.toBusinessSeconds(
+                            calendar.fromBusinessSeconds(seconds, zone),
+                            zone));
+                    previous = instant;
+                    previousSeconds = seconds;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void navigationSameAsElapsedMinutes() {
+        ImmutableBusinessCalendar calendar = nightShifts();
+        Random random = new Random(7);
+
+        for (String zoneId : ZONES) {
+            ZoneId zone = ZoneId.of(zoneId);
+            List<Instant> transitions = transitions(zone);
+            for (int i = 0; i < 100; i++) {
+                Instant transition =
+                        transitions.get(random.nextInt(transitions.size()));
+                ZonedDateTime time = transition.atZone(zone)
+                        .minusMinutes(random.nextInt(2 * 1_440))
+                        .truncatedTo(ChronoUnit.MINUTES);
+                String message = zoneId + " " + time;
+
+                ZonedDateTime next = time;
+                while (!calendar.isWorkingTime(next)) {
+                    next = next.plusMinutes(1);
+                }
+                assertEquals(message, next.toInstant(),
+                        calendar.nextWorkingTime(time).toInstant());
+                ZonedDateTime previous = time;
+                while (!calendar.isWorkingTime(previous.minusMinutes(1))) {
+                    previous = previous.minusMinutes(1);
+                }
+                assertEquals(message, previous.toInstant(),
+                        calendar.previousWorkingTime(time).toInstant());
+
+                Duration duration =
+                        Duration.ofMinutes(1 + random.nextInt(3_000));
+                ZonedDateTime plus = calendar.plus(time, duration);
+                assertEquals(message, duration,
+                        calendar.getDuration(time, plus));
+                assertTrue(message,
+                        calendar.isWorkingTime(plus.minusMinutes(1)));
+                ZonedDateTime minus = calendar.minus(time, duration);
+                assertEquals(message, duration,
+                        calendar.getDuration(minus, time));
+                assertTrue(message, calendar.isWorkingTime(minus));
+            }
+        }
+    }
+
+    @Test
+    public void transitionsOutsideOfTheHorizon() {
+        ZoneTable zoneTable = ZoneTable.of(ZoneId.of("Europe/Paris"));
+        ZonedDateTime time = at("2150-06-01T00:00", "Europe/Paris");
+
+        long next = zoneTable.nextTransition(time.toEpochSecond());
+        assertEquals(ZoneId.of("Europe/Paris").getRules()
+                .nextTransition(time.toInstant()).toEpochSecond(), next);
+        assertEquals(time.getOffset().getTotalSeconds(),
+                zoneTable.offsetSeconds(zoneTable.previousTransition(next)));
+        assertEquals(Long.MAX_VALUE, ZoneTable.of(ZoneId.of("UTC"))
+                .nextTransition(time.toEpochSecond()));
+    }
+}
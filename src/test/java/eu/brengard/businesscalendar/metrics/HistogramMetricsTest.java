@@ -0,0 +1,160 @@
+package eu.brengard.businesscalendar.metrics;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessDay;
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.CalendarStore;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import eu.brengard.businesscalendar.entitites.StoredCalendar;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HistogramMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final ZonedDateTime MONDAY = ZonedDateTime.of(
+            LocalDateTime.parse("2024-01-08T08:00"),
+            ZoneId.of("Europe/Paris"));
+
+    private static ImmutableBusinessCalendar calendar(String timeSlots) {
+        return BusinessCalendar.builder()
+                .businessDay(BusinessDay.of(DayOfWeek.MONDAY,
+                        BusinessTimeSlot.parseMultiple(timeSlots)))
+                .businessDay(BusinessDay.of(DayOfWeek.TUESDAY,
+                        BusinessTimeSlot.parseMultiple(timeSlots)))
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.install(CalendarMetrics.NOOP);
+    }
+
+    @Test
+    public void noopByDefault() {
+        assertSame(CalendarMetrics.NOOP, Metrics.installed());
+    }
+
+    @Test
+    public void histogram() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (long value = 0; value < 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(4950, histogram.getSum());
+        assertEquals(99, histogram.getMax());
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(32, histogram.getCount(6));
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(99, histogram.getPercentile(100));
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(Long.MAX_VALUE,
+                Histogram.upperBound(Histogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void callsAndSpansByTenant() {
+        ImmutableBusinessCalendar acme = calendar("9:00-12:00");
+        ImmutableBusinessCalendar globex = calendar("8:00-18:00");
+        Map<Object, String> tenants = new IdentityHashMap<>();
+        tenants.put(acme, "acme");
+        tenants.put(globex, "globex");
+        HistogramMetrics metrics = HistogramMetrics.of(tenants::get);
+        Metrics.install(metrics);
+
+        assertEquals(Duration.ofHours(6),
+                acme.getDuration(MONDAY, MONDAY.plusDays(7)));
+        assertEquals(Duration.ofHours(-6),
+                acme.getDuration(MONDAY.plusDays(3), MONDAY));
+        assertEquals(Duration.ofHours(2),
+                globex.getDuration(MONDAY, MONDAY.plusHours(2)));
+
+        assertEquals(2, metrics.getNames().size());
+        HistogramMetrics.Stats acmeStats = metrics.getStats("acme");
+        assertEquals(2, acmeStats.getCalls());
+        assertEquals(2, acmeStats.getLatencies().getCount());
+        assertEquals(10, acmeStats.getSpanDays().getSum());
+        assertEquals(7, acmeStats.getSpanDays().getMax());
+        HistogramMetrics.Stats globexStats = metrics.getStats("globex");
+        assertEquals(1, globexStats.getCalls());
+        assertEquals(1, globexStats.getSpanDays().getCount(0));
+        assertNull(metrics.getStats("initech"));
+        assertEquals(0, metrics.getSlowQueries());
+    }
+
+    @Test
+    public void storedCalendar() throws IOException {
+        Path file = folder.newFile().toPath();
+        CalendarStore.write(file,
+                Collections.singletonMap("acme", calendar("9:00-12:00")));
+        StoredCalendar stored = CalendarStore.open(file).get("acme");
+        HistogramMetrics metrics = HistogramMetrics.of(
+                calendar -> calendar == stored ? "acme" : "other");
+        Metrics.install(metrics);
+
+        assertEquals(Duration.ofHours(6),
+                stored.getDuration(MONDAY, MONDAY.plusDays(7)));
+        assertEquals(1, metrics.getStats("acme").getCalls());
+        assertEquals(7, metrics.getStats("acme").getSpanDays().getMax());
+    }
+
+    @Test
+    public void sampledSlowQueries() {
+        ImmutableBusinessCalendar calendar = calendar("9:00-12:00");
+        HistogramMetrics metrics = HistogramMetrics.of(
+                c -> "acme", Duration.ZERO, 3);
+        Metrics.install(metrics);
+
+        for (int i = 0; i < 7; i++) {
+            calendar.getDuration(MONDAY, MONDAY.plusDays(i));
+        }
+        assertEquals(7, metrics.getSlowQueries());
+        assertEquals(7, metrics.getStats("acme").getCalls());
+
+        metrics = HistogramMetrics.of(c -> "acme", Duration.ofDays(1), 1);
+        Metrics.install(metrics);
+        calendar.getDuration(MONDAY, MONDAY.plusDays(1));
+        assertEquals(0, metrics.getSlowQueries());
+    }
+
+    @Test
+    public void noopNotCalled() {
+        AtomicInteger calls = new AtomicInteger();
+        ImmutableBusinessCalendar calendar = calendar("9:00-12:00");
+        Metrics.install((c, start, end, latency) -> calls.incrementAndGet());
+        calendar.getDuration(MONDAY, MONDAY.plusDays(1));
+        assertEquals(1, calls.get());
+
+        Metrics.install(CalendarMetrics.NOOP);
+        calendar.getDuration(MONDAY, MONDAY.plusDays(1));
+        assertEquals(1, calls.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void samplingNotPositive() {
+        HistogramMetrics.of(c -> "acme", Duration.ZERO, 0);
+    }
+}
@@ -0,0 +1,219 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessDay;
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.HolidayRule;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BusinessCalendarCodecTest {
+    private BusinessCalendar businessCalendar;
+
+    @Before
+    public void setUp() {
+        Set<BusinessTimeSlot> timeSlots = new HashSet<>();
+        timeSlots.add(BusinessTimeSlot.of(LocalTime.of(9, 0),
+                LocalTime.of(12, 0)));
+        timeSlots.add(BusinessTimeSlot.of(LocalTime.of(13, 0),
+                LocalTime.MAX));
+        Set<BusinessDay> businessDays = new HashSet<>();
+        businessDays.add(BusinessDay.of(DayOfWeek.MONDAY, timeSlots));
+        businessDays.add(BusinessDay.of(DayOfWeek.FRIDAY, timeSlots));
+
+        Set<LocalDate> holidays = new HashSet<>();
+        for (int year = 1960; year < 2060; year++) {
+            holidays.add(LocalDate.of(year, 1, 1));
+            holidays.add(LocalDate.of(year, 5, 1));
+            holidays.add(LocalDate.of(year, 12, 25));
+        }
+
+        businessCalendar = BusinessCalendar.of(businessDays, holidays);
+        businessCalendar.setMinuteResolution(true);
+    }
+
+    private static byte[] write(BusinessCalendar businessCalendar)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BusinessCalendarCodec.write(businessCalendar,
+                new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static ImmutableBusinessCalendar read(byte[] bytes)
+            throws IOException {
+        return BusinessCalendarCodec.read(
+                new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        ImmutableBusinessCalendar read = read(write(businessCalendar));
+
+        assertEquals(ImmutableBusinessCalendar.copyOf(businessCalendar), read);
+        assertTrue(read.isMinuteResolution());
+        assertTrue(read.isHoliday(LocalDate.of(1960, 1, 1)));
+    }
+
+    @Test
+    public void roundTripEmpty() throws IOException {
+        BusinessCalendar empty = BusinessCalendar.empty();
+
+        assertEquals(ImmutableBusinessCalendar.copyOf(empty),
+                read(write(empty)));
+    }
+
+    @Test
+    public void smallerThanSerialization() throws IOException {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(serialized)) {
+            output.writeObject(businessCalendar);
+        }
+
+        assertTrue(write(businessCalendar).length * 10 < serialized.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void readBadMagic() throws IOException {
+        byte[] bytes = write(businessCalendar);
+        bytes[0] = 0;
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void readUnknownVersion() throws IOException {
+        byte[] bytes = write(businessCalendar);
+        bytes[4] = BusinessCalendarCodec.VERSION + 1;
+        read(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void readTruncated() throws IOException {
+        byte[] bytes = write(businessCalendar);
+        read(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test
+    public void readCorrupted() {
+        byte[] bytes;
+        try {
+            bytes = write(businessCalendar);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        //the length of the body
+        bytes[8] -= 1;
+        try {
+            read(bytes);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupted"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readLengthLongerThanInput() throws IOException {
+        byte[] bytes = write(businessCalendar);
+        ByteBuffer.wrap(bytes).putInt(5, Integer.MAX_VALUE);
+        read(bytes);
+    }
+
+    @Test
+    public void readNanoOfSecondOutOfRange() throws IOException {
+        Set<BusinessTimeSlot> timeSlots = new HashSet<>();
+        timeSlots.add(BusinessTimeSlot.of(LocalTime.of(9, 0, 0, 999_999_999),
+                LocalTime.of(12, 0)));
+        byte[] bytes = write(BusinessCalendar.of(Collections.singleton(
+                BusinessDay.of(DayOfWeek.MONDAY, timeSlots))));
+        //the nano-of-second 999_999_999 becomes 1_000_000_000
+        byte[] nano = {(byte) 0xFF, (byte) 0x93, (byte) 0xEB, (byte) 0xDC, 3};
+        int index = 9;
+        while (!Arrays.equals(nano,
+                Arrays.copyOfRange(bytes, index, index + nano.length))) {
+            index++;
+        }
+        bytes[index] = (byte) 0x80;
+        bytes[index + 1] = (byte) 0x94;
+        try {
+            read(bytes);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupted"));
+        }
+    }
+
+    @Test
+    public void readNegativeSize() throws IOException {
+        //a version 2 body holding a single holiday rule whose length, ten
+        //bytes long, decodes to -1
+        byte[] bytes = write(BusinessCalendar.empty());
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, 1};
+        ByteBuffer corrupted = ByteBuffer.allocate(bytes.length + 10);
+        corrupted.put(bytes, 0, bytes.length - 2).put((byte) 1).put(negative);
+        corrupted.put(4, (byte) 2).putInt(5, corrupted.position() - 9);
+        try {
+            read(Arrays.copyOf(corrupted.array(), corrupted.position()));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("corrupted"));
+        }
+    }
+
+    @Test
+    public void roundTripHolidayRules() throws IOException {
+        businessCalendar.addHolidayRule(HolidayRule.parse("easter+1"));
+        businessCalendar.addHolidayRule(HolidayRule.parse("26/12>monday"));
+        ImmutableBusinessCalendar read = read(write(businessCalendar));
+
+        assertEquals(ImmutableBusinessCalendar.copyOf(businessCalendar), read);
+        assertTrue(read.isHoliday(LocalDate.of(2024, 4, 1)));
+    }
+
+    @Test
+    public void roundTripDayOverrides() throws IOException {
+        businessCalendar.setDayOverride(LocalDate.of(2024, 12, 24),
+                BusinessTimeSlot.parseMultiple("9:00-12:00"));
+        businessCalendar.setDayOverride(LocalDate.of(1969, 7, 21),
+                BusinessTimeSlot.parseMultiple("8:00-12:00,13:00-22:00"));
+        businessCalendar.setDayOverride(LocalDate.of(2024, 12, 31),
+                new HashSet<>());
+        ImmutableBusinessCalendar read = read(write(businessCalendar));
+
+        assertEquals(ImmutableBusinessCalendar.copyOf(businessCalendar), read);
+        assertEquals(businessCalendar.getDayOverrides(),
+                read.getDayOverrides());
+    }
+
+    @Test
+    public void readVersion1() throws IOException {
+        //a version 1 body is a version 3 body without the holiday rules and
+        //the overridden days, both empty there
+        byte[] bytes = write(businessCalendar);
+        byte[] version1 = Arrays.copyOf(bytes, bytes.length - 2);
+        version1[4] = 1;
+        ByteBuffer.wrap(version1).putInt(5, version1.length - 9);
+
+        assertEquals(ImmutableBusinessCalendar.copyOf(businessCalendar),
+                read(version1));
+    }
+}
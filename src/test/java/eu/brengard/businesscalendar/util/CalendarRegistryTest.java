@@ -0,0 +1,182 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.BusinessCalendar;
+import eu.brengard.businesscalendar.entitites.BusinessDay;
+import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CalendarRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static BusinessCalendar calendar(DayOfWeek dayOfWeek) {
+        return BusinessCalendar.of(Collections.singleton(BusinessDay.of(
+                dayOfWeek, Collections.singleton(BusinessTimeSlot.of(
+                        LocalTime.of(9, 0), LocalTime.of(17, 0))))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofZeroMaximumSize() {
+        CalendarRegistry.of(tenantId -> null, 0);
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        CalendarRegistry registry = CalendarRegistry.of(
+                tenantId -> calendar(DayOfWeek.MONDAY), 10);
+
+        ImmutableBusinessCalendar calendar = registry.get("a");
+        assertSame(calendar, registry.get("a"));
+        assertEquals(1, registry.getMissCount());
+        assertEquals(1, registry.getHitCount());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void unknownTenant() {
+        CalendarRegistry registry = CalendarRegistry.of(tenantId -> null, 10);
+
+        assertNull(registry.get("a"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void deduplicateByContent() {
+        CalendarRegistry registry = CalendarRegistry.of(
+                tenantId -> calendar(tenantId.equals("c")
+                        ? DayOfWeek.TUESDAY : DayOfWeek.MONDAY), 10);
+
+        assertSame(registry.get("a"), registry.get("b"));
+        assertNotSame(registry.get("a"), registry.get("c"));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        AtomicInteger loads = new AtomicInteger();
+        CalendarRegistry registry = CalendarRegistry.of(tenantId -> {
+            loads.incrementAndGet();
+            return calendar(DayOfWeek.MONDAY);
+        }, 2);
+
+        registry.get("a");
+        registry.get("b");
+        registry.get("a");
+        registry.get("c");
+        assertEquals(1, registry.getEvictionCount());
+        assertEquals(2, registry.size());
+
+        registry.get("a");
+        assertEquals(3, loads.get());
+        registry.get("b");
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        CalendarRegistry registry = CalendarRegistry.of(tenantId -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException();
+            }
+            return calendar(DayOfWeek.MONDAY);
+        }, 10);
+
+        try {
+            registry.get("a");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, registry.size());
+        }
+        assertNotNull(registry.get("a"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidate() {
+        AtomicInteger loads = new AtomicInteger();
+        CalendarRegistry registry = CalendarRegistry.of(tenantId -> {
+            loads.incrementAndGet();
+            return calendar(DayOfWeek.MONDAY);
+        }, 10);
+
+        registry.get("a");
+        registry.invalidate("a");
+        registry.get("a");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void loadOnceUnderConcurrentAccess() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CalendarRegistry registry = CalendarRegistry.of(tenantId -> {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return calendar(DayOfWeek.MONDAY);
+        }, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ImmutableBusinessCalendar>> futures =
+                    new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return registry.get("a");
+                }));
+            }
+            start.countDown();
+            ImmutableBusinessCalendar calendar = futures.get(0).get();
+            for (Future<ImmutableBusinessCalendar> future : futures) {
+                assertSame(calendar, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, registry.getMissCount());
+        assertEquals(7, registry.getHitCount());
+    }
+
+    @Test
+    public void ofDirectory() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Files.write(directory.resolve("acme.properties"),
+                "weekday.monday=9:00-17:00\nholidays=21/3/2016\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        CalendarRegistry registry =
+                CalendarRegistry.of(CalendarSource.ofDirectory(directory), 10);
+
+        ImmutableBusinessCalendar calendar = registry.get("acme");
+        assertEquals(1, calendar.getBusinessDays().size());
+        assertTrue(calendar.isHoliday(LocalDate.of(2016, 3, 21)));
+        assertNull(registry.get("unknown"));
+        assertNull(registry.get("../acme"));
+    }
+}
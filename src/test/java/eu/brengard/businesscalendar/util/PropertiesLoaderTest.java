@@ -2,16 +2,23 @@ package eu.brengard.businesscalendar.util;
 
 import eu.brengard.businesscalendar.entitites.BusinessDay;
 import eu.brengard.businesscalendar.entitites.BusinessTimeSlot;
+import eu.brengard.businesscalendar.entitites.HolidayRule;
 import eu.brengard.businesscalendar.exceptions.PropertiesLoaderLoadException;
+import eu.brengard.businesscalendar.exceptions.PropertiesLoaderParseException;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
@@ -81,4 +88,144 @@ public class PropertiesLoaderTest {
         assertEquals(holidaysFromProperties, holidays);
     }
 
-}
\ No newline at end of file
+    private static PropertiesLoader load(String properties) {
+        return PropertiesLoader.load(new ByteArrayInputStream(
+                properties.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    public void getHolidaysSmartResolution() {
+        Set<LocalDate> holidays =
+                load("holidays=1/1/2016,31/2/2016,31/4/2015,\n").getHolidays();
+
+        HashSet<LocalDate> expected = new HashSet<>();
+        expected.add(LocalDate.of(2016, 1, 1));
+        expected.add(LocalDate.of(2016, 2, 29));
+        expected.add(LocalDate.of(2015, 4, 30));
+
+        assertEquals(expected, holidays);
+    }
+
+    @Test
+    public void getHolidaysCustomPattern() {
+        Set<LocalDate> holidays = load("date.pattern=yyyy-MM-dd\n"
+                + "holidays=2016-03-21,2016-03-23\n").getHolidays();
+
+        HashSet<LocalDate> expected = new HashSet<>();
+        expected.add(LocalDate.of(2016, 3, 21));
+        expected.add(LocalDate.of(2016, 3, 23));
+
+        assertEquals(expected, holidays);
+    }
+
+    @Test
+    public void getHolidaysParseErrorLineAndColumn() {
+        try {
+            load("#holidays\nweekday.monday=9:00-17:00\n"
+                    + "holidays = 21/3/2016,23/13/2016\n").getHolidays();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals("holidays", e.getKey());
+            assertEquals(3, e.getLine());
+            assertEquals(22, e.getColumn());
+        }
+    }
+
+    @Test
+    public void getHolidaysCustomPatternParseErrorColumn() {
+        try {
+            load("date.pattern=yyyy-MM-dd\r\n"
+                    + "holidays=2016-03-21,2016/03/23\r\n").getHolidays();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals(2, e.getLine());
+            assertEquals(25, e.getColumn());
+        }
+    }
+
+    @Test
+    public void getBusinessDaysParseErrorLineAndColumn() {
+        try {
+            load("holidays=21/3/2016\n"
+                    + "weekday.monday=9:00-12:00,13:00-17:0\n")
+                    .getBusinessDays();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals("weekday.monday", e.getKey());
+            assertEquals(2, e.getLine());
+            assertEquals(36, e.getColumn());
+        }
+    }
+
+    @Test
+    public void parseErrorColumnWithoutFile() {
+        Properties properties = new Properties();
+        properties.setProperty("holidays", "21/3/2016,x");
+        try {
+            PropertiesLoader.of(properties).getHolidays();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals(0, e.getLine());
+            assertEquals(11, e.getColumn());
+        }
+    }
+
+    @Test
+    public void getHolidayRules() {
+        Set<HolidayRule> holidayRules = load(
+                "holiday.rules=1/1>monday,easter+1,monday#-1/5,\n")
+                .getHolidayRules();
+
+        HashSet<HolidayRule> expected = new HashSet<>();
+        expected.add(HolidayRule.parse("1/1").observedOnMonday());
+        expected.add(HolidayRule.easter(1));
+        expected.add(HolidayRule.parse("monday#-1/5"));
+
+        assertEquals(expected, holidayRules);
+    }
+
+    @Test
+    public void getHolidayRulesParseErrorLineAndColumn() {
+        try {
+            load("holidays=21/3/2016\n"
+                    + "holiday.rules=25/12,easter+a\n").getHolidayRules();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals("holiday.rules", e.getKey());
+            assertEquals(2, e.getLine());
+            assertEquals(28, e.getColumn());
+        }
+    }
+
+    @Test
+    public void getDayOverrides() {
+        Map<LocalDate, Set<BusinessTimeSlot>> dayOverrides = load(
+                "day.overrides=24/12/2024=9:00-12:00;31/12/2024=;"
+                        + "29/11/2024=9:00-12:00,13:00-22:00;1/1/2025;\n")
+                .getDayOverrides();
+
+        Map<LocalDate, Set<BusinessTimeSlot>> expected = new HashMap<>();
+        expected.put(LocalDate.of(2024, 12, 24),
+                BusinessTimeSlot.parseMultiple("9:00-12:00"));
+        expected.put(LocalDate.of(2024, 12, 31), new HashSet<>());
+        expected.put(LocalDate.of(2024, 11, 29),
+                BusinessTimeSlot.parseMultiple("9:00-12:00,13:00-22:00"));
+        expected.put(LocalDate.of(2025, 1, 1), new HashSet<>());
+
+        assertEquals(expected, dayOverrides);
+    }
+
+    @Test
+    public void getDayOverridesParseErrorLineAndColumn() {
+        try {
+            load("holidays=21/3/2016\n"
+                    + "day.overrides=24/12/2024=9:00-1a:00\n")
+                    .getDayOverrides();
+            fail();
+        } catch (PropertiesLoaderParseException e) {
+            assertEquals("day.overrides", e.getKey());
+            assertEquals(2, e.getLine());
+            assertEquals(32, e.getColumn());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package eu.brengard.businesscalendar.util;
+
+import eu.brengard.businesscalendar.entitites.ImmutableBusinessCalendar;
+import eu.brengard.businesscalendar.exceptions.PropertiesLoaderLoadException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class ReloadingPropertiesLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    private ReloadingPropertiesLoader loader;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.getRoot().toPath().resolve("business_calendar.properties");
+        write("weekday.monday=9:00-17:00\nholidays=21/3/2016\n");
+        loader = ReloadingPropertiesLoader.watch(Duration.ofMillis(50), file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        loader.close();
+    }
+
+    @Test
+    public void load() {
+        ImmutableBusinessCalendar calendar = loader.getCalendar();
+        assertEquals(1, calendar.getBusinessDays().size());
+        assertTrue(calendar.isHoliday(LocalDate.of(2016, 3, 21)));
+    }
+
+    @Test(expected = PropertiesLoaderLoadException.class)
+    public void watchMissingFile() {
+        ReloadingPropertiesLoader.watch(Duration.ofMillis(50),
+                folder.getRoot().toPath().resolve("missing.properties"));
+    }
+
+    @Test
+    public void watchMissingFileKeepsCause() {
+        try {
+            ReloadingPropertiesLoader.watch(Duration.ofMillis(50),
+                    folder.getRoot().toPath().resolve("missing.properties"));
+            fail();
+        } catch (PropertiesLoaderLoadException e) {
+            assertTrue(e.getCause() instanceof NoSuchFileException);
+        }
+    }
+
+    @Test
+    public void reload() throws IOException {
+        ImmutableBusinessCalendar before = loader.getCalendar();
+        write("weekday.monday=9:00-17:00\nholidays=21/3/2016,23/3/2016\n");
+
+        assertTrue(loader.reload());
+        assertNotSame(before, loader.getCalendar());
+        assertTrue(loader.getCalendar().isHoliday(LocalDate.of(2016, 3, 23)));
+        assertFalse(before.isHoliday(LocalDate.of(2016, 3, 23)));
+    }
+
+    @Test
+    public void reloadFailureKeepsLastCalendar() throws IOException {
+        ImmutableBusinessCalendar before = loader.getCalendar();
+        write("weekday.monday=9:00-17:00\nholidays=not a date\n");
+
+        assertFalse(loader.reload());
+        assertSame(before, loader.getCalendar());
+    }
+
+    @Test
+    public void reloadOnModification() throws Exception {
+        write("weekday.monday=9:00-17:00\nweekday.tuesday=9:00-17:00\n");
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (loader.getCalendar().getBusinessDays().size() != 2
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, loader.getCalendar().getBusinessDays().size());
+        assertTrue(loader.getCalendar().getHolidays().isEmpty());
+    }
+
+    private void write(String properties) throws IOException {
+        Files.write(file, properties.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}